@@ -1,8 +1,10 @@
 package io.temporal.opentracing;
 
 import com.google.common.base.MoreObjects;
+import io.opentracing.SpanContext;
 import io.opentracing.Tracer;
 import io.opentracing.util.GlobalTracer;
+import io.temporal.common.Experimental;
 import io.temporal.opentracing.internal.ActionTypeAndNameSpanBuilderProvider;
 import java.util.Objects;
 import java.util.function.Predicate;
@@ -17,6 +19,8 @@ public class OpenTracingOptions {
   private final SpanBuilderProvider spanBuilderProvider;
   private final OpenTracingSpanContextCodec spanContextCodec;
   private final Predicate<Throwable> isErrorPredicate;
+  private final Predicate<SpanContext> isSampledPredicate;
+  private final boolean compactSpanContextHeader;
 
   public static OpenTracingOptions getDefaultInstance() {
     return DEFAULT_INSTANCE;
@@ -26,12 +30,16 @@ public class OpenTracingOptions {
       Tracer tracer,
       SpanBuilderProvider spanBuilderProvider,
       OpenTracingSpanContextCodec spanContextCodec,
-      Predicate<Throwable> isErrorPredicate) {
+      Predicate<Throwable> isErrorPredicate,
+      Predicate<SpanContext> isSampledPredicate,
+      boolean compactSpanContextHeader) {
     if (tracer == null) throw new IllegalArgumentException("tracer shouldn't be null");
     this.tracer = tracer;
     this.spanBuilderProvider = spanBuilderProvider;
     this.spanContextCodec = spanContextCodec;
     this.isErrorPredicate = isErrorPredicate;
+    this.isSampledPredicate = isSampledPredicate;
+    this.compactSpanContextHeader = compactSpanContextHeader;
   }
 
   @Nonnull
@@ -54,6 +62,15 @@ public class OpenTracingOptions {
     return isErrorPredicate;
   }
 
+  @Nonnull
+  public Predicate<SpanContext> getIsSampledPredicate() {
+    return isSampledPredicate;
+  }
+
+  public boolean isCompactSpanContextHeader() {
+    return compactSpanContextHeader;
+  }
+
   public static Builder newBuilder() {
     return new Builder();
   }
@@ -64,6 +81,8 @@ public class OpenTracingOptions {
     private OpenTracingSpanContextCodec spanContextCodec =
         OpenTracingSpanContextCodec.TEXT_MAP_INJECT_EXTRACT_CODEC;
     private Predicate<Throwable> isErrorPredicate = t -> true;
+    private Predicate<SpanContext> isSampledPredicate = c -> true;
+    private boolean compactSpanContextHeader;
 
     private Builder() {}
 
@@ -111,12 +130,42 @@ public class OpenTracingOptions {
       return this;
     }
 
+    /**
+     * @param isSampledPredicate indicates whether the trace of a parent span context is sampled.
+     *     OpenTracing doesn't expose the sampling decision, so it has to be provided for the
+     *     specific tracer, for example {@code c -> ((JaegerSpanContext) c).isSampled()}. No spans
+     *     are built for the Temporal calls under a parent span context that isn't sampled, the
+     *     parent span context is propagated as is. By default, all traces are considered sampled.
+     * @return this
+     */
+    @Experimental
+    public Builder setIsSampledPredicate(@Nonnull Predicate<SpanContext> isSampledPredicate) {
+      Objects.requireNonNull(isSampledPredicate, "isSampledPredicate can't be null");
+      this.isSampledPredicate = isSampledPredicate;
+      return this;
+    }
+
+    /**
+     * @param compactSpanContextHeader if true, the encoded span context is written to the Temporal
+     *     headers in a compact binary format instead of JSON. Both formats are always read, but
+     *     workers and clients of the SDK versions that don't support the binary format fail to read
+     *     it, so it should be enabled only after all of them are upgraded. Default is false.
+     * @return this
+     */
+    @Experimental
+    public Builder setCompactSpanContextHeader(boolean compactSpanContextHeader) {
+      this.compactSpanContextHeader = compactSpanContextHeader;
+      return this;
+    }
+
     public OpenTracingOptions build() {
       return new OpenTracingOptions(
           MoreObjects.firstNonNull(tracer, GlobalTracer.get()),
           spanBuilderProvider,
           spanContextCodec,
-          isErrorPredicate);
+          isErrorPredicate,
+          isSampledPredicate,
+          compactSpanContextHeader);
     }
   }
 }
@@ -1,17 +1,24 @@
 package io.temporal.opentracing.internal;
 
 import com.google.common.reflect.TypeToken;
+import com.google.protobuf.ByteString;
 import io.opentracing.Span;
 import io.opentracing.SpanContext;
 import io.opentracing.Tracer;
 import io.opentracing.propagation.Format;
 import io.opentracing.propagation.TextMapAdapter;
 import io.temporal.api.common.v1.Payload;
+import io.temporal.common.converter.DataConverterException;
 import io.temporal.common.converter.DefaultDataConverter;
+import io.temporal.common.converter.EncodingKeys;
 import io.temporal.common.converter.StdConverterBackwardsCompatAdapter;
 import io.temporal.common.interceptors.Header;
 import io.temporal.opentracing.OpenTracingOptions;
 import io.temporal.opentracing.OpenTracingSpanContextCodec;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.lang.reflect.Type;
 import java.util.HashMap;
 import java.util.Map;
@@ -23,10 +30,16 @@ public class ContextAccessor {
   private static final Type HASH_MAP_STRING_STRING_TYPE =
       new TypeToken<HashMap<String, String>>() {}.getType();
 
+  // [int entries]([UTF key][UTF value])*, see OpenTracingOptions#isCompactSpanContextHeader
+  private static final ByteString COMPACT_ENCODING =
+      ByteString.copyFromUtf8("binary/temporal-span-context");
+
   private final OpenTracingSpanContextCodec codec;
+  private final boolean compactHeader;
 
   public ContextAccessor(OpenTracingOptions options) {
     this.codec = options.getSpanContextCodec();
+    this.compactHeader = options.isCompactSpanContextHeader();
   }
 
   public Span writeSpanContextToHeader(
@@ -38,9 +51,15 @@ public class ContextAccessor {
 
   public void writeSpanContextToHeader(SpanContext spanContext, Header header, Tracer tracer) {
     Map<String, String> serializedSpanContext = codec.encode(spanContext, tracer);
-    Optional<Payload> payload =
-        DefaultDataConverter.STANDARD_INSTANCE.toPayload(serializedSpanContext);
-    header.getValues().put(TRACER_HEADER_KEY, payload.get());
+    Payload payload;
+    if (compactHeader) {
+      payload = toCompactPayload(serializedSpanContext);
+    } else {
+      Optional<Payload> jsonPayload =
+          DefaultDataConverter.STANDARD_INSTANCE.toPayload(serializedSpanContext);
+      payload = jsonPayload.get();
+    }
+    header.getValues().put(TRACER_HEADER_KEY, payload);
   }
 
   public SpanContext readSpanContextFromHeader(Header header, Tracer tracer) {
@@ -48,10 +67,16 @@ public class ContextAccessor {
     if (payload == null) {
       return null;
     }
-    @SuppressWarnings("unchecked")
-    Map<String, String> serializedSpanContext =
-        StdConverterBackwardsCompatAdapter.fromPayload(
-            payload, HashMap.class, HASH_MAP_STRING_STRING_TYPE);
+    Map<String, String> serializedSpanContext;
+    if (COMPACT_ENCODING.equals(payload.getMetadataMap().get(EncodingKeys.METADATA_ENCODING_KEY))) {
+      serializedSpanContext = fromCompactPayload(payload);
+    } else {
+      @SuppressWarnings("unchecked")
+      Map<String, String> fromJson =
+          StdConverterBackwardsCompatAdapter.fromPayload(
+              payload, HashMap.class, HASH_MAP_STRING_STRING_TYPE);
+      serializedSpanContext = fromJson;
+    }
     return codec.decode(serializedSpanContext, tracer);
   }
 
@@ -70,4 +95,34 @@ public class ContextAccessor {
   public SpanContext readSpanContextFromHeader(Map<String, String> header, Tracer tracer) {
     return tracer.extract(Format.Builtin.HTTP_HEADERS, new TextMapAdapter(header));
   }
+
+  private static Payload toCompactPayload(Map<String, String> serializedSpanContext) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeInt(serializedSpanContext.size());
+      for (Map.Entry<String, String> entry : serializedSpanContext.entrySet()) {
+        out.writeUTF(entry.getKey());
+        out.writeUTF(entry.getValue());
+      }
+    } catch (IOException e) {
+      throw new DataConverterException(e);
+    }
+    return Payload.newBuilder()
+        .putMetadata(EncodingKeys.METADATA_ENCODING_KEY, COMPACT_ENCODING)
+        .setData(ByteString.copyFrom(bytes.toByteArray()))
+        .build();
+  }
+
+  private static Map<String, String> fromCompactPayload(Payload payload) {
+    try (DataInputStream in = new DataInputStream(payload.getData().newInput())) {
+      int size = in.readInt();
+      Map<String, String> result = new HashMap<>(size * 2);
+      for (int i = 0; i < size; i++) {
+        result.put(in.readUTF(), in.readUTF());
+      }
+      return result;
+    } catch (IOException e) {
+      throw new DataConverterException(e);
+    }
+  }
 }
@@ -0,0 +1,149 @@
+package io.temporal.opentracing.internal;
+
+import io.opentracing.Span;
+import io.opentracing.SpanContext;
+import io.opentracing.Tracer;
+import io.opentracing.tag.Tag;
+import java.util.Map;
+
+/**
+ * Span used in place of the spans under a parent span context that isn't sampled. Nothing is built
+ * or reported by the tracer, the context of the span is the parent span context, so it's propagated
+ * to the headers and to the spans created under this one as is.
+ */
+final class NonRecordingSpan implements Span {
+  private final SpanContext parentSpanContext;
+
+  NonRecordingSpan(SpanContext parentSpanContext) {
+    this.parentSpanContext = parentSpanContext;
+  }
+
+  @Override
+  public SpanContext context() {
+    return parentSpanContext;
+  }
+
+  @Override
+  public Span setTag(String key, String value) {
+    return this;
+  }
+
+  @Override
+  public Span setTag(String key, boolean value) {
+    return this;
+  }
+
+  @Override
+  public Span setTag(String key, Number value) {
+    return this;
+  }
+
+  @Override
+  public <T> Span setTag(Tag<T> tag, T value) {
+    return this;
+  }
+
+  @Override
+  public Span log(Map<String, ?> fields) {
+    return this;
+  }
+
+  @Override
+  public Span log(long timestampMicroseconds, Map<String, ?> fields) {
+    return this;
+  }
+
+  @Override
+  public Span log(String event) {
+    return this;
+  }
+
+  @Override
+  public Span log(long timestampMicroseconds, String event) {
+    return this;
+  }
+
+  @Override
+  public Span setBaggageItem(String key, String value) {
+    return this;
+  }
+
+  @Override
+  public String getBaggageItem(String key) {
+    for (Map.Entry<String, String> item : parentSpanContext.baggageItems()) {
+      if (item.getKey().equals(key)) {
+        return item.getValue();
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public Span setOperationName(String operationName) {
+    return this;
+  }
+
+  @Override
+  public void finish() {}
+
+  @Override
+  public void finish(long finishMicros) {}
+
+  static final class Builder implements Tracer.SpanBuilder {
+    private final NonRecordingSpan span;
+
+    Builder(SpanContext parentSpanContext) {
+      this.span = new NonRecordingSpan(parentSpanContext);
+    }
+
+    @Override
+    public Tracer.SpanBuilder asChildOf(SpanContext parent) {
+      return this;
+    }
+
+    @Override
+    public Tracer.SpanBuilder asChildOf(Span parent) {
+      return this;
+    }
+
+    @Override
+    public Tracer.SpanBuilder addReference(String referenceType, SpanContext referencedContext) {
+      return this;
+    }
+
+    @Override
+    public Tracer.SpanBuilder ignoreActiveSpan() {
+      return this;
+    }
+
+    @Override
+    public Tracer.SpanBuilder withTag(String key, String value) {
+      return this;
+    }
+
+    @Override
+    public Tracer.SpanBuilder withTag(String key, boolean value) {
+      return this;
+    }
+
+    @Override
+    public Tracer.SpanBuilder withTag(String key, Number value) {
+      return this;
+    }
+
+    @Override
+    public <T> Tracer.SpanBuilder withTag(Tag<T> tag, T value) {
+      return this;
+    }
+
+    @Override
+    public Tracer.SpanBuilder withStartTimestamp(long microseconds) {
+      return this;
+    }
+
+    @Override
+    public Span start() {
+      return span;
+    }
+  }
+}
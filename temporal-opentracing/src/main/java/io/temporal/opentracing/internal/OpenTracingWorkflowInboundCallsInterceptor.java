@@ -4,12 +4,15 @@ import io.opentracing.Scope;
 import io.opentracing.Span;
 import io.opentracing.SpanContext;
 import io.opentracing.Tracer;
+import io.temporal.common.interceptors.Header;
 import io.temporal.common.interceptors.WorkflowInboundCallsInterceptor;
 import io.temporal.common.interceptors.WorkflowInboundCallsInterceptorBase;
 import io.temporal.common.interceptors.WorkflowOutboundCallsInterceptor;
 import io.temporal.internal.sync.DestroyWorkflowThreadError;
 import io.temporal.opentracing.OpenTracingOptions;
 import io.temporal.workflow.Workflow;
+import io.temporal.workflow.unsafe.WorkflowUnsafe;
+import javax.annotation.Nullable;
 
 public class OpenTracingWorkflowInboundCallsInterceptor
     extends WorkflowInboundCallsInterceptorBase {
@@ -65,6 +68,12 @@ public class OpenTracingWorkflowInboundCallsInterceptor
 
   @Override
   public void handleSignal(SignalInput input) {
+    if (WorkflowUnsafe.isReplaying()) {
+      try (Scope ignored = activateReplayedHandlerParent(input.getHeader())) {
+        super.handleSignal(input);
+      }
+      return;
+    }
     Tracer tracer = options.getTracer();
     SpanContext rootSpanContext =
         contextAccessor.readSpanContextFromHeader(input.getHeader(), tracer);
@@ -116,6 +125,11 @@ public class OpenTracingWorkflowInboundCallsInterceptor
 
   @Override
   public UpdateOutput executeUpdate(UpdateInput input) {
+    if (WorkflowUnsafe.isReplaying()) {
+      try (Scope ignored = activateReplayedHandlerParent(input.getHeader())) {
+        return super.executeUpdate(input);
+      }
+    }
     Tracer tracer = options.getTracer();
     SpanContext rootSpanContext =
         contextAccessor.readSpanContextFromHeader(input.getHeader(), tracer);
@@ -141,4 +155,19 @@ public class OpenTracingWorkflowInboundCallsInterceptor
       workflowSignalSpan.finish();
     }
   }
+
+  /**
+   * The span of a handler was reported when the handler was called originally, so it's not created
+   * again during replay. But a replayed handler may keep running after the replay, so the span
+   * context the handler was called with is activated without reporting a span, and the spans of the
+   * calls the handler makes from then on get it as their parent.
+   */
+  @Nullable
+  private Scope activateReplayedHandlerParent(Header header) {
+    Tracer tracer = options.getTracer();
+    SpanContext parentSpanContext = contextAccessor.readSpanContextFromHeader(header, tracer);
+    return parentSpanContext != null
+        ? tracer.scopeManager().activate(new NonRecordingSpan(parentSpanContext))
+        : null;
+  }
 }
@@ -276,6 +276,10 @@ public class SpanFactory {
       parent = parentSpanContext;
     }
 
+    if (parent != null && !options.getIsSampledPredicate().test(parent)) {
+      return new NonRecordingSpan.Builder(parent);
+    }
+
     SpanBuilder builder = options.getSpanBuilderProvider().createSpanBuilder(tracer, context);
 
     if (parent != null) {
@@ -0,0 +1,147 @@
+package io.temporal.opentracing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import io.opentracing.Scope;
+import io.opentracing.mock.MockSpan;
+import io.opentracing.mock.MockTracer;
+import io.opentracing.util.ThreadLocalScopeManager;
+import io.temporal.activity.ActivityInterface;
+import io.temporal.activity.ActivityMethod;
+import io.temporal.activity.ActivityOptions;
+import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowClientOptions;
+import io.temporal.client.WorkflowOptions;
+import io.temporal.client.WorkflowStub;
+import io.temporal.testing.internal.SDKTestWorkflowRule;
+import io.temporal.worker.WorkerFactoryOptions;
+import io.temporal.workflow.SignalMethod;
+import io.temporal.workflow.Workflow;
+import io.temporal.workflow.WorkflowInterface;
+import io.temporal.workflow.WorkflowMethod;
+import java.time.Duration;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+
+/**
+ * Tests that a signal handler that started before an eviction and keeps running after the replay
+ * still parents the spans of its calls under the span of the signal.
+ */
+public class ReplayedSignalHandlerTest {
+
+  private final MockTracer mockTracer =
+      new MockTracer(new ThreadLocalScopeManager(), MockTracer.Propagator.TEXT_MAP);
+
+  private final OpenTracingOptions OT_OPTIONS =
+      OpenTracingOptions.newBuilder().setTracer(mockTracer).build();
+
+  @Rule
+  public SDKTestWorkflowRule testWorkflowRule =
+      SDKTestWorkflowRule.newBuilder()
+          .setWorkflowClientOptions(
+              WorkflowClientOptions.newBuilder()
+                  .setInterceptors(new OpenTracingClientInterceptor(OT_OPTIONS))
+                  .validateAndBuildWithDefaults())
+          .setWorkerFactoryOptions(
+              WorkerFactoryOptions.newBuilder()
+                  .setWorkerInterceptors(new OpenTracingWorkerInterceptor(OT_OPTIONS))
+                  .validateAndBuildWithDefaults())
+          .setWorkflowTypes(WorkflowImpl.class)
+          .setActivityImplementations(new ActivityImpl())
+          .build();
+
+  @After
+  public void tearDown() {
+    mockTracer.reset();
+  }
+
+  @ActivityInterface
+  public interface TestActivity {
+    @ActivityMethod
+    String activity(String input);
+  }
+
+  @WorkflowInterface
+  public interface TestWorkflow {
+    @WorkflowMethod
+    String workflow();
+
+    @SignalMethod
+    void callActivity();
+
+    @SignalMethod
+    void proceed();
+  }
+
+  public static class ActivityImpl implements TestActivity {
+    @Override
+    public String activity(String input) {
+      return "bar";
+    }
+  }
+
+  public static class WorkflowImpl implements TestWorkflow {
+    private final TestActivity activity =
+        Workflow.newActivityStub(
+            TestActivity.class,
+            ActivityOptions.newBuilder()
+                .setStartToCloseTimeout(Duration.ofMinutes(1))
+                .validateAndBuildWithDefaults());
+
+    private boolean proceed;
+    private String result;
+
+    @Override
+    public String workflow() {
+      Workflow.await(() -> result != null);
+      return result;
+    }
+
+    @Override
+    public void callActivity() {
+      Workflow.await(() -> proceed);
+      result = activity.activity("input");
+    }
+
+    @Override
+    public void proceed() {
+      proceed = true;
+    }
+  }
+
+  @Test
+  public void handlerContinuingAfterReplayKeepsItsParent() {
+    MockSpan span = mockTracer.buildSpan("ClientFunction").start();
+
+    WorkflowClient client = testWorkflowRule.getWorkflowClient();
+    try (Scope scope = mockTracer.scopeManager().activate(span)) {
+      TestWorkflow workflow =
+          client.newWorkflowStub(
+              TestWorkflow.class,
+              WorkflowOptions.newBuilder()
+                  .setWorkflowExecutionTimeout(Duration.ofMinutes(1))
+                  .setTaskQueue(testWorkflowRule.getTaskQueue())
+                  .validateBuildWithDefaults());
+      String workflowId = WorkflowClient.start(workflow::workflow).getWorkflowId();
+      workflow.callActivity();
+      testWorkflowRule.waitForTheEndOfWFT(workflowId);
+      // the handler blocked in the evicted run is replayed and continues after the next signal
+      testWorkflowRule.invalidateWorkflowCache();
+      workflow.proceed();
+      assertEquals("bar", WorkflowStub.fromTyped(workflow).getResult(String.class));
+    } finally {
+      span.finish();
+    }
+
+    OpenTracingSpansHelper spansHelper = new OpenTracingSpansHelper(mockTracer.finishedSpans());
+
+    MockSpan signalSpan = spansHelper.getSpanByOperationName("SignalWorkflow:callActivity");
+    assertNotNull(signalSpan);
+
+    MockSpan activityStartSpan = spansHelper.getSpanByOperationName("StartActivity:Activity");
+    assertNotNull(activityStartSpan);
+    assertEquals(signalSpan.context().spanId(), activityStartSpan.parentId());
+  }
+}
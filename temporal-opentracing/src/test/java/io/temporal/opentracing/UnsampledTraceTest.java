@@ -0,0 +1,148 @@
+package io.temporal.opentracing;
+
+import static org.junit.Assert.*;
+
+import io.opentracing.Scope;
+import io.opentracing.Span;
+import io.opentracing.SpanContext;
+import io.opentracing.mock.MockSpan;
+import io.opentracing.mock.MockTracer;
+import io.opentracing.util.ThreadLocalScopeManager;
+import io.temporal.activity.ActivityInterface;
+import io.temporal.activity.ActivityMethod;
+import io.temporal.activity.ActivityOptions;
+import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowClientOptions;
+import io.temporal.client.WorkflowOptions;
+import io.temporal.testing.internal.SDKTestWorkflowRule;
+import io.temporal.worker.WorkerFactoryOptions;
+import io.temporal.workflow.Workflow;
+import io.temporal.workflow.WorkflowInterface;
+import io.temporal.workflow.WorkflowMethod;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class UnsampledTraceTest {
+
+  private static final String SAMPLED_BAGGAGE_KEY = "sampled";
+
+  private static final MockTracer mockTracer =
+      new MockTracer(new ThreadLocalScopeManager(), MockTracer.Propagator.TEXT_MAP);
+
+  private final OpenTracingOptions OT_OPTIONS =
+      OpenTracingOptions.newBuilder()
+          .setTracer(mockTracer)
+          .setIsSampledPredicate(UnsampledTraceTest::isSampled)
+          .setCompactSpanContextHeader(true)
+          .build();
+
+  @Rule
+  public SDKTestWorkflowRule testWorkflowRule =
+      SDKTestWorkflowRule.newBuilder()
+          .setWorkflowClientOptions(
+              WorkflowClientOptions.newBuilder()
+                  .setInterceptors(new OpenTracingClientInterceptor(OT_OPTIONS))
+                  .validateAndBuildWithDefaults())
+          .setWorkerFactoryOptions(
+              WorkerFactoryOptions.newBuilder()
+                  .setWorkerInterceptors(new OpenTracingWorkerInterceptor(OT_OPTIONS))
+                  .validateAndBuildWithDefaults())
+          .setWorkflowTypes(WorkflowImpl.class)
+          .setActivityImplementations(new ActivityImpl())
+          .build();
+
+  @After
+  public void tearDown() {
+    mockTracer.reset();
+  }
+
+  private static boolean isSampled(SpanContext spanContext) {
+    for (Map.Entry<String, String> item : spanContext.baggageItems()) {
+      if (item.getKey().equals(SAMPLED_BAGGAGE_KEY)) {
+        return Boolean.parseBoolean(item.getValue());
+      }
+    }
+    return true;
+  }
+
+  @ActivityInterface
+  public interface TestActivity {
+    @ActivityMethod
+    String activity1(String input);
+  }
+
+  @WorkflowInterface
+  public interface TestWorkflow {
+    @WorkflowMethod
+    String workflow1(String input);
+  }
+
+  public static class ActivityImpl implements TestActivity {
+    @Override
+    public String activity1(String input) {
+      Span activeSpan = mockTracer.scopeManager().activeSpan();
+      assertNotNull(activeSpan);
+      return activeSpan.getBaggageItem(SAMPLED_BAGGAGE_KEY);
+    }
+  }
+
+  public static class WorkflowImpl implements TestWorkflow {
+    private final TestActivity activity =
+        Workflow.newActivityStub(
+            TestActivity.class,
+            ActivityOptions.newBuilder()
+                .setStartToCloseTimeout(Duration.ofMinutes(1))
+                .validateAndBuildWithDefaults());
+
+    @Override
+    public String workflow1(String input) {
+      return activity.activity1(input);
+    }
+  }
+
+  @Test
+  public void noSpansAreBuiltForUnsampledTrace() {
+    assertEquals("false", executeWorkflowUnder("false"));
+
+    List<MockSpan> finishedSpans = mockTracer.finishedSpans();
+    assertEquals(1, finishedSpans.size());
+    assertEquals("ClientFunction", finishedSpans.get(0).operationName());
+  }
+
+  @Test
+  public void spansOfSampledTraceArePropagatedInCompactHeaders() {
+    assertEquals("true", executeWorkflowUnder("true"));
+
+    OpenTracingSpansHelper spansHelper = new OpenTracingSpansHelper(mockTracer.finishedSpans());
+    MockSpan clientSpan = spansHelper.getSpanByOperationName("ClientFunction");
+    MockSpan workflowStartSpan = spansHelper.getByParentSpan(clientSpan).get(0);
+    assertEquals("StartWorkflow:TestWorkflow", workflowStartSpan.operationName());
+    MockSpan workflowRunSpan = spansHelper.getByParentSpan(workflowStartSpan).get(0);
+    assertEquals("RunWorkflow:TestWorkflow", workflowRunSpan.operationName());
+    MockSpan activityStartSpan = spansHelper.getByParentSpan(workflowRunSpan).get(0);
+    assertEquals("StartActivity:Activity1", activityStartSpan.operationName());
+    MockSpan activityRunSpan = spansHelper.getByParentSpan(activityStartSpan).get(0);
+    assertEquals("RunActivity:Activity1", activityRunSpan.operationName());
+  }
+
+  private String executeWorkflowUnder(String sampled) {
+    Span span = mockTracer.buildSpan("ClientFunction").start();
+    span.setBaggageItem(SAMPLED_BAGGAGE_KEY, sampled);
+    WorkflowClient client = testWorkflowRule.getWorkflowClient();
+    try (Scope scope = mockTracer.scopeManager().activate(span)) {
+      TestWorkflow workflow =
+          client.newWorkflowStub(
+              TestWorkflow.class,
+              WorkflowOptions.newBuilder()
+                  .setTaskQueue(testWorkflowRule.getTaskQueue())
+                  .validateBuildWithDefaults());
+      return workflow.workflow1("input");
+    } finally {
+      span.finish();
+    }
+  }
+}
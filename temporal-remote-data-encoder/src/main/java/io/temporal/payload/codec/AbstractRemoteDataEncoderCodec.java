@@ -4,9 +4,18 @@ import com.google.protobuf.util.JsonFormat;
 import io.temporal.api.common.v1.Payload;
 import io.temporal.api.common.v1.Payloads;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Reader;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 /**
  * Performs encoding/decoding of the payloads via the Remote Data Encoder (RDE) available over http.
@@ -27,6 +36,16 @@ import javax.annotation.Nonnull;
  *       and sent in Http Request / Response body
  * </ul>
  *
+ * <p>RDE Server may additionally:
+ *
+ * <ul>
+ *   <li>Accept POST requests with "application/x-protobuf" content type carrying binary serialized
+ *       {@link Payloads} and respond with the same content type. A server that doesn't support it
+ *       should respond with 415 Unsupported Media Type, and the codec falls back to json.
+ *   <li>Accept POST requests with "application/x-temporal-payloads-batch" content type carrying
+ *       several independent encode or decode calls. See {@link RemoteDataEncoderBatch}.
+ * </ul>
+ *
  * <p>RDE Server may:
  *
  * <ul>
@@ -41,33 +60,79 @@ public abstract class AbstractRemoteDataEncoderCodec implements PayloadCodec {
   public static final String ENCODE_PATH_POSTFIX = "/encode";
   public static final String DECODE_PATH_POSTFIX = "/decode";
   public static final String CONTENT_TYPE_APPLICATION_JSON = "application/json";
+  public static final String CONTENT_TYPE_APPLICATION_X_PROTOBUF = "application/x-protobuf";
+  public static final String CONTENT_TYPE_PAYLOADS_BATCH = "application/x-temporal-payloads-batch";
 
   public static final JsonFormat.Parser JSON_FORMAT = JsonFormat.parser();
   public static final JsonFormat.Printer JSON_PRINTER = JsonFormat.printer();
 
   private final String rdeEncodeUrl;
   private final String rdeDecodeUrl;
+  private final @Nullable Batcher encodeBatcher;
+  private final @Nullable Batcher decodeBatcher;
+  // switched off if the server responds with 415 Unsupported Media Type to a binary request
+  private volatile boolean binary;
+  // switched off if the server responds with 415 Unsupported Media Type to a batch request
+  private volatile boolean batching;
 
   public AbstractRemoteDataEncoderCodec(String rdeUrl) {
+    this(rdeUrl, false, Duration.ZERO);
+  }
+
+  /**
+   * @param rdeUrl base url of the Remote Data Encoder
+   * @param binary if true, payloads are sent as binary protobuf instead of json. Subclasses using
+   *     this mode have to implement {@link #performPost(String, byte[], String)} and {@link
+   *     #supportsBinaryRequests()}. If the server doesn't support binary requests, the codec falls
+   *     back to json.
+   * @param batchWindow if positive and {@code binary} is true, concurrent encode and decode calls
+   *     arriving within this window are sent to the server in a single request. A call made while
+   *     no other request is in flight is sent right away, otherwise the first call of a batch waits
+   *     for the window to pass, so the window should stay short, in the order of milliseconds.
+   * @throws IllegalArgumentException if {@code binary} is true and the subclass doesn't support
+   *     binary requests
+   */
+  protected AbstractRemoteDataEncoderCodec(String rdeUrl, boolean binary, Duration batchWindow) {
+    if (binary && !supportsBinaryRequests()) {
+      throw new IllegalArgumentException(
+          getClass().getName() + " doesn't support binary Remote Data Encoder requests");
+    }
     this.rdeEncodeUrl = rdeUrl + ENCODE_PATH_POSTFIX;
     this.rdeDecodeUrl = rdeUrl + DECODE_PATH_POSTFIX;
+    this.binary = binary;
+    this.batching = binary && !batchWindow.isNegative() && !batchWindow.isZero();
+    this.encodeBatcher = batching ? new Batcher(rdeEncodeUrl, batchWindow) : null;
+    this.decodeBatcher = batching ? new Batcher(rdeDecodeUrl, batchWindow) : null;
   }
 
   @Nonnull
   @Override
   public List<Payload> encode(@Nonnull List<Payload> payloads) {
-    return transform(payloads, rdeEncodeUrl);
+    return encodeBatcher != null && batching
+        ? encodeBatcher.transform(payloads)
+        : transform(payloads, rdeEncodeUrl);
   }
 
   @Nonnull
   @Override
   public List<Payload> decode(@Nonnull List<Payload> payloads) {
-    return transform(payloads, rdeDecodeUrl);
+    return decodeBatcher != null && batching
+        ? decodeBatcher.transform(payloads)
+        : transform(payloads, rdeDecodeUrl);
   }
 
   protected List<Payload> transform(@Nonnull List<Payload> payloads, String url) {
     Payloads outgoingPayloads = Payloads.newBuilder().addAllPayloads(payloads).build();
     try {
+      if (binary) {
+        try (InputStream in =
+            performPost(url, outgoingPayloads.toByteArray(), CONTENT_TYPE_APPLICATION_X_PROTOBUF)) {
+          return Payloads.parseFrom(in).getPayloadsList();
+        } catch (UnsupportedMediaTypeException e) {
+          binary = false;
+          batching = false;
+        }
+      }
       String json = JSON_PRINTER.print(outgoingPayloads);
       try (Reader reader = performPost(url, json)) {
         Payloads.Builder incomingPayloads = Payloads.newBuilder();
@@ -79,6 +144,24 @@ public abstract class AbstractRemoteDataEncoderCodec implements PayloadCodec {
     }
   }
 
+  private List<List<Payload>> transformBatch(List<List<Payload>> calls, String url)
+      throws IOException {
+    try (InputStream in =
+        performPost(
+            url, RemoteDataEncoderBatch.pack(calls).toByteArray(), CONTENT_TYPE_PAYLOADS_BATCH)) {
+      List<List<Payload>> result = RemoteDataEncoderBatch.unpack(Payloads.parseFrom(in));
+      if (result.size() != calls.size()) {
+        throw new IOException(
+            "Remote Data Encoder responded with "
+                + result.size()
+                + " results to a batch of "
+                + calls.size()
+                + " calls");
+      }
+      return result;
+    }
+  }
+
   /**
    * An implementation should perform a blocking HTTP POST request to the {@code url} with
    * "Content-Type: application/json" header and supplied {@code json} as the body. The
@@ -93,4 +176,161 @@ public abstract class AbstractRemoteDataEncoderCodec implements PayloadCodec {
    *     Status code, "Content-Type: application/json" header and a body
    */
   protected abstract Reader performPost(String url, String json) throws IOException;
+
+  /**
+   * @return true if the implementation overrides {@link #performPost(String, byte[], String)}, the
+   *     binary mode can be enabled only in this case
+   */
+  protected boolean supportsBinaryRequests() {
+    return false;
+  }
+
+  /**
+   * An implementation should perform a blocking HTTP POST request to the {@code url} with the
+   * supplied {@code contentType} header and {@code body}. Required only if the binary mode is
+   * enabled, see {@link #supportsBinaryRequests()}.
+   *
+   * @param url encoding or decoding URL to call
+   * @param body binary serialized {@link Payloads} or a {@link RemoteDataEncoderBatch}
+   * @param contentType {@link #CONTENT_TYPE_APPLICATION_X_PROTOBUF} or {@link
+   *     #CONTENT_TYPE_PAYLOADS_BATCH}
+   * @return an {@link InputStream} to read the response body from, it will be closed by {@code
+   *     AbstractRemoteDataEncoderCodec}
+   * @throws UnsupportedMediaTypeException if the server responds with 415 Unsupported Media Type
+   * @throws IOException if an error occurs during the HTTP request or the response status is not
+   *     200
+   */
+  protected InputStream performPost(String url, byte[] body, String contentType)
+      throws IOException {
+    throw new UnsupportedOperationException(
+        getClass().getName() + " doesn't support binary Remote Data Encoder requests");
+  }
+
+  /** Signals that the Remote Data Encoder doesn't support the content type of the request. */
+  public static class UnsupportedMediaTypeException extends IOException {
+    public UnsupportedMediaTypeException(String message) {
+      super(message);
+    }
+  }
+
+  private static final class PendingCall {
+    private final List<Payload> payloads;
+    private final CompletableFuture<List<Payload>> result = new CompletableFuture<>();
+
+    private PendingCall(List<Payload> payloads) {
+      this.payloads = payloads;
+    }
+  }
+
+  /**
+   * Coalesces concurrent calls into a single request. The first call of a batch performs the
+   * request on its own thread on behalf of all the calls that joined the batch, so no background
+   * threads are needed. It waits for the batch window only while another batch is being sent,
+   * a call that has no one to share the request with is sent right away.
+   */
+  private final class Batcher {
+    private final String url;
+    private final long windowNanos;
+    private final Lock lock = new ReentrantLock();
+    private List<PendingCall> pending = new ArrayList<>();
+    // the number of the calls of the batches that are being sent
+    private int sending;
+
+    private Batcher(String url, Duration window) {
+      this.url = url;
+      this.windowNanos = window.toNanos();
+    }
+
+    List<Payload> transform(List<Payload> payloads) {
+      PendingCall call = new PendingCall(payloads);
+      boolean leader;
+      boolean concurrent;
+      lock.lock();
+      try {
+        leader = pending.isEmpty();
+        concurrent = sending > 0;
+        pending.add(call);
+      } finally {
+        lock.unlock();
+      }
+      if (leader) {
+        if (concurrent) {
+          try {
+            TimeUnit.NANOSECONDS.sleep(windowNanos);
+          } catch (InterruptedException e) {
+            // the calls that joined the batch are still sent, the interruption is preserved
+            Thread.currentThread().interrupt();
+          }
+        }
+        List<PendingCall> batch;
+        lock.lock();
+        try {
+          batch = pending;
+          pending = new ArrayList<>();
+          sending += batch.size();
+        } finally {
+          lock.unlock();
+        }
+        try {
+          send(batch);
+        } finally {
+          lock.lock();
+          try {
+            sending -= batch.size();
+          } finally {
+            lock.unlock();
+          }
+        }
+      }
+      try {
+        return call.result.join();
+      } catch (CompletionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof PayloadCodecException) {
+          throw (PayloadCodecException) cause;
+        }
+        throw new PayloadCodecException(cause);
+      }
+    }
+
+    private void send(List<PendingCall> batch) {
+      if (batch.size() == 1) {
+        PendingCall call = batch.get(0);
+        try {
+          call.result.complete(AbstractRemoteDataEncoderCodec.this.transform(call.payloads, url));
+        } catch (RuntimeException e) {
+          call.result.completeExceptionally(e);
+        }
+        return;
+      }
+      List<List<Payload>> calls = new ArrayList<>(batch.size());
+      for (PendingCall call : batch) {
+        calls.add(call.payloads);
+      }
+      try {
+        List<List<Payload>> results;
+        try {
+          results = transformBatch(calls, url);
+        } catch (UnsupportedMediaTypeException e) {
+          // the server doesn't support batches, send these calls and the following ones one by one
+          batching = false;
+          results = new ArrayList<>(batch.size());
+          for (List<Payload> payloads : calls) {
+            results.add(AbstractRemoteDataEncoderCodec.this.transform(payloads, url));
+          }
+        }
+        for (int i = 0; i < batch.size(); i++) {
+          batch.get(i).result.complete(results.get(i));
+        }
+      } catch (IOException | RuntimeException e) {
+        PayloadCodecException failure =
+            e instanceof PayloadCodecException
+                ? (PayloadCodecException) e
+                : new PayloadCodecException(e);
+        for (PendingCall call : batch) {
+          call.result.completeExceptionally(failure);
+        }
+      }
+    }
+  }
 }
@@ -1,8 +1,10 @@
 package io.temporal.payload.codec;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.time.Duration;
 import okhttp3.*;
 
 public class OkHttpRemoteDataEncoderCodec extends AbstractRemoteDataEncoderCodec {
@@ -13,23 +15,54 @@ public class OkHttpRemoteDataEncoderCodec extends AbstractRemoteDataEncoderCodec
     this.client = client;
   }
 
+  /**
+   * @param binary if true, payloads are sent as binary protobuf instead of json
+   * @param batchWindow if positive and {@code binary} is true, concurrent calls arriving within
+   *     this window are coalesced into a single request
+   * @see AbstractRemoteDataEncoderCodec#AbstractRemoteDataEncoderCodec(String, boolean, Duration)
+   */
+  public OkHttpRemoteDataEncoderCodec(
+      OkHttpClient client, String rdeUrl, boolean binary, Duration batchWindow) {
+    super(rdeUrl, binary, batchWindow);
+    this.client = client;
+  }
+
   @Override
   protected Reader performPost(String url, String json) throws IOException {
     RequestBody body =
         RequestBody.create(
             json, MediaType.parse(AbstractRemoteDataEncoderCodec.CONTENT_TYPE_APPLICATION_JSON));
+    return new InputStreamReader(execute(url, body));
+  }
 
+  @Override
+  protected boolean supportsBinaryRequests() {
+    return true;
+  }
+
+  @Override
+  protected InputStream performPost(String url, byte[] body, String contentType)
+      throws IOException {
+    return execute(url, RequestBody.create(body, MediaType.parse(contentType)));
+  }
+
+  private InputStream execute(String url, RequestBody body) throws IOException {
     Request request = new Request.Builder().url(url).post(body).build();
 
     Call call = client.newCall(request);
     Response response = call.execute();
     if (response.code() == 200) {
       if (response.body() != null) {
-        return new InputStreamReader(response.body().byteStream());
+        return response.body().byteStream();
       } else {
         throw new IOException("Remote Data Encoder response body is empty. Response: " + response);
       }
     } else {
+      response.close();
+      if (response.code() == 415) {
+        throw new UnsupportedMediaTypeException(
+            "Remote Data Encoder doesn't support the request content type. Response: " + response);
+      }
       throw new IOException(
           "Remote Data Encoder response status code is not 200 OK. Response: " + response);
     }
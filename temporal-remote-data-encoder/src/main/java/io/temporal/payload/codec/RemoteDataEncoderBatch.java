@@ -0,0 +1,40 @@
+package io.temporal.payload.codec;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import io.temporal.api.common.v1.Payload;
+import io.temporal.api.common.v1.Payloads;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Format of the batch requests and responses of Remote Data Encoder sent with {@link
+ * AbstractRemoteDataEncoderCodec#CONTENT_TYPE_PAYLOADS_BATCH} content type.
+ *
+ * <p>A batch is a binary serialized {@link Payloads}. Each of its {@link Payload}s carries the
+ * binary serialized {@link Payloads} of one independent encode or decode call in its data. A
+ * response carries the results of the calls in the same order. The calls are transformed
+ * independently, so the number of payloads in each result may still differ from the number of
+ * payloads of its call.
+ */
+public final class RemoteDataEncoderBatch {
+
+  public static Payloads pack(List<List<Payload>> calls) {
+    Payloads.Builder batch = Payloads.newBuilder();
+    for (List<Payload> payloads : calls) {
+      batch.addPayloads(
+          Payload.newBuilder()
+              .setData(Payloads.newBuilder().addAllPayloads(payloads).build().toByteString()));
+    }
+    return batch.build();
+  }
+
+  public static List<List<Payload>> unpack(Payloads batch) throws InvalidProtocolBufferException {
+    List<List<Payload>> result = new ArrayList<>(batch.getPayloadsCount());
+    for (Payload call : batch.getPayloadsList()) {
+      result.add(Payloads.parseFrom(call.getData()).getPayloadsList());
+    }
+    return result;
+  }
+
+  private RemoteDataEncoderBatch() {}
+}
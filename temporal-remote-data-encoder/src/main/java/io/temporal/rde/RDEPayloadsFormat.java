@@ -0,0 +1,96 @@
+package io.temporal.rde;
+
+import io.temporal.api.common.v1.Payload;
+import io.temporal.api.common.v1.Payloads;
+import io.temporal.payload.codec.AbstractRemoteDataEncoderCodec;
+import io.temporal.payload.codec.PayloadCodec;
+import io.temporal.payload.codec.RemoteDataEncoderBatch;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.Nullable;
+
+/**
+ * Request and response body formats supported by the Remote Data Encoder server implementations.
+ * A response is always sent in the format of the request.
+ */
+public enum RDEPayloadsFormat {
+  JSON(AbstractRemoteDataEncoderCodec.CONTENT_TYPE_APPLICATION_JSON),
+  PROTOBUF(AbstractRemoteDataEncoderCodec.CONTENT_TYPE_APPLICATION_X_PROTOBUF),
+  BATCH(AbstractRemoteDataEncoderCodec.CONTENT_TYPE_PAYLOADS_BATCH);
+
+  private final String contentType;
+
+  RDEPayloadsFormat(String contentType) {
+    this.contentType = contentType;
+  }
+
+  /**
+   * @return format of the request with the {@code contentType}, null if it's not supported
+   */
+  @Nullable
+  public static RDEPayloadsFormat fromContentType(@Nullable String contentType) {
+    if (contentType == null) {
+      return null;
+    }
+    for (RDEPayloadsFormat format : values()) {
+      if (contentType.startsWith(format.contentType)) {
+        return format;
+      }
+    }
+    return null;
+  }
+
+  public String getContentType() {
+    return contentType;
+  }
+
+  public Payloads read(InputStream in) throws IOException {
+    if (this == JSON) {
+      Payloads.Builder payloads = Payloads.newBuilder();
+      AbstractRemoteDataEncoderCodec.JSON_FORMAT.merge(
+          new InputStreamReader(in, StandardCharsets.UTF_8), payloads);
+      return payloads.build();
+    }
+    return Payloads.parseFrom(in);
+  }
+
+  public void write(Payloads payloads, OutputStream out) throws IOException {
+    if (this == JSON) {
+      OutputStreamWriter writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+      AbstractRemoteDataEncoderCodec.JSON_PRINTER.appendTo(payloads, writer);
+      writer.flush();
+    } else {
+      payloads.writeTo(out);
+    }
+  }
+
+  /**
+   * Encodes or decodes the {@code payloads} with the {@code codec}. Each call of a batch is
+   * transformed separately.
+   */
+  public Payloads transform(PayloadCodec codec, Payloads payloads, boolean encode)
+      throws IOException {
+    if (this != BATCH) {
+      return Payloads.newBuilder()
+          .addAllPayloads(transform(codec, payloads.getPayloadsList(), encode))
+          .build();
+    }
+    List<List<Payload>> calls = RemoteDataEncoderBatch.unpack(payloads);
+    List<List<Payload>> results = new ArrayList<>(calls.size());
+    for (List<Payload> call : calls) {
+      results.add(transform(codec, call, encode));
+    }
+    return RemoteDataEncoderBatch.pack(results);
+  }
+
+  private static List<Payload> transform(
+      PayloadCodec codec, List<Payload> payloads, boolean encode) {
+    return encode ? codec.encode(payloads) : codec.decode(payloads);
+  }
+}
@@ -3,14 +3,14 @@ package io.temporal.rde.httpserver;
 import com.google.common.net.HttpHeaders;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
-import io.temporal.api.common.v1.Payload;
 import io.temporal.api.common.v1.Payloads;
 import io.temporal.payload.codec.AbstractRemoteDataEncoderCodec;
 import io.temporal.payload.codec.ChainCodec;
 import io.temporal.payload.codec.PayloadCodec;
+import io.temporal.rde.RDEPayloadsFormat;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
 import javax.servlet.http.HttpServletResponse;
 
@@ -50,8 +50,8 @@ class DataEncoderHandler implements HttpHandler {
 
   private void handlePost(HttpExchange exchange) throws IOException {
     String contentType = exchange.getRequestHeaders().getFirst(HttpHeaders.CONTENT_TYPE);
-    if (contentType == null
-        || !contentType.startsWith(AbstractRemoteDataEncoderCodec.CONTENT_TYPE_APPLICATION_JSON)) {
+    RDEPayloadsFormat format = RDEPayloadsFormat.fromContentType(contentType);
+    if (format == null) {
       exchange.sendResponseHeaders(HttpServletResponse.SC_UNSUPPORTED_MEDIA_TYPE, -1);
       return;
     }
@@ -67,28 +67,20 @@ class DataEncoderHandler implements HttpHandler {
       return;
     }
 
-    Payloads.Builder incomingPayloads = Payloads.newBuilder();
-    try (InputStreamReader ioReader = new InputStreamReader(exchange.getRequestBody())) {
-      AbstractRemoteDataEncoderCodec.JSON_FORMAT.merge(ioReader, incomingPayloads);
+    Payloads outgoingPayloads;
+    try (InputStream in = exchange.getRequestBody()) {
+      outgoingPayloads = format.transform(codec, format.read(in), encode);
     } catch (IOException e) {
       exchange.sendResponseHeaders(HttpServletResponse.SC_BAD_REQUEST, -1);
       return;
     }
 
-    List<Payload> incomingPayloadsList = incomingPayloads.build().getPayloadsList();
-    List<Payload> outgoingPayloadsList =
-        encode ? codec.encode(incomingPayloadsList) : codec.decode(incomingPayloadsList);
-
-    exchange
-        .getResponseHeaders()
-        .add(
-            HttpHeaders.CONTENT_TYPE, AbstractRemoteDataEncoderCodec.CONTENT_TYPE_APPLICATION_JSON);
+    exchange.getResponseHeaders().add(HttpHeaders.CONTENT_TYPE, format.getContentType());
     exchange.getResponseHeaders().add(ACCESS_CONTROL_ALLOW_ORIGIN, "*");
     exchange.sendResponseHeaders(HttpServletResponse.SC_OK, 0);
 
-    try (OutputStreamWriter out = new OutputStreamWriter(exchange.getResponseBody())) {
-      AbstractRemoteDataEncoderCodec.JSON_PRINTER.appendTo(
-          Payloads.newBuilder().addAllPayloads(outgoingPayloadsList).build(), out);
+    try (OutputStream out = exchange.getResponseBody()) {
+      format.write(outgoingPayloads, out);
     }
   }
 }
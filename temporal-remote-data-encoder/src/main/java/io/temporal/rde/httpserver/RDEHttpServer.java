@@ -1,6 +1,7 @@
 package io.temporal.rde.httpserver;
 
 import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.sun.net.httpserver.HttpServer;
 import io.temporal.payload.codec.AbstractRemoteDataEncoderCodec;
 import io.temporal.payload.codec.PayloadCodec;
@@ -8,6 +9,10 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.annotation.Nullable;
 
 /**
  * Provides a simple standalone http server implementation of Remote Data Encoder contract. This
@@ -17,16 +22,29 @@ import java.util.List;
 public class RDEHttpServer implements Closeable {
   private final List<PayloadCodec> codecs;
   private final int port;
+  private final @Nullable Executor executor;
 
   private HttpServer server;
+  private ExecutorService ownExecutor;
 
   public RDEHttpServer(List<PayloadCodec> codecs) {
     this(codecs, -1);
   }
 
   public RDEHttpServer(List<PayloadCodec> codecs, int port) {
+    this(codecs, port, null);
+  }
+
+  /**
+   * @param executor executor handling the requests, for example a fixed thread pool sized for the
+   *     codecs or {@code Executors.newVirtualThreadPerTaskExecutor()} on Java 21+. The executor is
+   *     not shut down by {@link #close()}. If null, the server uses its own pool with a thread per
+   *     available processor.
+   */
+  public RDEHttpServer(List<PayloadCodec> codecs, int port, @Nullable Executor executor) {
     this.codecs = codecs;
     this.port = port;
+    this.executor = executor;
   }
 
   public synchronized void start() throws IOException {
@@ -39,7 +57,15 @@ public class RDEHttpServer implements Closeable {
     server.createContext(
         AbstractRemoteDataEncoderCodec.DECODE_PATH_POSTFIX, new DataEncoderHandler(codecs));
 
-    server.setExecutor(null);
+    if (executor != null) {
+      server.setExecutor(executor);
+    } else {
+      ownExecutor =
+          Executors.newFixedThreadPool(
+              Runtime.getRuntime().availableProcessors(),
+              new ThreadFactoryBuilder().setDaemon(true).setNameFormat("rde-http-%d").build());
+      server.setExecutor(ownExecutor);
+    }
     server.start();
   }
 
@@ -52,5 +78,8 @@ public class RDEHttpServer implements Closeable {
     if (server != null) {
       server.stop(0);
     }
+    if (ownExecutor != null) {
+      ownExecutor.shutdown();
+    }
   }
 }
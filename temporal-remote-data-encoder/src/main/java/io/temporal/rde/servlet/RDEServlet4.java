@@ -2,14 +2,12 @@ package io.temporal.rde.servlet;
 
 import com.google.common.net.HttpHeaders;
 import com.google.protobuf.InvalidProtocolBufferException;
-import io.temporal.api.common.v1.Payload;
 import io.temporal.api.common.v1.Payloads;
 import io.temporal.payload.codec.AbstractRemoteDataEncoderCodec;
 import io.temporal.payload.codec.ChainCodec;
 import io.temporal.payload.codec.PayloadCodec;
+import io.temporal.rde.RDEPayloadsFormat;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
 import java.util.List;
 import javax.servlet.ServletInputStream;
 import javax.servlet.ServletOutputStream;
@@ -42,12 +40,11 @@ public class RDEServlet4 extends HttpServlet {
       return;
     }
 
-    String contentType = request.getContentType();
-    if (contentType == null
-        || !contentType.startsWith(AbstractRemoteDataEncoderCodec.CONTENT_TYPE_APPLICATION_JSON)) {
+    RDEPayloadsFormat format = RDEPayloadsFormat.fromContentType(request.getContentType());
+    if (format == null) {
       response.sendError(
           HttpServletResponse.SC_UNSUPPORTED_MEDIA_TYPE,
-          "Unsupported content type, application/json is expected");
+          "Unsupported content type, application/json or application/x-protobuf is expected");
       return;
     }
 
@@ -63,26 +60,18 @@ public class RDEServlet4 extends HttpServlet {
       return;
     }
 
-    Payloads.Builder incomingPayloads = Payloads.newBuilder();
-    ServletInputStream inputStream = request.getInputStream();
-    try (InputStreamReader ioReader = new InputStreamReader(inputStream)) {
-      AbstractRemoteDataEncoderCodec.JSON_FORMAT.merge(ioReader, incomingPayloads);
+    Payloads outgoingPayloads;
+    try (ServletInputStream in = request.getInputStream()) {
+      outgoingPayloads = format.transform(codec, format.read(in), encode);
     } catch (InvalidProtocolBufferException e) {
       response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
       return;
     }
 
-    List<Payload> incomingPayloadsList = incomingPayloads.build().getPayloadsList();
-    List<Payload> outgoingPayloadsList =
-        encode ? codec.encode(incomingPayloadsList) : codec.decode(incomingPayloadsList);
-
-    response.addHeader(
-        HttpHeaders.CONTENT_TYPE, AbstractRemoteDataEncoderCodec.CONTENT_TYPE_APPLICATION_JSON);
+    response.addHeader(HttpHeaders.CONTENT_TYPE, format.getContentType());
     response.setStatus(HttpServletResponse.SC_OK);
-    ServletOutputStream outputStream = response.getOutputStream();
-    try (OutputStreamWriter out = new OutputStreamWriter(outputStream)) {
-      AbstractRemoteDataEncoderCodec.JSON_PRINTER.appendTo(
-          Payloads.newBuilder().addAllPayloads(outgoingPayloadsList).build(), out);
+    try (ServletOutputStream out = response.getOutputStream()) {
+      format.write(outgoingPayloads, out);
     }
   }
 }
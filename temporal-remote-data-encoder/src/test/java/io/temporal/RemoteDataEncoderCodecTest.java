@@ -0,0 +1,150 @@
+package io.temporal;
+
+import static io.temporal.PortUtils.getFreePort;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.google.protobuf.ByteString;
+import io.temporal.api.common.v1.Payload;
+import io.temporal.payload.codec.AbstractRemoteDataEncoderCodec;
+import io.temporal.payload.codec.OkHttpRemoteDataEncoderCodec;
+import io.temporal.payload.codec.PayloadCodec;
+import io.temporal.payload.codec.ZlibPayloadCodec;
+import io.temporal.rde.httpserver.RDEHttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import okhttp3.OkHttpClient;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RemoteDataEncoderCodecTest {
+  private static final OkHttpClient okHttpClient = new OkHttpClient();
+
+  private final int serverPort = getFreePort();
+  private RDEHttpServer rdeServer;
+
+  @Before
+  public void setUp() throws Exception {
+    rdeServer = new RDEHttpServer(Collections.singletonList(new ZlibPayloadCodec()), serverPort);
+    rdeServer.start();
+  }
+
+  @After
+  public void tearDown() {
+    rdeServer.close();
+  }
+
+  @Test
+  public void testBinaryBatchedCalls() throws Exception {
+    PayloadCodec codec =
+        new OkHttpRemoteDataEncoderCodec(
+            okHttpClient, "http://localhost:" + serverPort, true, Duration.ofMillis(20));
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < 32; i++) {
+        List<Payload> payloads = Collections.singletonList(payload(i));
+        futures.add(
+            executor.submit(
+                () -> {
+                  List<Payload> encoded = codec.encode(payloads);
+                  assertNotEquals(payloads, encoded);
+                  assertEquals(payloads, codec.decode(encoded));
+                }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testFallbackToJsonIfBinaryIsNotSupported() {
+    AtomicInteger binaryRequests = new AtomicInteger();
+    PayloadCodec codec =
+        new AbstractRemoteDataEncoderCodec(
+            "http://localhost:" + serverPort, true, Duration.ofMillis(1)) {
+          @Override
+          protected Reader performPost(String url, String json) {
+            // echo server
+            return new StringReader(json);
+          }
+
+          @Override
+          protected boolean supportsBinaryRequests() {
+            return true;
+          }
+
+          @Override
+          protected InputStream performPost(String url, byte[] body, String contentType)
+              throws IOException {
+            binaryRequests.incrementAndGet();
+            throw new UnsupportedMediaTypeException("binary is not supported");
+          }
+        };
+    List<Payload> payloads = Collections.singletonList(payload(0));
+    assertEquals(payloads, codec.encode(payloads));
+    assertEquals(payloads, codec.decode(payloads));
+    assertEquals(1, binaryRequests.get());
+  }
+
+  @Test
+  public void testSingleCallIsNotDelayedByBatchWindow() {
+    PayloadCodec codec =
+        new OkHttpRemoteDataEncoderCodec(
+            okHttpClient, "http://localhost:" + serverPort, true, Duration.ofSeconds(10));
+    List<Payload> payloads = Collections.singletonList(payload(0));
+    long startTime = System.nanoTime();
+    List<Payload> encoded = codec.encode(payloads);
+    assertEquals(payloads, codec.decode(encoded));
+    assertTrue(System.nanoTime() - startTime < TimeUnit.SECONDS.toNanos(5));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testBinaryModeRequiresBinaryRequestsSupport() {
+    new AbstractRemoteDataEncoderCodec(
+        "http://localhost:" + serverPort, true, Duration.ofMillis(1)) {
+      @Override
+      protected Reader performPost(String url, String json) {
+        return new StringReader(json);
+      }
+    };
+  }
+
+  @Test
+  public void testJsonCalls() {
+    PayloadCodec codec =
+        new OkHttpRemoteDataEncoderCodec(okHttpClient, "http://localhost:" + serverPort);
+    List<Payload> payloads = Collections.singletonList(payload(0));
+    List<Payload> encoded = codec.encode(payloads);
+    assertNotEquals(payloads, encoded);
+    assertEquals(payloads, codec.decode(encoded));
+  }
+
+  private static Payload payload(int index) {
+    // compressible, so the zlib codec actually changes it
+    StringBuilder data = new StringBuilder();
+    for (int i = 0; i < 100; i++) {
+      data.append("payload").append(index);
+    }
+    return Payload.newBuilder()
+        .putMetadata("encoding", ByteString.copyFromUtf8("binary/plain"))
+        .setData(ByteString.copyFromUtf8(data.toString()))
+        .build();
+  }
+}
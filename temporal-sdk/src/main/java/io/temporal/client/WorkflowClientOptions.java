@@ -47,6 +47,8 @@ public final class WorkflowClientOptions {
     private String binaryChecksum;
     private List<ContextPropagator> contextPropagators;
     private QueryRejectCondition queryRejectCondition;
+    private int maxConcurrentResultLongPolls;
+    private int resultBatchPollThreshold;
 
     private Builder() {}
 
@@ -61,6 +63,8 @@ public final class WorkflowClientOptions {
       binaryChecksum = options.binaryChecksum;
       contextPropagators = options.contextPropagators;
       queryRejectCondition = options.queryRejectCondition;
+      maxConcurrentResultLongPolls = options.maxConcurrentResultLongPolls;
+      resultBatchPollThreshold = options.resultBatchPollThreshold;
     }
 
     public Builder setNamespace(String namespace) {
@@ -132,6 +136,42 @@ public final class WorkflowClientOptions {
       return this;
     }
 
+    /**
+     * Limits the number of result long polls that {@link WorkflowStub#getResultAsync(Class)} and
+     * its overloads keep open against the server at the same time. Calls above the limit are
+     * queued in FIFO order and start polling as other waits complete. Timeouts passed to {@code
+     * getResultAsync} include the time spent in the queue.
+     *
+     * <p>Default is 0 which means that every {@code getResultAsync} call opens its own long poll.
+     */
+    public Builder setMaxConcurrentResultLongPolls(int maxConcurrentResultLongPolls) {
+      if (maxConcurrentResultLongPolls < 0) {
+        throw new IllegalArgumentException(
+            "negative maxConcurrentResultLongPolls: " + maxConcurrentResultLongPolls);
+      }
+      this.maxConcurrentResultLongPolls = maxConcurrentResultLongPolls;
+      return this;
+    }
+
+    /**
+     * When the number of result waits queued because of {@link
+     * #setMaxConcurrentResultLongPolls(int)} reaches this threshold, the client periodically checks
+     * the queued runs with batched {@code ListWorkflowExecutions} queries and resolves the ones
+     * that are already closed without waiting for a long poll slot. Requires advanced visibility on
+     * the server.
+     *
+     * <p>Default is 0 which means batched checks are disabled. Has no effect if {@link
+     * #setMaxConcurrentResultLongPolls(int)} is not set.
+     */
+    public Builder setResultBatchPollThreshold(int resultBatchPollThreshold) {
+      if (resultBatchPollThreshold < 0) {
+        throw new IllegalArgumentException(
+            "negative resultBatchPollThreshold: " + resultBatchPollThreshold);
+      }
+      this.resultBatchPollThreshold = resultBatchPollThreshold;
+      return this;
+    }
+
     public WorkflowClientOptions build() {
       return new WorkflowClientOptions(
           namespace,
@@ -140,7 +180,9 @@ public final class WorkflowClientOptions {
           identity,
           binaryChecksum,
           contextPropagators,
-          queryRejectCondition);
+          queryRejectCondition,
+          maxConcurrentResultLongPolls,
+          resultBatchPollThreshold);
     }
 
     public WorkflowClientOptions validateAndBuildWithDefaults() {
@@ -154,7 +196,9 @@ public final class WorkflowClientOptions {
           contextPropagators == null ? EMPTY_CONTEXT_PROPAGATORS : contextPropagators,
           queryRejectCondition == null
               ? QueryRejectCondition.QUERY_REJECT_CONDITION_UNSPECIFIED
-              : queryRejectCondition);
+              : queryRejectCondition,
+          maxConcurrentResultLongPolls,
+          resultBatchPollThreshold);
     }
   }
 
@@ -177,6 +221,10 @@ public final class WorkflowClientOptions {
 
   private final QueryRejectCondition queryRejectCondition;
 
+  private final int maxConcurrentResultLongPolls;
+
+  private final int resultBatchPollThreshold;
+
   private WorkflowClientOptions(
       String namespace,
       DataConverter dataConverter,
@@ -184,7 +232,9 @@ public final class WorkflowClientOptions {
       String identity,
       String binaryChecksum,
       List<ContextPropagator> contextPropagators,
-      QueryRejectCondition queryRejectCondition) {
+      QueryRejectCondition queryRejectCondition,
+      int maxConcurrentResultLongPolls,
+      int resultBatchPollThreshold) {
     this.namespace = namespace;
     this.dataConverter = dataConverter;
     this.interceptors = interceptors;
@@ -192,6 +242,8 @@ public final class WorkflowClientOptions {
     this.binaryChecksum = binaryChecksum;
     this.contextPropagators = contextPropagators;
     this.queryRejectCondition = queryRejectCondition;
+    this.maxConcurrentResultLongPolls = maxConcurrentResultLongPolls;
+    this.resultBatchPollThreshold = resultBatchPollThreshold;
   }
 
   /**
@@ -236,6 +288,20 @@ public final class WorkflowClientOptions {
     return queryRejectCondition;
   }
 
+  /**
+   * @see Builder#setMaxConcurrentResultLongPolls(int)
+   */
+  public int getMaxConcurrentResultLongPolls() {
+    return maxConcurrentResultLongPolls;
+  }
+
+  /**
+   * @see Builder#setResultBatchPollThreshold(int)
+   */
+  public int getResultBatchPollThreshold() {
+    return resultBatchPollThreshold;
+  }
+
   @Override
   public String toString() {
     return "WorkflowClientOptions{"
@@ -256,6 +322,10 @@ public final class WorkflowClientOptions {
         + contextPropagators
         + ", queryRejectCondition="
         + queryRejectCondition
+        + ", maxConcurrentResultLongPolls="
+        + maxConcurrentResultLongPolls
+        + ", resultBatchPollThreshold="
+        + resultBatchPollThreshold
         + '}';
   }
 
@@ -270,7 +340,9 @@ public final class WorkflowClientOptions {
         && com.google.common.base.Objects.equal(identity, that.identity)
         && com.google.common.base.Objects.equal(binaryChecksum, that.binaryChecksum)
         && com.google.common.base.Objects.equal(contextPropagators, that.contextPropagators)
-        && queryRejectCondition == that.queryRejectCondition;
+        && queryRejectCondition == that.queryRejectCondition
+        && maxConcurrentResultLongPolls == that.maxConcurrentResultLongPolls
+        && resultBatchPollThreshold == that.resultBatchPollThreshold;
   }
 
   @Override
@@ -282,6 +354,8 @@ public final class WorkflowClientOptions {
         identity,
         binaryChecksum,
         contextPropagators,
-        queryRejectCondition);
+        queryRejectCondition,
+        maxConcurrentResultLongPolls,
+        resultBatchPollThreshold);
   }
 }
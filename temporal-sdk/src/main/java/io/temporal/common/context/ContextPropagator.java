@@ -1,6 +1,7 @@
 package io.temporal.common.context;
 
 import io.temporal.api.common.v1.Payload;
+import io.temporal.common.Experimental;
 import java.util.Map;
 
 /**
@@ -125,4 +126,19 @@ public interface ContextPropagator {
 
   /** Sets the current context */
   void setCurrentContext(Object context);
+
+  /**
+   * Allows the SDK to reuse the result of {@link #serializeContext(Object)} for the commands and
+   * requests made while {@link #getCurrentContext()} returns the same context instance, instead of
+   * serializing the context for each of them. A propagator can return true only if its context
+   * objects are not mutated after they are returned by {@link #getCurrentContext()} and {@link
+   * #serializeContext(Object)} depends only on the context object.
+   *
+   * @return true if the serialized context can be cached by the identity of the context object,
+   *     false by default
+   */
+  @Experimental
+  default boolean isSerializedContextCacheable() {
+    return false;
+  }
 }
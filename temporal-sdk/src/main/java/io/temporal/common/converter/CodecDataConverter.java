@@ -9,6 +9,9 @@ import io.temporal.api.failure.v1.CanceledFailureInfo;
 import io.temporal.api.failure.v1.Failure;
 import io.temporal.api.failure.v1.ResetWorkflowFailureInfo;
 import io.temporal.api.failure.v1.TimeoutFailureInfo;
+import io.temporal.internal.jfr.JfrDelegate;
+import io.temporal.internal.jfr.TaskPhase;
+import io.temporal.internal.jfr.TaskPhaseRecording;
 import io.temporal.payload.codec.ChainCodec;
 import io.temporal.payload.codec.PayloadCodec;
 import io.temporal.payload.context.SerializationContext;
@@ -113,18 +116,14 @@ public class CodecDataConverter implements DataConverter, PayloadCodec {
   public <T> Optional<Payload> toPayload(T value) {
     Optional<Payload> payload =
         ConverterUtils.withContext(dataConverter, serializationContext).toPayload(value);
-    List<Payload> encodedPayloads =
-        ConverterUtils.withContext(chainCodec, serializationContext)
-            .encode(Collections.singletonList(payload.get()));
+    List<Payload> encodedPayloads = encode(Collections.singletonList(payload.get()));
     Preconditions.checkState(encodedPayloads.size() == 1, "Expected one encoded payload");
     return Optional.of(encodedPayloads.get(0));
   }
 
   @Override
   public <T> T fromPayload(Payload payload, Class<T> valueClass, Type valueType) {
-    List<Payload> decodedPayload =
-        ConverterUtils.withContext(chainCodec, serializationContext)
-            .decode(Collections.singletonList(payload));
+    List<Payload> decodedPayload = decode(Collections.singletonList(payload));
     Preconditions.checkState(decodedPayload.size() == 1, "Expected one decoded payload");
     return ConverterUtils.withContext(dataConverter, serializationContext)
         .fromPayload(decodedPayload.get(0), valueClass, valueType);
@@ -135,9 +134,7 @@ public class CodecDataConverter implements DataConverter, PayloadCodec {
     Optional<Payloads> payloads =
         ConverterUtils.withContext(dataConverter, serializationContext).toPayloads(values);
     if (payloads.isPresent()) {
-      List<Payload> encodedPayloads =
-          ConverterUtils.withContext(chainCodec, serializationContext)
-              .encode(payloads.get().getPayloadsList());
+      List<Payload> encodedPayloads = encode(payloads.get().getPayloadsList());
       payloads = Optional.of(Payloads.newBuilder().addAllPayloads(encodedPayloads).build());
     }
     return payloads;
@@ -193,13 +190,23 @@ public class CodecDataConverter implements DataConverter, PayloadCodec {
   @Nonnull
   @Override
   public List<Payload> encode(@Nonnull List<Payload> payloads) {
-    return ConverterUtils.withContext(chainCodec, serializationContext).encode(payloads);
+    TaskPhaseRecording recording = JfrDelegate.begin(TaskPhase.CODEC_ENCODE);
+    try {
+      return ConverterUtils.withContext(chainCodec, serializationContext).encode(payloads);
+    } finally {
+      recording.end(null, null);
+    }
   }
 
   @Nonnull
   @Override
   public List<Payload> decode(@Nonnull List<Payload> payloads) {
-    return ConverterUtils.withContext(chainCodec, serializationContext).decode(payloads);
+    TaskPhaseRecording recording = JfrDelegate.begin(TaskPhase.CODEC_DECODE);
+    try {
+      return ConverterUtils.withContext(chainCodec, serializationContext).decode(payloads);
+    } finally {
+      recording.end(null, null);
+    }
   }
 
   private Failure.Builder encodeFailure(Failure.Builder failure) {
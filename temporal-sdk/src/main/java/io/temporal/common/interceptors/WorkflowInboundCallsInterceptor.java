@@ -212,7 +212,10 @@ public interface WorkflowInboundCallsInterceptor {
   /**
    * Intercepts creation of a workflow callback thread
    *
-   * @param runnable thread function to run
+   * @param runnable thread function to run. If it's passed down the chain as is, it may run
+   *     several callbacks, like signal and update handlers, one after another, and {@code name} is
+   *     the name of the first of them. If an interceptor wraps it, each callback gets a thread of
+   *     its own.
    * @param name name of the thread, optional
    * @return created workflow thread. Should be treated as a pass-through object that shouldn't be
    *     manipulated in any way by the interceptor code.
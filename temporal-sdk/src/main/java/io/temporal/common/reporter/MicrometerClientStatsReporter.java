@@ -6,6 +6,7 @@ import com.uber.m3.tally.Capabilities;
 import com.uber.m3.tally.CapableOf;
 import com.uber.m3.tally.StatsReporter;
 import com.uber.m3.util.Duration;
+import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Tag;
 import io.micrometer.core.instrument.Timer;
@@ -38,6 +39,15 @@ public class MicrometerClientStatsReporter implements StatsReporter {
    */
   private final ConcurrentMap<MetricID, AtomicDouble> registeredGauges = new ConcurrentHashMap<>();
 
+  /**
+   * Counters and timers are cached to avoid building the Micrometer tags and looking up the meter
+   * in the registry every time tally reports them. The same cardinality considerations as for
+   * {@link #registeredGauges} apply.
+   */
+  private final ConcurrentMap<MetricID, Counter> registeredCounters = new ConcurrentHashMap<>();
+
+  private final ConcurrentMap<MetricID, Timer> registeredTimers = new ConcurrentHashMap<>();
+
   public MicrometerClientStatsReporter(MeterRegistry registry) {
     this.registry = Objects.requireNonNull(registry);
   }
@@ -59,7 +69,11 @@ public class MicrometerClientStatsReporter implements StatsReporter {
 
   @Override
   public void reportCounter(String name, Map<String, String> tags, long value) {
-    registry.counter(name, getTags(tags)).increment(value);
+    Counter counter =
+        registeredCounters.computeIfAbsent(
+            new MetricID(name, tags),
+            metricID -> registry.counter(metricID.name, getTags(metricID.tags)));
+    counter.increment(value);
   }
 
   @Override
@@ -78,11 +92,15 @@ public class MicrometerClientStatsReporter implements StatsReporter {
 
   @Override
   public void reportTimer(String name, Map<String, String> tags, Duration interval) {
-    Timer.builder(name)
-        .tags(getTags(tags))
-        .publishPercentileHistogram(true)
-        .register(registry)
-        .record(interval.getNanos(), TimeUnit.NANOSECONDS);
+    Timer timer =
+        registeredTimers.computeIfAbsent(
+            new MetricID(name, tags),
+            metricID ->
+                Timer.builder(metricID.name)
+                    .tags(getTags(metricID.tags))
+                    .publishPercentileHistogram(true)
+                    .register(registry));
+    timer.record(interval.getNanos(), TimeUnit.NANOSECONDS);
   }
 
   @Override
@@ -46,6 +46,7 @@ public class RootWorkflowClientInvoker implements WorkflowClientCallsInterceptor
   private final WorkflowClientOptions clientOptions;
   private final EagerWorkflowTaskDispatcher eagerWorkflowTaskDispatcher;
   private final WorkflowClientRequestFactory requestsHelper;
+  private final WorkflowResultWaiter resultWaiter;
 
   public RootWorkflowClientInvoker(
       GenericWorkflowClient genericClient,
@@ -55,6 +56,7 @@ public class RootWorkflowClientInvoker implements WorkflowClientCallsInterceptor
     this.clientOptions = clientOptions;
     this.eagerWorkflowTaskDispatcher = new EagerWorkflowTaskDispatcher(workerFactoryRegistry);
     this.requestsHelper = new WorkflowClientRequestFactory(clientOptions);
+    this.resultWaiter = new WorkflowResultWaiter(genericClient, requestsHelper, clientOptions);
   }
 
   @Override
@@ -352,9 +354,7 @@ public class RootWorkflowClientInvoker implements WorkflowClientCallsInterceptor
                 new WorkflowSerializationContext(
                     clientOptions.getNamespace(), input.getWorkflowExecution().getWorkflowId()));
     CompletableFuture<Optional<Payloads>> resultValue =
-        WorkflowClientLongPollAsyncHelper.getWorkflowExecutionResultAsync(
-            genericClient,
-            requestsHelper,
+        resultWaiter.getWorkflowExecutionResultAsync(
             input.getWorkflowExecution(),
             input.getWorkflowType(),
             input.getTimeout(),
@@ -28,6 +28,7 @@ import io.temporal.internal.common.ProtoConverters;
 import io.temporal.internal.common.ProtobufTimeUtils;
 import io.temporal.internal.common.RetryOptionsUtils;
 import io.temporal.internal.common.SearchAttributesUtil;
+import io.temporal.internal.context.SerializedContextCache;
 import io.temporal.payload.context.WorkflowSerializationContext;
 import java.time.Instant;
 import java.util.*;
@@ -39,6 +40,7 @@ public class ScheduleProtoUtil {
 
   private final GenericWorkflowClient genericClient;
   private final ScheduleClientOptions clientOptions;
+  private final SerializedContextCache serializedContexts = new SerializedContextCache();
 
   public ScheduleProtoUtil(
       GenericWorkflowClient genericClient, ScheduleClientOptions clientOptions) {
@@ -59,11 +61,7 @@ public class ScheduleProtoUtil {
     List<ContextPropagator> listToUse =
         MoreObjects.firstNonNull(
             scheduleOptionsContextPropagators, scheduleClientContextPropagators);
-    Map<String, Payload> result = new HashMap<>();
-    for (ContextPropagator propagator : listToUse) {
-      result.putAll(propagator.serializeContext(propagator.getCurrentContext()));
-    }
-    return new io.temporal.common.interceptors.Header(result);
+    return new io.temporal.common.interceptors.Header(serializedContexts.serialize(listToUse));
   }
 
   public ScheduleAction actionToProto(io.temporal.client.schedules.ScheduleAction action) {
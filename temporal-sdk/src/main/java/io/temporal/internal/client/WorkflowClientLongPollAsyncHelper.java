@@ -31,7 +31,32 @@ final class WorkflowClientLongPollAsyncHelper {
       long timeout,
       TimeUnit unit,
       DataConverter converter) {
-    Deadline longPollTimeoutDeadline = Deadline.after(timeout, unit);
+    return getWorkflowExecutionResultAsync(
+        genericClient,
+        workflowClientHelper,
+        workflowExecution,
+        workflowType,
+        Deadline.after(timeout, unit),
+        timeout,
+        unit,
+        converter);
+  }
+
+  /**
+   * @param longPollTimeoutDeadline deadline of the whole wait, may be computed before this call
+   *     when the wait was queued
+   * @param timeout original timeout, used only to form a {@link
+   *     java.util.concurrent.TimeoutException} message
+   */
+  static CompletableFuture<Optional<Payloads>> getWorkflowExecutionResultAsync(
+      GenericWorkflowClient genericClient,
+      WorkflowClientRequestFactory workflowClientHelper,
+      @Nonnull WorkflowExecution workflowExecution,
+      Optional<String> workflowType,
+      Deadline longPollTimeoutDeadline,
+      long timeout,
+      TimeUnit unit,
+      DataConverter converter) {
     return getInstanceCloseEventAsync(
             genericClient,
             workflowClientHelper,
@@ -22,12 +22,14 @@ import io.temporal.common.context.ContextPropagator;
 import io.temporal.internal.common.ProtoConverters;
 import io.temporal.internal.common.ProtobufTimeUtils;
 import io.temporal.internal.common.SearchAttributesUtil;
+import io.temporal.internal.context.SerializedContextCache;
 import java.util.*;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 final class WorkflowClientRequestFactory {
   private final WorkflowClientOptions clientOptions;
+  private final SerializedContextCache serializedContexts = new SerializedContextCache();
 
   public WorkflowClientRequestFactory(WorkflowClientOptions clientOptions) {
     this.clientOptions = clientOptions;
@@ -238,11 +240,7 @@ final class WorkflowClientRequestFactory {
     List<ContextPropagator> listToUse =
         MoreObjects.firstNonNull(
             workflowOptionsContextPropagators, workflowClientContextPropagators);
-    Map<String, Payload> result = new HashMap<>();
-    for (ContextPropagator propagator : listToUse) {
-      result.putAll(propagator.serializeContext(propagator.getCurrentContext()));
-    }
-    return new io.temporal.common.interceptors.Header(result);
+    return new io.temporal.common.interceptors.Header(serializedContexts.serialize(listToUse));
   }
 
   private static String generateUniqueId() {
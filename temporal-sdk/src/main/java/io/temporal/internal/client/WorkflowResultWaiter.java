@@ -0,0 +1,339 @@
+package io.temporal.internal.client;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.grpc.Deadline;
+import io.temporal.api.common.v1.Payloads;
+import io.temporal.api.common.v1.WorkflowExecution;
+import io.temporal.api.enums.v1.WorkflowExecutionStatus;
+import io.temporal.api.workflow.v1.WorkflowExecutionInfo;
+import io.temporal.api.workflowservice.v1.ListWorkflowExecutionsRequest;
+import io.temporal.client.WorkflowClientOptions;
+import io.temporal.common.converter.DataConverter;
+import io.temporal.internal.client.external.GenericWorkflowClient;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import javax.annotation.Nonnull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Shares a bounded number of result long polls between all {@code getResultAsync} calls of a
+ * client.
+ *
+ * <p>When {@link WorkflowClientOptions#getMaxConcurrentResultLongPolls()} is positive, at most that
+ * many {@code GetWorkflowExecutionHistory} long polls are in flight at a time. The rest of the
+ * waits are queued in FIFO order and started as in-flight polls complete. Timeouts of the queued
+ * waits are counted from the moment the wait was requested. A queued wait whose future is
+ * cancelled leaves the queue right away.
+ *
+ * <p>When the queue grows to {@link WorkflowClientOptions#getResultBatchPollThreshold()} entries,
+ * the queued runs are additionally checked with batched {@code ListWorkflowExecutions} queries.
+ * Runs reported as closed are resolved right away by a non-blocking fetch of their close event
+ * without waiting for a long poll slot. Runs that continued as new stay in the queue, as waiting
+ * for them requires a new long poll.
+ */
+final class WorkflowResultWaiter {
+  private static final Logger log = LoggerFactory.getLogger(WorkflowResultWaiter.class);
+
+  private static final ScheduledExecutorService scheduler =
+      Executors.newSingleThreadScheduledExecutor(
+          new ThreadFactoryBuilder()
+              .setDaemon(true)
+              .setNameFormat("workflow-result-waiter-%d")
+              .build());
+
+  private static final long BATCH_POLL_INTERVAL_MS = 2_000;
+  private static final int BATCH_SIZE = 100;
+  private static final int MAX_BATCHES_PER_SCAN = 10;
+
+  private final GenericWorkflowClient genericClient;
+  private final WorkflowClientRequestFactory requestFactory;
+  private final String namespace;
+  private final int maxConcurrentLongPolls;
+  private final int batchPollThreshold;
+
+  private final ReentrantLock lock = new ReentrantLock();
+
+  // all the fields below are guarded by the lock
+  private final LinkedHashSet<PendingResult> queue = new LinkedHashSet<>();
+  private int inFlight;
+  private boolean scanScheduled;
+  private int scanCursor;
+
+  WorkflowResultWaiter(
+      GenericWorkflowClient genericClient,
+      WorkflowClientRequestFactory requestFactory,
+      WorkflowClientOptions clientOptions) {
+    this.genericClient = genericClient;
+    this.requestFactory = requestFactory;
+    this.namespace = clientOptions.getNamespace();
+    this.maxConcurrentLongPolls = clientOptions.getMaxConcurrentResultLongPolls();
+    this.batchPollThreshold = clientOptions.getResultBatchPollThreshold();
+  }
+
+  CompletableFuture<Optional<Payloads>> getWorkflowExecutionResultAsync(
+      @Nonnull WorkflowExecution workflowExecution,
+      Optional<String> workflowType,
+      long timeout,
+      TimeUnit unit,
+      DataConverter converter) {
+    if (maxConcurrentLongPolls <= 0) {
+      return WorkflowClientLongPollAsyncHelper.getWorkflowExecutionResultAsync(
+          genericClient, requestFactory, workflowExecution, workflowType, timeout, unit, converter);
+    }
+    PendingResult pending =
+        new PendingResult(workflowExecution, workflowType, timeout, unit, converter);
+    lock.lock();
+    try {
+      if (inFlight < maxConcurrentLongPolls) {
+        inFlight++;
+      } else {
+        queue.add(pending);
+        pending.timeoutFuture =
+            scheduler.schedule(
+                () -> expire(pending),
+                pending.deadline.timeRemaining(TimeUnit.NANOSECONDS),
+                TimeUnit.NANOSECONDS);
+        maybeScheduleScan();
+        pending.result.whenComplete(
+            (r, e) -> {
+              if (pending.result.isCancelled()) {
+                cancel(pending);
+              }
+            });
+        return pending.result;
+      }
+    } finally {
+      lock.unlock();
+    }
+    dispatch(pending, true);
+    return pending.result;
+  }
+
+  /** Number of waits queued for a long poll slot. Exposed for tests. */
+  int getQueuedCount() {
+    lock.lock();
+    try {
+      return queue.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void dispatch(PendingResult pending, boolean holdsPermit) {
+    CompletableFuture<Optional<Payloads>> poll;
+    try {
+      poll =
+          WorkflowClientLongPollAsyncHelper.getWorkflowExecutionResultAsync(
+              genericClient,
+              requestFactory,
+              pending.execution,
+              pending.workflowType,
+              pending.deadline,
+              pending.timeout,
+              pending.unit,
+              pending.converter);
+    } catch (Throwable e) {
+      poll = new CompletableFuture<>();
+      poll.completeExceptionally(new CompletionException(e));
+    }
+    poll.whenComplete(
+        (r, e) -> {
+          if (holdsPermit) {
+            releasePermit();
+          }
+          if (e != null) {
+            pending.result.completeExceptionally(e);
+          } else {
+            pending.result.complete(r);
+          }
+        });
+  }
+
+  private void releasePermit() {
+    PendingResult next;
+    lock.lock();
+    try {
+      Iterator<PendingResult> iterator = queue.iterator();
+      if (!iterator.hasNext()) {
+        inFlight--;
+        return;
+      }
+      // the permit is handed over to the next queued wait
+      next = iterator.next();
+      iterator.remove();
+    } finally {
+      lock.unlock();
+    }
+    next.cancelTimeout();
+    dispatch(next, true);
+  }
+
+  private void expire(PendingResult pending) {
+    lock.lock();
+    try {
+      if (!queue.remove(pending)) {
+        return;
+      }
+    } finally {
+      lock.unlock();
+    }
+    pending.result.completeExceptionally(
+        new CompletionException(
+            WorkflowClientLongPollHelper.newTimeoutException(
+                pending.execution, pending.timeout, pending.unit)));
+  }
+
+  private void cancel(PendingResult pending) {
+    lock.lock();
+    try {
+      queue.remove(pending);
+    } finally {
+      lock.unlock();
+    }
+    pending.cancelTimeout();
+  }
+
+  // should be called under the lock
+  private void maybeScheduleScan() {
+    if (batchPollThreshold <= 0 || scanScheduled || queue.size() < batchPollThreshold) {
+      return;
+    }
+    scanScheduled = true;
+    scheduler.schedule(this::scan, BATCH_POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+  }
+
+  private void scan() {
+    List<List<PendingResult>> batches;
+    lock.lock();
+    try {
+      scanScheduled = false;
+      if (queue.size() < batchPollThreshold) {
+        return;
+      }
+      // Only runs with a known runId can be matched by a visibility query.
+      // Waits without a runId are served by the long polls only.
+      List<PendingResult> candidates =
+          queue.stream()
+              .filter(p -> !p.execution.getRunId().isEmpty())
+              .collect(Collectors.toList());
+      batches = new ArrayList<>();
+      if (!candidates.isEmpty()) {
+        int start = scanCursor % candidates.size();
+        int count = Math.min(candidates.size(), BATCH_SIZE * MAX_BATCHES_PER_SCAN);
+        List<PendingResult> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < count; i++) {
+          batch.add(candidates.get((start + i) % candidates.size()));
+          if (batch.size() == BATCH_SIZE) {
+            batches.add(batch);
+            batch = new ArrayList<>(BATCH_SIZE);
+          }
+        }
+        if (!batch.isEmpty()) {
+          batches.add(batch);
+        }
+        scanCursor = (start + count) % candidates.size();
+      }
+    } finally {
+      lock.unlock();
+    }
+    CompletableFuture<?>[] scans =
+        batches.stream().map(this::scanBatch).toArray(CompletableFuture[]::new);
+    CompletableFuture.allOf(scans)
+        .whenComplete(
+            (r, e) -> {
+              lock.lock();
+              try {
+                maybeScheduleScan();
+              } finally {
+                lock.unlock();
+              }
+            });
+  }
+
+  private CompletableFuture<Void> scanBatch(List<PendingResult> batch) {
+    Map<String, PendingResult> byRunId = new HashMap<>();
+    for (PendingResult pending : batch) {
+      byRunId.put(pending.execution.getRunId(), pending);
+    }
+    ListWorkflowExecutionsRequest request =
+        ListWorkflowExecutionsRequest.newBuilder()
+            .setNamespace(namespace)
+            .setPageSize(batch.size())
+            .setQuery(
+                "ExecutionStatus != 'Running' AND RunId IN ("
+                    + byRunId.keySet().stream()
+                        .map(runId -> "'" + runId + "'")
+                        .collect(Collectors.joining(","))
+                    + ")")
+            .build();
+    return genericClient
+        .listWorkflowExecutionsAsync(request)
+        .handle(
+            (response, e) -> {
+              if (e != null) {
+                log.warn("Failure while checking closed workflows for the queued results", e);
+                return null;
+              }
+              for (WorkflowExecutionInfo info : response.getExecutionsList()) {
+                if (info.getStatus()
+                    == WorkflowExecutionStatus.WORKFLOW_EXECUTION_STATUS_CONTINUED_AS_NEW) {
+                  continue;
+                }
+                PendingResult pending = byRunId.get(info.getExecution().getRunId());
+                if (pending != null) {
+                  resolveClosed(pending);
+                }
+              }
+              return null;
+            });
+  }
+
+  private void resolveClosed(PendingResult pending) {
+    lock.lock();
+    try {
+      if (!queue.remove(pending)) {
+        return;
+      }
+    } finally {
+      lock.unlock();
+    }
+    pending.cancelTimeout();
+    // The workflow is closed, the close event is returned without waiting.
+    dispatch(pending, false);
+  }
+
+  private static final class PendingResult {
+    private final WorkflowExecution execution;
+    private final Optional<String> workflowType;
+    private final long timeout;
+    private final TimeUnit unit;
+    private final DataConverter converter;
+    private final Deadline deadline;
+    private final CompletableFuture<Optional<Payloads>> result = new CompletableFuture<>();
+    private volatile ScheduledFuture<?> timeoutFuture;
+
+    PendingResult(
+        WorkflowExecution execution,
+        Optional<String> workflowType,
+        long timeout,
+        TimeUnit unit,
+        DataConverter converter) {
+      this.execution = execution;
+      this.workflowType = workflowType;
+      this.timeout = timeout;
+      this.unit = unit;
+      this.converter = converter;
+      this.deadline = Deadline.after(timeout, unit);
+    }
+
+    void cancelTimeout() {
+      ScheduledFuture<?> timeoutFuture = this.timeoutFuture;
+      if (timeoutFuture != null) {
+        timeoutFuture.cancel(false);
+      }
+    }
+  }
+}
@@ -0,0 +1,58 @@
+package io.temporal.internal.context;
+
+import io.temporal.api.common.v1.Payload;
+import io.temporal.common.context.ContextPropagator;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Serializes the current contexts of {@link ContextPropagator}s into header values. The serialized
+ * context of a propagator that opted in with {@link
+ * ContextPropagator#isSerializedContextCacheable()} is reused for as long as the propagator returns
+ * the same context instance from {@link ContextPropagator#getCurrentContext()}.
+ */
+@ThreadSafe
+public final class SerializedContextCache {
+
+  private static final class Entry {
+    private final Object context;
+    private final Map<String, Payload> serialized;
+
+    private Entry(Object context, Map<String, Payload> serialized) {
+      this.context = context;
+      this.serialized = serialized;
+    }
+  }
+
+  private final Map<ContextPropagator, Entry> entries = new ConcurrentHashMap<>();
+
+  /**
+   * @return the serialized current contexts of the {@code propagators}
+   */
+  public Map<String, Payload> serialize(List<ContextPropagator> propagators) {
+    Map<String, Payload> result = new HashMap<>();
+    for (ContextPropagator propagator : propagators) {
+      result.putAll(serialize(propagator));
+    }
+    return result;
+  }
+
+  private Map<String, Payload> serialize(ContextPropagator propagator) {
+    Object context = propagator.getCurrentContext();
+    if (!propagator.isSerializedContextCacheable()) {
+      return propagator.serializeContext(context);
+    }
+    Entry entry = entries.get(propagator);
+    if (entry != null && entry.context == context) {
+      return entry.serialized;
+    }
+    Map<String, Payload> serialized =
+        Collections.unmodifiableMap(propagator.serializeContext(context));
+    entries.put(propagator, new Entry(context, serialized));
+    return serialized;
+  }
+}
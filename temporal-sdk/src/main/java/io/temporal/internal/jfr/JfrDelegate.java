@@ -0,0 +1,13 @@
+package io.temporal.internal.jfr;
+
+/**
+ * Internal delegate for recording JFR events on JDK 21. This is a dummy version for reachability on
+ * JDK <21 that doesn't record anything.
+ */
+public final class JfrDelegate {
+  public static TaskPhaseRecording begin(TaskPhase phase) {
+    return TaskPhaseRecording.NOOP;
+  }
+
+  private JfrDelegate() {}
+}
@@ -0,0 +1,29 @@
+package io.temporal.internal.jfr;
+
+/** Phases of the worker task lifecycle recorded as JFR events. */
+public enum TaskPhase {
+  /** Long poll of a workflow task queue */
+  WORKFLOW_TASK_POLL,
+  /** Reservation of a worker slot */
+  SLOT_RESERVATION,
+  /** Wait of a workflow task in the mailbox of its run for the run lock */
+  RUN_LOCK_WAIT,
+  /** Handling of a workflow task by the worker including reporting its result */
+  WORKFLOW_TASK,
+  /** Load of a history page from the server */
+  HISTORY_FETCH,
+  /** Application of the history of a workflow task */
+  REPLAY,
+  /** Workflow code executed by the event loop */
+  USER_CODE,
+  /** RespondWorkflowTaskCompleted call */
+  RESPOND,
+  /** Execution of an activity task */
+  ACTIVITY_TASK,
+  /** Execution of a local activity attempt */
+  LOCAL_ACTIVITY_TASK,
+  /** Payload codec encoding */
+  CODEC_ENCODE,
+  /** Payload codec decoding */
+  CODEC_DECODE
+}
@@ -0,0 +1,15 @@
+package io.temporal.internal.jfr;
+
+import javax.annotation.Nullable;
+
+/** A {@link TaskPhase} being recorded, see {@link JfrDelegate#begin(TaskPhase)}. */
+public interface TaskPhaseRecording {
+  TaskPhaseRecording NOOP = (workflowType, activityType, runId) -> {};
+
+  /** Ends the phase and commits its event. */
+  void end(@Nullable String workflowType, @Nullable String activityType, @Nullable String runId);
+
+  default void end(@Nullable String workflowType, @Nullable String runId) {
+    end(workflowType, null, runId);
+  }
+}
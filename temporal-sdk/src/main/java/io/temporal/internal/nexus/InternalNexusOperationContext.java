@@ -6,6 +6,8 @@ import io.temporal.client.WorkflowClient;
 import io.temporal.common.interceptors.NexusOperationOutboundCallsInterceptor;
 import io.temporal.nexus.NexusOperationContext;
 import io.temporal.nexus.NexusOperationInfo;
+import java.util.concurrent.CompletionStage;
+import javax.annotation.Nullable;
 
 public class InternalNexusOperationContext {
   private final String namespace;
@@ -14,6 +16,7 @@ public class InternalNexusOperationContext {
   private final WorkflowClient client;
   NexusOperationOutboundCallsInterceptor outboundCalls;
   Link startWorkflowResponseLink;
+  @Nullable CompletionStage<?> pendingResult;
 
   public InternalNexusOperationContext(
       String namespace, String taskQueue, Scope metricScope, WorkflowClient client) {
@@ -58,6 +61,19 @@ public class InternalNexusOperationContext {
     return startWorkflowResponseLink;
   }
 
+  /**
+   * Set by an operation handler that completes the operation asynchronously with the result of
+   * the {@code pendingResult} stage instead of the result returned from the start call.
+   */
+  public void setPendingResult(CompletionStage<?> pendingResult) {
+    this.pendingResult = pendingResult;
+  }
+
+  @Nullable
+  public CompletionStage<?> getPendingResult() {
+    return pendingResult;
+  }
+
   private class NexusOperationContextImpl implements NexusOperationContext {
     @Override
     public NexusOperationInfo getInfo() {
@@ -28,7 +28,6 @@ import java.net.URISyntaxException;
 import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
 import org.slf4j.Logger;
@@ -75,7 +74,7 @@ public class NexusTaskHandlerImpl implements NexusTaskHandler {
   }
 
   @Override
-  public Result handle(NexusTask task, Scope metricsScope) throws TimeoutException {
+  public CompletableFuture<Result> handleAsync(NexusTask task, Scope metricsScope) {
     Request request = task.getResponse().getRequest();
     Map<String, String> headers = request.getHeaderMap();
     if (headers == null) {
@@ -87,8 +86,10 @@ public class NexusTaskHandlerImpl implements NexusTaskHandler {
     OperationMethodCanceller canceller = new OperationMethodCanceller();
     ctx.setMethodCanceller(canceller);
 
+    // Completed with TimeoutException by the timeout task if the request times out first
+    CompletableFuture<Result> outcome = new CompletableFuture<>();
     ScheduledFuture<?> timeoutTask = null;
-    AtomicBoolean timedOut = new AtomicBoolean(false);
+    CompletableFuture<Response> response;
     try {
       // Parse request timeout, use the context headers to get the timeout
       // since they are case-insensitive.
@@ -99,8 +100,10 @@ public class NexusTaskHandlerImpl implements NexusTaskHandler {
           timeoutTask =
               scheduler.schedule(
                   () -> {
-                    timedOut.set(true);
-                    canceller.cancel("timeout");
+                    if (outcome.completeExceptionally(
+                        new TimeoutException("Nexus task completed after timeout."))) {
+                      canceller.cancel("timeout");
+                    }
                   },
                   timeout.toMillis(),
                   java.util.concurrent.TimeUnit.MILLISECONDS);
@@ -111,47 +114,67 @@ public class NexusTaskHandlerImpl implements NexusTaskHandler {
         }
       }
 
-      CurrentNexusOperationContext.set(
-          new InternalNexusOperationContext(namespace, taskQueue, metricsScope, client));
+      InternalNexusOperationContext nexusContext =
+          new InternalNexusOperationContext(namespace, taskQueue, metricsScope, client);
+      CurrentNexusOperationContext.set(nexusContext);
 
       switch (request.getVariantCase()) {
         case START_OPERATION:
-          StartOperationResponse startResponse =
-              handleStartOperation(ctx, request.getStartOperation());
-          return new Result(Response.newBuilder().setStartOperation(startResponse).build());
+          response =
+              handleStartOperation(ctx, request.getStartOperation(), nexusContext)
+                  .thenApply(
+                      startResponse ->
+                          Response.newBuilder().setStartOperation(startResponse).build());
+          break;
         case CANCEL_OPERATION:
           CancelOperationResponse cancelResponse =
               handleCancelledOperation(ctx, request.getCancelOperation());
-          return new Result(Response.newBuilder().setCancelOperation(cancelResponse).build());
+          response =
+              CompletableFuture.completedFuture(
+                  Response.newBuilder().setCancelOperation(cancelResponse).build());
+          break;
         default:
           throw new HandlerException(
               HandlerException.ErrorType.NOT_IMPLEMENTED,
               new RuntimeException("Unknown request type: " + request.getVariantCase()));
       }
-    } catch (HandlerException e) {
-      return new Result(
-          HandlerError.newBuilder()
-              .setErrorType(e.getErrorType().toString())
-              .setFailure(exceptionToNexusFailure(e.getCause(), dataConverter))
-              .setRetryBehavior(mapRetryBehavior(e.getRetryBehavior()))
-              .build());
     } catch (Throwable e) {
+      response = new CompletableFuture<>();
+      response.completeExceptionally(e);
+    } finally {
+      CurrentNexusOperationContext.unset();
+    }
+
+    ScheduledFuture<?> timeoutTaskToCancel = timeoutTask;
+    response.whenComplete(
+        (r, e) -> {
+          // If the task timed out, we should not send a response back to the server
+          if (outcome.complete(r != null ? new Result(r) : toHandlerErrorResult(e))) {
+            canceller.cancel("");
+            if (timeoutTaskToCancel != null) {
+              timeoutTaskToCancel.cancel(false);
+            }
+          }
+        });
+    return outcome;
+  }
+
+  private Result toHandlerErrorResult(Throwable failure) {
+    Throwable e = failure instanceof CompletionException ? failure.getCause() : failure;
+    if (e instanceof HandlerException) {
+      HandlerException handlerException = (HandlerException) e;
       return new Result(
           HandlerError.newBuilder()
-              .setErrorType(HandlerException.ErrorType.INTERNAL.toString())
-              .setFailure(exceptionToNexusFailure(e, dataConverter))
+              .setErrorType(handlerException.getErrorType().toString())
+              .setFailure(exceptionToNexusFailure(handlerException.getCause(), dataConverter))
+              .setRetryBehavior(mapRetryBehavior(handlerException.getRetryBehavior()))
               .build());
-    } finally {
-      // If the task timed out, we should not send a response back to the server
-      if (timedOut.get()) {
-        throw new TimeoutException("Nexus task completed after timeout.");
-      }
-      canceller.cancel("");
-      if (timeoutTask != null) {
-        timeoutTask.cancel(false);
-      }
-      CurrentNexusOperationContext.unset();
     }
+    return new Result(
+        HandlerError.newBuilder()
+            .setErrorType(HandlerException.ErrorType.INTERNAL.toString())
+            .setFailure(exceptionToNexusFailure(e, dataConverter))
+            .build());
   }
 
   private NexusHandlerErrorRetryBehavior mapRetryBehavior(
@@ -197,23 +220,23 @@ public class NexusTaskHandlerImpl implements NexusTaskHandler {
     try {
       cancelOperation(ctx.build(), operationCancelDetails);
     } catch (Throwable failure) {
-      convertKnownFailures(failure);
+      throw convertKnownFailure(failure);
     }
 
     return CancelOperationResponse.newBuilder().build();
   }
 
-  private void convertKnownFailures(Throwable e) {
+  private RuntimeException convertKnownFailure(Throwable e) {
     Throwable failure = CheckedExceptionWrapper.unwrap(e);
     if (failure instanceof WorkflowException) {
       if (failure instanceof WorkflowNotFoundException) {
-        throw new HandlerException(HandlerException.ErrorType.NOT_FOUND, failure);
+        return new HandlerException(HandlerException.ErrorType.NOT_FOUND, failure);
       }
-      throw new HandlerException(HandlerException.ErrorType.BAD_REQUEST, failure);
+      return new HandlerException(HandlerException.ErrorType.BAD_REQUEST, failure);
     }
     if (failure instanceof ApplicationFailure) {
       if (((ApplicationFailure) failure).isNonRetryable()) {
-        throw new HandlerException(
+        return new HandlerException(
             HandlerException.ErrorType.INTERNAL,
             failure,
             HandlerException.RetryBehavior.NON_RETRYABLE);
@@ -221,12 +244,12 @@ public class NexusTaskHandlerImpl implements NexusTaskHandler {
     }
     if (failure instanceof StatusRuntimeException) {
       StatusRuntimeException statusRuntimeException = (StatusRuntimeException) failure;
-      throw convertStatusRuntimeExceptionToHandlerException(statusRuntimeException);
+      return convertStatusRuntimeExceptionToHandlerException(statusRuntimeException);
     }
     if (failure instanceof Error) {
       throw (Error) failure;
     }
-    throw failure instanceof RuntimeException
+    return failure instanceof RuntimeException
         ? (RuntimeException) failure
         : new RuntimeException(failure);
   }
@@ -288,8 +311,10 @@ public class NexusTaskHandlerImpl implements NexusTaskHandler {
   }
 
   @SuppressWarnings("deprecation") // Continue to check operation id for history compatibility
-  private StartOperationResponse handleStartOperation(
-      OperationContext.Builder ctx, StartOperationRequest task) {
+  private CompletableFuture<StartOperationResponse> handleStartOperation(
+      OperationContext.Builder ctx,
+      StartOperationRequest task,
+      InternalNexusOperationContext nexusContext) {
     ctx.setService(task.getService()).setOperation(task.getOperation());
 
     OperationStartDetails.Builder operationStartDetails =
@@ -319,6 +344,12 @@ public class NexusTaskHandlerImpl implements NexusTaskHandler {
       try {
         OperationStartResult<HandlerResultContent> result =
             startOperation(context, operationStartDetails.build(), input.build());
+        CompletionStage<?> pendingResult = nexusContext.getPendingResult();
+        if (pendingResult != null) {
+          return pendingResult
+              .toCompletableFuture()
+              .handle((value, failure) -> toStartOperationResponse(context, value, failure));
+        }
         if (result.isSync()) {
           startResponseBuilder.setSyncSuccess(
               StartOperationResponse.Sync.newBuilder()
@@ -343,7 +374,7 @@ public class NexusTaskHandlerImpl implements NexusTaskHandler {
       } catch (OperationException e) {
         throw e;
       } catch (Throwable failure) {
-        convertKnownFailures(failure);
+        throw convertKnownFailure(failure);
       }
     } catch (OperationException e) {
       startResponseBuilder.setOperationError(
@@ -352,7 +383,36 @@ public class NexusTaskHandlerImpl implements NexusTaskHandler {
               .setFailure(exceptionToNexusFailure(e.getCause(), dataConverter))
               .build());
     }
-    return startResponseBuilder.build();
+    return CompletableFuture.completedFuture(startResponseBuilder.build());
+  }
+
+  private StartOperationResponse toStartOperationResponse(
+      OperationContext context, Object value, Throwable failure) {
+    if (failure == null) {
+      return StartOperationResponse.newBuilder()
+          .setSyncSuccess(
+              StartOperationResponse.Sync.newBuilder()
+                  .setPayload(dataConverter.toPayload(value).get())
+                  .build())
+          .build();
+    }
+    Throwable cause = failure instanceof CompletionException ? failure.getCause() : failure;
+    if (cause instanceof OperationException) {
+      OperationException e = (OperationException) cause;
+      return StartOperationResponse.newBuilder()
+          .setOperationError(
+              UnsuccessfulOperationError.newBuilder()
+                  .setOperationState(e.getState().toString().toLowerCase())
+                  .setFailure(exceptionToNexusFailure(e.getCause(), dataConverter))
+                  .build())
+          .build();
+    }
+    log.warn(
+        "Nexus start operation failure. Service={}, Operation={}",
+        context.getService(),
+        context.getOperation(),
+        CheckedExceptionWrapper.unwrap(cause));
+    throw convertKnownFailure(cause);
   }
 
   public void registerNexusServiceImplementations(Object[] nexusServiceImplementation) {
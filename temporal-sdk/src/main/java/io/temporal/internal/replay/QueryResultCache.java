@@ -0,0 +1,103 @@
+package io.temporal.internal.replay;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.temporal.api.history.v1.HistoryEvent;
+import io.temporal.api.query.v1.WorkflowQuery;
+import io.temporal.api.workflowservice.v1.PollWorkflowTaskQueueResponseOrBuilder;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Results of the direct queries of the query types opted in with {@link
+ * io.temporal.worker.WorkerOptions.Builder#setCachedQueryTypes(String...)}. A result is kept for
+ * the run, the ID of the last event of the history the query was answered on and the query itself,
+ * including its arguments and header. A query is answered from the cache only if no events were
+ * added to the history since.
+ */
+@ThreadSafe
+final class QueryResultCache {
+  private static final class RunResults {
+    private final long lastEventId;
+    private final Map<WorkflowQuery, QueryResult> results = new ConcurrentHashMap<>();
+
+    private RunResults(long lastEventId) {
+      this.lastEventId = lastEventId;
+    }
+  }
+
+  private final Set<String> queryTypes;
+  private final Cache<String, RunResults> runs;
+
+  /**
+   * @param maximumRuns number of the most recently queried runs whose results are kept
+   */
+  QueryResultCache(Collection<String> queryTypes, int maximumRuns) {
+    this.queryTypes = new HashSet<>(queryTypes);
+    this.runs = CacheBuilder.newBuilder().maximumSize(maximumRuns).build();
+  }
+
+  /**
+   * @return true if the results of the query type of the direct query {@code workflowTask} are
+   *     cached
+   */
+  boolean isCachedQueryType(PollWorkflowTaskQueueResponseOrBuilder workflowTask) {
+    return queryTypes.contains(workflowTask.getQuery().getQueryType());
+  }
+
+  /**
+   * @return the cached result of the direct query {@code workflowTask} or null if there is none for
+   *     the current history of the run
+   */
+  @Nullable
+  QueryResult get(PollWorkflowTaskQueueResponseOrBuilder workflowTask) {
+    long lastEventId = getLastEventId(workflowTask);
+    if (lastEventId == 0 || !isCachedQueryType(workflowTask)) {
+      return null;
+    }
+    RunResults runResults = runs.getIfPresent(workflowTask.getWorkflowExecution().getRunId());
+    if (runResults == null || runResults.lastEventId != lastEventId) {
+      return null;
+    }
+    return runResults.results.get(workflowTask.getQuery());
+  }
+
+  /** Caches the {@code result} of the direct query {@code workflowTask}. */
+  void put(PollWorkflowTaskQueueResponseOrBuilder workflowTask, QueryResult result) {
+    long lastEventId = getLastEventId(workflowTask);
+    if (lastEventId == 0 || !isCachedQueryType(workflowTask)) {
+      return;
+    }
+    RunResults runResults =
+        runs.asMap()
+            .compute(
+                workflowTask.getWorkflowExecution().getRunId(),
+                (runId, current) ->
+                    current == null || current.lastEventId < lastEventId
+                        ? new RunResults(lastEventId)
+                        : current);
+    if (runResults.lastEventId == lastEventId) {
+      runResults.results.put(workflowTask.getQuery(), result);
+    }
+  }
+
+  /**
+   * A direct query task carries the history up to its last event, unless it's paginated. Then the
+   * last event is not known without fetching the rest of the history.
+   *
+   * @return ID of the last event of the history of the run or 0 if it's not known
+   */
+  private static long getLastEventId(PollWorkflowTaskQueueResponseOrBuilder workflowTask) {
+    if (!workflowTask.getNextPageToken().isEmpty()) {
+      return 0;
+    }
+    List<HistoryEvent> events = workflowTask.getHistory().getEventsList();
+    return events.isEmpty() ? 0 : events.get(events.size() - 1).getEventId();
+  }
+}
@@ -13,6 +13,7 @@ import com.uber.m3.tally.Stopwatch;
 import io.grpc.Deadline;
 import io.temporal.api.command.v1.Command;
 import io.temporal.api.common.v1.Payloads;
+import io.temporal.api.common.v1.WorkflowExecution;
 import io.temporal.api.enums.v1.QueryResultType;
 import io.temporal.api.history.v1.HistoryEvent;
 import io.temporal.api.history.v1.WorkflowExecutionStartedEventAttributes;
@@ -25,6 +26,9 @@ import io.temporal.internal.Config;
 import io.temporal.internal.common.FailureUtils;
 import io.temporal.internal.common.SdkFlag;
 import io.temporal.internal.common.UpdateMessage;
+import io.temporal.internal.jfr.JfrDelegate;
+import io.temporal.internal.jfr.TaskPhase;
+import io.temporal.internal.jfr.TaskPhaseRecording;
 import io.temporal.internal.statemachines.ExecuteLocalActivityParameters;
 import io.temporal.internal.statemachines.StatesMachinesCallback;
 import io.temporal.internal.statemachines.WorkflowStateMachines;
@@ -34,7 +38,7 @@ import io.temporal.worker.WorkflowImplementationOptions;
 import io.temporal.workflow.Functions;
 import java.time.Duration;
 import java.util.*;
-import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.BlockingDeque;
 import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -54,7 +58,7 @@ class ReplayWorkflowRunTaskHandler implements WorkflowRunTaskHandler {
 
   private final Functions.Proc1<LocalActivityResult> localActivityCompletionSink;
 
-  private final BlockingQueue<LocalActivityResult> localActivityCompletionQueue =
+  private final BlockingDeque<LocalActivityResult> localActivityCompletionQueue =
       new LinkedBlockingDeque<>();
 
   private final LocalActivityDispatcher localActivityDispatcher;
@@ -75,20 +79,49 @@ class ReplayWorkflowRunTaskHandler implements WorkflowRunTaskHandler {
 
   private final GetSystemInfoResponse.Capabilities capabilities;
 
+  private final String workflowType;
+
+  private final String runId;
+
+  ReplayWorkflowRunTaskHandler(
+      String namespace,
+      ReplayWorkflow workflow,
+      PollWorkflowTaskQueueResponseOrBuilder workflowTask,
+      SingleWorkerOptions workerOptions,
+      Scope metricsScope,
+      LocalActivityDispatcher localActivityDispatcher,
+      GetSystemInfoResponse.Capabilities capabilities) {
+    this(
+        namespace,
+        workflow,
+        workflowTask,
+        workflowTask.getHistory().getEvents(0),
+        workerOptions,
+        metricsScope,
+        localActivityDispatcher,
+        capabilities);
+  }
+
+  /**
+   * @param startedEvent the first event of the history. Passed separately as {@code workflowTask}
+   *     may carry only a partial history.
+   */
   ReplayWorkflowRunTaskHandler(
       String namespace,
       ReplayWorkflow workflow,
       PollWorkflowTaskQueueResponseOrBuilder workflowTask,
+      HistoryEvent startedEvent,
       SingleWorkerOptions workerOptions,
       Scope metricsScope,
       LocalActivityDispatcher localActivityDispatcher,
       GetSystemInfoResponse.Capabilities capabilities) {
-    HistoryEvent startedEvent = workflowTask.getHistory().getEvents(0);
     if (!startedEvent.hasWorkflowExecutionStartedEventAttributes()) {
       throw new IllegalArgumentException(
           "First event in the history is not WorkflowExecutionStarted");
     }
     this.startedEvent = startedEvent.getWorkflowExecutionStartedEventAttributes();
+    this.workflowType = workflowTask.getWorkflowType().getName();
+    this.runId = workflowTask.getWorkflowExecution().getRunId();
     this.metricsScope = metricsScope;
     this.localActivityDispatcher = localActivityDispatcher;
     this.workflow = workflow;
@@ -229,6 +262,18 @@ class ReplayWorkflowRunTaskHandler implements WorkflowRunTaskHandler {
     }
   }
 
+  @Override
+  public QueryResult handleClosedRunQuery(WorkflowQuery query) {
+    lock.lock();
+    try {
+      Preconditions.checkState(
+          context.isWorkflowMethodCompleted(), "[BUG] the workflow run is not closed");
+      return new QueryResult(replayWorkflowExecutor.query(query), true);
+    } finally {
+      lock.unlock();
+    }
+  }
+
   @Override
   public void resetStartedEventId(Long eventId) {
     workflowStateMachines.resetStartedEventId(eventId);
@@ -249,7 +294,9 @@ class ReplayWorkflowRunTaskHandler implements WorkflowRunTaskHandler {
 
     boolean timerStopped = false;
     Stopwatch sw = metricsScope.timer(MetricsType.WORKFLOW_TASK_REPLAY_LATENCY).start();
+    TaskPhaseRecording replayRecording = JfrDelegate.begin(TaskPhase.REPLAY);
     long currentEventId = 0;
+    long peakHistorySize = 0;
     try {
       while (historyIterator.hasNext()) {
         // iteration itself is intentionally left outside the try-catch below,
@@ -257,6 +304,12 @@ class ReplayWorkflowRunTaskHandler implements WorkflowRunTaskHandler {
         HistoryEvent event = historyIterator.next();
         currentEventId = event.getEventId();
         boolean hasNext = historyIterator.hasNext();
+        // the next page may have been loaded while the buffer still holds the previous events
+        peakHistorySize =
+            Math.max(
+                peakHistorySize,
+                historyIterator.getCurrentPageSize()
+                    + workflowStateMachines.getBufferedEventsSize());
         try {
           workflowStateMachines.handleEvent(event, hasNext);
         } catch (Throwable e) {
@@ -282,6 +335,7 @@ class ReplayWorkflowRunTaskHandler implements WorkflowRunTaskHandler {
         }
         if (!timerStopped && !workflowStateMachines.isReplaying()) {
           sw.stop();
+          replayRecording.end(workflowType, runId);
           timerStopped = true;
         }
       }
@@ -289,6 +343,12 @@ class ReplayWorkflowRunTaskHandler implements WorkflowRunTaskHandler {
     } finally {
       if (!timerStopped) {
         sw.stop();
+        replayRecording.end(workflowType, runId);
+      }
+      if (peakHistorySize > 0) {
+        metricsScope
+            .gauge(MetricsType.WORKFLOW_TASK_REPLAY_PEAK_HISTORY_BYTES)
+            .update(peakHistorySize);
       }
     }
   }
@@ -332,6 +392,11 @@ class ReplayWorkflowRunTaskHandler implements WorkflowRunTaskHandler {
     return queryResults;
   }
 
+  @Override
+  public WorkflowExecution getWorkflowExecution() {
+    return context.getWorkflowExecution();
+  }
+
   @Override
   public void close() {
     lock.lock();
@@ -352,24 +417,7 @@ class ReplayWorkflowRunTaskHandler implements WorkflowRunTaskHandler {
       if (context.isWorkflowMethodCompleted()) {
         break;
       }
-      List<ExecuteLocalActivityParameters> laRequests =
-          workflowStateMachines.takeLocalActivityRequests();
-      localActivityTaskCount += laRequests.size();
-
-      for (ExecuteLocalActivityParameters laRequest : laRequests) {
-        boolean accepted =
-            localActivityDispatcher.dispatch(
-                laRequest, localActivityCompletionSink, wftHeartbeatDeadline);
-        // TODO do we have to fail? if we didn't fit in a potentially tight timeout left until
-        // wftHeartbeatDeadline,
-        //  maybe we can return control, heartbeat and try again with fresh timeout one more time?
-        Preconditions.checkState(
-            accepted,
-            "Unable to schedule local activity for execution, "
-                + "no more slots available and local activity task queue is full");
-
-        localActivityMeteringHelper.addNewLocalActivity(laRequest);
-      }
+      dispatchLocalActivityRequests(wftHeartbeatDeadline);
 
       if (localActivityTaskCount == 0) {
         // No outstanding local activity requests
@@ -377,26 +425,44 @@ class ReplayWorkflowRunTaskHandler implements WorkflowRunTaskHandler {
       }
 
       long maxWaitTimeTillHeartbeatNs = wftHeartbeatDeadline.timeRemaining(TimeUnit.NANOSECONDS);
-      LocalActivityResult laCompletion =
+      LocalActivityResult firstCompletion =
           localActivityCompletionQueue.poll(maxWaitTimeTillHeartbeatNs, TimeUnit.NANOSECONDS);
-      if (laCompletion == null) {
+      if (firstCompletion == null) {
         // Need to force a new task as we are out of time
         break;
       }
+      // All the completions that are already available are handled without going back to the
+      // queue. Each of them still triggers its own eventLoop, so the workflow code observes the
+      // results one by one, the same way it does when the markers are replayed.
+      List<LocalActivityResult> laCompletions = new ArrayList<>();
+      laCompletions.add(firstCompletion);
+      localActivityCompletionQueue.drainTo(laCompletions);
+
+      for (int i = 0; i < laCompletions.size(); i++) {
+        if (i > 0 && context.isWorkflowMethodCompleted()) {
+          // the rest is left in the queue, like the completions that are not available yet
+          requeueLocalActivityCompletions(laCompletions, i);
+          break;
+        }
+        LocalActivityResult laCompletion = laCompletions.get(i);
+        localActivityTaskCount--;
+        localActivityMeteringHelper.markLocalActivityComplete(laCompletion.getActivityId());
 
-      localActivityTaskCount--;
-      localActivityMeteringHelper.markLocalActivityComplete(laCompletion.getActivityId());
+        if (laCompletion.getProcessingError() != null) {
+          requeueLocalActivityCompletions(laCompletions, i + 1);
+          throw laCompletion.getProcessingError().getThrowable();
+        }
 
-      if (laCompletion.getProcessingError() != null) {
-        throw laCompletion.getProcessingError().getThrowable();
+        workflowStateMachines.handleLocalActivityCompletion(laCompletion);
+        // handleLocalActivityCompletion triggers eventLoop, the local activities it requested are
+        // dispatched right away instead of waiting for the rest of the drained completions
+        if (!context.isWorkflowMethodCompleted()) {
+          dispatchLocalActivityRequests(wftHeartbeatDeadline);
+        }
       }
-
-      workflowStateMachines.handleLocalActivityCompletion(laCompletion);
-      // handleLocalActivityCompletion triggers eventLoop.
-      // After this call, there may be new local activity requests available in
-      // workflowStateMachines.takeLocalActivityRequests()
-      // These requests need to be processed and accounted for, otherwise we may end up not
-      // heartbeating and completing workflow task instead. So we have to make another iteration.
+      // The new local activity requests need to be processed and accounted for, otherwise we may
+      // end up not heartbeating and completing workflow task instead. So we have to make another
+      // iteration.
     }
 
     // it's safe to call and discard the result of takeLocalActivityRequests() here, because if it's
@@ -408,11 +474,45 @@ class ReplayWorkflowRunTaskHandler implements WorkflowRunTaskHandler {
             + "and accounted in the outstanding local activities counter");
   }
 
+  private void dispatchLocalActivityRequests(Deadline wftHeartbeatDeadline) {
+    List<ExecuteLocalActivityParameters> laRequests =
+        workflowStateMachines.takeLocalActivityRequests();
+    localActivityTaskCount += laRequests.size();
+
+    for (ExecuteLocalActivityParameters laRequest : laRequests) {
+      boolean accepted =
+          localActivityDispatcher.dispatch(
+              laRequest, localActivityCompletionSink, wftHeartbeatDeadline);
+      // TODO do we have to fail? if we didn't fit in a potentially tight timeout left until
+      // wftHeartbeatDeadline,
+      //  maybe we can return control, heartbeat and try again with fresh timeout one more time?
+      Preconditions.checkState(
+          accepted,
+          "Unable to schedule local activity for execution, "
+              + "no more slots available and local activity task queue is full");
+
+      localActivityMeteringHelper.addNewLocalActivity(laRequest);
+    }
+  }
+
+  /** Returns the completions starting from {@code fromIndex} to the head of the queue in order. */
+  private void requeueLocalActivityCompletions(
+      List<LocalActivityResult> laCompletions, int fromIndex) {
+    for (int i = laCompletions.size() - 1; i >= fromIndex; i--) {
+      localActivityCompletionQueue.addFirst(laCompletions.get(i));
+    }
+  }
+
   @VisibleForTesting
   WorkflowStateMachines getWorkflowStateMachines() {
     return workflowStateMachines;
   }
 
+  @VisibleForTesting
+  List<LocalActivityResult> getPendingLocalActivityCompletions() {
+    return new ArrayList<>(localActivityCompletionQueue);
+  }
+
   private class StatesMachinesCallbackImpl implements StatesMachinesCallback {
 
     @Override
@@ -422,7 +522,12 @@ class ReplayWorkflowRunTaskHandler implements WorkflowRunTaskHandler {
 
     @Override
     public void eventLoop() {
-      replayWorkflowExecutor.eventLoop();
+      TaskPhaseRecording userCodeRecording = JfrDelegate.begin(TaskPhase.USER_CODE);
+      try {
+        replayWorkflowExecutor.eventLoop();
+      } finally {
+        userCodeRecording.end(workflowType, runId);
+      }
     }
 
     @Override
@@ -3,8 +3,9 @@ package io.temporal.internal.replay;
 import static io.temporal.internal.common.WorkflowExecutionUtils.isFullHistory;
 import static io.temporal.serviceclient.MetricsTag.METRICS_TAGS_CALL_OPTIONS_KEY;
 
+import com.google.common.collect.Iterators;
+import com.google.common.collect.PeekingIterator;
 import com.uber.m3.tally.Scope;
-import com.uber.m3.util.ImmutableMap;
 import io.temporal.api.command.v1.Command;
 import io.temporal.api.command.v1.FailWorkflowExecutionCommandAttributes;
 import io.temporal.api.common.v1.MeteringMetadata;
@@ -14,6 +15,7 @@ import io.temporal.api.enums.v1.CommandType;
 import io.temporal.api.enums.v1.QueryResultType;
 import io.temporal.api.enums.v1.WorkflowTaskFailedCause;
 import io.temporal.api.failure.v1.Failure;
+import io.temporal.api.history.v1.History;
 import io.temporal.api.history.v1.HistoryEvent;
 import io.temporal.api.query.v1.WorkflowQuery;
 import io.temporal.api.sdk.v1.WorkflowTaskCompletedMetadata;
@@ -23,34 +25,42 @@ import io.temporal.api.workflowservice.v1.*;
 import io.temporal.common.converter.DataConverter;
 import io.temporal.internal.common.ProtobufTimeUtils;
 import io.temporal.internal.common.WorkflowExecutionUtils;
+import io.temporal.internal.jfr.JfrDelegate;
+import io.temporal.internal.jfr.TaskPhase;
+import io.temporal.internal.jfr.TaskPhaseRecording;
 import io.temporal.internal.worker.*;
 import io.temporal.payload.context.WorkflowSerializationContext;
-import io.temporal.serviceclient.MetricsTag;
 import io.temporal.serviceclient.WorkflowServiceStubs;
+import io.temporal.worker.MetricsType;
 import io.temporal.worker.NonDeterministicException;
 import io.temporal.workflow.Functions;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.time.Duration;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public final class ReplayWorkflowTaskHandler implements WorkflowTaskHandler {
 
   private static final Logger log = LoggerFactory.getLogger(ReplayWorkflowTaskHandler.class);
+  private static final int QUERY_RESULT_CACHE_MAXIMUM_RUNS = 10_000;
 
   private final ReplayWorkflowFactory workflowFactory;
   private final String namespace;
   private final WorkflowExecutorCache cache;
   private final SingleWorkerOptions options;
+  private final TaggedScopeCache workflowTypeScopes;
   private final Duration stickyTaskQueueScheduleToStartTimeout;
   private final WorkflowServiceStubs service;
   private final TaskQueue stickyTaskQueue;
   private final LocalActivityDispatcher localActivityDispatcher;
+  private final @Nullable QueryResultCache queryResultCache;
 
   public ReplayWorkflowTaskHandler(
       String namespace,
@@ -65,36 +75,82 @@ public final class ReplayWorkflowTaskHandler implements WorkflowTaskHandler {
     this.workflowFactory = asyncWorkflowFactory;
     this.cache = cache;
     this.options = options;
+    this.workflowTypeScopes = new TaggedScopeCache(options.getMetricsScope());
     this.stickyTaskQueue = stickyTaskQueue;
     this.stickyTaskQueueScheduleToStartTimeout = stickyTaskQueueScheduleToStartTimeout;
     this.service = Objects.requireNonNull(service);
     this.localActivityDispatcher = localActivityDispatcher;
+    this.queryResultCache =
+        options.getCachedQueryTypes().isEmpty()
+            ? null
+            : new QueryResultCache(options.getCachedQueryTypes(), QUERY_RESULT_CACHE_MAXIMUM_RUNS);
   }
 
   @Override
   public WorkflowTaskHandler.Result handleWorkflowTask(PollWorkflowTaskQueueResponse workflowTask)
       throws Exception {
     String workflowType = workflowTask.getWorkflowType().getName();
+    Scope metricsScope = workflowTypeScopes.forWorkflowType(workflowType);
+    return handleWorkflowTaskWithQuery(workflowTask, metricsScope);
+  }
+
+  @Override
+  public @Nullable Result handleCachedDirectQuery(PollWorkflowTaskQueueResponse workflowTask) {
+    if (queryResultCache == null || !queryResultCache.isCachedQueryType(workflowTask)) {
+      return null;
+    }
     Scope metricsScope =
-        options.getMetricsScope().tagged(ImmutableMap.of(MetricsTag.WORKFLOW_TYPE, workflowType));
-    return handleWorkflowTaskWithQuery(workflowTask.toBuilder(), metricsScope);
+        workflowTypeScopes.forWorkflowType(workflowTask.getWorkflowType().getName());
+    QueryResult queryResult = queryResultCache.get(workflowTask);
+    if (queryResult == null) {
+      metricsScope.counter(MetricsType.QUERY_RESULT_CACHE_MISS).inc(1);
+      return null;
+    }
+    metricsScope.counter(MetricsType.QUERY_RESULT_CACHE_HIT).inc(1);
+    return createDirectQueryResult(workflowTask, queryResult, null);
+  }
+
+  @Override
+  public long getReplayCost(PollWorkflowTaskQueueResponseOrBuilder workflowTask) {
+    if (stickyTaskQueue != null
+        && !isFullHistory(workflowTask)
+        && cache.isCached(workflowTask.getWorkflowExecution())) {
+      return 0;
+    }
+    return workflowTask.getPreviousStartedEventId();
   }
 
   private Result handleWorkflowTaskWithQuery(
-      PollWorkflowTaskQueueResponse.Builder workflowTask, Scope metricsScope) throws Exception {
+      PollWorkflowTaskQueueResponse workflowTask, Scope metricsScope) throws Exception {
     boolean directQuery = workflowTask.hasQuery();
     AtomicBoolean createdNew = new AtomicBoolean();
     WorkflowExecution execution = workflowTask.getWorkflowExecution();
     WorkflowRunTaskHandler workflowRunTaskHandler = null;
     boolean useCache = stickyTaskQueue != null;
+    LocalHistoryStore localHistory = useCache ? cache.getLocalHistory() : null;
+    LocalHistoryStore.Appender localHistoryAppender = null;
+
+    if (directQuery && useCache) {
+      WorkflowRunTaskHandler closedRun = cache.getClosed(execution, metricsScope);
+      if (closedRun != null) {
+        // The run is closed and its history was replayed to the end, nothing to apply
+        return handleClosedRunQuery(workflowTask, closedRun);
+      }
+    }
 
     try {
+      ServiceWorkflowHistoryIterator historyIterator =
+          new ServiceWorkflowHistoryIterator(
+              service, namespace, workflowTask, options.getReplayHistoryPageSize(), metricsScope);
+      if (localHistory != null) {
+        localHistoryAppender = localHistory.newAppender(execution.getRunId());
+        historyIterator.setAppender(localHistoryAppender);
+      }
       workflowRunTaskHandler =
-          getOrCreateWorkflowExecutor(useCache, workflowTask, metricsScope, createdNew);
+          getOrCreateWorkflowExecutor(
+              useCache, workflowTask, historyIterator, metricsScope, createdNew);
       logWorkflowTaskToBeProcessed(workflowTask, createdNew);
 
-      ServiceWorkflowHistoryIterator historyIterator =
-          new ServiceWorkflowHistoryIterator(service, namespace, workflowTask, metricsScope);
       boolean finalCommand;
       Result result;
 
@@ -109,6 +165,9 @@ public final class ReplayWorkflowTaskHandler implements WorkflowTaskHandler {
             workflowRunTaskHandler.handleDirectQueryWorkflowTask(workflowTask, historyIterator);
         finalCommand = queryResult.isWorkflowMethodCompleted();
         result = createDirectQueryResult(workflowTask, queryResult, null);
+        if (queryResultCache != null) {
+          queryResultCache.put(workflowTask, queryResult);
+        }
       } else {
         // main code path, handle workflow task that can have an embedded query
         WorkflowTaskResult wftResult =
@@ -126,10 +185,21 @@ public final class ReplayWorkflowTaskHandler implements WorkflowTaskHandler {
         if (finalCommand) {
           // don't invalidate execution from the cache if we were not using cached value here
           cache.invalidate(execution, metricsScope, "FinalCommand", null);
+          if (directQuery) {
+            // a query replays the history to the end, including the closing event
+            cache.addClosed(execution, workflowRunTaskHandler);
+          }
         } else if (createdNew.get()) {
           cache.addToCache(execution, workflowRunTaskHandler);
         }
       }
+      if (localHistoryAppender != null) {
+        if (finalCommand) {
+          localHistory.remove(execution.getRunId());
+        } else {
+          localHistoryAppender.flush();
+        }
+      }
 
       return result;
     } catch (InterruptedException e) {
@@ -142,11 +212,16 @@ public final class ReplayWorkflowTaskHandler implements WorkflowTaskHandler {
         workflowRunTaskHandler.close();
       }
 
+      if (localHistory != null) {
+        localHistory.remove(execution.getRunId());
+      }
       if (useCache) {
         cache.invalidate(execution, metricsScope, "Exception", e);
         // If history is full and exception occurred then sticky session hasn't been established
-        // yet, and we can avoid doing a reset.
-        if (!isFullHistory(workflowTask)) {
+        // yet, and we can avoid doing a reset. A new executor always replays the full history,
+        // even if it had to fetch it. createdNew is only set once the full history was obtained,
+        // so a failure to fetch it still resets the sticky queue.
+        if (!createdNew.get() && !isFullHistory(workflowTask)) {
           resetStickyTaskQueue(execution);
         }
       }
@@ -170,6 +245,16 @@ public final class ReplayWorkflowTaskHandler implements WorkflowTaskHandler {
     }
   }
 
+  private Result handleClosedRunQuery(
+      PollWorkflowTaskQueueResponse workflowTask, WorkflowRunTaskHandler closedRun) {
+    try {
+      QueryResult queryResult = closedRun.handleClosedRunQuery(workflowTask.getQuery());
+      return createDirectQueryResult(workflowTask, queryResult, null);
+    } catch (Throwable e) {
+      return createDirectQueryResult(workflowTask, null, e);
+    }
+  }
+
   private Result createCompletedWFTRequest(
       String workflowType,
       PollWorkflowTaskQueueResponseOrBuilder workflowTask,
@@ -359,7 +444,8 @@ public final class ReplayWorkflowTaskHandler implements WorkflowTaskHandler {
 
   private WorkflowRunTaskHandler getOrCreateWorkflowExecutor(
       boolean useCache,
-      PollWorkflowTaskQueueResponse.Builder workflowTask,
+      PollWorkflowTaskQueueResponse workflowTask,
+      ServiceWorkflowHistoryIterator historyIterator,
       Scope metricsScope,
       AtomicBoolean createdNew)
       throws Exception {
@@ -368,42 +454,86 @@ public final class ReplayWorkflowTaskHandler implements WorkflowTaskHandler {
           workflowTask,
           metricsScope,
           () -> {
+            WorkflowRunTaskHandler handler =
+                createStatefulHandler(workflowTask, historyIterator, metricsScope);
             createdNew.set(true);
-            return createStatefulHandler(workflowTask, metricsScope);
+            return handler;
           });
     } else {
+      WorkflowRunTaskHandler handler =
+          createStatefulHandler(workflowTask, historyIterator, metricsScope);
       createdNew.set(true);
-      return createStatefulHandler(workflowTask, metricsScope);
+      return handler;
     }
   }
 
-  // TODO(maxim): Consider refactoring that avoids mutating workflow task.
+  /**
+   * The workflow task is never copied or mutated. If it carries a partial history, the events
+   * preceding it are read from the local history store, if it has all of them. Otherwise, the full
+   * history is fetched into the {@code historyIterator} instead, so its pages are referenced only
+   * by the iterator and can be collected as soon as they are replayed.
+   */
   private WorkflowRunTaskHandler createStatefulHandler(
-      PollWorkflowTaskQueueResponse.Builder workflowTask, Scope metricsScope) throws Exception {
+      PollWorkflowTaskQueueResponse workflowTask,
+      ServiceWorkflowHistoryIterator historyIterator,
+      Scope metricsScope)
+      throws Exception {
     WorkflowType workflowType = workflowTask.getWorkflowType();
     WorkflowExecution workflowExecution = workflowTask.getWorkflowExecution();
     List<HistoryEvent> events = workflowTask.getHistory().getEventsList();
+    HistoryEvent startedEvent;
     // Sticky workflow task with partial history.
-    if (events.isEmpty() || events.get(0).getEventId() > 1) {
+    boolean partialHistory = events.isEmpty() || events.get(0).getEventId() > 1;
+    Iterator<HistoryEvent> localEvents = null;
+    LocalHistoryStore localHistory = cache != null ? cache.getLocalHistory() : null;
+    if (partialHistory && localHistory != null && !events.isEmpty()) {
+      localEvents =
+          localHistory.readBefore(workflowExecution.getRunId(), events.get(0).getEventId());
+      metricsScope
+          .counter(
+              localEvents != null
+                  ? MetricsType.STICKY_CACHE_LOCAL_HISTORY_HIT
+                  : MetricsType.STICKY_CACHE_LOCAL_HISTORY_MISS)
+          .inc(1);
+    }
+    if (localEvents != null) {
+      PeekingIterator<HistoryEvent> peekingLocalEvents = Iterators.peekingIterator(localEvents);
+      startedEvent = peekingLocalEvents.peek();
+      historyIterator.prependLocalEvents(peekingLocalEvents);
+    } else if (partialHistory) {
       GetWorkflowExecutionHistoryRequest getHistoryRequest =
           GetWorkflowExecutionHistoryRequest.newBuilder()
               .setNamespace(namespace)
               .setExecution(workflowTask.getWorkflowExecution())
+              .setMaximumPageSize(options.getReplayHistoryPageSize())
               .build();
+      TaskPhaseRecording fetchRecording = JfrDelegate.begin(TaskPhase.HISTORY_FETCH);
       GetWorkflowExecutionHistoryResponse getHistoryResponse =
           service
               .blockingStub()
               .withOption(METRICS_TAGS_CALL_OPTIONS_KEY, metricsScope)
               .getWorkflowExecutionHistory(getHistoryRequest);
-      workflowTask
-          .setHistory(getHistoryResponse.getHistory())
-          .setNextPageToken(getHistoryResponse.getNextPageToken());
+      fetchRecording.end(workflowType.getName(), workflowExecution.getRunId());
+      History firstPage = getHistoryResponse.getHistory();
+      if (firstPage.getEventsCount() == 0) {
+        throw new IllegalStateException(
+            "Empty history returned for WorkflowId='"
+                + workflowExecution.getWorkflowId()
+                + "', RunId='"
+                + workflowExecution.getRunId()
+                + "'");
+      }
+      startedEvent = firstPage.getEvents(0);
+      historyIterator.restart(firstPage, getHistoryResponse.getNextPageToken());
+    } else {
+      startedEvent = events.get(0);
     }
     ReplayWorkflow workflow = workflowFactory.getWorkflow(workflowType, workflowExecution);
     return new ReplayWorkflowRunTaskHandler(
         namespace,
         workflow,
         workflowTask,
+        startedEvent,
         options,
         metricsScope,
         localActivityDispatcher,
@@ -421,7 +551,7 @@ public final class ReplayWorkflowTaskHandler implements WorkflowTaskHandler {
   }
 
   private void logWorkflowTaskToBeProcessed(
-      PollWorkflowTaskQueueResponse.Builder workflowTask, AtomicBoolean createdNew) {
+      PollWorkflowTaskQueueResponse workflowTask, AtomicBoolean createdNew) {
     if (log.isDebugEnabled()) {
       boolean directQuery = workflowTask.hasQuery();
       WorkflowExecution execution = workflowTask.getWorkflowExecution();
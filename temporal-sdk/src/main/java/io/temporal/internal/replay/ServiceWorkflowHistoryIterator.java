@@ -7,19 +7,31 @@ import com.uber.m3.tally.Scope;
 import io.grpc.Deadline;
 import io.grpc.Status;
 import io.grpc.StatusRuntimeException;
+import io.temporal.api.common.v1.WorkflowExecution;
 import io.temporal.api.history.v1.History;
 import io.temporal.api.history.v1.HistoryEvent;
 import io.temporal.api.workflowservice.v1.GetWorkflowExecutionHistoryRequest;
 import io.temporal.api.workflowservice.v1.GetWorkflowExecutionHistoryResponse;
 import io.temporal.api.workflowservice.v1.PollWorkflowTaskQueueResponseOrBuilder;
+import io.temporal.internal.jfr.JfrDelegate;
+import io.temporal.internal.jfr.TaskPhase;
+import io.temporal.internal.jfr.TaskPhaseRecording;
 import io.temporal.internal.retryer.GrpcRetryer;
+import io.temporal.internal.worker.LocalHistoryStore;
 import io.temporal.serviceclient.RpcRetryOptions;
 import io.temporal.serviceclient.WorkflowServiceStubs;
 import java.time.Duration;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import javax.annotation.Nullable;
 
-/** Supports iteration over history while loading new pages through calls to the service. */
+/**
+ * Supports iteration over history while loading new pages through calls to the service.
+ *
+ * <p>Only the page that is currently iterated is referenced, so the pages that were already
+ * iterated over can be garbage collected while the rest of the history is replayed.
+ */
 class ServiceWorkflowHistoryIterator implements WorkflowHistoryIterator {
 
   private final Duration retryServiceOperationInitialInterval = Duration.ofMillis(200);
@@ -27,10 +39,14 @@ class ServiceWorkflowHistoryIterator implements WorkflowHistoryIterator {
   public final WorkflowServiceStubs service;
   private final String namespace;
   private final Scope metricsScope;
-  private final PollWorkflowTaskQueueResponseOrBuilder task;
+  private final WorkflowExecution execution;
+  private final int maximumPageSize;
   private final GrpcRetryer grpcRetryer;
   private Deadline deadline;
   private Iterator<HistoryEvent> current;
+  private long currentPageSize;
+  private Iterator<HistoryEvent> localEvents = Collections.emptyIterator();
+  @Nullable private LocalHistoryStore.Appender appender;
   ByteString nextPageToken;
 
   ServiceWorkflowHistoryIterator(
@@ -38,9 +54,23 @@ class ServiceWorkflowHistoryIterator implements WorkflowHistoryIterator {
       String namespace,
       PollWorkflowTaskQueueResponseOrBuilder task,
       Scope metricsScope) {
+    this(service, namespace, task, 0, metricsScope);
+  }
+
+  /**
+   * @param maximumPageSize maximum number of events in the pages requested from the service, 0 for
+   *     the service default
+   */
+  ServiceWorkflowHistoryIterator(
+      WorkflowServiceStubs service,
+      String namespace,
+      PollWorkflowTaskQueueResponseOrBuilder task,
+      int maximumPageSize,
+      Scope metricsScope) {
     this.service = service;
     this.namespace = namespace;
-    this.task = task;
+    this.execution = task.getWorkflowExecution();
+    this.maximumPageSize = maximumPageSize;
     this.metricsScope = metricsScope;
     // TODO Refactor WorkflowHistoryIteratorTest or WorkflowHistoryIterator to remove this check.
     //  `service == null` shouldn't be allowed as it's needed for a normal functioning of this
@@ -48,13 +78,40 @@ class ServiceWorkflowHistoryIterator implements WorkflowHistoryIterator {
     this.grpcRetryer = service != null ? new GrpcRetryer(service.getServerCapabilities()) : null;
     History history = task.getHistory();
     current = history.getEventsList().iterator();
+    currentPageSize = history.getSerializedSize();
     nextPageToken = task.getNextPageToken();
   }
 
+  /**
+   * Restarts the iteration from {@code firstPage}. Used when the workflow task carries a partial
+   * history, but the full history has to be replayed.
+   */
+  void restart(History firstPage, ByteString nextPageToken) {
+    this.current = firstPage.getEventsList().iterator();
+    this.currentPageSize = firstPage.getSerializedSize();
+    this.nextPageToken = nextPageToken;
+  }
+
+  /**
+   * Iterates {@code localEvents} read from the local history store before the partial history of
+   * the task.
+   */
+  void prependLocalEvents(Iterator<HistoryEvent> localEvents) {
+    this.localEvents = localEvents;
+  }
+
+  /**
+   * Appends the events of the task and of the pages loaded from the service to the local history
+   * store. The prepended local events are not appended again.
+   */
+  void setAppender(@Nullable LocalHistoryStore.Appender appender) {
+    this.appender = appender;
+  }
+
   // Returns true if more history events are available.
   @Override
   public boolean hasNext() {
-    if (current.hasNext()) {
+    if (localEvents.hasNext() || current.hasNext()) {
       return true;
     }
     while (!nextPageToken.isEmpty()) {
@@ -64,7 +121,9 @@ class ServiceWorkflowHistoryIterator implements WorkflowHistoryIterator {
       // true.
       GetWorkflowExecutionHistoryResponse response = queryWorkflowExecutionHistory();
 
+      // the previous page is not referenced anymore and can be collected
       current = response.getHistory().getEventsList().iterator();
+      currentPageSize = response.getHistory().getSerializedSize();
       nextPageToken = response.getNextPageToken();
       // Server can return an empty page, but a valid nextPageToken that contains
       // more events.
@@ -77,8 +136,15 @@ class ServiceWorkflowHistoryIterator implements WorkflowHistoryIterator {
 
   @Override
   public HistoryEvent next() {
+    if (localEvents.hasNext()) {
+      return localEvents.next();
+    }
     if (hasNext()) {
-      return current.next();
+      HistoryEvent event = current.next();
+      if (appender != null) {
+        appender.append(event);
+      }
+      return event;
     }
     throw new NoSuchElementException();
   }
@@ -87,6 +153,11 @@ class ServiceWorkflowHistoryIterator implements WorkflowHistoryIterator {
     this.deadline = deadline;
   }
 
+  @Override
+  public long getCurrentPageSize() {
+    return currentPageSize;
+  }
+
   GetWorkflowExecutionHistoryResponse queryWorkflowExecutionHistory() {
     RpcRetryOptions retryOptions =
         RpcRetryOptions.newBuilder()
@@ -98,9 +169,11 @@ class ServiceWorkflowHistoryIterator implements WorkflowHistoryIterator {
     GetWorkflowExecutionHistoryRequest request =
         GetWorkflowExecutionHistoryRequest.newBuilder()
             .setNamespace(namespace)
-            .setExecution(task.getWorkflowExecution())
+            .setExecution(execution)
             .setNextPageToken(nextPageToken)
+            .setMaximumPageSize(maximumPageSize)
             .build();
+    TaskPhaseRecording recording = JfrDelegate.begin(TaskPhase.HISTORY_FETCH);
     try {
       return grpcRetryer.retryWithResult(
           () ->
@@ -118,6 +191,8 @@ class ServiceWorkflowHistoryIterator implements WorkflowHistoryIterator {
             .asRuntimeException();
       }
       throw ex;
+    } finally {
+      recording.end(null, execution.getRunId());
     }
   }
 }
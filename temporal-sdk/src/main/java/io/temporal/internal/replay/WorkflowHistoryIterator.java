@@ -6,4 +6,11 @@ import java.util.Iterator;
 
 public interface WorkflowHistoryIterator extends Iterator<HistoryEvent> {
   void initDeadline(Deadline deadline);
+
+  /**
+   * @return serialized size in bytes of the history page that is currently iterated over
+   */
+  default long getCurrentPageSize() {
+    return 0;
+  }
 }
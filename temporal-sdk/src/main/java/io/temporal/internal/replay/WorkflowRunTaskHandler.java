@@ -1,5 +1,7 @@
 package io.temporal.internal.replay;
 
+import io.temporal.api.common.v1.WorkflowExecution;
+import io.temporal.api.query.v1.WorkflowQuery;
 import io.temporal.api.workflowservice.v1.PollWorkflowTaskQueueResponseOrBuilder;
 import io.temporal.worker.NonDeterministicException;
 
@@ -36,6 +38,15 @@ public interface WorkflowRunTaskHandler {
       PollWorkflowTaskQueueResponseOrBuilder workflowTask, WorkflowHistoryIterator historyIterator)
       throws Throwable;
 
+  /**
+   * Answers the query on the final state of a closed run whose history was replayed to the end by
+   * {@link #handleDirectQueryWorkflowTask}. No history is applied.
+   *
+   * @return the query result
+   * @throws Throwable if the query fails
+   */
+  QueryResult handleClosedRunQuery(WorkflowQuery query) throws Throwable;
+
   /**
    * Reset the workflow event ID.
    *
@@ -43,5 +54,10 @@ public interface WorkflowRunTaskHandler {
    */
   void resetStartedEventId(Long eventId);
 
+  /**
+   * @return the workflow run handled by this handler
+   */
+  WorkflowExecution getWorkflowExecution();
+
   void close();
 }
@@ -11,6 +11,9 @@ import java.util.Optional;
 /**
  * This class buffers events between WorkflowTaskStarted events and return them in one chunk so any
  * kinds of look ahead and preloading can be implemented.
+ *
+ * <p>Only the events of the workflow task that is currently accumulated are held. Fetched batches
+ * are handed over without copying and are not referenced by the buffer afterwards.
  */
 public class WFTBuffer {
   private enum WFTState {
@@ -43,9 +46,11 @@ public class WFTBuffer {
 
   private WFTState wftSequenceState = WFTState.None;
 
-  private final List<HistoryEvent> wftBuffer = new ArrayList<>();
+  private List<HistoryEvent> wftBuffer = new ArrayList<>();
   private Optional<HistoryEvent> workflowTaskCompletedEvent = Optional.empty();
-  private final List<HistoryEvent> readyToFetch = new ArrayList<>();
+  private List<HistoryEvent> readyToFetch = new ArrayList<>();
+  // serialized size of the events in wftBuffer and readyToFetch
+  private long bufferedSize;
 
   /**
    * @return Should the buffer be fetched. true if a whole history for a workflow task is
@@ -75,7 +80,7 @@ public class WFTBuffer {
       }
       // exit the sequence
       wftSequenceState = WFTState.None;
-      readyToFetch.add(event);
+      addToReadyToFetch(event);
       return;
     }
 
@@ -119,33 +124,57 @@ public class WFTBuffer {
     if (WorkflowExecutionUtils.isCommandEvent(event)
         || WorkflowExecutionUtils.isWorkflowTaskClosedEvent(event)) {
       flushBuffer();
-      readyToFetch.add(event);
+      addToReadyToFetch(event);
     } else {
       addToBuffer(event);
     }
   }
 
   private void flushBuffer() {
-    readyToFetch.addAll(wftBuffer);
-    wftBuffer.clear();
+    if (wftBuffer.isEmpty()) {
+      return;
+    }
+    if (readyToFetch.isEmpty()) {
+      List<HistoryEvent> flushed = wftBuffer;
+      wftBuffer = readyToFetch;
+      readyToFetch = flushed;
+    } else {
+      readyToFetch.addAll(wftBuffer);
+      // a new list, so the capacity grown by a large workflow task is not retained
+      wftBuffer = new ArrayList<>();
+    }
   }
 
   private void addToBuffer(HistoryEvent event) {
     wftBuffer.add(event);
+    bufferedSize += event.getSerializedSize();
+  }
+
+  private void addToReadyToFetch(HistoryEvent event) {
+    readyToFetch.add(event);
+    bufferedSize += event.getSerializedSize();
+  }
+
+  /**
+   * @return serialized size in bytes of the events held by this buffer
+   */
+  public long getBufferedSize() {
+    return bufferedSize;
   }
 
   public EventBatch fetch() {
+    Optional<HistoryEvent> wftCompleted = workflowTaskCompletedEvent;
+    workflowTaskCompletedEvent = Optional.empty();
+    for (HistoryEvent event : readyToFetch) {
+      bufferedSize -= event.getSerializedSize();
+    }
     if (readyToFetch.size() == 1) {
       HistoryEvent event = readyToFetch.get(0);
-      Optional<HistoryEvent> wftCompleted = workflowTaskCompletedEvent;
-      workflowTaskCompletedEvent = Optional.empty();
       readyToFetch.clear();
       return new EventBatch(wftCompleted, Collections.singletonList(event));
     } else {
-      List<HistoryEvent> result = new ArrayList<>(readyToFetch);
-      Optional<HistoryEvent> wftCompleted = workflowTaskCompletedEvent;
-      workflowTaskCompletedEvent = Optional.empty();
-      readyToFetch.clear();
+      List<HistoryEvent> result = readyToFetch;
+      readyToFetch = new ArrayList<>();
       return new EventBatch(wftCompleted, result);
     }
   }
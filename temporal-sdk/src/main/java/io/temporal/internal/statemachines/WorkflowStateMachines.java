@@ -1159,6 +1159,14 @@ public final class WorkflowStateMachines {
     return replaying;
   }
 
+  /**
+   * @return serialized size in bytes of the history events that are buffered until the end of the
+   *     workflow task they belong to is seen
+   */
+  public long getBufferedEventsSize() {
+    return wftBuffer.getBufferedSize();
+  }
+
   public long currentTimeMillis() {
     return currentTimeMillis;
   }
@@ -17,6 +17,25 @@ class CancellationScopeImpl implements CancellationScope {
     return scopeStack.get().peekFirst();
   }
 
+  /**
+   * @return the scope stack of the calling thread
+   */
+  static Deque<CancellationScopeImpl> currentScopeStack() {
+    return scopeStack.get();
+  }
+
+  /**
+   * Replaces the scope stack of the calling thread, used to evaluate code on behalf of another
+   * workflow thread.
+   *
+   * @return the replaced stack
+   */
+  static Deque<CancellationScopeImpl> replaceScopeStack(Deque<CancellationScopeImpl> stack) {
+    Deque<CancellationScopeImpl> replaced = scopeStack.get();
+    scopeStack.set(stack);
+    return replaced;
+  }
+
   private static void pushCurrent(CancellationScopeImpl scope) {
     scopeStack.get().addFirst(scope);
   }
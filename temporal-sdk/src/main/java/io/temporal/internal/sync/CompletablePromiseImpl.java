@@ -15,6 +15,8 @@ import java.util.concurrent.TimeoutException;
 class CompletablePromiseImpl<V> implements CompletablePromise<V> {
 
   private V value;
+  /** Computes the value of a promise completed with {@link #completeLazily} on its first access. */
+  private Functions.Func<V> lazyValue;
   private RuntimeException failure;
   private boolean completed;
   private final List<Functions.Proc> handlers = new ArrayList<>();
@@ -41,6 +43,32 @@ class CompletablePromiseImpl<V> implements CompletablePromise<V> {
     return result;
   }
 
+  /**
+   * Like {@link Promise#handle(Functions.Func2)}, but when the source promise completes
+   * successfully, {@code fn} is applied to its value only when the value of the returned promise
+   * is accessed, either directly or by a callback registered on the returned promise. Used to
+   * convert results received from the server only if the workflow code reads them, which most of
+   * the results replayed from a long history are not.
+   */
+  static <S, V> Promise<V> handleLazily(
+      Promise<S> source, Functions.Func2<? super S, RuntimeException, ? extends V> fn) {
+    CompletablePromiseImpl<V> result = new CompletablePromiseImpl<>();
+    source.handle(
+        (value, failure) -> {
+          if (failure == null) {
+            result.completeLazily(() -> fn.apply(value, null));
+          } else {
+            try {
+              result.complete(fn.apply(null, failure));
+            } catch (RuntimeException e) {
+              result.completeExceptionally(e);
+            }
+          }
+          return null;
+        });
+    return result;
+  }
+
   CompletablePromiseImpl() {
     runner = DeterministicRunnerImpl.currentThreadInternal().getRunner();
   }
@@ -62,7 +90,7 @@ class CompletablePromiseImpl<V> implements CompletablePromise<V> {
 
   private V getImpl(boolean cancellable) {
     if (!completed) {
-      WorkflowThread.await(
+      WorkflowThread.awaitNonBlocking(
           "Feature.get",
           () -> {
             if (cancellable) {
@@ -71,6 +99,7 @@ class CompletablePromiseImpl<V> implements CompletablePromise<V> {
             return completed;
           });
     }
+    resolveLazyValue();
     if (failure != null) {
       unregisterWithRunner();
       throwFailure();
@@ -104,6 +133,7 @@ class CompletablePromiseImpl<V> implements CompletablePromise<V> {
     if (!completed) {
       throw new TimeoutException();
     }
+    resolveLazyValue();
     if (failure != null) {
       unregisterWithRunner();
       return throwFailure();
@@ -122,8 +152,9 @@ class CompletablePromiseImpl<V> implements CompletablePromise<V> {
   @Override
   public RuntimeException getFailure() {
     if (!completed) {
-      WorkflowThread.await("Feature.get", () -> completed);
+      WorkflowThread.awaitNonBlocking("Feature.get", () -> completed);
     }
+    resolveLazyValue();
     if (failure != null) {
       unregisterWithRunner();
       return failure;
@@ -149,6 +180,32 @@ class CompletablePromiseImpl<V> implements CompletablePromise<V> {
     return true;
   }
 
+  /**
+   * Completes the promise with a value that is computed by {@code value} only when it's accessed.
+   * If {@code value} throws, the promise is failed with the thrown exception.
+   */
+  void completeLazily(Functions.Func<V> value) {
+    if (completed) {
+      return;
+    }
+    this.completed = true;
+    this.lazyValue = value;
+    invokeHandlers();
+  }
+
+  private void resolveLazyValue() {
+    if (lazyValue == null) {
+      return;
+    }
+    Functions.Func<V> value = lazyValue;
+    lazyValue = null;
+    try {
+      this.value = value.apply();
+    } catch (RuntimeException e) {
+      this.failure = e;
+    }
+  }
+
   @Override
   public boolean completeExceptionally(RuntimeException value) {
     if (completed) {
@@ -243,10 +300,15 @@ class CompletablePromiseImpl<V> implements CompletablePromise<V> {
   private <U> Promise<U> then(Functions.Proc1<CompletablePromise<U>> proc) {
     CompletablePromise<U> resultPromise = new CompletablePromiseImpl<>();
     if (completed) {
+      resolveLazyValue();
       proc.apply(resultPromise);
       unregisterWithRunner();
     } else {
-      handlers.add(() -> proc.apply(resultPromise));
+      handlers.add(
+          () -> {
+            resolveLazyValue();
+            proc.apply(resultPromise);
+          });
     }
     return resultPromise;
   }
@@ -3,13 +3,16 @@ package io.temporal.internal.sync;
 import com.google.common.base.Preconditions;
 import com.google.common.primitives.Ints;
 import io.temporal.common.context.ContextPropagator;
+import io.temporal.failure.CanceledFailure;
 import io.temporal.internal.WorkflowThreadMarker;
 import io.temporal.internal.common.SdkFlag;
 import io.temporal.internal.context.ContextThreadLocal;
 import io.temporal.internal.worker.WorkflowExecutorCache;
 import io.temporal.serviceclient.CheckedExceptionWrapper;
 import io.temporal.workflow.Promise;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -82,6 +85,12 @@ class DeterministicRunnerImpl implements DeterministicRunner {
   private final List<WorkflowThread> workflowThreadsToAdd = new ArrayList<>();
   private final List<WorkflowThread> callbackThreadsToAdd = new ArrayList<>();
   private int addedThreads;
+  // Callbacks that are not started yet by the callback threads. Accessed under the runner lock or
+  // by the callback thread itself.
+  private final Map<WorkflowThread, CallbackLane> callbackLanes = new HashMap<>();
+  // set once an interceptor wraps the runnable of a callback thread, then each callback gets a
+  // thread of its own, so the interceptor wraps each of them separately
+  private boolean callbackThreadsWrapped;
 
   /**
    * Close is requested by the workflow code and the workflow thread itself. Such close is processed
@@ -188,23 +197,7 @@ class DeterministicRunnerImpl implements DeterministicRunner {
           break;
         }
         if (!toExecuteInWorkflowThread.isEmpty()) {
-          for (NamedRunnable nr : toExecuteInWorkflowThread) {
-            Object callbackThread =
-                workflowContext
-                    .getWorkflowInboundInterceptor()
-                    .newCallbackThread(nr.runnable, nr.name);
-            Preconditions.checkState(
-                callbackThread != null,
-                "[BUG] One of the custom interceptors illegally overrode newCallbackThread result to null. "
-                    + "Check WorkflowInboundCallsInterceptor#newCallbackThread contract.");
-            Preconditions.checkState(
-                callbackThread instanceof WorkflowThread,
-                "[BUG] One of the custom interceptors illegally overrode newCallbackThread result. "
-                    + "Check WorkflowInboundCallsInterceptor#newCallbackThread contract. "
-                    + "Illegal object returned from the interceptors chain: %s",
-                callbackThread);
-          }
-
+          newCallbackLaneThreadLocked(new ArrayDeque<>(toExecuteInWorkflowThread));
           appendCallbackThreadsLocked();
         }
         toExecuteInWorkflowThread.clear();
@@ -219,13 +212,25 @@ class DeterministicRunnerImpl implements DeterministicRunner {
           }
           if (c.isDone()) {
             ci.remove();
-            Throwable unhandledException = c.getUnhandledException();
-            if (unhandledException != null) {
+            throwIfUnhandledExceptionLocked(c);
+          }
+          // The callbacks queued behind a blocked callback run right away on a new thread,
+          // exactly when they would have run if each of them had a thread of its own.
+          WorkflowThread h = handOffCallbacksLocked(c);
+          while (h != null) {
+            progress = h.runUntilBlocked(deadlockDetectionTimeout) || progress;
+            if (exitRequested) {
               closeRequested = true;
-              throw WorkflowInternal.wrap(unhandledException);
+              break outerLoop;
             }
+            if (h.isDone()) {
+              callbackThreadsToAdd.remove(h);
+              throwIfUnhandledExceptionLocked(h);
+            }
+            h = handOffCallbacksLocked(h);
           }
         }
+        appendCallbackThreadsLocked();
         appendWorkflowThreadsLocked();
       } while (progress && !threads.isEmpty());
     } catch (PotentialDeadlockException e) {
@@ -254,6 +259,14 @@ class DeterministicRunnerImpl implements DeterministicRunner {
     }
   }
 
+  private void throwIfUnhandledExceptionLocked(WorkflowThread thread) {
+    Throwable unhandledException = thread.getUnhandledException();
+    if (unhandledException != null) {
+      closeRequested = true;
+      throw WorkflowInternal.wrap(unhandledException);
+    }
+  }
+
   @Override
   public boolean isDone() {
     lock.lock();
@@ -321,6 +334,7 @@ class DeterministicRunnerImpl implements DeterministicRunner {
         List<WorkflowThreadStopFuture> threadFutures = new ArrayList<>();
         try {
           toExecuteInWorkflowThread.clear();
+          callbackLanes.clear();
           appendWorkflowThreadsLocked();
           appendCallbackThreadsLocked();
           for (WorkflowThread workflowThread : threads) {
@@ -483,6 +497,9 @@ class DeterministicRunnerImpl implements DeterministicRunner {
   @Nonnull
   @Override
   public WorkflowThread newCallbackThread(Runnable runnable, @Nullable String name) {
+    if (runnable instanceof CallbackLane) {
+      ((CallbackLane) runnable).wrapped = false;
+    }
     if (name == null) {
       name = "workflow[" + workflowContext.getReplayContext().getWorkflowId() + "]-" + addedThreads;
     }
@@ -504,6 +521,85 @@ class DeterministicRunnerImpl implements DeterministicRunner {
     return result;
   }
 
+  /**
+   * Creates a callback thread through the interceptors that runs the {@code callbacks} one after
+   * another. If the interceptors wrap the runnable of the callback threads, each of the callbacks
+   * is given a thread of its own instead, created through the interceptors in order.
+   *
+   * @return the thread that runs the first of the {@code callbacks}
+   */
+  private WorkflowThread newCallbackLaneThreadLocked(Deque<NamedRunnable> callbacks) {
+    Deque<NamedRunnable> separateCallbacks = new ArrayDeque<>();
+    if (callbackThreadsWrapped) {
+      moveAllButFirst(callbacks, separateCallbacks);
+    }
+    CallbackLane lane = new CallbackLane(callbacks);
+    WorkflowThread result = newInterceptedCallbackThreadLocked(lane);
+    if (lane.wrapped && !callbackThreadsWrapped) {
+      // An interceptor wrapped the whole lane, for example in a tracing span, while it expects
+      // to wrap a single callback
+      callbackThreadsWrapped = true;
+      moveAllButFirst(callbacks, separateCallbacks);
+    }
+    for (NamedRunnable callback : separateCallbacks) {
+      Deque<NamedRunnable> single = new ArrayDeque<>(1);
+      single.add(callback);
+      newInterceptedCallbackThreadLocked(new CallbackLane(single));
+    }
+    return result;
+  }
+
+  private static void moveAllButFirst(Deque<NamedRunnable> from, Deque<NamedRunnable> to) {
+    NamedRunnable first = from.poll();
+    to.addAll(from);
+    from.clear();
+    from.add(first);
+  }
+
+  private WorkflowThread newInterceptedCallbackThreadLocked(CallbackLane lane) {
+    Object callbackThread =
+        workflowContext
+            .getWorkflowInboundInterceptor()
+            .newCallbackThread(lane, lane.callbacks.peek().name);
+    Preconditions.checkState(
+        callbackThread != null,
+        "[BUG] One of the custom interceptors illegally overrode newCallbackThread result to null. "
+            + "Check WorkflowInboundCallsInterceptor#newCallbackThread contract.");
+    Preconditions.checkState(
+        callbackThread instanceof WorkflowThread,
+        "[BUG] One of the custom interceptors illegally overrode newCallbackThread result. "
+            + "Check WorkflowInboundCallsInterceptor#newCallbackThread contract. "
+            + "Illegal object returned from the interceptors chain: %s",
+        callbackThread);
+    WorkflowThread result = (WorkflowThread) callbackThread;
+    callbackLanes.put(result, lane);
+    return result;
+  }
+
+  /**
+   * Moves the callbacks that are still queued in the lane of a blocked callback thread to a new
+   * callback thread. As the new thread is created after all the existing callback threads, it is
+   * ordered right after {@code thread}.
+   *
+   * @return the new callback thread or null if {@code thread} has no callbacks left to hand off
+   */
+  @Nullable
+  private WorkflowThread handOffCallbacksLocked(WorkflowThread thread) {
+    CallbackLane lane = callbackLanes.get(thread);
+    if (lane == null) {
+      return null;
+    }
+    if (thread.isDone() || lane.callbacks.isEmpty()) {
+      // no new callbacks are ever added to a lane, so the lane isn't needed anymore
+      callbackLanes.remove(thread);
+      return null;
+    }
+    Deque<NamedRunnable> callbacks = new ArrayDeque<>(lane.callbacks);
+    lane.callbacks.clear();
+    callbackLanes.remove(thread);
+    return newCallbackLaneThreadLocked(callbacks);
+  }
+
   /**
    * Executes before any other threads next time runUntilBlockedCalled. Must never be called from
    * any workflow threads.
@@ -637,6 +733,64 @@ class DeterministicRunnerImpl implements DeterministicRunner {
     }
   }
 
+  /**
+   * Runs callbacks one after another in a single callback thread, so a thread is not created for
+   * each of the signals, updates and other callbacks delivered in one workflow task. Each callback
+   * is run as if it had a thread of its own: in a new cancellation scope, with no thread locals
+   * left by the previous callbacks and with the initial propagated contexts. When a callback
+   * blocks, the callbacks behind it are handed off to a new thread by {@link
+   * #handOffCallbacksLocked(WorkflowThread)}.
+   */
+  private class CallbackLane implements Runnable {
+    private final Deque<NamedRunnable> callbacks;
+    private final List<ContextPropagator> contextPropagators = getContextPropagators();
+    private final Map<String, Object> propagatedContexts = getPropagatedContexts();
+    // cleared if the lane reaches newCallbackThread of the runner unwrapped by the interceptors
+    private boolean wrapped = true;
+
+    private CallbackLane(Deque<NamedRunnable> callbacks) {
+      this.callbacks = callbacks;
+    }
+
+    @Override
+    public void run() {
+      WorkflowThread thread = currentThreadInternal();
+      boolean deterministicCancellationScopeOrder =
+          workflowContext
+              .getReplayContext()
+              .checkSdkFlag(SdkFlag.DETERMINISTIC_CANCELLATION_SCOPE_ORDER);
+      boolean first = true;
+      NamedRunnable callback;
+      while ((callback = callbacks.poll()) != null) {
+        if (!first) {
+          if (callback.name != null) {
+            thread.setName(callback.name);
+          }
+          thread.clearThreadLocals();
+          // the propagators are a workflow thread local too
+          ContextThreadLocal.setContextPropagators(contextPropagators);
+          ContextThreadLocal.propagateContextToCurrentThread(propagatedContexts);
+          // the deadlock detection timeout applies to each of the callbacks separately
+          thread.lockDeadlockDetector().close();
+        }
+        first = false;
+        CancellationScopeImpl scope =
+            new CancellationScopeImpl(
+                false,
+                deterministicCancellationScopeOrder,
+                callback.runnable,
+                CancellationScopeImpl.current());
+        try {
+          scope.run();
+        } catch (CanceledFailure e) {
+          if (!scope.isCancelRequested()) {
+            throw e;
+          }
+        }
+      }
+    }
+  }
+
   private static class WorkflowThreadStopFuture {
     private final WorkflowThread workflowThread;
     private final Future<?> stopFuture;
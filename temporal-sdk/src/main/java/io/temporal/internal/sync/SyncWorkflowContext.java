@@ -41,6 +41,7 @@ import io.temporal.common.interceptors.WorkflowInboundCallsInterceptor;
 import io.temporal.common.interceptors.WorkflowOutboundCallsInterceptor;
 import io.temporal.failure.*;
 import io.temporal.internal.common.*;
+import io.temporal.internal.context.SerializedContextCache;
 import io.temporal.internal.replay.ChildWorkflowTaskFailedException;
 import io.temporal.internal.replay.ReplayWorkflowContext;
 import io.temporal.internal.replay.WorkflowContext;
@@ -83,6 +84,7 @@ final class SyncWorkflowContext implements WorkflowContext, WorkflowOutboundCall
   // to be used in this class, should not be passed down. Pass the original #dataConverter instead
   private final DataConverter dataConverterWithCurrentWorkflowContext;
   private final List<ContextPropagator> contextPropagators;
+  private final SerializedContextCache serializedContexts = new SerializedContextCache();
   private final SignalDispatcher signalDispatcher;
   private final QueryDispatcher queryDispatcher;
   private final UpdateDispatcher updateDispatcher;
@@ -278,20 +280,18 @@ final class SyncWorkflowContext implements WorkflowContext, WorkflowOutboundCall
     Class<T> resultClass = input.getResultClass();
     return new ActivityOutput<>(
         output.getActivityId(),
-        output
-            .getResult()
-            .handle(
-                (r, f) -> {
-                  if (f == null) {
-                    return resultType != Void.TYPE
-                        ? dataConverterWithActivityContext.fromPayloads(
-                            0, r, resultClass, resultType)
-                        : null;
-                  } else {
-                    throw dataConverterWithActivityContext.failureToException(
-                        ((FailureWrapperException) f).getFailure());
-                  }
-                }));
+        CompletablePromiseImpl.handleLazily(
+            output.getResult(),
+            (r, f) -> {
+              if (f == null) {
+                return resultType != Void.TYPE
+                    ? dataConverterWithActivityContext.fromPayloads(0, r, resultClass, resultType)
+                    : null;
+              } else {
+                throw dataConverterWithActivityContext.failureToException(
+                    ((FailureWrapperException) f).getFailure());
+              }
+            }));
   }
 
   private ActivityOutput<Optional<Payloads>> executeActivityOnce(
@@ -448,7 +448,8 @@ final class SyncWorkflowContext implements WorkflowContext, WorkflowOutboundCall
     Type resultType = input.getResultType();
     Class<R> resultClass = input.getResultClass();
     Promise<R> result =
-        serializedResult.handle(
+        CompletablePromiseImpl.handleLazily(
+            serializedResult,
             (r, f) -> {
               if (f == null) {
                 return resultClass != Void.TYPE
@@ -761,9 +762,15 @@ final class SyncWorkflowContext implements WorkflowContext, WorkflowOutboundCall
     Type resultType = input.getResultType();
     Class<R> resultClass = input.getResultClass();
     Promise<R> result =
-        resultPromise.thenApply(
-            (b) ->
-                dataConverterWithChildWorkflowContext.fromPayloads(0, b, resultClass, resultType));
+        CompletablePromiseImpl.handleLazily(
+            resultPromise,
+            (b, f) -> {
+              if (f != null) {
+                throw f;
+              }
+              return dataConverterWithChildWorkflowContext.fromPayloads(
+                  0, b, resultClass, resultType);
+            });
     return new ChildWorkflowOutput<>(result, executionPromise);
   }
 
@@ -849,12 +856,17 @@ final class SyncWorkflowContext implements WorkflowContext, WorkflowOutboundCall
               return null;
             });
     Promise<R> result =
-        resultPromise.thenApply(
-            (b) ->
-                input.getResultClass() != Void.class
-                    ? dataConverter.fromPayload(
-                        b.get(), input.getResultClass(), input.getResultType())
-                    : null);
+        CompletablePromiseImpl.handleLazily(
+            resultPromise,
+            (b, f) -> {
+              if (f != null) {
+                throw f;
+              }
+              return input.getResultClass() != Void.class
+                  ? dataConverter.fromPayload(
+                      b.get(), input.getResultClass(), input.getResultType())
+                  : null;
+            });
     // We register an empty handler to make sure that this promise is always "accessed" and never
     // leads to a log about it being completed exceptionally and non-accessed.
     // The "main" operation promise is the one returned from the execute method and that
@@ -941,16 +953,11 @@ final class SyncWorkflowContext implements WorkflowContext, WorkflowOutboundCall
         attributes, options.getCancellationType(), metadata);
   }
 
-  private static Header extractContextsAndConvertToBytes(
-      List<ContextPropagator> contextPropagators) {
+  private Header extractContextsAndConvertToBytes(List<ContextPropagator> contextPropagators) {
     if (contextPropagators == null) {
       return null;
     }
-    Map<String, Payload> result = new HashMap<>();
-    for (ContextPropagator propagator : contextPropagators) {
-      result.putAll(propagator.serializeContext(propagator.getCurrentContext()));
-    }
-    return new Header(result);
+    return new Header(serializedContexts.serialize(contextPropagators));
   }
 
   private static RuntimeException mapChildWorkflowException(
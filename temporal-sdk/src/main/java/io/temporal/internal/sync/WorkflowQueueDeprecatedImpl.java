@@ -31,14 +31,14 @@ final class WorkflowQueueDeprecatedImpl<E> implements WorkflowQueue<E> {
 
   @Override
   public E take() {
-    WorkflowThread.await("WorkflowQueue.take", () -> !queue.isEmpty());
+    WorkflowThread.awaitNonBlocking("WorkflowQueue.take", () -> !queue.isEmpty());
     // this implementation is incorrect and has been fixed in WorkflowQueueImpl
     return queue.pollLast();
   }
 
   @Override
   public E cancellableTake() {
-    WorkflowThread.await(
+    WorkflowThread.awaitNonBlocking(
         "WorkflowQueue.cancellableTake",
         () -> {
           CancellationScope.throwCanceled();
@@ -101,13 +101,13 @@ final class WorkflowQueueDeprecatedImpl<E> implements WorkflowQueue<E> {
 
   @Override
   public void put(E e) {
-    WorkflowThread.await("WorkflowQueue.put", () -> queue.size() < capacity);
+    WorkflowThread.awaitNonBlocking("WorkflowQueue.put", () -> queue.size() < capacity);
     queue.addLast(e);
   }
 
   @Override
   public void cancellablePut(E e) {
-    WorkflowThread.await(
+    WorkflowThread.awaitNonBlocking(
         "WorkflowQueue.cancellablePut",
         () -> {
           CancellationScope.throwCanceled();
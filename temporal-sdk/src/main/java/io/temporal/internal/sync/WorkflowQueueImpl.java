@@ -21,13 +21,13 @@ final class WorkflowQueueImpl<E> implements WorkflowQueue<E> {
 
   @Override
   public E take() {
-    WorkflowThread.await("WorkflowQueue.take", () -> !queue.isEmpty());
+    WorkflowThread.awaitNonBlocking("WorkflowQueue.take", () -> !queue.isEmpty());
     return queue.poll();
   }
 
   @Override
   public E cancellableTake() {
-    WorkflowThread.await(
+    WorkflowThread.awaitNonBlocking(
         "WorkflowQueue.cancellableTake",
         () -> {
           CancellationScope.throwCanceled();
@@ -89,13 +89,13 @@ final class WorkflowQueueImpl<E> implements WorkflowQueue<E> {
 
   @Override
   public void put(E e) {
-    WorkflowThread.await("WorkflowQueue.put", () -> queue.size() < capacity);
+    WorkflowThread.awaitNonBlocking("WorkflowQueue.put", () -> queue.size() < capacity);
     queue.addLast(e);
   }
 
   @Override
   public void cancellablePut(E e) {
-    WorkflowThread.await(
+    WorkflowThread.awaitNonBlocking(
         "WorkflowQueue.cancellablePut",
         () -> {
           CancellationScope.throwCanceled();
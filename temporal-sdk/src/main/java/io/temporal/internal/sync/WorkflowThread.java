@@ -27,6 +27,23 @@ public interface WorkflowThread extends CancellationScope {
     currentThreadInternal().yield(reason, unblockCondition);
   }
 
+  /**
+   * Like {@link #await(String, Supplier)}, for the conditions of the SDK that only read its own
+   * state, don't call the user code and never block. While such a condition is false, the thread
+   * is not resumed, as its condition is evaluated by the runner thread instead.
+   *
+   * @param reason reason for blocking
+   * @param unblockCondition condition that should return true to indicate that thread should
+   *     unblock.
+   * @throws CanceledFailure if thread (or current cancellation scope was canceled).
+   * @throws DestroyWorkflowThreadError if thread was asked to be destroyed.
+   */
+  static void awaitNonBlocking(String reason, Supplier<Boolean> unblockCondition)
+      throws DestroyWorkflowThreadError {
+    currentThreadInternal()
+        .yield(reason, new WorkflowThreadContext.NonBlockingCondition(unblockCondition));
+  }
+
   /**
    * Creates a new thread instance.
    *
@@ -102,5 +119,8 @@ public interface WorkflowThread extends CancellationScope {
 
   <T> Optional<Optional<T>> getThreadLocal(WorkflowThreadLocalInternal<T> key);
 
+  /** Forgets the values of all the thread locals set in this thread. */
+  void clearThreadLocals();
+
   WorkflowThreadContext getWorkflowThreadContext();
 }
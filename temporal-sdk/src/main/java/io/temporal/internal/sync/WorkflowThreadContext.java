@@ -31,6 +31,9 @@ class WorkflowThreadContext {
   private boolean inRunUntilBlocked;
   private boolean remainedBlocked;
   private String yieldReason;
+  // non-blocking condition the thread is yielded on, null if the thread is not yielded or its
+  // condition may block or run user code and is evaluated only by the thread itself
+  @Nullable private NonBlockingCondition unblockCondition;
   private boolean destroyRequested;
 
   WorkflowThreadContext(Lock runnerLock) {
@@ -67,7 +70,12 @@ class WorkflowThreadContext {
 
       while (!inRunUntilBlocked || !unblockFunction.get()) {
         status = Status.YIELDED;
+        unblockCondition =
+            unblockFunction instanceof NonBlockingCondition
+                ? (NonBlockingCondition) unblockFunction
+                : null;
         scheduler.yieldLocked();
+        unblockCondition = null;
         if (destroyRequested) {
           throw new DestroyWorkflowThreadError();
         }
@@ -83,11 +91,41 @@ class WorkflowThreadContext {
         throw new Error("Unexpected interrupt", e);
       }
     } finally {
+      unblockCondition = null;
       remainedBlocked = false;
       runnerLock.unlock();
     }
   }
 
+  /**
+   * Evaluates the {@link NonBlockingCondition} the thread is yielded on by the calling thread, so
+   * {@link #runUntilBlocked(long)} is not called for a thread that would yield again right away.
+   * Waking up a thread is a handoff of the lock between two threads, evaluating its condition is
+   * usually just a field read. Other conditions are evaluated only by the thread itself, under the
+   * deadlock detection of {@link #runUntilBlocked(long)}.
+   *
+   * @param evaluator evaluates the condition on behalf of the thread that owns this context
+   * @return false if the thread is yielded on a non-blocking condition that is not satisfied, true
+   *     if the thread has to be run to make progress, to evaluate its condition, to be destroyed,
+   *     or to throw from the condition
+   */
+  public boolean isUnblocked(Functions.Func1<Supplier<Boolean>, Boolean> evaluator) {
+    runnerLock.lock();
+    try {
+      if (status != Status.YIELDED || destroyRequested || unblockCondition == null) {
+        return true;
+      }
+      try {
+        return evaluator.apply(unblockCondition);
+      } catch (Throwable e) {
+        // the thread evaluates the condition itself and gets the exception
+        return true;
+      }
+    } finally {
+      runnerLock.unlock();
+    }
+  }
+
   /**
    * Execute evaluation function by the thread that owns this context if {@link
    * #evaluateInCoroutineContext(Functions.Proc1)} was called.
@@ -336,4 +374,23 @@ class WorkflowThreadContext {
     scheduler.lockDeadlockDetection();
     return scheduler::unlockDeadlockDetection;
   }
+
+  /**
+   * Await condition of the SDK that only reads the SDK state and can't block, so it can be
+   * evaluated by the runner thread on behalf of the yielded thread.
+   *
+   * @see WorkflowThread#awaitNonBlocking(String, Supplier)
+   */
+  static final class NonBlockingCondition implements Supplier<Boolean> {
+    private final Supplier<Boolean> condition;
+
+    NonBlockingCondition(Supplier<Boolean> condition) {
+      this.condition = condition;
+    }
+
+    @Override
+    public Boolean get() {
+      return condition.get();
+    }
+  }
 }
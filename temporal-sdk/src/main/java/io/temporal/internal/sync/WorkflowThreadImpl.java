@@ -9,10 +9,12 @@ import io.temporal.internal.context.ContextThreadLocal;
 import io.temporal.internal.logging.LoggerTag;
 import io.temporal.internal.replay.ReplayWorkflowContext;
 import io.temporal.internal.worker.WorkflowExecutorCache;
+import io.temporal.worker.MetricsType;
 import io.temporal.workflow.Functions;
 import io.temporal.workflow.Promise;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -75,6 +77,7 @@ class WorkflowThreadImpl implements WorkflowThread {
 
       threadContext.initializeCurrentThread(thread);
       DeterministicRunnerImpl.setCurrentThreadInternal(WorkflowThreadImpl.this);
+      cancellationScopeStack = CancellationScopeImpl.currentScopeStack();
 
       MDC.put(LoggerTag.WORKFLOW_ID, replayWorkflowContext.getWorkflowId());
       MDC.put(LoggerTag.WORKFLOW_TYPE, replayWorkflowContext.getWorkflowType().getName());
@@ -146,6 +149,9 @@ class WorkflowThreadImpl implements WorkflowThread {
   private final int priority;
   private Future<?> taskFuture;
   private final Map<WorkflowThreadLocalInternal<?>, Object> threadLocalMap = new HashMap<>();
+  // cancellation scopes of the java thread running this workflow thread, written before the
+  // initial yield and read under the runner lock
+  @Nullable private Deque<CancellationScopeImpl> cancellationScopeStack;
 
   WorkflowThreadImpl(
       WorkflowThreadExecutor workflowThreadExecutor,
@@ -218,6 +224,10 @@ class WorkflowThreadImpl implements WorkflowThread {
     while (true) {
       try {
         taskFuture = workflowThreadExecutor.submit(task);
+        getWorkflowContext()
+            .getMetricsScope()
+            .counter(MetricsType.WORKFLOW_THREAD_CREATED_COUNTER)
+            .inc(1);
         return;
       } catch (RejectedExecutionException e) {
         if (cache != null) {
@@ -284,9 +294,33 @@ class WorkflowThreadImpl implements WorkflowThread {
     if (taskFuture == null) {
       start();
     }
+    if (!context.isUnblocked(this::evaluateUnblockCondition)) {
+      return false;
+    }
     return context.runUntilBlocked(deadlockDetectionTimeoutMs);
   }
 
+  /**
+   * Evaluates the await condition of this thread in the calling thread, which is seen by the
+   * workflow code as this workflow thread for the duration of the call.
+   */
+  private boolean evaluateUnblockCondition(Supplier<Boolean> condition) {
+    if (cancellationScopeStack == null) {
+      return true;
+    }
+    Optional<WorkflowThread> callingThread =
+        DeterministicRunnerImpl.currentThreadInternalIfPresent();
+    DeterministicRunnerImpl.setCurrentThreadInternal(this);
+    Deque<CancellationScopeImpl> callingScopeStack =
+        CancellationScopeImpl.replaceScopeStack(cancellationScopeStack);
+    try {
+      return condition.get();
+    } finally {
+      CancellationScopeImpl.replaceScopeStack(callingScopeStack);
+      DeterministicRunnerImpl.setCurrentThreadInternal(callingThread.orElse(null));
+    }
+  }
+
   @Override
   public NonIdempotentHandle lockDeadlockDetector() {
     return context.lockDeadlockDetector();
@@ -407,6 +441,11 @@ class WorkflowThreadImpl implements WorkflowThread {
     return Optional.of(Optional.ofNullable((T) threadLocalMap.get(key)));
   }
 
+  @Override
+  public void clearThreadLocals() {
+    threadLocalMap.clear();
+  }
+
   /**
    * @return stack trace of the coroutine thread
    */
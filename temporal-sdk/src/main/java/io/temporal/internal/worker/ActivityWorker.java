@@ -6,12 +6,14 @@ import com.google.protobuf.ByteString;
 import com.uber.m3.tally.Scope;
 import com.uber.m3.tally.Stopwatch;
 import com.uber.m3.util.Duration;
-import com.uber.m3.util.ImmutableMap;
 import io.temporal.api.command.v1.ScheduleActivityTaskCommandAttributesOrBuilder;
 import io.temporal.api.common.v1.WorkflowExecution;
 import io.temporal.api.workflowservice.v1.*;
 import io.temporal.internal.activity.ActivityPollResponseToInfo;
 import io.temporal.internal.common.ProtobufTimeUtils;
+import io.temporal.internal.jfr.JfrDelegate;
+import io.temporal.internal.jfr.TaskPhase;
+import io.temporal.internal.jfr.TaskPhaseRecording;
 import io.temporal.internal.logging.LoggerTag;
 import io.temporal.internal.retryer.GrpcRetryer;
 import io.temporal.internal.worker.ActivityTaskHandler.Result;
@@ -45,6 +47,7 @@ final class ActivityWorker implements SuspendableWorker {
   private final double taskQueueActivitiesPerSecond;
   private final PollerOptions pollerOptions;
   private final Scope workerMetricsScope;
+  private final TaggedScopeCache activityTypeScopes;
   private final GrpcRetryer grpcRetryer;
   private final GrpcRetryer.GrpcRetryerOptions replyGrpcRetryerOptions;
   private final TrackingSlotSupplier<ActivitySlotInfo> slotSupplier;
@@ -66,6 +69,7 @@ final class ActivityWorker implements SuspendableWorker {
     this.pollerOptions = getPollerOptions(options);
     this.workerMetricsScope =
         MetricsTag.tagged(options.getMetricsScope(), WorkerMetricsTag.WorkerType.ACTIVITY_WORKER);
+    this.activityTypeScopes = new TaggedScopeCache(workerMetricsScope);
     this.grpcRetryer = new GrpcRetryer(service.getServerCapabilities());
     this.replyGrpcRetryerOptions =
         new GrpcRetryer.GrpcRetryerOptions(
@@ -239,12 +243,8 @@ final class ActivityWorker implements SuspendableWorker {
           task.getPermit());
 
       Scope metricsScope =
-          workerMetricsScope.tagged(
-              ImmutableMap.of(
-                  MetricsTag.ACTIVITY_TYPE,
-                  pollResponse.getActivityType().getName(),
-                  MetricsTag.WORKFLOW_TYPE,
-                  pollResponse.getWorkflowType().getName()));
+          activityTypeScopes.forActivityType(
+              pollResponse.getActivityType().getName(), pollResponse.getWorkflowType().getName());
 
       MDC.put(LoggerTag.ACTIVITY_ID, pollResponse.getActivityId());
       MDC.put(LoggerTag.ACTIVITY_TYPE, pollResponse.getActivityType().getName());
@@ -290,6 +290,7 @@ final class ActivityWorker implements SuspendableWorker {
       ActivityTaskHandler.Result result;
 
       Stopwatch sw = metricsScope.timer(MetricsType.ACTIVITY_EXEC_LATENCY).start();
+      TaskPhaseRecording recording = JfrDelegate.begin(TaskPhase.ACTIVITY_TASK);
       try {
         result = handler.handle(task, metricsScope, false);
       } catch (Throwable ex) {
@@ -299,6 +300,10 @@ final class ActivityWorker implements SuspendableWorker {
         throw ex;
       } finally {
         sw.stop();
+        recording.end(
+            pollResponse.getWorkflowType().getName(),
+            pollResponse.getActivityType().getName(),
+            pollResponse.getWorkflowExecution().getRunId());
       }
 
       try {
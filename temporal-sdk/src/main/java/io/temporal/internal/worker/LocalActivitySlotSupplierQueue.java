@@ -5,6 +5,7 @@ import io.temporal.worker.tuning.SlotPermit;
 import io.temporal.worker.tuning.SlotReleaseReason;
 import io.temporal.worker.tuning.SlotSupplierFuture;
 import io.temporal.workflow.Functions;
+import java.util.Optional;
 import java.util.concurrent.*;
 import javax.annotation.Nullable;
 import org.slf4j.Logger;
@@ -85,6 +86,23 @@ class LocalActivitySlotSupplierQueue implements Shutdownable {
 
         request.task.getExecutionContext().setPermit(slotPermit);
         afterReservedCallback.apply(request.task);
+        slotPermit = null;
+
+        // The requests queued in the meantime get their slots without blocking, so a burst of local
+        // activities is handed out in one pass. The first one that doesn't get a slot goes back to
+        // the queue and waits for it like the others.
+        while ((request = requestQueue.poll()) != null) {
+          Optional<SlotPermit> permit = slotSupplier.tryReserveSlot(request.data);
+          if (!permit.isPresent()) {
+            requestQueue.add(request);
+            request = null;
+            break;
+          }
+          slotPermit = permit.get();
+          request.task.getExecutionContext().setPermit(slotPermit);
+          afterReservedCallback.apply(request.task);
+          slotPermit = null;
+        }
       } catch (InterruptedException e) {
         Thread.currentThread().interrupt();
         return;
@@ -6,7 +6,6 @@ import static io.temporal.internal.worker.LocalActivityResult.processingFailed;
 import com.google.common.base.Preconditions;
 import com.uber.m3.tally.Scope;
 import com.uber.m3.tally.Stopwatch;
-import com.uber.m3.util.ImmutableMap;
 import io.grpc.Deadline;
 import io.temporal.api.enums.v1.RetryState;
 import io.temporal.api.enums.v1.TimeoutType;
@@ -19,6 +18,9 @@ import io.temporal.failure.ApplicationFailure;
 import io.temporal.internal.activity.ActivityPollResponseToInfo;
 import io.temporal.internal.common.ProtobufTimeUtils;
 import io.temporal.internal.common.RetryOptionsUtils;
+import io.temporal.internal.jfr.JfrDelegate;
+import io.temporal.internal.jfr.TaskPhase;
+import io.temporal.internal.jfr.TaskPhaseRecording;
 import io.temporal.internal.logging.LoggerTag;
 import io.temporal.internal.statemachines.ExecuteLocalActivityParameters;
 import io.temporal.serviceclient.MetricsTag;
@@ -49,6 +51,7 @@ final class LocalActivityWorker implements Startable, Shutdownable {
 
   private final PollerOptions pollerOptions;
   private final Scope workerMetricsScope;
+  private final TaggedScopeCache activityTypeScopes;
 
   private ScheduledExecutorService scheduledExecutor;
   private PollTaskExecutor<LocalActivityAttemptTask> activityAttemptTaskExecutor;
@@ -69,6 +72,7 @@ final class LocalActivityWorker implements Startable, Shutdownable {
     this.workerMetricsScope =
         MetricsTag.tagged(
             options.getMetricsScope(), WorkerMetricsTag.WorkerType.LOCAL_ACTIVITY_WORKER);
+    this.activityTypeScopes = new TaggedScopeCache(workerMetricsScope);
     this.slotSupplier =
         new TrackingSlotSupplier<>(Objects.requireNonNull(slotSupplier), this.workerMetricsScope);
     this.slotQueue =
@@ -409,12 +413,8 @@ final class LocalActivityWorker implements Startable, Shutdownable {
         }
 
         Scope metricsScope =
-            workerMetricsScope.tagged(
-                ImmutableMap.of(
-                    MetricsTag.ACTIVITY_TYPE,
-                    activityTask.getActivityType().getName(),
-                    MetricsTag.WORKFLOW_TYPE,
-                    activityTask.getWorkflowType().getName()));
+            activityTypeScopes.forActivityType(
+                activityTask.getActivityType().getName(), activityTask.getWorkflowType().getName());
 
         MDC.put(LoggerTag.ACTIVITY_ID, activityTask.getActivityId());
         MDC.put(LoggerTag.ACTIVITY_TYPE, activityTask.getActivityType().getName());
@@ -447,6 +447,7 @@ final class LocalActivityWorker implements Startable, Shutdownable {
 
         ActivityTaskHandler.Result activityHandlerResult;
         Stopwatch sw = metricsScope.timer(MetricsType.LOCAL_ACTIVITY_EXECUTION_LATENCY).start();
+        TaskPhaseRecording recording = JfrDelegate.begin(TaskPhase.LOCAL_ACTIVITY_TASK);
         try {
           activityHandlerResult =
               handler.handle(
@@ -455,6 +456,10 @@ final class LocalActivityWorker implements Startable, Shutdownable {
                   true);
         } finally {
           sw.stop();
+          recording.end(
+              activityTask.getWorkflowType().getName(),
+              activityTask.getActivityType().getName(),
+              activityTask.getWorkflowExecution().getRunId());
         }
 
         // Cancel startToCloseTimeoutFuture if it's not yet fired.
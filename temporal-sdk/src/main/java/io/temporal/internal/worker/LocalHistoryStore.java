@@ -0,0 +1,379 @@
+package io.temporal.internal.worker;
+
+import com.google.common.base.Preconditions;
+import io.temporal.api.history.v1.HistoryEvent;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Local disk tier of the workflow cache. Keeps the history events already seen by the worker in a
+ * file per run, so a run that was evicted from {@link WorkflowExecutorCache} can be replayed from
+ * the local events followed by the partial history of its sticky workflow task, instead of fetching
+ * the full history from the server.
+ *
+ * <p>A file holds {@code [int length][serialized event]} records of the events of the run starting
+ * from the first one, without gaps. An appended event that overlaps the stored ones, like the
+ * events of a discarded speculative workflow task, replaces them and all the events after it. An
+ * event that leaves a gap drops the run. Files are never truncated, the logical size is kept in
+ * memory, so they can be read through a memory mapping while other runs are written.
+ *
+ * <p>The store is bounded by the total size of the files, the least recently used runs are
+ * dropped when it's exceeded. Each store keeps its files in its own subdirectory of the configured
+ * directory, so stores sharing a directory don't touch each other's files. The subdirectory is
+ * deleted by {@link #close()}.
+ */
+@ThreadSafe
+public final class LocalHistoryStore {
+  private static final Logger log = LoggerFactory.getLogger(LocalHistoryStore.class);
+
+  private static final String FILE_SUFFIX = ".history";
+  private static final String DIRECTORY_PREFIX = "local-history-";
+  private static final int FLUSH_SIZE = 1024 * 1024;
+
+  private static final class StoredRun {
+    private final Path file;
+    // offsets of the records, index is the event id - 1
+    private long[] offsets = new long[16];
+    private int count;
+    private long size;
+
+    private StoredRun(Path file) {
+      this.file = file;
+    }
+
+    private void add(long offset) {
+      if (count == offsets.length) {
+        offsets = Arrays.copyOf(offsets, count * 2);
+      }
+      offsets[count++] = offset;
+    }
+  }
+
+  private final Path directory;
+  private final long maximumSize;
+  private final Lock lock = new ReentrantLock();
+  // access ordered, the eldest entry is the least recently used run
+  private final LinkedHashMap<String, StoredRun> runs = new LinkedHashMap<>(16, 0.75f, true);
+  private long totalSize;
+  private boolean closed;
+
+  /**
+   * @param directory directory in which the store creates its own subdirectory
+   * @param maximumSize maximum total size in bytes of the stored histories
+   */
+  public LocalHistoryStore(Path directory, long maximumSize) {
+    Preconditions.checkArgument(maximumSize > 0, "maximumSize must be positive");
+    this.maximumSize = maximumSize;
+    try {
+      Files.createDirectories(directory);
+      this.directory = Files.createTempDirectory(directory, DIRECTORY_PREFIX);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to open local history store in " + directory, e);
+    }
+  }
+
+  /** Drops all the stored runs and deletes the subdirectory of this store. */
+  public void close() {
+    lock.lock();
+    try {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      runs.clear();
+      totalSize = 0;
+    } finally {
+      lock.unlock();
+    }
+    try {
+      try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + FILE_SUFFIX)) {
+        for (Path file : files) {
+          // existing mappings of the file stay valid
+          Files.deleteIfExists(file);
+        }
+      }
+      Files.deleteIfExists(directory);
+    } catch (IOException e) {
+      log.warn("Unable to delete local history directory {}", directory, e);
+    }
+  }
+
+  /**
+   * @return the stored events of the run with ids lower than {@code eventId} or null if the store
+   *     doesn't have all of them
+   */
+  @Nullable
+  public Iterator<HistoryEvent> readBefore(String runId, long eventId) {
+    Path file;
+    long size;
+    lock.lock();
+    try {
+      StoredRun run = runs.get(runId);
+      if (run == null || run.count < eventId - 1) {
+        return null;
+      }
+      file = run.file;
+      size = eventId - 1 < run.count ? run.offsets[(int) (eventId - 1)] : run.size;
+    } finally {
+      lock.unlock();
+    }
+    MappedByteBuffer buffer;
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      // the mapping stays valid after the channel is closed
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+    } catch (IOException e) {
+      log.warn("Unable to read local history of runId {}", runId, e);
+      remove(runId);
+      return null;
+    }
+    return new EventIterator(buffer);
+  }
+
+  /**
+   * @return a new appender of the events of the run
+   */
+  public Appender newAppender(String runId) {
+    return new Appender(runId);
+  }
+
+  public void remove(String runId) {
+    StoredRun run;
+    lock.lock();
+    try {
+      run = runs.remove(runId);
+      if (run == null) {
+        return;
+      }
+      totalSize -= run.size;
+    } finally {
+      lock.unlock();
+    }
+    delete(run);
+  }
+
+  long getTotalSize() {
+    lock.lock();
+    try {
+      return totalSize;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Buffers the events appended during a workflow task and writes them to the file of the run in
+   * batches. Not thread safe, used by the thread that processes the workflow task of the run.
+   */
+  public final class Appender {
+    private final String runId;
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    private final DataOutputStream out = new DataOutputStream(buffer);
+    // id of the first buffered event, 0 if nothing is buffered
+    private long firstBufferedEventId;
+    private long nextEventId;
+    private boolean dropped;
+
+    private Appender(String runId) {
+      this.runId = runId;
+    }
+
+    public void append(HistoryEvent event) {
+      if (dropped) {
+        return;
+      }
+      long eventId = event.getEventId();
+      if (nextEventId != 0 && eventId != nextEventId) {
+        drop();
+        return;
+      }
+      if (firstBufferedEventId == 0) {
+        firstBufferedEventId = eventId;
+      }
+      nextEventId = eventId + 1;
+      try {
+        byte[] serialized = event.toByteArray();
+        out.writeInt(serialized.length);
+        out.write(serialized);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      if (buffer.size() >= FLUSH_SIZE) {
+        flush();
+      }
+    }
+
+    /** Writes the buffered events to the file of the run. */
+    public void flush() {
+      if (dropped || firstBufferedEventId == 0) {
+        return;
+      }
+      byte[] records = buffer.toByteArray();
+      long firstEventId = firstBufferedEventId;
+      buffer.reset();
+      firstBufferedEventId = 0;
+
+      StoredRun run;
+      long position;
+      lock.lock();
+      try {
+        if (closed) {
+          dropped = true;
+          return;
+        }
+        run = runs.get(runId);
+        if (run == null) {
+          if (firstEventId != 1) {
+            // the beginning of the history was never seen
+            dropped = true;
+            return;
+          }
+          run = new StoredRun(directory.resolve(fileName(runId)));
+          runs.put(runId, run);
+        } else if (firstEventId > run.count + 1) {
+          dropped = true;
+          removeLocked(runId);
+          return;
+        }
+        // the overlapping events are replaced
+        int keep = (int) (firstEventId - 1);
+        position = keep < run.count ? run.offsets[keep] : run.size;
+        totalSize -= run.size - position;
+        run.count = keep;
+        run.size = position;
+      } finally {
+        lock.unlock();
+      }
+
+      // the run is serialized by the run lock, only an eviction can happen concurrently
+      try (FileChannel channel =
+          FileChannel.open(run.file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+        ByteBuffer data = ByteBuffer.wrap(records);
+        while (data.hasRemaining()) {
+          channel.write(data, position + data.position());
+        }
+      } catch (IOException e) {
+        log.warn("Unable to write local history of runId {}", runId, e);
+        drop();
+        return;
+      }
+
+      lock.lock();
+      try {
+        if (runs.get(runId) != run) {
+          // evicted while written, the write may have created the deleted file again
+          dropped = true;
+          if (!runs.containsKey(runId)) {
+            delete(run);
+          }
+          return;
+        }
+        ByteBuffer data = ByteBuffer.wrap(records);
+        while (data.hasRemaining()) {
+          run.add(position + data.position());
+          data.position(data.position() + Integer.BYTES + data.getInt(data.position()));
+        }
+        run.size = position + records.length;
+        totalSize += records.length;
+        evictLocked(runId);
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    private void drop() {
+      dropped = true;
+      buffer.reset();
+      firstBufferedEventId = 0;
+      remove(runId);
+    }
+  }
+
+  /** Drops the least recently used runs until the store fits its maximum size. */
+  private void evictLocked(String currentRunId) {
+    Iterator<Map.Entry<String, StoredRun>> iterator = runs.entrySet().iterator();
+    while (totalSize > maximumSize && iterator.hasNext()) {
+      Map.Entry<String, StoredRun> eldest = iterator.next();
+      if (runs.size() > 1 && eldest.getKey().equals(currentRunId)) {
+        continue;
+      }
+      iterator.remove();
+      totalSize -= eldest.getValue().size;
+      delete(eldest.getValue());
+    }
+  }
+
+  private void removeLocked(String runId) {
+    StoredRun run = runs.remove(runId);
+    if (run != null) {
+      totalSize -= run.size;
+      delete(run);
+    }
+  }
+
+  private static void delete(StoredRun run) {
+    try {
+      // existing mappings of the file stay valid
+      Files.deleteIfExists(run.file);
+    } catch (IOException e) {
+      log.warn("Unable to delete local history file {}", run.file, e);
+    }
+  }
+
+  private static String fileName(String runId) {
+    StringBuilder result = new StringBuilder(runId.length() + FILE_SUFFIX.length());
+    for (int i = 0; i < runId.length(); i++) {
+      char c = runId.charAt(i);
+      result.append(Character.isLetterOrDigit(c) || c == '-' ? c : '_');
+    }
+    return result.append(FILE_SUFFIX).toString();
+  }
+
+  private static final class EventIterator implements Iterator<HistoryEvent> {
+    private final ByteBuffer buffer;
+
+    private EventIterator(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return buffer.hasRemaining();
+    }
+
+    @Override
+    public HistoryEvent next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      int length = buffer.getInt();
+      ByteBuffer record = buffer.slice();
+      record.limit(length);
+      buffer.position(buffer.position() + length);
+      try {
+        return HistoryEvent.parseFrom(record);
+      } catch (IOException e) {
+        throw new UncheckedIOException("Corrupted local history", e);
+      }
+    }
+  }
+}
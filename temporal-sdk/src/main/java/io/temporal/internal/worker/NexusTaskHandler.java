@@ -1,8 +1,11 @@
 package io.temporal.internal.worker;
 
+import com.google.common.base.Throwables;
 import com.uber.m3.tally.Scope;
 import io.temporal.api.nexus.v1.HandlerError;
 import io.temporal.api.nexus.v1.Response;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeoutException;
 import javax.annotation.Nullable;
 
@@ -16,7 +19,31 @@ public interface NexusTaskHandler {
    */
   boolean start();
 
-  NexusTaskHandler.Result handle(NexusTask task, Scope metricsScope) throws TimeoutException;
+  /**
+   * Handles the task in the calling thread, except for the operations that complete
+   * asynchronously.
+   *
+   * @return future completed with the result of the task or exceptionally with {@link
+   *     TimeoutException} if the request timed out and no response should be sent to the server
+   */
+  CompletableFuture<NexusTaskHandler.Result> handleAsync(NexusTask task, Scope metricsScope);
+
+  default NexusTaskHandler.Result handle(NexusTask task, Scope metricsScope)
+      throws TimeoutException {
+    try {
+      return handleAsync(task, metricsScope).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof TimeoutException) {
+        throw (TimeoutException) cause;
+      }
+      Throwables.throwIfUnchecked(cause);
+      throw new RuntimeException(cause);
+    }
+  }
 
   class Result {
     @Nullable private final Response response;
@@ -3,6 +3,8 @@ package io.temporal.internal.worker;
 import static io.temporal.serviceclient.MetricsTag.METRICS_TAGS_CALL_OPTIONS_KEY;
 import static io.temporal.serviceclient.MetricsTag.TASK_FAILURE_TYPE;
 
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.protobuf.ByteString;
 import com.uber.m3.tally.Scope;
 import com.uber.m3.tally.Stopwatch;
@@ -12,6 +14,7 @@ import io.temporal.api.nexus.v1.HandlerError;
 import io.temporal.api.nexus.v1.Request;
 import io.temporal.api.nexus.v1.Response;
 import io.temporal.api.workflowservice.v1.*;
+import io.temporal.internal.common.GrpcUtils;
 import io.temporal.internal.common.ProtobufTimeUtils;
 import io.temporal.internal.logging.LoggerTag;
 import io.temporal.internal.retryer.GrpcRetryer;
@@ -25,15 +28,25 @@ import io.temporal.worker.tuning.PollerBehaviorAutoscaling;
 import java.util.Collections;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 
 final class NexusWorker implements SuspendableWorker {
   private static final Logger log = LoggerFactory.getLogger(NexusWorker.class);
+  private static final ScheduledExecutorService asyncThrottlerExecutor =
+      Executors.newSingleThreadScheduledExecutor(
+          new ThreadFactoryBuilder()
+              .setDaemon(true)
+              .setNameFormat("nexus-worker-async-throttler-%d")
+              .build());
 
   private SuspendableWorker poller = new NoopWorker();
   private PollTaskExecutor<NexusTask> pollTaskExecutor;
@@ -256,13 +269,19 @@ final class NexusWorker implements SuspendableWorker {
               service, operation, taskQueue, options.getIdentity(), options.getBuildId()),
           task.getPermit());
 
+      CompletableFuture<Void> completion;
       try {
-        handleNexusTask(task, metricsScope);
-      } finally {
+        completion = handleNexusTask(task, metricsScope);
+      } catch (Throwable e) {
         task.getCompletionCallback().apply();
+        throw e;
+      } finally {
         MDC.remove(LoggerTag.NEXUS_SERVICE);
         MDC.remove(LoggerTag.NEXUS_OPERATION);
       }
+      // The slot is held until the result of an operation that completes asynchronously is
+      // reported, so graceful shutdown still waits for it.
+      completion.whenComplete((r, e) -> task.getCompletionCallback().apply());
     }
 
     @Override
@@ -272,66 +291,127 @@ final class NexusWorker implements SuspendableWorker {
           "Failure processing nexus response: " + response.getRequest().toString(), failure);
     }
 
-    private void handleNexusTask(NexusTask task, Scope metricsScope) {
+    private CompletableFuture<Void> handleNexusTask(NexusTask task, Scope metricsScope) {
       PollNexusTaskQueueResponseOrBuilder pollResponse = task.getResponse();
       ByteString taskToken = pollResponse.getTaskToken();
 
-      NexusTaskHandler.Result result;
-
       Stopwatch sw = metricsScope.timer(MetricsType.NEXUS_EXEC_LATENCY).start();
+      CompletableFuture<NexusTaskHandler.Result> resultFuture;
       try {
-        result = handler.handle(task, metricsScope);
-        if (result.getHandlerError() != null) {
-          metricsScope
-              .tagged(
-                  Collections.singletonMap(
-                      TASK_FAILURE_TYPE,
-                      "handler_error_" + result.getHandlerError().getErrorType()))
-              .counter(MetricsType.NEXUS_EXEC_FAILED_COUNTER)
-              .inc(1);
-        } else if (result.getResponse().hasStartOperation()
-            && result.getResponse().getStartOperation().hasOperationError()) {
-          String operationState =
-              result.getResponse().getStartOperation().getOperationError().getOperationState();
-          metricsScope
-              .tagged(Collections.singletonMap(TASK_FAILURE_TYPE, "operation_" + operationState))
-              .counter(MetricsType.NEXUS_EXEC_FAILED_COUNTER)
-              .inc(1);
+        resultFuture = handler.handleAsync(task, metricsScope);
+      } catch (Throwable e) {
+        sw.stop();
+        recordInternalSdkError(e, metricsScope);
+        throw e;
+      }
+
+      if (resultFuture.isDone()) {
+        // The task was handled in this thread, report the result from it too
+        NexusTaskHandler.Result result = null;
+        Throwable failure = null;
+        try {
+          result = resultFuture.join();
+        } catch (CompletionException e) {
+          failure = e.getCause();
         }
-      } catch (TimeoutException e) {
-        log.warn("Nexus task timed out while processing", e);
+        if (recordResult(result, failure, metricsScope, sw)) {
+          try {
+            sendReply(taskToken, result, metricsScope);
+          } catch (Exception e) {
+            logExceptionDuringResultReporting(e, pollResponse, result);
+            throw e;
+          }
+          recordE2ELatency(pollResponse, metricsScope);
+        }
+        return CompletableFuture.completedFuture(null);
+      }
+
+      // The operation completes asynchronously, don't block the thread that completes it
+      return resultFuture
+          .handle(
+              (result, failure) ->
+                  recordResult(result, failure, metricsScope, sw) ? result : null)
+          .thenCompose(
+              result -> {
+                if (result == null) {
+                  return CompletableFuture.completedFuture(null);
+                }
+                return sendReplyAsync(taskToken, result, metricsScope)
+                    .handle(
+                        (r, e) -> {
+                          if (e != null) {
+                            logExceptionDuringResultReporting(e, pollResponse, result);
+                          } else {
+                            recordE2ELatency(pollResponse, metricsScope);
+                          }
+                          return null;
+                        });
+              });
+    }
+
+    /**
+     * @return true if the result has to be reported to the server
+     */
+    private boolean recordResult(
+        @Nullable NexusTaskHandler.Result result,
+        @Nullable Throwable failure,
+        Scope metricsScope,
+        Stopwatch sw) {
+      sw.stop();
+      if (failure instanceof CompletionException) {
+        failure = failure.getCause();
+      }
+      if (failure instanceof TimeoutException) {
+        log.warn("Nexus task timed out while processing", failure);
         metricsScope
             .tagged(Collections.singletonMap(TASK_FAILURE_TYPE, "timeout"))
             .counter(MetricsType.NEXUS_EXEC_FAILED_COUNTER)
             .inc(1);
-        return;
-      } catch (Throwable e) {
+        return false;
+      }
+      if (failure != null) {
+        recordInternalSdkError(failure, metricsScope);
+        Throwables.throwIfUnchecked(failure);
+        throw new RuntimeException(failure);
+      }
+      if (result.getHandlerError() != null) {
         metricsScope
-            .tagged(Collections.singletonMap(TASK_FAILURE_TYPE, "internal_sdk_error"))
+            .tagged(
+                Collections.singletonMap(
+                    TASK_FAILURE_TYPE, "handler_error_" + result.getHandlerError().getErrorType()))
+            .counter(MetricsType.NEXUS_EXEC_FAILED_COUNTER)
+            .inc(1);
+      } else if (result.getResponse().hasStartOperation()
+          && result.getResponse().getStartOperation().hasOperationError()) {
+        String operationState =
+            result.getResponse().getStartOperation().getOperationError().getOperationState();
+        metricsScope
+            .tagged(Collections.singletonMap(TASK_FAILURE_TYPE, "operation_" + operationState))
             .counter(MetricsType.NEXUS_EXEC_FAILED_COUNTER)
             .inc(1);
-        // handler.handle if expected to never throw an exception and return result
-        // that can be used for a workflow callback if this method throws, it's a bug.
-        log.error("[BUG] Code that expected to never throw an exception threw an exception", e);
-        throw e;
-      } finally {
-        sw.stop();
       }
+      return true;
+    }
 
-      try {
-        sendReply(taskToken, result, metricsScope);
-      } catch (Exception e) {
-        logExceptionDuringResultReporting(e, pollResponse, result);
-        throw e;
-      }
+    private void recordInternalSdkError(Throwable e, Scope metricsScope) {
+      metricsScope
+          .tagged(Collections.singletonMap(TASK_FAILURE_TYPE, "internal_sdk_error"))
+          .counter(MetricsType.NEXUS_EXEC_FAILED_COUNTER)
+          .inc(1);
+      // handler.handleAsync if expected to never fail and to return result
+      // that can be used for a workflow callback if it fails, it's a bug.
+      log.error("[BUG] Code that expected to never throw an exception threw an exception", e);
+    }
 
+    private void recordE2ELatency(
+        PollNexusTaskQueueResponseOrBuilder pollResponse, Scope metricsScope) {
       Duration e2eDuration =
           ProtobufTimeUtils.toM3DurationSinceNow(pollResponse.getRequest().getScheduledTime());
       metricsScope.timer(MetricsType.NEXUS_TASK_E2E_LATENCY).record(e2eDuration);
     }
 
     private void logExceptionDuringResultReporting(
-        Exception e,
+        Throwable e,
         PollNexusTaskQueueResponseOrBuilder pollResponse,
         NexusTaskHandler.Result result) {
       if (log.isDebugEnabled()) {
@@ -386,5 +466,52 @@ final class NexusWorker implements SuspendableWorker {
         }
       }
     }
+
+    private CompletableFuture<?> sendReplyAsync(
+        ByteString taskToken, NexusTaskHandler.Result response, Scope metricsScope) {
+      Response taskResponse = response.getResponse();
+      if (taskResponse != null) {
+        RespondNexusTaskCompletedRequest request =
+            RespondNexusTaskCompletedRequest.newBuilder()
+                .setTaskToken(taskToken)
+                .setIdentity(options.getIdentity())
+                .setNamespace(namespace)
+                .setResponse(taskResponse)
+                .build();
+
+        return grpcRetryer.retryWithResultAsync(
+            asyncThrottlerExecutor,
+            () ->
+                GrpcUtils.toCompletableFuture(
+                    service
+                        .futureStub()
+                        .withOption(METRICS_TAGS_CALL_OPTIONS_KEY, metricsScope)
+                        .respondNexusTaskCompleted(request)),
+            replyGrpcRetryerOptions);
+      } else {
+        HandlerError taskFailed = response.getHandlerError();
+        if (taskFailed != null) {
+          RespondNexusTaskFailedRequest request =
+              RespondNexusTaskFailedRequest.newBuilder()
+                  .setTaskToken(taskToken)
+                  .setIdentity(options.getIdentity())
+                  .setNamespace(namespace)
+                  .setError(taskFailed)
+                  .build();
+
+          return grpcRetryer.retryWithResultAsync(
+              asyncThrottlerExecutor,
+              () ->
+                  GrpcUtils.toCompletableFuture(
+                      service
+                          .futureStub()
+                          .withOption(METRICS_TAGS_CALL_OPTIONS_KEY, metricsScope)
+                          .respondNexusTaskFailed(request)),
+              replyGrpcRetryerOptions);
+        } else {
+          throw new IllegalArgumentException("[BUG] Either response or failure must be set");
+        }
+      }
+    }
   }
 }
@@ -6,6 +6,7 @@ import io.temporal.internal.task.VirtualThreadDelegate;
 import java.util.Objects;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import javax.annotation.Nonnull;
 import org.slf4j.MDC;
 
@@ -24,6 +25,9 @@ final class PollTaskExecutor<T> implements ShutdownableTaskExecutor<T> {
   private final PollerOptions pollerOptions;
 
   private final ExecutorService taskExecutor;
+  // hands the continuations over to the task executor, which blocks the submitting thread while all
+  // the executor threads are busy
+  private final ThreadPoolExecutor handOffExecutor;
   private final String pollThreadNamePrefix;
 
   PollTaskExecutor(
@@ -63,6 +67,12 @@ final class PollTaskExecutor<T> implements ShutdownableTaskExecutor<T> {
       threadPoolTaskExecutor.setRejectedExecutionHandler(new BlockCallerPolicy());
       this.taskExecutor = threadPoolTaskExecutor;
     }
+    this.handOffExecutor =
+        new ThreadPoolExecutor(1, 1, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+    this.handOffExecutor.allowCoreThreadTimeOut(true);
+    this.handOffExecutor.setThreadFactory(
+        new ExecutorThreadFactory(
+            this.pollThreadNamePrefix + " HandOff", pollerOptions.getUncaughtExceptionHandler()));
   }
 
   @Override
@@ -86,6 +96,65 @@ final class PollTaskExecutor<T> implements ShutdownableTaskExecutor<T> {
         });
   }
 
+  /** Blocks while all the executor threads are busy. */
+  private void execute(@Nonnull Runnable continuation) {
+    taskExecutor.execute(
+        () -> {
+          try {
+            MDC.put(LoggerTag.NAMESPACE, namespace);
+            MDC.put(LoggerTag.TASK_QUEUE, taskQueue);
+            continuation.run();
+          } finally {
+            MDC.clear();
+          }
+        });
+  }
+
+  /**
+   * Executes a continuation of a task that is already being handled, like a workflow task returned
+   * by the server in the response to the completion of the previous one. The continuation is
+   * responsible for its own error handling.
+   *
+   * <p>The calling thread doesn't wait for a free executor thread, the continuation is submitted to
+   * the task executor by a separate thread. So it can be handed off from the threads that must not
+   * block, like the gRPC callbacks or the threads passing a run lock to the next task of the run.
+   *
+   * @param onRejected called instead of the continuation if the task executor rejects it, possibly
+   *     by the calling thread
+   */
+  void handOff(
+      @Nonnull Runnable continuation, @Nonnull Consumer<RejectedExecutionException> onRejected) {
+    HandOff handOff = new HandOff(continuation, onRejected);
+    try {
+      handOffExecutor.execute(handOff);
+    } catch (RejectedExecutionException e) {
+      handOff.reject(e);
+    }
+  }
+
+  private final class HandOff implements Runnable {
+    private final Runnable continuation;
+    private final Consumer<RejectedExecutionException> onRejected;
+
+    private HandOff(Runnable continuation, Consumer<RejectedExecutionException> onRejected) {
+      this.continuation = continuation;
+      this.onRejected = onRejected;
+    }
+
+    @Override
+    public void run() {
+      try {
+        execute(continuation);
+      } catch (RejectedExecutionException e) {
+        reject(e);
+      }
+    }
+
+    private void reject(RejectedExecutionException e) {
+      onRejected.accept(e);
+    }
+  }
+
   @Override
   public boolean isShutdown() {
     return taskExecutor.isShutdown();
@@ -93,20 +162,37 @@ final class PollTaskExecutor<T> implements ShutdownableTaskExecutor<T> {
 
   @Override
   public boolean isTerminated() {
-    return taskExecutor.isTerminated();
+    return taskExecutor.isTerminated() && handOffExecutor.isTerminated();
   }
 
   @Override
   public CompletableFuture<Void> shutdown(ShutdownManager shutdownManager, boolean interruptTasks) {
     String taskExecutorName = this + "#taskExecutor";
-    return interruptTasks
-        ? shutdownManager.shutdownExecutorNowUntimed(taskExecutor, taskExecutorName)
-        : shutdownManager.shutdownExecutorUntimed(taskExecutor, taskExecutorName);
+    String handOffExecutorName = this + "#handOffExecutor";
+    CompletableFuture<Void> taskExecutorShutdown;
+    CompletableFuture<Void> handOffExecutorShutdown;
+    if (interruptTasks) {
+      taskExecutorShutdown =
+          shutdownManager.shutdownExecutorNowUntimed(taskExecutor, taskExecutorName);
+      // interrupts a hand-off blocked on the task executor, the pending ones are rejected
+      for (Runnable pending : handOffExecutor.shutdownNow()) {
+        ((HandOff) pending).reject(new RejectedExecutionException("Executor is shutdown"));
+      }
+      handOffExecutorShutdown =
+          shutdownManager.shutdownExecutorNowUntimed(handOffExecutor, handOffExecutorName);
+    } else {
+      taskExecutorShutdown =
+          shutdownManager.shutdownExecutorUntimed(taskExecutor, taskExecutorName);
+      handOffExecutorShutdown =
+          shutdownManager.shutdownExecutorUntimed(handOffExecutor, handOffExecutorName);
+    }
+    return CompletableFuture.allOf(taskExecutorShutdown, handOffExecutorShutdown);
   }
 
   @Override
   public void awaitTermination(long timeout, TimeUnit unit) {
-    ShutdownManager.awaitTermination(taskExecutor, unit.toMillis(timeout));
+    long timeoutMillis = ShutdownManager.awaitTermination(handOffExecutor, unit.toMillis(timeout));
+    ShutdownManager.awaitTermination(taskExecutor, timeoutMillis);
   }
 
   @Override
@@ -1,13 +1,22 @@
 package io.temporal.internal.worker;
 
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 import static io.temporal.internal.common.GrpcUtils.isChannelShutdownException;
 
+import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import io.grpc.Status;
 import io.grpc.StatusRuntimeException;
+import io.temporal.api.common.v1.WorkflowExecution;
+import io.temporal.api.workflowservice.v1.ResetStickyTaskQueueRequest;
+import io.temporal.api.workflowservice.v1.ResetStickyTaskQueueResponse;
 import io.temporal.api.workflowservice.v1.ShutdownWorkerResponse;
+import io.temporal.serviceclient.WorkflowServiceStubs;
 import java.io.Closeable;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.concurrent.*;
 import javax.annotation.Nullable;
 import org.slf4j.Logger;
@@ -137,11 +146,142 @@ public class ShutdownManager implements Closeable {
     return future;
   }
 
+  /**
+   * Resets the stickiness of the {@code executions}, so their next workflow tasks are dispatched
+   * to the normal task queue. At most {@code batchSize} ResetStickyTaskQueue calls are made per
+   * second. The resets are best effort, failed calls are logged and don't fail the shutdown.
+   *
+   * @return completes when all the calls are completed or the resets are aborted because of an
+   *     unexpected failure. Completing it stops the remaining resets.
+   */
+  public CompletableFuture<Void> resetStickyTaskQueues(
+      WorkflowServiceStubs service,
+      String namespace,
+      List<WorkflowExecution> executions,
+      int batchSize) {
+    CompletableFuture<Void> future = new CompletableFuture<>();
+    log.info(
+        "Resetting sticky task queue of {} cached workflows, {} per second",
+        executions.size(),
+        batchSize);
+    StickyTaskQueueReset reset =
+        new StickyTaskQueueReset(service, namespace, executions.iterator(), batchSize, future);
+    try {
+      scheduledExecutorService.submit(reset);
+    } catch (RejectedExecutionException e) {
+      reset.abort(e);
+    }
+    return future;
+  }
+
   @Override
   public void close() {
     scheduledExecutorService.shutdownNow();
   }
 
+  private class StickyTaskQueueReset implements Runnable {
+    private static final long BATCH_PERIOD_MS = 1000;
+
+    private final WorkflowServiceStubs service;
+    private final String namespace;
+    private final Iterator<WorkflowExecution> executions;
+    private final int batchSize;
+    private final CompletableFuture<Void> promise;
+
+    public StickyTaskQueueReset(
+        WorkflowServiceStubs service,
+        String namespace,
+        Iterator<WorkflowExecution> executions,
+        int batchSize,
+        CompletableFuture<Void> promise) {
+      this.service = service;
+      this.namespace = namespace;
+      this.executions = executions;
+      this.batchSize = batchSize;
+      this.promise = promise;
+    }
+
+    @Override
+    public void run() {
+      if (promise.isDone()) {
+        return;
+      }
+      if (!executions.hasNext()) {
+        promise.complete(null);
+        return;
+      }
+      try {
+        long batchStart = System.currentTimeMillis();
+        List<ListenableFuture<ResetStickyTaskQueueResponse>> batch = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize && executions.hasNext(); i++) {
+          ListenableFuture<ResetStickyTaskQueueResponse> reset = reset(executions.next());
+          if (reset != null) {
+            batch.add(reset);
+          }
+        }
+        Futures.whenAllComplete(batch).run(() -> scheduleNextBatch(batchStart), directExecutor());
+      } catch (Throwable e) {
+        abort(e);
+      }
+    }
+
+    /**
+     * @return the ResetStickyTaskQueue call or null if it failed to be made
+     */
+    @Nullable
+    private ListenableFuture<ResetStickyTaskQueueResponse> reset(WorkflowExecution execution) {
+      ListenableFuture<ResetStickyTaskQueueResponse> reset;
+      try {
+        reset =
+            service
+                .futureStub()
+                .resetStickyTaskQueue(
+                    ResetStickyTaskQueueRequest.newBuilder()
+                        .setNamespace(namespace)
+                        .setExecution(execution)
+                        .build());
+      } catch (Exception e) {
+        logResetFailure(execution, e);
+        return null;
+      }
+      reset.addListener(() -> logResetFailure(execution, reset), directExecutor());
+      return reset;
+    }
+
+    private void scheduleNextBatch(long batchStart) {
+      long delay = BATCH_PERIOD_MS - (System.currentTimeMillis() - batchStart);
+      try {
+        scheduledExecutorService.schedule(this, Math.max(delay, 0), TimeUnit.MILLISECONDS);
+      } catch (RejectedExecutionException e) {
+        abort(e);
+      }
+    }
+
+    private void abort(Throwable e) {
+      log.warn("failed to reset sticky task queues of the cached workflows", e);
+      promise.complete(null);
+    }
+
+    private void logResetFailure(
+        WorkflowExecution execution, ListenableFuture<ResetStickyTaskQueueResponse> reset) {
+      try {
+        reset.get();
+      } catch (ExecutionException e) {
+        logResetFailure(execution, e.getCause());
+      } catch (Exception e) {
+        logResetFailure(execution, e);
+      }
+    }
+
+    private void logResetFailure(WorkflowExecution execution, Throwable e) {
+      log.warn(
+          "failed to reset sticky task queue of workflowId={}, runId={}",
+          execution.getWorkflowId(),
+          execution.getRunId(),
+          e);
+    }
+  }
+
   private abstract class LimitedWaitShutdown implements Runnable {
     private final CompletableFuture<Void> promise;
     private final int maxAttempts;
@@ -9,6 +9,7 @@ import io.temporal.common.converter.GlobalDataConverter;
 import io.temporal.common.interceptors.WorkerInterceptor;
 import io.temporal.worker.WorkerDeploymentOptions;
 import java.time.Duration;
+import java.util.Collections;
 import java.util.List;
 
 public final class SingleWorkerOptions {
@@ -40,6 +41,10 @@ public final class SingleWorkerOptions {
     private Duration drainStickyTaskQueueTimeout;
     private boolean usingVirtualThreads;
     private WorkerDeploymentOptions deploymentOptions;
+    private int replayHistoryPageSize;
+    private List<String> cachedQueryTypes;
+    private long workflowReplayBudget;
+    private boolean stickyCacheHandoff;
 
     private Builder() {}
 
@@ -64,6 +69,10 @@ public final class SingleWorkerOptions {
       this.drainStickyTaskQueueTimeout = options.getDrainStickyTaskQueueTimeout();
       this.usingVirtualThreads = options.isUsingVirtualThreads();
       this.deploymentOptions = options.getDeploymentOptions();
+      this.replayHistoryPageSize = options.getReplayHistoryPageSize();
+      this.cachedQueryTypes = options.getCachedQueryTypes();
+      this.workflowReplayBudget = options.getWorkflowReplayBudget();
+      this.stickyCacheHandoff = options.isStickyCacheHandoff();
     }
 
     public Builder setIdentity(String identity) {
@@ -155,6 +164,26 @@ public final class SingleWorkerOptions {
       return this;
     }
 
+    public Builder setReplayHistoryPageSize(int replayHistoryPageSize) {
+      this.replayHistoryPageSize = replayHistoryPageSize;
+      return this;
+    }
+
+    public Builder setCachedQueryTypes(List<String> cachedQueryTypes) {
+      this.cachedQueryTypes = cachedQueryTypes;
+      return this;
+    }
+
+    public Builder setWorkflowReplayBudget(long workflowReplayBudget) {
+      this.workflowReplayBudget = workflowReplayBudget;
+      return this;
+    }
+
+    public Builder setStickyCacheHandoff(boolean stickyCacheHandoff) {
+      this.stickyCacheHandoff = stickyCacheHandoff;
+      return this;
+    }
+
     public SingleWorkerOptions build() {
       PollerOptions pollerOptions = this.pollerOptions;
       if (pollerOptions == null) {
@@ -176,6 +205,11 @@ public final class SingleWorkerOptions {
         drainStickyTaskQueueTimeout = Duration.ofSeconds(0);
       }
 
+      List<String> cachedQueryTypes = this.cachedQueryTypes;
+      if (cachedQueryTypes == null) {
+        cachedQueryTypes = Collections.emptyList();
+      }
+
       return new SingleWorkerOptions(
           this.identity,
           this.binaryChecksum,
@@ -193,7 +227,11 @@ public final class SingleWorkerOptions {
           this.defaultHeartbeatThrottleInterval,
           drainStickyTaskQueueTimeout,
           usingVirtualThreads,
-          this.deploymentOptions);
+          this.deploymentOptions,
+          this.replayHistoryPageSize,
+          cachedQueryTypes,
+          this.workflowReplayBudget,
+          this.stickyCacheHandoff);
     }
   }
 
@@ -214,6 +252,10 @@ public final class SingleWorkerOptions {
   private final Duration drainStickyTaskQueueTimeout;
   private final boolean usingVirtualThreads;
   private final WorkerDeploymentOptions deploymentOptions;
+  private final int replayHistoryPageSize;
+  private final List<String> cachedQueryTypes;
+  private final long workflowReplayBudget;
+  private final boolean stickyCacheHandoff;
 
   private SingleWorkerOptions(
       String identity,
@@ -232,7 +274,11 @@ public final class SingleWorkerOptions {
       Duration defaultHeartbeatThrottleInterval,
       Duration drainStickyTaskQueueTimeout,
       boolean usingVirtualThreads,
-      WorkerDeploymentOptions deploymentOptions) {
+      WorkerDeploymentOptions deploymentOptions,
+      int replayHistoryPageSize,
+      List<String> cachedQueryTypes,
+      long workflowReplayBudget,
+      boolean stickyCacheHandoff) {
     this.identity = identity;
     this.binaryChecksum = binaryChecksum;
     this.buildId = buildId;
@@ -250,6 +296,10 @@ public final class SingleWorkerOptions {
     this.drainStickyTaskQueueTimeout = drainStickyTaskQueueTimeout;
     this.usingVirtualThreads = usingVirtualThreads;
     this.deploymentOptions = deploymentOptions;
+    this.replayHistoryPageSize = replayHistoryPageSize;
+    this.cachedQueryTypes = cachedQueryTypes;
+    this.workflowReplayBudget = workflowReplayBudget;
+    this.stickyCacheHandoff = stickyCacheHandoff;
   }
 
   public String getIdentity() {
@@ -331,6 +381,37 @@ public final class SingleWorkerOptions {
     return deploymentOptions;
   }
 
+  /**
+   * @return maximum number of events in a history page fetched for a replay, 0 for the service
+   *     default
+   */
+  public int getReplayHistoryPageSize() {
+    return replayHistoryPageSize;
+  }
+
+  /**
+   * @return query types whose results are cached, empty if none
+   */
+  public List<String> getCachedQueryTypes() {
+    return cachedQueryTypes;
+  }
+
+  /**
+   * @return maximum total number of history events replayed concurrently by the workflow tasks of
+   *     runs that are not cached, 0 for no limit
+   */
+  public long getWorkflowReplayBudget() {
+    return workflowReplayBudget;
+  }
+
+  /**
+   * @return true if the stickiness of the cached runs is reset gradually by the worker factory on
+   *     shutdown instead of by the ShutdownWorker call of the worker
+   */
+  public boolean isStickyCacheHandoff() {
+    return stickyCacheHandoff;
+  }
+
   public WorkerVersioningOptions getWorkerVersioningOptions() {
     return new WorkerVersioningOptions(
         this.getBuildId(), this.isUsingBuildIdForVersioning(), this.getDeploymentOptions());
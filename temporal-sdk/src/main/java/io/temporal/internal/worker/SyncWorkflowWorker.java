@@ -181,6 +181,14 @@ public class SyncWorkflowWorker implements SuspendableWorker {
             });
   }
 
+  /**
+   * Makes the server send the tasks of the sticky task queue of this worker to the normal task
+   * queue. Used when the sticky cache handoff of a graceful shutdown is aborted.
+   */
+  public CompletableFuture<Void> shutdownStickyTaskQueue(ShutdownManager shutdownManager) {
+    return workflowWorker.shutdownStickyTaskQueue(shutdownManager);
+  }
+
   @Override
   public void awaitTermination(long timeout, TimeUnit unit) {
     long timeoutMillis = ShutdownManager.awaitTermination(laWorker, unit.toMillis(timeout));
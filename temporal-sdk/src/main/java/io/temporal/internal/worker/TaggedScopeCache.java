@@ -0,0 +1,96 @@
+package io.temporal.internal.worker;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.uber.m3.tally.Scope;
+import com.uber.m3.util.ImmutableMap;
+import io.temporal.serviceclient.MetricsTag;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Caches the sub scopes of a worker metrics scope tagged with workflow and activity types, so the
+ * task paths don't build the tags and look up the tagged sub scope for every task. Tally scopes
+ * keep the timers, counters and gauges created from them, so the metric handles of a cached scope
+ * are resolved only once too.
+ *
+ * <p>The number of cached scopes is bounded, as the types come from the server and are not limited
+ * to the registered ones. Scopes over the limit are tagged on every call.
+ */
+@ThreadSafe
+public final class TaggedScopeCache {
+  static final int DEFAULT_MAXIMUM_SIZE = 1000;
+
+  private final Scope scope;
+  private final int maximumSize;
+  private final Map<String, Scope> workflowTypeScopes = new ConcurrentHashMap<>();
+  // activity type -> workflow type -> scope
+  private final Map<String, Map<String, Scope>> activityTypeScopes = new ConcurrentHashMap<>();
+  private final AtomicInteger size = new AtomicInteger();
+
+  public TaggedScopeCache(Scope scope) {
+    this(scope, DEFAULT_MAXIMUM_SIZE);
+  }
+
+  @VisibleForTesting
+  TaggedScopeCache(Scope scope, int maximumSize) {
+    this.scope = Objects.requireNonNull(scope);
+    this.maximumSize = maximumSize;
+  }
+
+  /**
+   * @return the scope tagged with {@link MetricsTag#WORKFLOW_TYPE}
+   */
+  public Scope forWorkflowType(String workflowType) {
+    Scope cached = workflowTypeScopes.get(workflowType);
+    if (cached != null) {
+      return cached;
+    }
+    Scope tagged = scope.tagged(ImmutableMap.of(MetricsTag.WORKFLOW_TYPE, workflowType));
+    return cache(workflowTypeScopes, workflowType, tagged);
+  }
+
+  /**
+   * @return the scope tagged with {@link MetricsTag#ACTIVITY_TYPE} and {@link
+   *     MetricsTag#WORKFLOW_TYPE}
+   */
+  public Scope forActivityType(String activityType, String workflowType) {
+    Map<String, Scope> byWorkflowType = activityTypeScopes.get(activityType);
+    Scope cached = byWorkflowType == null ? null : byWorkflowType.get(workflowType);
+    if (cached != null) {
+      return cached;
+    }
+    Scope tagged =
+        scope.tagged(
+            ImmutableMap.of(
+                MetricsTag.ACTIVITY_TYPE, activityType, MetricsTag.WORKFLOW_TYPE, workflowType));
+    if (size.get() >= maximumSize) {
+      return tagged;
+    }
+    if (byWorkflowType == null) {
+      byWorkflowType =
+          activityTypeScopes.computeIfAbsent(activityType, k -> new ConcurrentHashMap<>());
+    }
+    return cache(byWorkflowType, workflowType, tagged);
+  }
+
+  @VisibleForTesting
+  int size() {
+    return size.get();
+  }
+
+  private Scope cache(Map<String, Scope> scopes, String key, Scope tagged) {
+    if (size.incrementAndGet() > maximumSize) {
+      size.decrementAndGet();
+      return tagged;
+    }
+    Scope previous = scopes.putIfAbsent(key, tagged);
+    if (previous != null) {
+      size.decrementAndGet();
+      return previous;
+    }
+    return tagged;
+  }
+}
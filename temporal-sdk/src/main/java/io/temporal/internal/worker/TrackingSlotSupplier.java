@@ -1,6 +1,9 @@
 package io.temporal.internal.worker;
 
 import com.uber.m3.tally.Scope;
+import io.temporal.internal.jfr.JfrDelegate;
+import io.temporal.internal.jfr.TaskPhase;
+import io.temporal.internal.jfr.TaskPhaseRecording;
 import io.temporal.worker.MetricsType;
 import io.temporal.worker.tuning.*;
 import java.util.Collections;
@@ -32,6 +35,7 @@ public class TrackingSlotSupplier<SI extends SlotInfo> {
   }
 
   public SlotSupplierFuture reserveSlot(SlotReservationData data) {
+    TaskPhaseRecording recording = JfrDelegate.begin(TaskPhase.SLOT_RESERVATION);
     final SlotSupplierFuture future;
     try {
       future = inner.reserveSlot(createCtx(data));
@@ -39,7 +43,11 @@ public class TrackingSlotSupplier<SI extends SlotInfo> {
       throw new RuntimeException(e);
     }
 
-    future.thenRun(issuedSlots::incrementAndGet);
+    future.thenRun(
+        () -> {
+          issuedSlots.incrementAndGet();
+          recording.end(null, null);
+        });
     return future;
   }
 
@@ -10,6 +10,8 @@ import io.temporal.api.common.v1.WorkflowExecution;
 import io.temporal.api.workflowservice.v1.PollWorkflowTaskQueueResponseOrBuilder;
 import io.temporal.internal.replay.WorkflowRunTaskHandler;
 import io.temporal.worker.MetricsType;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.Callable;
 import javax.annotation.Nullable;
@@ -23,9 +25,27 @@ public final class WorkflowExecutorCache {
   private final WorkflowRunLockManager runLockManager;
   private final Cache<String, WorkflowRunTaskHandler> cache;
   private final Scope metricsScope;
+  private final @Nullable LocalHistoryStore localHistory;
+  // closed runs kept to answer queries, the handlers are closed by addClosed and hold no workflow
+  // threads
+  private final @Nullable Cache<String, WorkflowRunTaskHandler> closedRuns;
 
   public WorkflowExecutorCache(
       int workflowCacheSize, WorkflowRunLockManager runLockManager, Scope scope) {
+    this(workflowCacheSize, runLockManager, scope, null, 0);
+  }
+
+  /**
+   * @param localHistory local disk tier keeping the history of the runs, so the runs evicted from
+   *     this cache can be recreated without fetching their full history
+   * @param closedWorkflowCacheSize number of the closed runs kept to answer queries, 0 to keep none
+   */
+  public WorkflowExecutorCache(
+      int workflowCacheSize,
+      WorkflowRunLockManager runLockManager,
+      Scope scope,
+      @Nullable LocalHistoryStore localHistory,
+      int closedWorkflowCacheSize) {
     Preconditions.checkArgument(workflowCacheSize > 0, "Max cache size must be greater than 0");
     this.runLockManager = runLockManager;
     this.cache =
@@ -54,6 +74,23 @@ public final class WorkflowExecutorCache {
                 })
             .build();
     this.metricsScope = Objects.requireNonNull(scope);
+    this.localHistory = localHistory;
+    this.closedRuns =
+        closedWorkflowCacheSize > 0
+            ? CacheBuilder.newBuilder()
+                .maximumSize(closedWorkflowCacheSize)
+                .removalListener(
+                    e -> {
+                      if (e.wasEvicted()) {
+                        metricsScope.counter(MetricsType.CLOSED_WORKFLOW_CACHE_EVICTION).inc(1);
+                      }
+                      WorkflowRunTaskHandler entry = (WorkflowRunTaskHandler) e.getValue();
+                      if (entry != null) {
+                        entry.close();
+                      }
+                    })
+                .build()
+            : null;
     this.metricsScope.gauge(MetricsType.STICKY_CACHE_SIZE).update(size());
   }
 
@@ -162,8 +199,70 @@ public final class WorkflowExecutorCache {
     return cache.size();
   }
 
+  /**
+   * @return the runs currently in the cache
+   */
+  public List<WorkflowExecution> getCachedExecutions() {
+    List<WorkflowExecution> executions = new ArrayList<>();
+    for (WorkflowRunTaskHandler workflowRunTaskHandler : cache.asMap().values()) {
+      executions.add(workflowRunTaskHandler.getWorkflowExecution());
+    }
+    return executions;
+  }
+
+  /**
+   * @return true if the state of the run is cached, without counting it as an access of the run
+   */
+  public boolean isCached(WorkflowExecution workflowExecution) {
+    return cache.asMap().containsKey(workflowExecution.getRunId());
+  }
+
+  /**
+   * Keeps the {@code workflowRunTaskHandler} of a closed run that has replayed the whole history,
+   * so it can answer the following queries of the run. The handler is closed, so it doesn't hold
+   * any workflow threads. Queries don't need them, they are executed on the calling thread. Only
+   * closes the handler if closed runs are not kept.
+   */
+  public void addClosed(
+      WorkflowExecution workflowExecution, WorkflowRunTaskHandler workflowRunTaskHandler) {
+    workflowRunTaskHandler.close();
+    if (closedRuns == null) {
+      return;
+    }
+    closedRuns.put(workflowExecution.getRunId(), workflowRunTaskHandler);
+    metricsScope.gauge(MetricsType.CLOSED_WORKFLOW_CACHE_SIZE).update(closedRuns.size());
+  }
+
+  /**
+   * @return the handler of the closed run kept by {@link #addClosed} or null if there is none
+   */
+  @Nullable
+  public WorkflowRunTaskHandler getClosed(
+      WorkflowExecution workflowExecution, Scope workflowTypeScope) {
+    if (closedRuns == null) {
+      return null;
+    }
+    WorkflowRunTaskHandler closedRun = closedRuns.getIfPresent(workflowExecution.getRunId());
+    if (closedRun != null) {
+      workflowTypeScope.counter(MetricsType.CLOSED_WORKFLOW_CACHE_HIT).inc(1);
+    }
+    return closedRun;
+  }
+
+  /**
+   * @return local disk tier of the cache or null if it's not enabled
+   */
+  @Nullable
+  public LocalHistoryStore getLocalHistory() {
+    return localHistory;
+  }
+
   public void invalidateAll() {
     cache.invalidateAll();
     metricsScope.gauge(MetricsType.STICKY_CACHE_SIZE).update(size());
+    if (closedRuns != null) {
+      closedRuns.invalidateAll();
+      metricsScope.gauge(MetricsType.CLOSED_WORKFLOW_CACHE_SIZE).update(closedRuns.size());
+    }
   }
 }
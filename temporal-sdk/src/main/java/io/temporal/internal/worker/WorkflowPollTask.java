@@ -12,6 +12,9 @@ import io.temporal.api.workflowservice.v1.PollWorkflowTaskQueueRequest;
 import io.temporal.api.workflowservice.v1.PollWorkflowTaskQueueResponse;
 import io.temporal.api.workflowservice.v1.WorkflowServiceGrpc;
 import io.temporal.internal.common.ProtobufTimeUtils;
+import io.temporal.internal.jfr.JfrDelegate;
+import io.temporal.internal.jfr.TaskPhase;
+import io.temporal.internal.jfr.TaskPhaseRecording;
 import io.temporal.serviceclient.MetricsTag;
 import io.temporal.serviceclient.WorkflowServiceStubs;
 import io.temporal.worker.MetricsType;
@@ -176,7 +179,12 @@ final class WorkflowPollTask implements MultiThreadedPoller.PollTask<WorkflowTas
   @Nullable
   private PollWorkflowTaskQueueResponse doPoll(
       PollWorkflowTaskQueueRequest request, Scope metricsScope) {
+    TaskPhaseRecording recording = JfrDelegate.begin(TaskPhase.WORKFLOW_TASK_POLL);
     PollWorkflowTaskQueueResponse response = serviceStub.pollWorkflowTaskQueue(request);
+    if (response != null) {
+      recording.end(
+          response.getWorkflowType().getName(), response.getWorkflowExecution().getRunId());
+    }
 
     if (log.isTraceEnabled()) {
       log.trace(
@@ -0,0 +1,90 @@
+package io.temporal.internal.worker;
+
+import com.google.common.base.Preconditions;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Limits the total cost of the workflow tasks that replay runs from the beginning. The cost of a
+ * replay is the number of history events it replays.
+ *
+ * <p>Like {@link WorkflowRunLockManager#tryLockOrEnqueue}, {@link #tryAcquireOrEnqueue} either
+ * acquires the budget or enqueues a callback that gets the budget passed to it when enough of it is
+ * released. The callbacks are called in the order they were enqueued, so a large replay is not
+ * starved by smaller ones. A replay that exceeds the whole budget gets it when no other replays are
+ * running.
+ */
+@ThreadSafe
+final class WorkflowReplayBudget {
+  private static final class Waiting {
+    private final long cost;
+    private final Runnable onAcquired;
+
+    private Waiting(long cost, Runnable onAcquired) {
+      this.cost = cost;
+      this.onAcquired = onAcquired;
+    }
+  }
+
+  private final long budget;
+  // guarded by this
+  private long used;
+  // guarded by this
+  private final Queue<Waiting> backlog = new ArrayDeque<>();
+
+  WorkflowReplayBudget(long budget) {
+    Preconditions.checkArgument(budget > 0, "budget must be positive: %s", budget);
+    this.budget = budget;
+  }
+
+  /**
+   * Acquires {@code cost} of the budget if it's available and no other replays are waiting.
+   * Otherwise, enqueues {@code onAcquired}. {@code onAcquired} is called by the thread releasing
+   * the budget with the budget already acquired on its behalf, so it must not block and is
+   * responsible for releasing it.
+   *
+   * @return true if the budget was acquired by this call, false if {@code onAcquired} was enqueued
+   */
+  synchronized boolean tryAcquireOrEnqueue(long cost, Runnable onAcquired) {
+    if (backlog.isEmpty() && fits(cost)) {
+      used += cost;
+      return true;
+    }
+    backlog.add(new Waiting(cost, onAcquired));
+    return false;
+  }
+
+  /**
+   * Releases {@code cost} of the budget and passes it to the waiting replays that fit into it.
+   * Their callbacks are called by the current thread one after another, after the budget is
+   * released.
+   */
+  void release(long cost) {
+    List<Runnable> acquired = new ArrayList<>();
+    synchronized (this) {
+      used -= cost;
+      while (!backlog.isEmpty() && fits(backlog.peek().cost)) {
+        Waiting next = backlog.poll();
+        used += next.cost;
+        acquired.add(next.onAcquired);
+      }
+    }
+    for (Runnable onAcquired : acquired) {
+      onAcquired.run();
+    }
+  }
+
+  /**
+   * @return number of the replays waiting for the budget
+   */
+  synchronized int getBacklogSize() {
+    return backlog.size();
+  }
+
+  private boolean fits(long cost) {
+    return used == 0 || used + cost <= budget;
+  }
+}
@@ -2,11 +2,23 @@ package io.temporal.internal.worker;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
+import java.util.ArrayDeque;
 import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Per run id locks. The locks are not reentrant and not owned by a thread: a lock may be released
+ * by a different thread than the one that acquired it, like the thread completing an asynchronous
+ * respond call of a workflow task.
+ *
+ * <p>Besides blocking acquisition, a lock has a mailbox: {@link #tryLockOrEnqueue} either acquires
+ * the lock or enqueues a callback that gets the lock passed directly to it when it's released. The
+ * callbacks of a run are called one after another in the order they were enqueued, without
+ * occupying a thread while they wait.
+ */
 public final class WorkflowRunLockManager {
   private final Map<String, RefCountedLock> runIdLock = new ConcurrentHashMap<>();
 
@@ -15,7 +27,7 @@ public final class WorkflowRunLockManager {
 
     boolean obtained = false;
     try {
-      obtained = runLock.lock.tryLock(timeout, unit);
+      obtained = runLock.lock.tryAcquire(timeout, unit);
       return obtained;
     } finally {
       if (!obtained) {
@@ -29,7 +41,7 @@ public final class WorkflowRunLockManager {
 
     boolean obtained = false;
     try {
-      obtained = runLock.lock.tryLock();
+      obtained = runLock.lock.tryAcquire();
       return obtained;
     } finally {
       if (!obtained) {
@@ -38,8 +50,42 @@ public final class WorkflowRunLockManager {
     }
   }
 
+  /**
+   * Acquires the lock for the run if it's available. Otherwise, enqueues {@code onLocked} to the
+   * mailbox of the run. {@code onLocked} is called by the thread releasing the lock with the lock
+   * already acquired on its behalf, so it must not block and is responsible for unlocking.
+   *
+   * @return true if the lock was acquired by this call, false if {@code onLocked} was enqueued
+   */
+  public boolean tryLockOrEnqueue(String runId, Runnable onLocked) {
+    boolean[] obtained = new boolean[1];
+    runIdLock.compute(
+        runId,
+        (id, runLock) -> {
+          if (runLock == null) {
+            runLock = new RefCountedLock();
+          }
+          runLock.refCount++;
+          // the mailbox is checked under the map entry lock, so the lock can't be released
+          // between the failed acquisition and enqueueing
+          obtained[0] = runLock.lock.tryAcquire();
+          if (!obtained[0]) {
+            runLock.mailbox.add(onLocked);
+          }
+          return runLock;
+        });
+    return obtained[0];
+  }
+
+  /**
+   * Releases the lock of the run or passes it to the next callback in the mailbox of the run. The
+   * callback is called by the current thread.
+   */
   public void unlock(String runId) {
-    derefAndUnlock(runId, true);
+    Runnable next = derefAndUnlock(runId, true);
+    if (next != null) {
+      next.run();
+    }
   }
 
   private RefCountedLock obtainLock(String runId) {
@@ -54,20 +100,25 @@ public final class WorkflowRunLockManager {
         });
   }
 
-  private void derefAndUnlock(String runId, boolean unlock) {
+  /**
+   * @return the mailbox callback the lock was passed to, if any
+   */
+  private Runnable derefAndUnlock(String runId, boolean unlock) {
+    Runnable[] next = new Runnable[1];
     runIdLock.compute(
         runId,
         (id, runLock) -> {
           Preconditions.checkState(
-              runLock != null,
-              "Thread '%s' doesn't have an acquired lock for runId '%s'",
-              Thread.currentThread().getName(),
-              runId);
+              runLock != null, "There is no acquired lock for runId '%s'", runId);
           if (unlock) {
-            runLock.lock.unlock();
+            next[0] = runLock.mailbox.poll();
+            if (next[0] == null) {
+              runLock.lock.release();
+            }
           }
           return --runLock.refCount == 0 ? null : runLock;
         });
+    return next[0];
   }
 
   @VisibleForTesting
@@ -76,7 +127,9 @@ public final class WorkflowRunLockManager {
   }
 
   private static class RefCountedLock {
-    final ReentrantLock lock = new ReentrantLock();
+    final Semaphore lock = new Semaphore(1);
+    // guarded by the map entry of the lock
+    final Queue<Runnable> mailbox = new ArrayDeque<>();
     int refCount = 0;
   }
 }
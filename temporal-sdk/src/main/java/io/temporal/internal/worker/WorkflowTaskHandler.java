@@ -1,11 +1,13 @@
 package io.temporal.internal.worker;
 
 import io.temporal.api.workflowservice.v1.PollWorkflowTaskQueueResponse;
+import io.temporal.api.workflowservice.v1.PollWorkflowTaskQueueResponseOrBuilder;
 import io.temporal.api.workflowservice.v1.RespondQueryTaskCompletedRequest;
 import io.temporal.api.workflowservice.v1.RespondWorkflowTaskCompletedRequest;
 import io.temporal.api.workflowservice.v1.RespondWorkflowTaskFailedRequest;
 import io.temporal.serviceclient.RpcRetryOptions;
 import io.temporal.workflow.Functions;
+import javax.annotation.Nullable;
 
 /**
  * Interface of workflow task handlers.
@@ -109,6 +111,26 @@ public interface WorkflowTaskHandler {
    */
   Result handleWorkflowTask(PollWorkflowTaskQueueResponse workflowTask) throws Exception;
 
+  /**
+   * Answers the direct query {@code workflowTask} with a cached result without touching the
+   * workflow run, so it can be called without holding the run lock.
+   *
+   * @return the query reply or null if the result of the query is not cached and the task has to
+   *     be handled with {@link #handleWorkflowTask(PollWorkflowTaskQueueResponse)}
+   */
+  @Nullable
+  default Result handleCachedDirectQuery(PollWorkflowTaskQueueResponse workflowTask) {
+    return null;
+  }
+
+  /**
+   * @return number of the history events replayed to handle the {@code workflowTask}, because the
+   *     state of its run is not cached, 0 if only the new events of the task are applied
+   */
+  default long getReplayCost(PollWorkflowTaskQueueResponseOrBuilder workflowTask) {
+    return 0;
+  }
+
   /** True if this handler handles at least one workflow type. */
   boolean isAnyTypeSupported();
 }
@@ -5,6 +5,7 @@ import static io.temporal.serviceclient.MetricsTag.TASK_FAILURE_TYPE;
 
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.protobuf.ByteString;
 import com.uber.m3.tally.Scope;
 import com.uber.m3.tally.Stopwatch;
@@ -17,6 +18,10 @@ import io.temporal.api.enums.v1.WorkflowTaskFailedCause;
 import io.temporal.api.failure.v1.Failure;
 import io.temporal.api.workflowservice.v1.*;
 import io.temporal.failure.ApplicationFailure;
+import io.temporal.internal.common.GrpcUtils;
+import io.temporal.internal.jfr.JfrDelegate;
+import io.temporal.internal.jfr.TaskPhase;
+import io.temporal.internal.jfr.TaskPhaseRecording;
 import io.temporal.internal.logging.LoggerTag;
 import io.temporal.internal.retryer.GrpcMessageTooLargeException;
 import io.temporal.internal.retryer.GrpcRetryer;
@@ -28,8 +33,12 @@ import io.temporal.worker.*;
 import io.temporal.worker.tuning.*;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import org.slf4j.Logger;
@@ -39,8 +48,18 @@ import org.slf4j.MDC;
 final class WorkflowWorker implements SuspendableWorker {
   private static final String GRACEFUL_SHUTDOWN_MESSAGE = "graceful shutdown";
   private static final Logger log = LoggerFactory.getLogger(WorkflowWorker.class);
+  private static final ScheduledExecutorService asyncThrottlerExecutor =
+      Executors.newSingleThreadScheduledExecutor(
+          new ThreadFactoryBuilder()
+              .setDaemon(true)
+              .setNameFormat("workflow-worker-async-throttler-%d")
+              .build());
 
   private final WorkflowRunLockManager runLocks;
+  // number of the tasks of this worker waiting in the mailboxes of their runs
+  private final AtomicInteger mailboxDepth = new AtomicInteger();
+  // null if the replays are not limited
+  @Nullable private final WorkflowReplayBudget replayBudget;
 
   private final WorkflowServiceStubs service;
   private final String namespace;
@@ -51,6 +70,7 @@ final class WorkflowWorker implements SuspendableWorker {
   private final String stickyTaskQueueName;
   private final PollerOptions pollerOptions;
   private final Scope workerMetricsScope;
+  private final TaggedScopeCache workflowTypeScopes;
   private final GrpcRetryer grpcRetryer;
   private final EagerActivityDispatcher eagerActivityDispatcher;
   private final TrackingSlotSupplier<WorkflowSlotInfo> slotSupplier;
@@ -82,12 +102,17 @@ final class WorkflowWorker implements SuspendableWorker {
     this.pollerOptions = getPollerOptions(options);
     this.workerMetricsScope =
         MetricsTag.tagged(options.getMetricsScope(), WorkerMetricsTag.WorkerType.WORKFLOW_WORKER);
+    this.workflowTypeScopes = new TaggedScopeCache(workerMetricsScope);
     this.runLocks = Objects.requireNonNull(runLocks);
     this.cache = Objects.requireNonNull(cache);
     this.handler = Objects.requireNonNull(handler);
     this.grpcRetryer = new GrpcRetryer(service.getServerCapabilities());
     this.eagerActivityDispatcher = eagerActivityDispatcher;
     this.slotSupplier = new TrackingSlotSupplier<>(slotSupplier, this.workerMetricsScope);
+    this.replayBudget =
+        options.getWorkflowReplayBudget() > 0
+            ? new WorkflowReplayBudget(options.getWorkflowReplayBudget())
+            : null;
   }
 
   @Override
@@ -211,17 +236,10 @@ final class WorkflowWorker implements SuspendableWorker {
     return CompletableFuture.allOf(
         pollerShutdown.thenCompose(
             ignore -> {
-              if (!interruptTasks && stickyTaskQueueName != null) {
-                return shutdownManager.waitOnWorkerShutdownRequest(
-                    service
-                        .futureStub()
-                        .shutdownWorker(
-                            ShutdownWorkerRequest.newBuilder()
-                                .setIdentity(options.getIdentity())
-                                .setNamespace(namespace)
-                                .setStickyTaskQueue(stickyTaskQueueName)
-                                .setReason(GRACEFUL_SHUTDOWN_MESSAGE)
-                                .build()));
+              // with the sticky cache handoff, the stickiness of the cached runs is reset gradually
+              // by the worker factory instead
+              if (!interruptTasks && !options.isStickyCacheHandoff()) {
+                return shutdownStickyTaskQueue(shutdownManager);
               }
               return CompletableFuture.completedFuture(null);
             }),
@@ -244,6 +262,26 @@ final class WorkflowWorker implements SuspendableWorker {
                 }));
   }
 
+  /**
+   * Asks the server to send the tasks of the sticky task queue of this worker to the normal task
+   * queue from now on, so the cached runs don't wait for the sticky schedule to start timeout.
+   */
+  CompletableFuture<Void> shutdownStickyTaskQueue(ShutdownManager shutdownManager) {
+    if (stickyTaskQueueName == null) {
+      return CompletableFuture.completedFuture(null);
+    }
+    return shutdownManager.waitOnWorkerShutdownRequest(
+        service
+            .futureStub()
+            .shutdownWorker(
+                ShutdownWorkerRequest.newBuilder()
+                    .setIdentity(options.getIdentity())
+                    .setNamespace(namespace)
+                    .setStickyTaskQueue(stickyTaskQueueName)
+                    .setReason(GRACEFUL_SHUTDOWN_MESSAGE)
+                    .build()));
+  }
+
   @Override
   public void awaitTermination(long timeout, TimeUnit unit) {
     long timeoutMillis = ShutdownManager.awaitTermination(poller, unit.toMillis(timeout));
@@ -350,76 +388,486 @@ final class WorkflowWorker implements SuspendableWorker {
 
     @Override
     public void handle(WorkflowTask task) throws Exception {
+      if (task.getResponse().hasQuery() && handleCachedDirectQuery(task)) {
+        return;
+      }
+      if (Strings.isNullOrEmpty(stickyTaskQueueName)) {
+        handleLocked(task, false);
+        return;
+      }
+      // Serialize workflow task processing for a particular workflow run.
+      // This is used to make sure that query tasks and real workflow tasks
+      // are serialized when sticky is on.
+      //
+      // A task of a run that is being processed waits in the mailbox of the run instead of
+      // occupying an executor thread. When the previous task of the run is done, the run lock is
+      // passed to the waiting task and it's dispatched back to the executor.
+      String runId = task.getResponse().getWorkflowExecution().getRunId();
+      Stopwatch swMailbox =
+          workerMetricsScope.timer(MetricsType.WORKFLOW_TASK_MAILBOX_WAIT_LATENCY).start();
+      TaskPhaseRecording lockWaitRecording = JfrDelegate.begin(TaskPhase.RUN_LOCK_WAIT);
+      mailboxDepth.incrementAndGet();
+      if (runLocks.tryLockOrEnqueue(
+          runId, () -> dispatchFromMailbox(task, runId, swMailbox, lockWaitRecording))) {
+        mailboxDepth.decrementAndGet();
+        handleLocked(task, true);
+      } else {
+        workerMetricsScope
+            .gauge(MetricsType.WORKFLOW_TASK_MAILBOX_DEPTH)
+            .update(mailboxDepth.get());
+      }
+    }
+
+    /**
+     * A direct query answered with a cached result doesn't touch the workflow run, so it doesn't
+     * wait for the run lock.
+     *
+     * @return true if the query was answered
+     */
+    private boolean handleCachedDirectQuery(WorkflowTask task) {
+      PollWorkflowTaskQueueResponse workflowTaskResponse = task.getResponse();
+      WorkflowTaskHandler.Result result = handler.handleCachedDirectQuery(workflowTaskResponse);
+      if (result == null) {
+        return false;
+      }
+      CompletableFuture<RespondQueryTaskCompletedResponse> sent;
+      try {
+        sent =
+            sendDirectQueryCompletedResponse(
+                workflowTaskResponse.getTaskToken(),
+                result.getQueryCompleted().toBuilder(),
+                workflowTypeScopes.forWorkflowType(
+                    workflowTaskResponse.getWorkflowType().getName()));
+      } catch (RuntimeException e) {
+        task.getCompletionCallback().apply(SlotReleaseReason.error(e));
+        throw e;
+      }
+      sent.whenComplete(
+          (r, e) -> {
+            try {
+              if (e != null && !pollTaskExecutor.isShutdown()) {
+                pollerOptions
+                    .getUncaughtExceptionHandler()
+                    .uncaughtException(
+                        Thread.currentThread(), wrapFailure(task, unwrapCompletionException(e)));
+              }
+            } finally {
+              task.getCompletionCallback()
+                  .apply(
+                      e == null
+                          ? SlotReleaseReason.taskComplete()
+                          : SlotReleaseReason.error(toException(unwrapCompletionException(e))));
+            }
+          });
+      return true;
+    }
+
+    /** Called with the run lock passed to the {@code task} by the previous task of the run. */
+    private void dispatchFromMailbox(
+        WorkflowTask task,
+        String runId,
+        Stopwatch swMailbox,
+        TaskPhaseRecording lockWaitRecording) {
+      swMailbox.stop();
+      lockWaitRecording.end(task.getResponse().getWorkflowType().getName(), runId);
+      workerMetricsScope
+          .gauge(MetricsType.WORKFLOW_TASK_MAILBOX_DEPTH)
+          .update(mailboxDepth.decrementAndGet());
+      // called by the thread unlocking the run, which must not block waiting for a free executor
+      // thread
+      pollTaskExecutor.handOff(
+          () -> {
+            try {
+              handleLocked(task, true);
+            } catch (Throwable e) {
+              if (!pollTaskExecutor.isShutdown()) {
+                pollerOptions
+                    .getUncaughtExceptionHandler()
+                    .uncaughtException(Thread.currentThread(), wrapFailure(task, e));
+              }
+            }
+          },
+          e -> {
+            // the worker is shutting down
+            try {
+              runLocks.unlock(runId);
+            } finally {
+              task.getCompletionCallback().apply(SlotReleaseReason.error(e));
+            }
+          });
+    }
+
+    /**
+     * A task that replays its run from the beginning and doesn't fit into the replay budget waits
+     * for it without occupying an executor thread, the same way as a task waiting for the run lock.
+     *
+     * @param locked true if the run lock is held for the {@code task}
+     */
+    private void handleLocked(WorkflowTask task, boolean locked) throws Exception {
+      long replayCost = handler.getReplayCost(task.getResponse());
+      if (replayBudget != null && replayCost > 0) {
+        Stopwatch swBudget =
+            workerMetricsScope.timer(MetricsType.WORKFLOW_REPLAY_BUDGET_WAIT_LATENCY).start();
+        if (!replayBudget.tryAcquireOrEnqueue(
+            replayCost, () -> dispatchFromReplayBacklog(task, locked, replayCost, swBudget))) {
+          workerMetricsScope
+              .gauge(MetricsType.WORKFLOW_REPLAY_BACKLOG)
+              .update(replayBudget.getBacklogSize());
+          return;
+        }
+        swBudget.stop();
+      }
+      handleWithReplayBudget(task, locked, replayCost);
+    }
+
+    /** Called with {@code replayCost} of the replay budget passed to the {@code task}. */
+    private void dispatchFromReplayBacklog(
+        WorkflowTask task, boolean locked, long replayCost, Stopwatch swBudget) {
+      swBudget.stop();
+      workerMetricsScope
+          .gauge(MetricsType.WORKFLOW_REPLAY_BACKLOG)
+          .update(replayBudget.getBacklogSize());
+      // called by the thread releasing the budget, possibly for several tasks, so it must not block
+      // waiting for a free executor thread
+      pollTaskExecutor.handOff(
+          () -> {
+            try {
+              handleWithReplayBudget(task, locked, replayCost);
+            } catch (Throwable e) {
+              if (!pollTaskExecutor.isShutdown()) {
+                pollerOptions
+                    .getUncaughtExceptionHandler()
+                    .uncaughtException(Thread.currentThread(), wrapFailure(task, e));
+              }
+            }
+          },
+          e -> {
+            // the worker is shutting down
+            try {
+              replayBudget.release(replayCost);
+            } finally {
+              try {
+                if (locked) {
+                  runLocks.unlock(task.getResponse().getWorkflowExecution().getRunId());
+                }
+              } finally {
+                task.getCompletionCallback().apply(SlotReleaseReason.error(e));
+              }
+            }
+          });
+    }
+
+    /**
+     * @param locked true if the run lock is held for the {@code task}
+     * @param replayCost number of the events replayed by the {@code task}, the replay budget
+     *     acquired for it is released when the task is handled
+     */
+    private void handleWithReplayBudget(WorkflowTask task, boolean locked, long replayCost)
+        throws Exception {
       PollWorkflowTaskQueueResponse workflowTaskResponse = task.getResponse();
       WorkflowExecution workflowExecution = workflowTaskResponse.getWorkflowExecution();
       String runId = workflowExecution.getRunId();
       String workflowType = workflowTaskResponse.getWorkflowType().getName();
 
-      Scope workflowTypeScope =
-          workerMetricsScope.tagged(ImmutableMap.of(MetricsTag.WORKFLOW_TYPE, workflowType));
+      Scope workflowTypeScope = workflowTypeScopes.forWorkflowType(workflowType);
 
       MDC.put(LoggerTag.WORKFLOW_ID, workflowExecution.getWorkflowId());
       MDC.put(LoggerTag.WORKFLOW_TYPE, workflowType);
       MDC.put(LoggerTag.RUN_ID, runId);
 
-      boolean locked = false;
+      // true once the release of the lock and the slot is passed to the completion of the chain
+      boolean completesAsync = false;
 
       Stopwatch swTotal =
           workflowTypeScope.timer(MetricsType.WORKFLOW_TASK_EXECUTION_TOTAL_LATENCY).start();
-      SlotReleaseReason releaseReason = SlotReleaseReason.taskComplete();
+      TaskChain chain =
+          new TaskChain(workflowExecution, workflowType, workflowTypeScope, replayCost);
       try {
-        if (!Strings.isNullOrEmpty(stickyTaskQueueName)) {
-          // Serialize workflow task processing for a particular workflow run.
-          // This is used to make sure that query tasks and real workflow tasks
-          // are serialized when sticky is on.
-          //
-          // Acquiring a lock with a timeout to avoid having lots of workflow tasks for the same run
-          // id waiting for a lock and consuming threads in case if lock is unavailable.
-          //
-          // Throws interrupted exception which is propagated. It's a correct way to handle it here.
-          //
-          // TODO 1: 5 seconds is chosen as a half of normal workflow task timeout.
-          //   This value should be dynamically configured.
-          // TODO 2: Does "consider increasing workflow task timeout" advice in this exception makes
-          //   any sense?
-          //   This MAYBE makes sense only if a previous workflow task timed out, it's still in
-          //   progress on the worker and the next workflow task got picked up by the same exact
-          //   worker from the general non-sticky task queue.
-          //   Even in this case, this advice looks misleading, something else is going on
-          //   (like an extreme network latency).
-          locked = runLocks.tryLock(runId, 5, TimeUnit.SECONDS);
-
-          if (!locked) {
-            throw new UnableToAcquireLockException(
-                "Workflow lock for the run id hasn't been released by one of previous execution attempts, "
-                    + "consider increasing workflow task timeout.");
+        // The result of the task is reported asynchronously, the executor thread is free to take
+        // the next task while the respond call is in flight. The run lock and the slot are held
+        // until the whole chain of the workflow tasks returned by the server is completed.
+        CompletableFuture<Void> chainCompletion = handleInChain(workflowTaskResponse, chain);
+        completesAsync = true;
+        chainCompletion.whenComplete(
+            (r, e) -> {
+              try {
+                if (e != null && !pollTaskExecutor.isShutdown()) {
+                  pollerOptions
+                      .getUncaughtExceptionHandler()
+                      .uncaughtException(
+                          Thread.currentThread(), wrapFailure(task, unwrapCompletionException(e)));
+                }
+              } finally {
+                release(task, runId, locked, swTotal, chain);
+              }
+            });
+      } finally {
+        if (!completesAsync) {
+          release(task, runId, locked, swTotal, chain);
+        }
+        MDC.remove(LoggerTag.WORKFLOW_ID);
+        MDC.remove(LoggerTag.WORKFLOW_TYPE);
+        MDC.remove(LoggerTag.RUN_ID);
+      }
+    }
+
+    private final class TaskChain {
+      private final WorkflowExecution execution;
+      private final String workflowType;
+      private final Scope workflowTypeScope;
+      private final TaskPhaseRecording recording = JfrDelegate.begin(TaskPhase.WORKFLOW_TASK);
+      private volatile SlotReleaseReason releaseReason = SlotReleaseReason.taskComplete();
+      // the number of the events replayed by the first task of the chain, 0 once it's handled
+      private long replayCost;
+
+      private TaskChain(
+          WorkflowExecution execution,
+          String workflowType,
+          Scope workflowTypeScope,
+          long replayCost) {
+        this.execution = execution;
+        this.workflowType = workflowType;
+        this.workflowTypeScope = workflowTypeScope;
+        this.replayCost = replayCost;
+      }
+    }
+
+    private void release(
+        WorkflowTask task, String runId, boolean locked, Stopwatch swTotal, TaskChain chain) {
+      swTotal.stop();
+      chain.recording.end(chain.workflowType, runId);
+      // the run lock is passed to the next task of the run before the slot is released, so the
+      // slot is held while the run is locked
+      try {
+        if (locked) {
+          runLocks.unlock(runId);
+        }
+      } finally {
+        task.getCompletionCallback().apply(chain.releaseReason);
+      }
+    }
+
+    /**
+     * Handles the {@code currentTask} and reports its result. If the server responds with a new
+     * workflow task, it is handled the same way on the task executor.
+     *
+     * @return completes when the result of the last workflow task of the chain is reported
+     * @throws Exception if the handling of {@code currentTask} fails
+     */
+    private CompletableFuture<Void> handleInChain(
+        PollWorkflowTaskQueueResponse currentTask, TaskChain chain) throws Exception {
+      WorkflowTaskHandler.Result result;
+      if (chain.replayCost > 0) {
+        Stopwatch swReplay =
+            chain.workflowTypeScope.timer(MetricsType.WORKFLOW_REPLAY_LATENCY).start();
+        try {
+          result = handleTask(currentTask, chain.workflowTypeScope);
+        } finally {
+          swReplay.stop();
+          long replayCost = chain.replayCost;
+          chain.replayCost = 0;
+          if (replayBudget != null) {
+            replayBudget.release(replayCost);
           }
         }
+      } else {
+        result = handleTask(currentTask, chain.workflowTypeScope);
+      }
+      return reportResult(currentTask, result, chain)
+          .thenCompose(
+              nextTask -> {
+                if (nextTask.isPresent()) {
+                  return handleInChainOnExecutor(nextTask.get(), chain);
+                }
+                return CompletableFuture.completedFuture(null);
+              });
+    }
 
-        Optional<PollWorkflowTaskQueueResponse> nextWFTResponse = Optional.of(workflowTaskResponse);
-        do {
-          PollWorkflowTaskQueueResponse currentTask = nextWFTResponse.get();
-          nextWFTResponse = Optional.empty();
-          WorkflowTaskHandler.Result result = handleTask(currentTask, workflowTypeScope);
-          WorkflowTaskFailedCause taskFailedCause = null;
-          try {
-            RespondWorkflowTaskCompletedRequest taskCompleted = result.getTaskCompleted();
-            RespondWorkflowTaskFailedRequest taskFailed = result.getTaskFailed();
-            RespondQueryTaskCompletedRequest queryCompleted = result.getQueryCompleted();
-
-            if (queryCompleted != null) {
-              try {
-                sendDirectQueryCompletedResponse(
-                    currentTask.getTaskToken(), queryCompleted.toBuilder(), workflowTypeScope);
-              } catch (StatusRuntimeException e) {
+    private CompletableFuture<Void> handleInChainOnExecutor(
+        PollWorkflowTaskQueueResponse nextTask, TaskChain chain) {
+      CompletableFuture<Void> result = new CompletableFuture<>();
+      // called from the gRPC callback, which must not block waiting for a free executor thread
+      pollTaskExecutor.handOff(
+          () -> {
+            MDC.put(LoggerTag.WORKFLOW_ID, chain.execution.getWorkflowId());
+            MDC.put(LoggerTag.WORKFLOW_TYPE, chain.workflowType);
+            MDC.put(LoggerTag.RUN_ID, chain.execution.getRunId());
+            try {
+              handleInChain(nextTask, chain)
+                  .whenComplete(
+                      (r, e) -> {
+                        if (e == null) {
+                          result.complete(null);
+                        } else {
+                          result.completeExceptionally(e);
+                        }
+                      });
+            } catch (Throwable e) {
+              result.completeExceptionally(e);
+            } finally {
+              MDC.remove(LoggerTag.WORKFLOW_ID);
+              MDC.remove(LoggerTag.WORKFLOW_TYPE);
+              MDC.remove(LoggerTag.RUN_ID);
+            }
+          },
+          result::completeExceptionally);
+      return result;
+    }
+
+    /**
+     * Reports the result of the workflow task to the server through the future stub, the calling
+     * thread doesn't wait for the response.
+     *
+     * @return the next workflow task if the server returned one in the response to the completion
+     */
+    private CompletableFuture<Optional<PollWorkflowTaskQueueResponse>> reportResult(
+        PollWorkflowTaskQueueResponse currentTask,
+        WorkflowTaskHandler.Result result,
+        TaskChain chain) {
+      WorkflowExecution workflowExecution = chain.execution;
+      Scope workflowTypeScope = chain.workflowTypeScope;
+      RespondWorkflowTaskCompletedRequest taskCompleted = result.getTaskCompleted();
+      RespondWorkflowTaskFailedRequest taskFailed = result.getTaskFailed();
+      RespondQueryTaskCompletedRequest queryCompleted = result.getQueryCompleted();
+
+      CompletableFuture<Optional<PollWorkflowTaskQueueResponse>> reported;
+      try {
+        if (queryCompleted != null) {
+          reported =
+              sendQueryCompleted(currentTask, queryCompleted, chain)
+                  .thenApply(r -> Optional.empty());
+        } else if (taskCompleted != null) {
+          reported =
+              sendTaskCompletedWithEagerActivities(currentTask, taskCompleted, result, chain);
+        } else if (taskFailed != null) {
+          reported =
+              sendTaskFailed(
+                      currentTask.getTaskToken(),
+                      taskFailed.toBuilder(),
+                      result.getRequestRetryOptions(),
+                      workflowTypeScope)
+                  .thenApply(r -> Optional.empty());
+        } else {
+          reported = CompletableFuture.completedFuture(Optional.empty());
+        }
+      } catch (Exception e) {
+        reported = new CompletableFuture<>();
+        reported.completeExceptionally(e);
+      }
+
+      WorkflowTaskFailedCause taskFailedCause =
+          queryCompleted == null && taskCompleted == null && taskFailed != null
+              ? taskFailed.getCause()
+              : null;
+      return reported
+          .handle(
+              (nextTask, e) -> {
+                if (e == null) {
+                  // Apply post-completion metrics only if runnable present and the report
+                  // succeeded
+                  if (queryCompleted == null && result.getApplyPostCompletionMetrics() != null) {
+                    result.getApplyPostCompletionMetrics().run();
+                  }
+                  return CompletableFuture.completedFuture(
+                      recordReported(nextTask, taskFailedCause, workflowTypeScope));
+                }
+                Exception failure = toException(unwrapCompletionException(e));
+                chain.releaseReason = SlotReleaseReason.error(failure);
+                handleReportingFailure(
+                    failure, currentTask, result, workflowExecution, workflowTypeScope);
+                // Only fail workflow task on the first attempt, subsequent failures of the same
+                // workflow task should timeout.
+                if (queryCompleted != null
+                    || !(failure instanceof GrpcMessageTooLargeException)
+                    || currentTask.getAttempt() > 1) {
+                  throw new CompletionException(failure);
+                }
+                // setting/replacing failure cause for metrics purposes
+                return sendTaskFailedTooLarge(
+                        currentTask,
+                        result,
+                        chain,
+                        (GrpcMessageTooLargeException) failure,
+                        taskFailed == null ? "completion" : "failure")
+                    .thenApply(
+                        r ->
+                            recordReported(
+                                Optional.empty(),
+                                WorkflowTaskFailedCause
+                                    .WORKFLOW_TASK_FAILED_CAUSE_GRPC_MESSAGE_TOO_LARGE,
+                                workflowTypeScope));
+              })
+          .thenCompose(next -> next);
+    }
+
+    /**
+     * Reports the failure of the workflow task whose completion or failure was rejected by the
+     * server as too large.
+     */
+    private CompletableFuture<RespondWorkflowTaskFailedResponse> sendTaskFailedTooLarge(
+        PollWorkflowTaskQueueResponse currentTask,
+        WorkflowTaskHandler.Result result,
+        TaskChain chain,
+        GrpcMessageTooLargeException tooLargeException,
+        String rejectedResponse) {
+      CompletableFuture<RespondWorkflowTaskFailedResponse> sent;
+      try {
+        RespondWorkflowTaskFailedRequest.Builder taskFailedBuilder =
+            RespondWorkflowTaskFailedRequest.newBuilder()
+                .setFailure(
+                    grpcMessageTooLargeFailure(
+                        chain.execution.getWorkflowId(),
+                        tooLargeException,
+                        "Failed to send workflow task " + rejectedResponse))
+                .setCause(
+                    WorkflowTaskFailedCause.WORKFLOW_TASK_FAILED_CAUSE_GRPC_MESSAGE_TOO_LARGE);
+        sent =
+            sendTaskFailed(
+                currentTask.getTaskToken(),
+                taskFailedBuilder,
+                result.getRequestRetryOptions(),
+                chain.workflowTypeScope);
+      } catch (Exception e) {
+        sent = new CompletableFuture<>();
+        sent.completeExceptionally(e);
+      }
+      return sent.whenComplete(
+          (r, e) -> {
+            if (e != null) {
+              Exception reportingFailure = toException(unwrapCompletionException(e));
+              chain.releaseReason = SlotReleaseReason.error(reportingFailure);
+              handleReportingFailure(
+                  reportingFailure, currentTask, result, chain.execution, chain.workflowTypeScope);
+            }
+          });
+    }
+
+    /**
+     * Sends the query result, a result rejected by the server as too large is replaced with a
+     * query failure.
+     */
+    private CompletableFuture<RespondQueryTaskCompletedResponse> sendQueryCompleted(
+        PollWorkflowTaskQueueResponse currentTask,
+        RespondQueryTaskCompletedRequest queryCompleted,
+        TaskChain chain) {
+      return sendDirectQueryCompletedResponse(
+              currentTask.getTaskToken(), queryCompleted.toBuilder(), chain.workflowTypeScope)
+          .handle(
+              (r, e) -> {
+                if (e == null) {
+                  return CompletableFuture.completedFuture(r);
+                }
+                Throwable cause = unwrapCompletionException(e);
                 GrpcMessageTooLargeException tooLargeException =
-                    GrpcMessageTooLargeException.tryWrap(e);
+                    cause instanceof StatusRuntimeException
+                        ? GrpcMessageTooLargeException.tryWrap((StatusRuntimeException) cause)
+                        : null;
                 if (tooLargeException == null) {
-                  throw e;
+                  throw new CompletionException(cause);
                 }
                 Failure failure =
                     grpcMessageTooLargeFailure(
-                        workflowExecution.getWorkflowId(),
+                        chain.execution.getWorkflowId(),
                         tooLargeException,
                         "Failed to send query response");
                 RespondQueryTaskCompletedRequest.Builder queryFailedBuilder =
@@ -429,123 +877,86 @@ final class WorkflowWorker implements SuspendableWorker {
                         .setCompletedType(QueryResultType.QUERY_RESULT_TYPE_FAILED)
                         .setErrorMessage(failure.getMessage())
                         .setFailure(failure);
-                sendDirectQueryCompletedResponse(
-                    currentTask.getTaskToken(), queryFailedBuilder, workflowTypeScope);
-              }
-            } else {
-              try {
-                if (taskCompleted != null) {
-                  RespondWorkflowTaskCompletedRequest.Builder requestBuilder =
-                      taskCompleted.toBuilder();
-                  try (EagerActivitySlotsReservation activitySlotsReservation =
-                      new EagerActivitySlotsReservation(eagerActivityDispatcher)) {
-                    activitySlotsReservation.applyToRequest(requestBuilder);
-                    RespondWorkflowTaskCompletedResponse response =
-                        sendTaskCompleted(
-                            currentTask.getTaskToken(),
-                            requestBuilder,
-                            result.getRequestRetryOptions(),
-                            workflowTypeScope);
-                    // If we were processing a speculative WFT the server may instruct us that the
-                    // task was dropped by resting out event ID.
-                    long resetEventId = response.getResetHistoryEventId();
-                    if (resetEventId != 0) {
-                      result.getResetEventIdHandle().apply(resetEventId);
-                    }
-                    nextWFTResponse =
-                        response.hasWorkflowTask()
-                            ? Optional.of(response.getWorkflowTask())
-                            : Optional.empty();
-                    // TODO we don't have to do this under the runId lock
-                    activitySlotsReservation.handleResponse(response);
-                  }
-                } else if (taskFailed != null) {
-                  taskFailedCause = taskFailed.getCause();
-                  sendTaskFailed(
-                      currentTask.getTaskToken(),
-                      taskFailed.toBuilder(),
-                      result.getRequestRetryOptions(),
-                      workflowTypeScope);
-                }
-
-                // Apply post-completion metrics only if runnable present and the above succeeded
-                if (result.getApplyPostCompletionMetrics() != null) {
-                  result.getApplyPostCompletionMetrics().run();
-                }
-              } catch (GrpcMessageTooLargeException e) {
-                // Only fail workflow task on the first attempt, subsequent failures of the same
-                // workflow task should timeout.
-                if (currentTask.getAttempt() > 1) {
-                  throw e;
-                }
-
-                releaseReason = SlotReleaseReason.error(e);
-                handleReportingFailure(
-                    e, currentTask, result, workflowExecution, workflowTypeScope);
-                // setting/replacing failure cause for metrics purposes
-                taskFailedCause =
-                    WorkflowTaskFailedCause.WORKFLOW_TASK_FAILED_CAUSE_GRPC_MESSAGE_TOO_LARGE;
-
-                String messagePrefix =
-                    String.format(
-                        "Failed to send workflow task %s",
-                        taskFailed == null ? "completion" : "failure");
-                RespondWorkflowTaskFailedRequest.Builder taskFailedBuilder =
-                    RespondWorkflowTaskFailedRequest.newBuilder()
-                        .setFailure(
-                            grpcMessageTooLargeFailure(
-                                workflowExecution.getWorkflowId(), e, messagePrefix))
-                        .setCause(
-                            WorkflowTaskFailedCause
-                                .WORKFLOW_TASK_FAILED_CAUSE_GRPC_MESSAGE_TOO_LARGE);
-                sendTaskFailed(
-                    currentTask.getTaskToken(),
-                    taskFailedBuilder,
-                    result.getRequestRetryOptions(),
-                    workflowTypeScope);
-              }
-            }
-          } catch (Exception e) {
-            releaseReason = SlotReleaseReason.error(e);
-            handleReportingFailure(e, currentTask, result, workflowExecution, workflowTypeScope);
-            throw e;
-          }
-
-          if (taskFailedCause != null) {
-            String taskFailureType;
-            switch (taskFailedCause) {
-              case WORKFLOW_TASK_FAILED_CAUSE_NON_DETERMINISTIC_ERROR:
-                taskFailureType = "NonDeterminismError";
-                break;
-              case WORKFLOW_TASK_FAILED_CAUSE_GRPC_MESSAGE_TOO_LARGE:
-                taskFailureType = "GrpcMessageTooLarge";
-                break;
-              default:
-                taskFailureType = "WorkflowError";
-            }
-            Scope workflowTaskFailureScope =
-                workflowTypeScope.tagged(ImmutableMap.of(TASK_FAILURE_TYPE, taskFailureType));
-            // we don't trigger the counter in case of the legacy query
-            // (which never has taskFailed set)
-            workflowTaskFailureScope
-                .counter(MetricsType.WORKFLOW_TASK_EXECUTION_FAILURE_COUNTER)
-                .inc(1);
-          }
-          if (nextWFTResponse.isPresent()) {
-            workflowTypeScope.counter(MetricsType.WORKFLOW_TASK_HEARTBEAT_COUNTER).inc(1);
-          }
-        } while (nextWFTResponse.isPresent());
-      } finally {
-        swTotal.stop();
-        task.getCompletionCallback().apply(releaseReason);
-        MDC.remove(LoggerTag.WORKFLOW_ID);
-        MDC.remove(LoggerTag.WORKFLOW_TYPE);
-        MDC.remove(LoggerTag.RUN_ID);
+                return sendDirectQueryCompletedResponse(
+                    currentTask.getTaskToken(), queryFailedBuilder, chain.workflowTypeScope);
+              })
+          .thenCompose(response -> response);
+    }
 
-        if (locked) {
-          runLocks.unlock(runId);
+    private Optional<PollWorkflowTaskQueueResponse> recordReported(
+        Optional<PollWorkflowTaskQueueResponse> nextTask,
+        @Nullable WorkflowTaskFailedCause taskFailedCause,
+        Scope workflowTypeScope) {
+      if (taskFailedCause != null) {
+        String taskFailureType;
+        switch (taskFailedCause) {
+          case WORKFLOW_TASK_FAILED_CAUSE_NON_DETERMINISTIC_ERROR:
+            taskFailureType = "NonDeterminismError";
+            break;
+          case WORKFLOW_TASK_FAILED_CAUSE_GRPC_MESSAGE_TOO_LARGE:
+            taskFailureType = "GrpcMessageTooLarge";
+            break;
+          default:
+            taskFailureType = "WorkflowError";
         }
+        Scope workflowTaskFailureScope =
+            workflowTypeScope.tagged(ImmutableMap.of(TASK_FAILURE_TYPE, taskFailureType));
+        // we don't trigger the counter in case of the legacy query
+        // (which never has taskFailed set)
+        workflowTaskFailureScope
+            .counter(MetricsType.WORKFLOW_TASK_EXECUTION_FAILURE_COUNTER)
+            .inc(1);
+      }
+      if (nextTask.isPresent()) {
+        workflowTypeScope.counter(MetricsType.WORKFLOW_TASK_HEARTBEAT_COUNTER).inc(1);
       }
+      return nextTask;
+    }
+
+    private CompletableFuture<Optional<PollWorkflowTaskQueueResponse>>
+        sendTaskCompletedWithEagerActivities(
+            PollWorkflowTaskQueueResponse currentTask,
+            RespondWorkflowTaskCompletedRequest taskCompleted,
+            WorkflowTaskHandler.Result result,
+            TaskChain chain) {
+      RespondWorkflowTaskCompletedRequest.Builder requestBuilder = taskCompleted.toBuilder();
+      EagerActivitySlotsReservation activitySlotsReservation =
+          new EagerActivitySlotsReservation(eagerActivityDispatcher);
+      CompletableFuture<RespondWorkflowTaskCompletedResponse> response;
+      TaskPhaseRecording respondRecording = JfrDelegate.begin(TaskPhase.RESPOND);
+      try {
+        activitySlotsReservation.applyToRequest(requestBuilder);
+        response =
+            sendTaskCompleted(
+                currentTask.getTaskToken(),
+                requestBuilder,
+                result.getRequestRetryOptions(),
+                chain.workflowTypeScope);
+      } catch (RuntimeException e) {
+        activitySlotsReservation.close();
+        throw e;
+      }
+      return response
+          .thenApply(
+              r -> {
+                // If we were processing a speculative WFT the server may instruct us that the
+                // task was dropped by resting out event ID.
+                long resetEventId = r.getResetHistoryEventId();
+                if (resetEventId != 0) {
+                  result.getResetEventIdHandle().apply(resetEventId);
+                }
+                // dispatched from the completion of the respond call, not holding an executor
+                // thread
+                activitySlotsReservation.handleResponse(r);
+                Optional<PollWorkflowTaskQueueResponse> nextTask =
+                    r.hasWorkflowTask() ? Optional.of(r.getWorkflowTask()) : Optional.empty();
+                return nextTask;
+              })
+          .whenComplete(
+              (r, e) -> {
+                respondRecording.end(chain.workflowType, chain.execution.getRunId());
+                activitySlotsReservation.close();
+              });
     }
 
     @Override
@@ -590,7 +1001,7 @@ final class WorkflowWorker implements SuspendableWorker {
     }
 
     @SuppressWarnings("deprecation")
-    private RespondWorkflowTaskCompletedResponse sendTaskCompleted(
+    private CompletableFuture<RespondWorkflowTaskCompletedResponse> sendTaskCompleted(
         ByteString taskToken,
         RespondWorkflowTaskCompletedRequest.Builder taskCompleted,
         RpcRetryOptions retryOptions,
@@ -613,17 +1024,19 @@ final class WorkflowWorker implements SuspendableWorker {
         taskCompleted.setBinaryChecksum(options.getBuildId());
       }
 
-      return grpcRetryer.retryWithResult(
+      return grpcRetryer.retryWithResultAsync(
+          asyncThrottlerExecutor,
           () ->
-              service
-                  .blockingStub()
-                  .withOption(METRICS_TAGS_CALL_OPTIONS_KEY, workflowTypeMetricsScope)
-                  .respondWorkflowTaskCompleted(taskCompleted.build()),
+              GrpcUtils.toCompletableFuture(
+                  service
+                      .futureStub()
+                      .withOption(METRICS_TAGS_CALL_OPTIONS_KEY, workflowTypeMetricsScope)
+                      .respondWorkflowTaskCompleted(taskCompleted.build())),
           grpcRetryOptions);
     }
 
     @SuppressWarnings("deprecation")
-    private void sendTaskFailed(
+    private CompletableFuture<RespondWorkflowTaskFailedResponse> sendTaskFailed(
         ByteString taskToken,
         RespondWorkflowTaskFailedRequest.Builder taskFailed,
         RpcRetryOptions retryOptions,
@@ -641,29 +1054,32 @@ final class WorkflowWorker implements SuspendableWorker {
         taskFailed.setWorkerVersion(options.workerVersionStamp());
       }
 
-      grpcRetryer.retry(
+      return grpcRetryer.retryWithResultAsync(
+          asyncThrottlerExecutor,
           () ->
-              service
-                  .blockingStub()
-                  .withOption(METRICS_TAGS_CALL_OPTIONS_KEY, workflowTypeMetricsScope)
-                  .respondWorkflowTaskFailed(taskFailed.build()),
+              GrpcUtils.toCompletableFuture(
+                  service
+                      .futureStub()
+                      .withOption(METRICS_TAGS_CALL_OPTIONS_KEY, workflowTypeMetricsScope)
+                      .respondWorkflowTaskFailed(taskFailed.build())),
           grpcRetryOptions);
     }
 
-    private void sendDirectQueryCompletedResponse(
+    private CompletableFuture<RespondQueryTaskCompletedResponse> sendDirectQueryCompletedResponse(
         ByteString taskToken,
         RespondQueryTaskCompletedRequest.Builder queryCompleted,
         Scope workflowTypeMetricsScope) {
       queryCompleted.setTaskToken(taskToken).setNamespace(namespace);
       // Do not retry query response
-      service
-          .blockingStub()
-          .withOption(METRICS_TAGS_CALL_OPTIONS_KEY, workflowTypeMetricsScope)
-          .respondQueryTaskCompleted(queryCompleted.build());
+      return GrpcUtils.toCompletableFuture(
+          service
+              .futureStub()
+              .withOption(METRICS_TAGS_CALL_OPTIONS_KEY, workflowTypeMetricsScope)
+              .respondQueryTaskCompleted(queryCompleted.build()));
     }
 
     private void logExceptionDuringResultReporting(
-        Exception e, PollWorkflowTaskQueueResponse currentTask, WorkflowTaskHandler.Result result) {
+        Throwable e, PollWorkflowTaskQueueResponse currentTask, WorkflowTaskHandler.Result result) {
       if (log.isDebugEnabled()) {
         log.debug(
             "Failure during reporting of workflow progress to the server. If seen continuously the workflow might be stuck. WorkflowId={}, RunId={}, startedEventId={}, WFTResult={}",
@@ -683,7 +1099,7 @@ final class WorkflowWorker implements SuspendableWorker {
     }
 
     private void handleReportingFailure(
-        Exception e,
+        Throwable e,
         PollWorkflowTaskQueueResponse currentTask,
         WorkflowTaskHandler.Result result,
         WorkflowExecution workflowExecution,
@@ -697,6 +1113,14 @@ final class WorkflowWorker implements SuspendableWorker {
           workflowExecution, workflowTypeScope, "Failed result reporting to the server", e);
     }
 
+    private Throwable unwrapCompletionException(Throwable e) {
+      return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+
+    private Exception toException(Throwable e) {
+      return e instanceof Exception ? (Exception) e : new RuntimeException(e);
+    }
+
     private Failure grpcMessageTooLargeFailure(
         String workflowId, GrpcMessageTooLargeException e, String messagePrefix) {
       ApplicationFailure applicationFailure =
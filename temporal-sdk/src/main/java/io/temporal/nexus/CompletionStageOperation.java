@@ -0,0 +1,34 @@
+package io.temporal.nexus;
+
+import io.nexusrpc.handler.OperationHandler;
+import io.nexusrpc.handler.OperationImpl;
+import io.temporal.common.Experimental;
+
+/**
+ * CompletionStageOperation can be used to implement a synchronous Nexus operation with a
+ * non-blocking computation, for example a call to a downstream service made with an asynchronous
+ * client. The Nexus worker thread is released as soon as the {@link
+ * java.util.concurrent.CompletionStage} is returned and the result is reported to the server when
+ * the stage completes. The task keeps its Nexus worker slot until then.
+ *
+ * <p>{@link Nexus#getOperationContext()} can be used only in the function itself, not in the
+ * stages it creates. The operation interceptors observe the operation as completed when the
+ * function returns.
+ */
+@Experimental
+public final class CompletionStageOperation {
+  /**
+   * Maps a function returning a {@link java.util.concurrent.CompletionStage} to an {@link
+   * io.nexusrpc.handler.OperationHandler}.
+   *
+   * @param function returns the stage completed with the operation result
+   * @return Operation handler to be used as an {@link OperationImpl}
+   */
+  public static <T, R> OperationHandler<T, R> fromCompletionStage(
+      CompletionStageOperationFunction<T, R> function) {
+    return new CompletionStageOperationImpl<>(function);
+  }
+
+  /** Prohibits instantiation. */
+  private CompletionStageOperation() {}
+}
@@ -0,0 +1,19 @@
+package io.temporal.nexus;
+
+import io.nexusrpc.handler.OperationContext;
+import io.nexusrpc.handler.OperationStartDetails;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Function interface for {@link
+ * CompletionStageOperation#fromCompletionStage(CompletionStageOperationFunction)} representing the
+ * asynchronous computation of the operation result.
+ */
+@FunctionalInterface
+public interface CompletionStageOperationFunction<T, R> {
+  /**
+   * Invoked every operation start call and expected to return without blocking. The operation
+   * completes with the result or the failure of the returned stage.
+   */
+  CompletionStage<R> apply(OperationContext context, OperationStartDetails details, T input);
+}
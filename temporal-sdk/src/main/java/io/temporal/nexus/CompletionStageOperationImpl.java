@@ -0,0 +1,47 @@
+package io.temporal.nexus;
+
+import io.nexusrpc.OperationInfo;
+import io.nexusrpc.handler.*;
+import io.nexusrpc.handler.OperationHandler;
+import io.temporal.internal.nexus.CurrentNexusOperationContext;
+import java.util.Objects;
+import java.util.concurrent.CompletionStage;
+
+class CompletionStageOperationImpl<T, R> implements OperationHandler<T, R> {
+  private final CompletionStageOperationFunction<T, R> function;
+
+  CompletionStageOperationImpl(CompletionStageOperationFunction<T, R> function) {
+    this.function = Objects.requireNonNull(function);
+  }
+
+  @Override
+  public OperationStartResult<R> start(
+      OperationContext ctx, OperationStartDetails operationStartDetails, T input) {
+    CompletionStage<R> result =
+        Objects.requireNonNull(
+            function.apply(ctx, operationStartDetails, input),
+            "CompletionStageOperationFunction returned null");
+    // The result is reported by the task handler when the stage completes, the value returned
+    // here is discarded.
+    CurrentNexusOperationContext.get().setPendingResult(result);
+    return OperationStartResult.sync(null);
+  }
+
+  @Override
+  public R fetchResult(
+      OperationContext operationContext, OperationFetchResultDetails operationFetchResultDetails) {
+    throw new UnsupportedOperationException("Not supported on sync operation");
+  }
+
+  @Override
+  public OperationInfo fetchInfo(
+      OperationContext operationContext, OperationFetchInfoDetails operationFetchInfoDetails) {
+    throw new UnsupportedOperationException("Not supported on sync operation");
+  }
+
+  @Override
+  public void cancel(
+      OperationContext operationContext, OperationCancelDetails operationCancelDetails) {
+    throw new UnsupportedOperationException("Not supported on sync operation");
+  }
+}
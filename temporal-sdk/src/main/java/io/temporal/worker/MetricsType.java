@@ -44,6 +44,40 @@ public final class MetricsType {
   public static final String WORKFLOW_TASK_REPLAY_LATENCY =
       TEMPORAL_METRICS_PREFIX + "workflow_task_replay_latency";
 
+  /**
+   * Gauge of the peak serialized size of the history held in memory while a workflow task was
+   * applied: the history page being replayed plus the events buffered for the current workflow
+   * task.
+   */
+  public static final String WORKFLOW_TASK_REPLAY_PEAK_HISTORY_BYTES =
+      TEMPORAL_METRICS_PREFIX + "workflow_task_replay_peak_history_bytes";
+
+  /**
+   * Time a workflow task waited in the mailbox of its run for the previous task of the same run to
+   * be processed.
+   */
+  public static final String WORKFLOW_TASK_MAILBOX_WAIT_LATENCY =
+      TEMPORAL_METRICS_PREFIX + "workflow_task_mailbox_wait_latency";
+
+  /** Gauge of the number of workflow tasks waiting in the mailboxes of their runs. */
+  public static final String WORKFLOW_TASK_MAILBOX_DEPTH =
+      TEMPORAL_METRICS_PREFIX + "workflow_task_mailbox_depth";
+
+  /**
+   * Time a workflow task that replays a run from the beginning waited for the replay budget of
+   * {@link io.temporal.worker.tuning.WorkerTuner#getWorkflowReplayBudget()}.
+   */
+  public static final String WORKFLOW_REPLAY_BUDGET_WAIT_LATENCY =
+      TEMPORAL_METRICS_PREFIX + "workflow_replay_budget_wait_latency";
+
+  /** Gauge of the number of workflow tasks waiting for the replay budget. */
+  public static final String WORKFLOW_REPLAY_BACKLOG =
+      TEMPORAL_METRICS_PREFIX + "workflow_replay_backlog";
+
+  /** Time to handle a workflow task that replays a run from the beginning. */
+  public static final String WORKFLOW_REPLAY_LATENCY =
+      TEMPORAL_METRICS_PREFIX + "workflow_replay_latency";
+
   /** Workflow task failed, possibly failing workflow or reporting failure to the service. */
   public static final String WORKFLOW_TASK_EXECUTION_FAILURE_COUNTER =
       TEMPORAL_METRICS_PREFIX + "workflow_task_execution_failed";
@@ -183,10 +217,48 @@ public final class MetricsType {
       TEMPORAL_METRICS_PREFIX + "sticky_cache_thread_forced_eviction";
   // gauge, tagged with namespace
   public static final String STICKY_CACHE_SIZE = TEMPORAL_METRICS_PREFIX + "sticky_cache_size";
+
+  /**
+   * Sticky cache miss with a partial history that was replayed from the local history store
+   * without fetching the full history.
+   */
+  public static final String STICKY_CACHE_LOCAL_HISTORY_HIT =
+      TEMPORAL_METRICS_PREFIX + "sticky_cache_local_history_hit";
+
+  /** Sticky cache miss with a partial history that the local history store didn't cover. */
+  public static final String STICKY_CACHE_LOCAL_HISTORY_MISS =
+      TEMPORAL_METRICS_PREFIX + "sticky_cache_local_history_miss";
+
+  /** Query of a closed workflow answered from its final state kept by the worker. */
+  public static final String CLOSED_WORKFLOW_CACHE_HIT =
+      TEMPORAL_METRICS_PREFIX + "closed_workflow_cache_hit";
+
+  /** Final state of a closed workflow evicted to keep the configured number of workflows. */
+  public static final String CLOSED_WORKFLOW_CACHE_EVICTION =
+      TEMPORAL_METRICS_PREFIX + "closed_workflow_cache_eviction";
+
+  // gauge, tagged with namespace
+  public static final String CLOSED_WORKFLOW_CACHE_SIZE =
+      TEMPORAL_METRICS_PREFIX + "closed_workflow_cache_size";
+
+  /** Direct query of a cached query type answered with the result cached by the worker. */
+  public static final String QUERY_RESULT_CACHE_HIT =
+      TEMPORAL_METRICS_PREFIX + "query_result_cache_hit";
+
+  /** Direct query of a cached query type that had to be evaluated by the workflow. */
+  public static final String QUERY_RESULT_CACHE_MISS =
+      TEMPORAL_METRICS_PREFIX + "query_result_cache_miss";
   // gauge
   public static final String WORKFLOW_ACTIVE_THREAD_COUNT =
       TEMPORAL_METRICS_PREFIX + "workflow_active_thread_count";
 
+  /**
+   * Workflow threads started to run workflow code, including the threads running signal, update
+   * and cancellation callbacks. Not reported while a workflow task replays the history.
+   */
+  public static final String WORKFLOW_THREAD_CREATED_COUNTER =
+      TEMPORAL_METRICS_PREFIX + "workflow_thread_created";
+
   //
   // Resource tuner
   //
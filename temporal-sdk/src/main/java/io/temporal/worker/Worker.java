@@ -427,6 +427,10 @@ public final class Worker {
     }
   }
 
+  CompletableFuture<Void> shutdownStickyTaskQueue(ShutdownManager shutdownManager) {
+    return workflowWorker.shutdownStickyTaskQueue(shutdownManager);
+  }
+
   boolean isTerminated() {
     boolean isTerminated = workflowWorker.isTerminated();
     isTerminated &= nexusWorker.isTerminated();
@@ -639,6 +643,13 @@ public final class Worker {
         .setStickyTaskQueueDrainTimeout(options.getStickyTaskQueueDrainTimeout())
         .setUsingVirtualThreads(options.isUsingVirtualThreadsOnWorkflowWorker())
         .setDefaultDeadlockDetectionTimeout(options.getDefaultDeadlockDetectionTimeout())
+        .setReplayHistoryPageSize(options.getReplayHistoryPageSize())
+        .setCachedQueryTypes(options.getCachedQueryTypes())
+        .setWorkflowReplayBudget(
+            options.getWorkerTuner() == null
+                ? 0
+                : options.getWorkerTuner().getWorkflowReplayBudget())
+        .setStickyCacheHandoff(factoryOptions.getStickyCacheHandoffRate() > 0)
         .setMetricsScope(metricsScope.tagged(tags))
         .build();
   }
@@ -11,6 +11,7 @@ import io.temporal.common.converter.DataConverter;
 import io.temporal.internal.client.WorkflowClientInternal;
 import io.temporal.internal.sync.WorkflowThreadExecutor;
 import io.temporal.internal.task.VirtualThreadDelegate;
+import io.temporal.internal.worker.LocalHistoryStore;
 import io.temporal.internal.worker.ShutdownManager;
 import io.temporal.internal.worker.WorkflowExecutorCache;
 import io.temporal.internal.worker.WorkflowRunLockManager;
@@ -19,10 +20,12 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -45,6 +48,9 @@ public final class WorkerFactory {
   private final WorkerFactoryOptions factoryOptions;
 
   private final @Nonnull WorkflowExecutorCache cache;
+  // completes when the sticky cache handoff started by the shutdown is done
+  private volatile CompletableFuture<Void> stickyCacheHandoff =
+      CompletableFuture.completedFuture(null);
 
   private State state = State.Initial;
 
@@ -104,7 +110,15 @@ public final class WorkerFactory {
 
     this.cache =
         new WorkflowExecutorCache(
-            this.factoryOptions.getWorkflowCacheSize(), runLocks, metricsScope);
+            this.factoryOptions.getWorkflowCacheSize(),
+            runLocks,
+            metricsScope,
+            this.factoryOptions.getLocalHistoryDirectory() != null
+                ? new LocalHistoryStore(
+                    this.factoryOptions.getLocalHistoryDirectory(),
+                    this.factoryOptions.getLocalHistoryMaximumSize())
+                : null,
+            this.factoryOptions.getClosedWorkflowCacheSize());
   }
 
   /**
@@ -242,7 +256,7 @@ public final class WorkerFactory {
         return false;
       }
     }
-    return true;
+    return stickyCacheHandoff.isDone();
   }
 
   /**
@@ -288,13 +302,50 @@ public final class WorkerFactory {
     state = State.Shutdown;
     ((WorkflowClientInternal) workflowClient.getInternal()).deregisterWorkerFactory(this);
     ShutdownManager shutdownManager = new ShutdownManager();
+    // shutdownNow aborts the sticky cache handoff started by a previous shutdown
+    boolean handoffAborted = stickyCacheHandoff.complete(null);
+    // once the workers are shut down, the cached runs don't change and their stickiness can be
+    // reset gradually before the cache is dropped
+    int stickyCacheHandoffRate = factoryOptions.getStickyCacheHandoffRate();
+    CompletableFuture<Void> handoff =
+        !interruptUserTasks && stickyCacheHandoffRate > 0
+            ? new CompletableFuture<>()
+            : CompletableFuture.completedFuture(null);
+    stickyCacheHandoff = handoff;
+    boolean resetStickinessAtOnce = handoffAborted && handoff.isDone();
     CompletableFuture.allOf(
             workers.values().stream()
                 .map(worker -> worker.shutdown(shutdownManager, interruptUserTasks))
                 .toArray(CompletableFuture[]::new))
+        .thenCompose(
+            r -> {
+              if (resetStickinessAtOnce) {
+                // the runs the aborted handoff hasn't reset yet are redirected by the
+                // ShutdownWorker calls that the handoff replaced
+                return CompletableFuture.allOf(
+                    workers.values().stream()
+                        .map(worker -> worker.shutdownStickyTaskQueue(shutdownManager))
+                        .toArray(CompletableFuture[]::new));
+              }
+              if (!handoff.isDone()) {
+                CompletableFuture<Void> resets =
+                    shutdownManager.resetStickyTaskQueues(
+                        workflowClient.getWorkflowServiceStubs(),
+                        workflowClient.getOptions().getNamespace(),
+                        cache.getCachedExecutions(),
+                        stickyCacheHandoffRate);
+                resets.whenComplete((ignored, e) -> handoff.complete(null));
+                // stops the remaining resets if the handoff is aborted
+                handoff.whenComplete((ignored, e) -> resets.complete(null));
+              }
+              return handoff;
+            })
         .thenApply(
             r -> {
               cache.invalidateAll();
+              if (cache.getLocalHistory() != null) {
+                cache.getLocalHistory().close();
+              }
               workflowThreadPool.shutdownNow();
               return null;
             })
@@ -303,6 +354,7 @@ public final class WorkerFactory {
               if (e != null) {
                 log.error("[BUG] Unexpected exception during shutdown", e);
               }
+              handoff.complete(null);
               shutdownManager.close();
             });
   }
@@ -320,6 +372,13 @@ public final class WorkerFactory {
           ShutdownManager.runAndGetRemainingTimeoutMs(
               t, () -> worker.awaitTermination(t, TimeUnit.MILLISECONDS));
     }
+    try {
+      stickyCacheHandoff.get(timeoutMillis, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException | TimeoutException e) {
+      // the sticky cache handoff is best effort
+    }
     log.info("awaitTermination done: {}", this);
   }
 
@@ -4,6 +4,7 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import io.temporal.common.Experimental;
 import io.temporal.common.interceptors.WorkerInterceptor;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.util.concurrent.ExecutorService;
 import javax.annotation.Nullable;
@@ -24,6 +25,7 @@ public class WorkerFactoryOptions {
 
   private static final int DEFAULT_WORKFLOW_CACHE_SIZE = 600;
   private static final int DEFAULT_MAX_WORKFLOW_THREAD_COUNT = 600;
+  private static final long DEFAULT_LOCAL_HISTORY_MAXIMUM_SIZE = 1024L * 1024 * 1024;
 
   private static final WorkerFactoryOptions DEFAULT_INSTANCE;
 
@@ -40,6 +42,10 @@ public class WorkerFactoryOptions {
     private boolean enableLoggingInReplay;
     private boolean usingVirtualWorkflowThreads;
     private ExecutorService overrideLocalActivityTaskExecutor;
+    private Path localHistoryDirectory;
+    private long localHistoryMaximumSize;
+    private int closedWorkflowCacheSize;
+    private int stickyCacheHandoffRate;
 
     private Builder() {}
 
@@ -55,6 +61,10 @@ public class WorkerFactoryOptions {
       this.enableLoggingInReplay = options.enableLoggingInReplay;
       this.usingVirtualWorkflowThreads = options.usingVirtualWorkflowThreads;
       this.overrideLocalActivityTaskExecutor = options.overrideLocalActivityTaskExecutor;
+      this.localHistoryDirectory = options.localHistoryDirectory;
+      this.localHistoryMaximumSize = options.localHistoryMaximumSize;
+      this.closedWorkflowCacheSize = options.closedWorkflowCacheSize;
+      this.stickyCacheHandoffRate = options.stickyCacheHandoffRate;
     }
 
     /**
@@ -119,6 +129,66 @@ public class WorkerFactoryOptions {
       return this;
     }
 
+    /**
+     * Directory of the local disk tier of the workflow cache. When set, the history events seen by
+     * the workers of this factory are kept in files in this directory, so a workflow evicted from
+     * the cache can be replayed from the local events and the partial history of its sticky
+     * workflow task, instead of fetching the full history from the server. The files are kept in a
+     * subdirectory created for the factory, which is deleted when the factory is shut down, so
+     * several factories or processes can share the directory.
+     *
+     * <p>Default is null, the local tier is disabled.
+     */
+    @Experimental
+    public Builder setLocalHistoryDirectory(Path localHistoryDirectory) {
+      this.localHistoryDirectory = localHistoryDirectory;
+      return this;
+    }
+
+    /**
+     * Maximum total size in bytes of the histories kept in {@link #setLocalHistoryDirectory(Path)}.
+     * The least recently used histories are deleted when it's exceeded.
+     *
+     * <p>Default is 1 GiB
+     */
+    @Experimental
+    public Builder setLocalHistoryMaximumSize(long localHistoryMaximumSize) {
+      this.localHistoryMaximumSize = localHistoryMaximumSize;
+      return this;
+    }
+
+    /**
+     * Number of the closed workflows whose final state is kept by the workers of this factory
+     * after a query replayed their history to the end. Following queries of the most recently
+     * queried of these workflows are answered from the kept state instead of replaying the whole
+     * history again. Each kept workflow holds the memory of the workflow object, but no threads.
+     *
+     * <p>Default is 0, the final state of closed workflows is not kept.
+     */
+    @Experimental
+    public Builder setClosedWorkflowCacheSize(int closedWorkflowCacheSize) {
+      this.closedWorkflowCacheSize = closedWorkflowCacheSize;
+      return this;
+    }
+
+    /**
+     * Enables a gradual handoff of the cached workflows on a graceful {@link
+     * WorkerFactory#shutdown()}. After the workers stop polling and finish their in-flight workflow
+     * tasks, the stickiness of the cached workflows is reset with ResetStickyTaskQueue calls, at
+     * most this number of workflows per second, before the cache is dropped. The next tasks of the
+     * workflows are then spread over time to the other workers, instead of all of them being
+     * redirected at once by the ShutdownWorker call, which is not made in this mode. {@link
+     * WorkerFactory#awaitTermination} waits for the resets too. If the handoff is aborted by {@link
+     * WorkerFactory#shutdownNow()}, the ShutdownWorker call is made for the rest of the workflows.
+     *
+     * <p>Default is 0, the handoff is disabled.
+     */
+    @Experimental
+    public Builder setStickyCacheHandoffRate(int stickyCacheHandoffRate) {
+      this.stickyCacheHandoffRate = stickyCacheHandoffRate;
+      return this;
+    }
+
     /**
      * @deprecated not used anymore by JavaSDK, this value doesn't have any effect
      */
@@ -144,6 +214,10 @@ public class WorkerFactoryOptions {
           enableLoggingInReplay,
           usingVirtualWorkflowThreads,
           overrideLocalActivityTaskExecutor,
+          localHistoryDirectory,
+          localHistoryMaximumSize,
+          closedWorkflowCacheSize,
+          stickyCacheHandoffRate,
           false);
     }
 
@@ -156,6 +230,10 @@ public class WorkerFactoryOptions {
           enableLoggingInReplay,
           usingVirtualWorkflowThreads,
           overrideLocalActivityTaskExecutor,
+          localHistoryDirectory,
+          localHistoryMaximumSize,
+          closedWorkflowCacheSize,
+          stickyCacheHandoffRate,
           true);
     }
   }
@@ -167,6 +245,10 @@ public class WorkerFactoryOptions {
   private final boolean enableLoggingInReplay;
   private final boolean usingVirtualWorkflowThreads;
   private final ExecutorService overrideLocalActivityTaskExecutor;
+  private final @Nullable Path localHistoryDirectory;
+  private final long localHistoryMaximumSize;
+  private final int closedWorkflowCacheSize;
+  private final int stickyCacheHandoffRate;
 
   private WorkerFactoryOptions(
       int workflowCacheSize,
@@ -176,6 +258,10 @@ public class WorkerFactoryOptions {
       boolean enableLoggingInReplay,
       boolean usingVirtualWorkflowThreads,
       ExecutorService overrideLocalActivityTaskExecutor,
+      @Nullable Path localHistoryDirectory,
+      long localHistoryMaximumSize,
+      int closedWorkflowCacheSize,
+      int stickyCacheHandoffRate,
       boolean validate) {
     if (validate) {
       Preconditions.checkState(workflowCacheSize >= 0, "negative workflowCacheSize");
@@ -195,6 +281,12 @@ public class WorkerFactoryOptions {
       if (workerInterceptors == null) {
         workerInterceptors = new WorkerInterceptor[0];
       }
+      Preconditions.checkState(localHistoryMaximumSize >= 0, "negative localHistoryMaximumSize");
+      if (localHistoryMaximumSize == 0) {
+        localHistoryMaximumSize = DEFAULT_LOCAL_HISTORY_MAXIMUM_SIZE;
+      }
+      Preconditions.checkState(closedWorkflowCacheSize >= 0, "negative closedWorkflowCacheSize");
+      Preconditions.checkState(stickyCacheHandoffRate >= 0, "negative stickyCacheHandoffRate");
     }
     this.workflowCacheSize = workflowCacheSize;
     this.maxWorkflowThreadCount = maxWorkflowThreadCount;
@@ -204,6 +296,10 @@ public class WorkerFactoryOptions {
     this.enableLoggingInReplay = enableLoggingInReplay;
     this.usingVirtualWorkflowThreads = usingVirtualWorkflowThreads;
     this.overrideLocalActivityTaskExecutor = overrideLocalActivityTaskExecutor;
+    this.localHistoryDirectory = localHistoryDirectory;
+    this.localHistoryMaximumSize = localHistoryMaximumSize;
+    this.closedWorkflowCacheSize = closedWorkflowCacheSize;
+    this.stickyCacheHandoffRate = stickyCacheHandoffRate;
   }
 
   public int getWorkflowCacheSize() {
@@ -232,6 +328,27 @@ public class WorkerFactoryOptions {
     return usingVirtualWorkflowThreads;
   }
 
+  @Experimental
+  @Nullable
+  public Path getLocalHistoryDirectory() {
+    return localHistoryDirectory;
+  }
+
+  @Experimental
+  public long getLocalHistoryMaximumSize() {
+    return localHistoryMaximumSize;
+  }
+
+  @Experimental
+  public int getClosedWorkflowCacheSize() {
+    return closedWorkflowCacheSize;
+  }
+
+  @Experimental
+  public int getStickyCacheHandoffRate() {
+    return stickyCacheHandoffRate;
+  }
+
   /**
    * For internal use only.
    *
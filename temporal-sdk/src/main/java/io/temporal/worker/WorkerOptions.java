@@ -7,6 +7,10 @@ import io.temporal.common.Experimental;
 import io.temporal.serviceclient.WorkflowServiceStubsOptions;
 import io.temporal.worker.tuning.*;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -77,6 +81,8 @@ public final class WorkerOptions {
     private PollerBehavior workflowTaskPollersBehavior;
     private PollerBehavior activityTaskPollersBehavior;
     private PollerBehavior nexusTaskPollersBehavior;
+    private int replayHistoryPageSize;
+    private List<String> cachedQueryTypes;
 
     private Builder() {}
 
@@ -112,6 +118,8 @@ public final class WorkerOptions {
       this.workflowTaskPollersBehavior = o.workflowTaskPollersBehavior;
       this.activityTaskPollersBehavior = o.activityTaskPollersBehavior;
       this.nexusTaskPollersBehavior = o.nexusTaskPollersBehavior;
+      this.replayHistoryPageSize = o.replayHistoryPageSize;
+      this.cachedQueryTypes = o.cachedQueryTypes;
     }
 
     /**
@@ -519,6 +527,38 @@ public final class WorkerOptions {
       return this;
     }
 
+    /**
+     * Maximum number of events requested in one page of history when a workflow is replayed from
+     * the beginning, as on a workflow cache miss. Only the page being replayed and the events of
+     * the current workflow task are held in memory, so smaller pages bound the memory used to
+     * replay very large histories at the cost of more round trips to the service.
+     *
+     * <p>Default is 0 which means the page size is chosen by the service.
+     */
+    @Experimental
+    public Builder setReplayHistoryPageSize(int replayHistoryPageSize) {
+      this.replayHistoryPageSize = replayHistoryPageSize;
+      return this;
+    }
+
+    /**
+     * Query types whose results are cached by the worker. A direct query of one of these types
+     * that has the same arguments and header as a query answered before is answered with the
+     * cached result, if no events were added to the workflow history since. Such a query doesn't
+     * wait for the other tasks of the workflow run and doesn't replay the history if the run is
+     * not in the workflow cache. The results of the most recently queried runs are kept.
+     *
+     * <p>Only the queries that don't depend on anything else than the workflow state, like a
+     * status query, may be cached.
+     *
+     * <p>Default is none.
+     */
+    @Experimental
+    public Builder setCachedQueryTypes(String... cachedQueryTypes) {
+      this.cachedQueryTypes = Arrays.asList(cachedQueryTypes);
+      return this;
+    }
+
     public WorkerOptions build() {
       return new WorkerOptions(
           maxWorkerActivitiesPerSecond,
@@ -548,7 +588,9 @@ public final class WorkerOptions {
           deploymentOptions,
           workflowTaskPollersBehavior,
           activityTaskPollersBehavior,
-          nexusTaskPollersBehavior);
+          nexusTaskPollersBehavior,
+          replayHistoryPageSize,
+          cachedQueryTypes);
     }
 
     public WorkerOptions validateAndBuildWithDefaults() {
@@ -607,6 +649,7 @@ public final class WorkerOptions {
           "negative stickyTaskQueueDrainTimeout");
       Preconditions.checkState(
           maxConcurrentNexusTaskPollers >= 0, "negative maxConcurrentNexusTaskPollers");
+      Preconditions.checkState(replayHistoryPageSize >= 0, "negative replayHistoryPageSize");
 
       if (workflowTaskPollersBehavior != null) {
         Preconditions.checkState(
@@ -676,7 +719,9 @@ public final class WorkerOptions {
           deploymentOptions,
           workflowTaskPollersBehavior,
           activityTaskPollersBehavior,
-          nexusTaskPollersBehavior);
+          nexusTaskPollersBehavior,
+          replayHistoryPageSize,
+          cachedQueryTypes);
     }
   }
 
@@ -708,6 +753,8 @@ public final class WorkerOptions {
   private final PollerBehavior workflowTaskPollersBehavior;
   private final PollerBehavior activityTaskPollersBehavior;
   private final PollerBehavior nexusTaskPollersBehavior;
+  private final int replayHistoryPageSize;
+  private final List<String> cachedQueryTypes;
 
   private WorkerOptions(
       double maxWorkerActivitiesPerSecond,
@@ -737,7 +784,9 @@ public final class WorkerOptions {
       WorkerDeploymentOptions deploymentOptions,
       PollerBehavior workflowTaskPollersBehavior,
       PollerBehavior activityTaskPollersBehavior,
-      PollerBehavior nexusTaskPollersBehavior) {
+      PollerBehavior nexusTaskPollersBehavior,
+      int replayHistoryPageSize,
+      @Nullable List<String> cachedQueryTypes) {
     this.maxWorkerActivitiesPerSecond = maxWorkerActivitiesPerSecond;
     this.maxConcurrentActivityExecutionSize = maxConcurrentActivityExecutionSize;
     this.maxConcurrentWorkflowTaskExecutionSize = maxConcurrentWorkflowTaskExecutionSize;
@@ -766,6 +815,11 @@ public final class WorkerOptions {
     this.workflowTaskPollersBehavior = workflowTaskPollersBehavior;
     this.activityTaskPollersBehavior = activityTaskPollersBehavior;
     this.nexusTaskPollersBehavior = nexusTaskPollersBehavior;
+    this.replayHistoryPageSize = replayHistoryPageSize;
+    this.cachedQueryTypes =
+        cachedQueryTypes == null
+            ? Collections.emptyList()
+            : Collections.unmodifiableList(new ArrayList<>(cachedQueryTypes));
   }
 
   public double getMaxWorkerActivitiesPerSecond() {
@@ -903,6 +957,16 @@ public final class WorkerOptions {
     return nexusTaskPollersBehavior;
   }
 
+  @Experimental
+  public int getReplayHistoryPageSize() {
+    return replayHistoryPageSize;
+  }
+
+  @Experimental
+  public List<String> getCachedQueryTypes() {
+    return cachedQueryTypes;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) return true;
@@ -935,7 +999,9 @@ public final class WorkerOptions {
         && Objects.equals(deploymentOptions, that.deploymentOptions)
         && Objects.equals(workflowTaskPollersBehavior, that.workflowTaskPollersBehavior)
         && Objects.equals(activityTaskPollersBehavior, that.activityTaskPollersBehavior)
-        && Objects.equals(nexusTaskPollersBehavior, that.nexusTaskPollersBehavior);
+        && Objects.equals(nexusTaskPollersBehavior, that.nexusTaskPollersBehavior)
+        && replayHistoryPageSize == that.replayHistoryPageSize
+        && Objects.equals(cachedQueryTypes, that.cachedQueryTypes);
   }
 
   @Override
@@ -968,7 +1034,9 @@ public final class WorkerOptions {
         deploymentOptions,
         workflowTaskPollersBehavior,
         activityTaskPollersBehavior,
-        nexusTaskPollersBehavior);
+        nexusTaskPollersBehavior,
+        replayHistoryPageSize,
+        cachedQueryTypes);
   }
 
   @Override
@@ -1031,6 +1099,10 @@ public final class WorkerOptions {
         + activityTaskPollersBehavior
         + ", nexusTaskPollersBehavior="
         + nexusTaskPollersBehavior
+        + ", replayHistoryPageSize="
+        + replayHistoryPageSize
+        + ", cachedQueryTypes="
+        + cachedQueryTypes
         + '}';
   }
 }
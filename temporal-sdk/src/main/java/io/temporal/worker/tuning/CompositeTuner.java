@@ -1,5 +1,7 @@
 package io.temporal.worker.tuning;
 
+import com.google.common.base.Preconditions;
+import io.temporal.common.Experimental;
 import java.util.Objects;
 import javax.annotation.Nonnull;
 
@@ -12,16 +14,38 @@ public class CompositeTuner implements WorkerTuner {
   private final @Nonnull SlotSupplier<ActivitySlotInfo> activityTaskSlotSupplier;
   private final @Nonnull SlotSupplier<LocalActivitySlotInfo> localActivitySlotSupplier;
   private final @Nonnull SlotSupplier<NexusSlotInfo> nexusSlotSupplier;
+  private final long workflowReplayBudget;
 
   public CompositeTuner(
       @Nonnull SlotSupplier<WorkflowSlotInfo> workflowTaskSlotSupplier,
       @Nonnull SlotSupplier<ActivitySlotInfo> activityTaskSlotSupplier,
       @Nonnull SlotSupplier<LocalActivitySlotInfo> localActivitySlotSupplier,
       @Nonnull SlotSupplier<NexusSlotInfo> nexusSlotSupplier) {
+    this(
+        workflowTaskSlotSupplier,
+        activityTaskSlotSupplier,
+        localActivitySlotSupplier,
+        nexusSlotSupplier,
+        0);
+  }
+
+  /**
+   * @param workflowReplayBudget see {@link WorkerTuner#getWorkflowReplayBudget()}
+   */
+  @Experimental
+  public CompositeTuner(
+      @Nonnull SlotSupplier<WorkflowSlotInfo> workflowTaskSlotSupplier,
+      @Nonnull SlotSupplier<ActivitySlotInfo> activityTaskSlotSupplier,
+      @Nonnull SlotSupplier<LocalActivitySlotInfo> localActivitySlotSupplier,
+      @Nonnull SlotSupplier<NexusSlotInfo> nexusSlotSupplier,
+      long workflowReplayBudget) {
+    Preconditions.checkArgument(
+        workflowReplayBudget >= 0, "negative workflowReplayBudget: %s", workflowReplayBudget);
     this.workflowTaskSlotSupplier = Objects.requireNonNull(workflowTaskSlotSupplier);
     this.activityTaskSlotSupplier = Objects.requireNonNull(activityTaskSlotSupplier);
     this.localActivitySlotSupplier = Objects.requireNonNull(localActivitySlotSupplier);
     this.nexusSlotSupplier = Objects.requireNonNull(nexusSlotSupplier);
+    this.workflowReplayBudget = workflowReplayBudget;
 
     // All resource-based slot suppliers must use the same controller
     validateResourceController(workflowTaskSlotSupplier, activityTaskSlotSupplier);
@@ -54,6 +78,11 @@ public class CompositeTuner implements WorkerTuner {
     return nexusSlotSupplier;
   }
 
+  @Override
+  public long getWorkflowReplayBudget() {
+    return workflowReplayBudget;
+  }
+
   private <T extends SlotInfo, U extends SlotInfo> void validateResourceController(
       @Nonnull SlotSupplier<T> supplier1, @Nonnull SlotSupplier<U> supplier2) {
     if (supplier1 instanceof ResourceBasedSlotSupplier
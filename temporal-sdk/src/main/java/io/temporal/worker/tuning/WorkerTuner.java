@@ -1,5 +1,6 @@
 package io.temporal.worker.tuning;
 
+import io.temporal.common.Experimental;
 import javax.annotation.Nonnull;
 
 /** WorkerTuners allow for the dynamic customization of some aspects of worker configuration. */
@@ -27,4 +28,20 @@ public interface WorkerTuner {
    */
   @Nonnull
   SlotSupplier<NexusSlotInfo> getNexusSlotSupplier();
+
+  /**
+   * Budget of the workflow tasks that replay a workflow run from the beginning, because the state
+   * of the run is not in the sticky cache, like the tasks received after a worker restart. The cost
+   * of such a task is the number of history events it replays. The tasks that don't fit into the
+   * budget wait, in the order they were received, for the running replays to finish without
+   * occupying a task executor thread, so the tasks that only apply new events to cached runs are
+   * not delayed by them. A workflow task slot is still held by a waiting task. A replay that
+   * exceeds the budget alone is run when no other replays are running.
+   *
+   * @return maximum total number of history events replayed concurrently, 0 for no limit
+   */
+  @Experimental
+  default long getWorkflowReplayBudget() {
+    return 0;
+  }
 }
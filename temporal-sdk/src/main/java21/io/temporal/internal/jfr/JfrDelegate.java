@@ -0,0 +1,19 @@
+package io.temporal.internal.jfr;
+
+/**
+ * Internal delegate for recording JFR events on JDK 21. This is the actual version compiled against
+ * JDK 21.
+ */
+public final class JfrDelegate {
+  public static TaskPhaseRecording begin(TaskPhase phase) {
+    TaskPhaseEvent event = new TaskPhaseEvent();
+    if (!event.isEnabled()) {
+      return TaskPhaseRecording.NOOP;
+    }
+    event.phase = phase.name();
+    event.begin();
+    return event;
+  }
+
+  private JfrDelegate() {}
+}
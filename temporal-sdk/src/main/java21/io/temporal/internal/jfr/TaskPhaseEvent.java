@@ -0,0 +1,43 @@
+package io.temporal.internal.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Duration of a phase of the worker task lifecycle. A single event type with the phase as a field,
+ * so a recording can be broken down by phase, workflow type or run without adding metric
+ * cardinality.
+ */
+@Name("io.temporal.TaskPhase")
+@Label("Temporal Task Phase")
+@Category({"Temporal", "Worker"})
+@Description("Duration of a phase of a workflow, activity or local activity task")
+@StackTrace(false)
+final class TaskPhaseEvent extends Event implements TaskPhaseRecording {
+  @Label("Phase")
+  String phase;
+
+  @Label("Workflow Type")
+  String workflowType;
+
+  @Label("Activity Type")
+  String activityType;
+
+  @Label("Run Id")
+  String runId;
+
+  @Override
+  public void end(String workflowType, String activityType, String runId) {
+    end();
+    if (shouldCommit()) {
+      this.workflowType = workflowType;
+      this.activityType = activityType;
+      this.runId = runId;
+      commit();
+    }
+  }
+}
@@ -50,6 +50,27 @@ public class MicrometerClientStatsReporterTest {
     assertEquals(10, registry.get(DEFAULT_REPORT_NAME).timer().totalTime(TimeUnit.SECONDS), 0);
   }
 
+  @Test
+  public void testRepeatedReportsAreAccumulatedInTheSameMeters() {
+    callDefaultCounter();
+    callDefaultCounter();
+    micrometerClientStatsReporter.reportCounter(
+        DEFAULT_REPORT_NAME, ImmutableMap.of("Namespace", "other_namespace"), DEFAULT_COUNT);
+    micrometerClientStatsReporter.reportTimer(
+        "temporal_workflow_latency", DEFAULT_REPORT_TAGS, DEFAULT_DURATION);
+    micrometerClientStatsReporter.reportTimer(
+        "temporal_workflow_latency", DEFAULT_REPORT_TAGS, DEFAULT_DURATION);
+
+    assertEquals(3, registry.getMeters().size());
+    assertEquals(
+        20, registry.get(DEFAULT_REPORT_NAME).tag("TaskQueue", "task_queue").counter().count(), 0);
+    assertEquals(
+        10,
+        registry.get(DEFAULT_REPORT_NAME).tag("Namespace", "other_namespace").counter().count(),
+        0);
+    assertEquals(2, registry.get("temporal_workflow_latency").timer().count());
+  }
+
   private void callDefaultCounter() {
     micrometerClientStatsReporter.reportCounter(
         DEFAULT_REPORT_NAME, DEFAULT_REPORT_TAGS, DEFAULT_COUNT);
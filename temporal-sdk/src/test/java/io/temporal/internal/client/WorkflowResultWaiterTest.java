@@ -0,0 +1,190 @@
+package io.temporal.internal.client;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import io.temporal.api.common.v1.Payloads;
+import io.temporal.api.common.v1.WorkflowExecution;
+import io.temporal.api.enums.v1.EventType;
+import io.temporal.api.enums.v1.WorkflowExecutionStatus;
+import io.temporal.api.history.v1.History;
+import io.temporal.api.history.v1.HistoryEvent;
+import io.temporal.api.history.v1.WorkflowExecutionCompletedEventAttributes;
+import io.temporal.api.workflow.v1.WorkflowExecutionInfo;
+import io.temporal.api.workflowservice.v1.GetWorkflowExecutionHistoryResponse;
+import io.temporal.api.workflowservice.v1.ListWorkflowExecutionsRequest;
+import io.temporal.api.workflowservice.v1.ListWorkflowExecutionsResponse;
+import io.temporal.client.WorkflowClientOptions;
+import io.temporal.common.converter.DefaultDataConverter;
+import io.temporal.internal.client.external.GenericWorkflowClient;
+import java.util.*;
+import java.util.concurrent.*;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+public class WorkflowResultWaiterTest {
+  private GenericWorkflowClient genericClient;
+  private final List<CompletableFuture<GetWorkflowExecutionHistoryResponse>> polls =
+      Collections.synchronizedList(new ArrayList<>());
+
+  @Before
+  public void setUp() {
+    genericClient = mock(GenericWorkflowClient.class);
+    when(genericClient.longPollHistoryAsync(any(), any()))
+        .thenAnswer(
+            invocation -> {
+              CompletableFuture<GetWorkflowExecutionHistoryResponse> poll =
+                  new CompletableFuture<>();
+              polls.add(poll);
+              return poll;
+            });
+  }
+
+  @Test
+  public void testConcurrentLongPollsAreCapped() throws Exception {
+    WorkflowResultWaiter waiter = newWaiter(2);
+    List<CompletableFuture<Optional<Payloads>>> results = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      results.add(waitFor(waiter, "run" + i, Long.MAX_VALUE));
+    }
+    verify(genericClient, times(2)).longPollHistoryAsync(any(), any());
+    assertEquals(3, waiter.getQueuedCount());
+
+    polls.get(0).complete(closed());
+    results.get(0).get(5, TimeUnit.SECONDS);
+    verify(genericClient, timeout(5000).times(3)).longPollHistoryAsync(any(), any());
+    assertEquals(2, waiter.getQueuedCount());
+
+    for (int i = 1; i < 5; i++) {
+      polls.get(i).complete(closed());
+      results.get(i).get(5, TimeUnit.SECONDS);
+    }
+    verify(genericClient, times(5)).longPollHistoryAsync(any(), any());
+    assertEquals(0, waiter.getQueuedCount());
+  }
+
+  @Test
+  public void testQueuedWaitTimesOut() throws Exception {
+    WorkflowResultWaiter waiter = newWaiter(1);
+    waitFor(waiter, "run1", Long.MAX_VALUE);
+    CompletableFuture<Optional<Payloads>> queued = waitFor(waiter, "run2", 100);
+    try {
+      queued.get(5, TimeUnit.SECONDS);
+      fail("unreachable");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof TimeoutException);
+    }
+    assertEquals(0, waiter.getQueuedCount());
+    verify(genericClient, times(1)).longPollHistoryAsync(any(), any());
+  }
+
+  @Test
+  public void testCancelledWaitLeavesTheQueue() throws Exception {
+    WorkflowResultWaiter waiter = newWaiter(1, 0);
+    CompletableFuture<Optional<Payloads>> first = waitFor(waiter, "run1", Long.MAX_VALUE);
+    CompletableFuture<Optional<Payloads>> cancelled = waitFor(waiter, "run2", Long.MAX_VALUE);
+    CompletableFuture<Optional<Payloads>> third = waitFor(waiter, "run3", Long.MAX_VALUE);
+    assertEquals(2, waiter.getQueuedCount());
+
+    cancelled.cancel(false);
+    assertEquals(1, waiter.getQueuedCount());
+
+    // the permit of the first wait goes to the third one, the cancelled wait is never polled
+    polls.get(0).complete(closed());
+    first.get(5, TimeUnit.SECONDS);
+    verify(genericClient, timeout(5000).times(2)).longPollHistoryAsync(any(), any());
+    assertEquals(0, waiter.getQueuedCount());
+    polls.get(1).complete(closed());
+    third.get(5, TimeUnit.SECONDS);
+    verify(genericClient, times(2)).longPollHistoryAsync(any(), any());
+  }
+
+  @Test
+  public void testClosedQueuedRunsAreResolvedByBatchCheck() throws Exception {
+    when(genericClient.listWorkflowExecutionsAsync(any()))
+        .thenReturn(
+            CompletableFuture.completedFuture(
+                ListWorkflowExecutionsResponse.newBuilder()
+                    .addExecutions(
+                        WorkflowExecutionInfo.newBuilder()
+                            .setExecution(execution("run2"))
+                            .setStatus(WorkflowExecutionStatus.WORKFLOW_EXECUTION_STATUS_COMPLETED))
+                    .addExecutions(
+                        WorkflowExecutionInfo.newBuilder()
+                            .setExecution(execution("run3"))
+                            .setStatus(
+                                WorkflowExecutionStatus.WORKFLOW_EXECUTION_STATUS_CONTINUED_AS_NEW))
+                    .build()));
+    WorkflowResultWaiter waiter = newWaiter(1, 2);
+    waitFor(waiter, "run1", Long.MAX_VALUE);
+    CompletableFuture<Optional<Payloads>> closedRun = waitFor(waiter, "run2", Long.MAX_VALUE);
+    waitFor(waiter, "run3", Long.MAX_VALUE);
+    assertEquals(2, waiter.getQueuedCount());
+
+    // the closed run gets its close event without waiting for the in-flight long poll
+    verify(genericClient, timeout(10000).times(2)).longPollHistoryAsync(any(), any());
+    assertEquals(1, waiter.getQueuedCount());
+    polls.get(1).complete(closed());
+    closedRun.get(5, TimeUnit.SECONDS);
+
+    ArgumentCaptor<ListWorkflowExecutionsRequest> listRequest =
+        ArgumentCaptor.forClass(ListWorkflowExecutionsRequest.class);
+    verify(genericClient).listWorkflowExecutionsAsync(listRequest.capture());
+    String query = listRequest.getValue().getQuery();
+    assertTrue(query, query.contains("'run2'"));
+    assertTrue(query, query.contains("'run3'"));
+    assertFalse(query, query.contains("'run1'"));
+  }
+
+  @Test
+  public void testNoLimitByDefault() {
+    WorkflowResultWaiter waiter = newWaiter(0);
+    for (int i = 0; i < 5; i++) {
+      waitFor(waiter, "run" + i, Long.MAX_VALUE);
+    }
+    verify(genericClient, times(5)).longPollHistoryAsync(any(), any());
+    assertEquals(0, waiter.getQueuedCount());
+  }
+
+  private WorkflowResultWaiter newWaiter(int maxConcurrentLongPolls) {
+    return newWaiter(maxConcurrentLongPolls, 0);
+  }
+
+  private WorkflowResultWaiter newWaiter(int maxConcurrentLongPolls, int batchPollThreshold) {
+    WorkflowClientOptions options =
+        WorkflowClientOptions.newBuilder()
+            .setMaxConcurrentResultLongPolls(maxConcurrentLongPolls)
+            .setResultBatchPollThreshold(batchPollThreshold)
+            .validateAndBuildWithDefaults();
+    return new WorkflowResultWaiter(
+        genericClient, new WorkflowClientRequestFactory(options), options);
+  }
+
+  private static CompletableFuture<Optional<Payloads>> waitFor(
+      WorkflowResultWaiter waiter, String runId, long timeoutMs) {
+    return waiter.getWorkflowExecutionResultAsync(
+        execution(runId),
+        Optional.empty(),
+        timeoutMs,
+        TimeUnit.MILLISECONDS,
+        DefaultDataConverter.STANDARD_INSTANCE);
+  }
+
+  private static WorkflowExecution execution(String runId) {
+    return WorkflowExecution.newBuilder().setWorkflowId("workflow").setRunId(runId).build();
+  }
+
+  private static GetWorkflowExecutionHistoryResponse closed() {
+    return GetWorkflowExecutionHistoryResponse.newBuilder()
+        .setHistory(
+            History.newBuilder()
+                .addEvents(
+                    HistoryEvent.newBuilder()
+                        .setEventType(EventType.EVENT_TYPE_WORKFLOW_EXECUTION_COMPLETED)
+                        .setWorkflowExecutionCompletedEventAttributes(
+                            WorkflowExecutionCompletedEventAttributes.getDefaultInstance())))
+        .build();
+  }
+}
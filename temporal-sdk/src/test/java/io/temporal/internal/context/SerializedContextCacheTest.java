@@ -0,0 +1,83 @@
+package io.temporal.internal.context;
+
+import static org.junit.Assert.*;
+
+import io.temporal.api.common.v1.Payload;
+import io.temporal.common.context.ContextPropagator;
+import io.temporal.common.converter.DefaultDataConverter;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+public class SerializedContextCacheTest {
+
+  private static class TestPropagator implements ContextPropagator {
+    private final boolean cacheable;
+    private Object currentContext = "tenant1";
+    private int serializations;
+
+    private TestPropagator(boolean cacheable) {
+      this.cacheable = cacheable;
+    }
+
+    @Override
+    public String getName() {
+      return "test";
+    }
+
+    @Override
+    public Map<String, Payload> serializeContext(Object context) {
+      serializations++;
+      return Collections.singletonMap(
+          "tenant", DefaultDataConverter.STANDARD_INSTANCE.toPayload(context).get());
+    }
+
+    @Override
+    public Object deserializeContext(Map<String, Payload> header) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Object getCurrentContext() {
+      return currentContext;
+    }
+
+    @Override
+    public void setCurrentContext(Object context) {
+      currentContext = context;
+    }
+
+    @Override
+    public boolean isSerializedContextCacheable() {
+      return cacheable;
+    }
+  }
+
+  @Test
+  public void serializedContextIsReusedUntilContextInstanceChanges() {
+    TestPropagator propagator = new TestPropagator(true);
+    List<ContextPropagator> propagators = Collections.singletonList(propagator);
+    SerializedContextCache cache = new SerializedContextCache();
+
+    Map<String, Payload> first = cache.serialize(propagators);
+    assertEquals(first, cache.serialize(propagators));
+    assertEquals(1, propagator.serializations);
+
+    propagator.setCurrentContext("tenant2");
+    Map<String, Payload> second = cache.serialize(propagators);
+    assertNotEquals(first, second);
+    assertEquals(2, propagator.serializations);
+  }
+
+  @Test
+  public void notCacheablePropagatorIsSerializedEveryTime() {
+    TestPropagator propagator = new TestPropagator(false);
+    List<ContextPropagator> propagators = Collections.singletonList(propagator);
+    SerializedContextCache cache = new SerializedContextCache();
+
+    cache.serialize(propagators);
+    cache.serialize(propagators);
+    assertEquals(2, propagator.serializations);
+  }
+}
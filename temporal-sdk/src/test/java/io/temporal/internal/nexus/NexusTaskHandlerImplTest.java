@@ -21,7 +21,9 @@ import io.temporal.common.interceptors.WorkerInterceptor;
 import io.temporal.common.reporter.TestStatsReporter;
 import io.temporal.internal.worker.NexusTask;
 import io.temporal.internal.worker.NexusTaskHandler;
+import io.temporal.nexus.CompletionStageOperation;
 import io.temporal.workflow.shared.TestNexusServices;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeoutException;
 import javax.annotation.Nullable;
 import org.junit.Assert;
@@ -159,6 +161,43 @@ public class NexusTaskHandlerImplTest {
         "test id", result.getResponse().getStartOperation().getAsyncSuccess().getOperationToken());
   }
 
+  @Test
+  public void startCompletionStageOperation() throws Exception {
+    WorkflowClient client = mock(WorkflowClient.class);
+    NexusTaskHandlerImpl nexusTaskHandlerImpl =
+        new NexusTaskHandlerImpl(
+            client, NAMESPACE, TASK_QUEUE, dataConverter, new WorkerInterceptor[] {});
+    CompletableFuture<String> operationResult = new CompletableFuture<>();
+    nexusTaskHandlerImpl.registerNexusServiceImplementations(
+        new Object[] {new TestNexusServiceImplCompletionStage(operationResult)});
+    nexusTaskHandlerImpl.start();
+
+    PollNexusTaskQueueResponse.Builder task =
+        PollNexusTaskQueueResponse.newBuilder()
+            .setRequest(
+                Request.newBuilder()
+                    .setStartOperation(
+                        StartOperationRequest.newBuilder()
+                            .setOperation("operation")
+                            .setService("TestNexusService1")
+                            .setPayload(dataConverter.toPayload("world").get())
+                            .build()));
+
+    CompletableFuture<NexusTaskHandler.Result> resultFuture =
+        nexusTaskHandlerImpl.handleAsync(new NexusTask(task, null, null), metricsScope);
+    Assert.assertFalse(resultFuture.isDone());
+
+    operationResult.complete("Hello, world!");
+    NexusTaskHandler.Result result = resultFuture.get();
+    Assert.assertNull(result.getHandlerError());
+    Assert.assertEquals(
+        "Hello, world!",
+        dataConverter.fromPayload(
+            result.getResponse().getStartOperation().getSyncSuccess().getPayload(),
+            String.class,
+            String.class));
+  }
+
   @ServiceImpl(service = TestNexusServices.TestNexusService1.class)
   public class TestNexusServiceImpl {
     @OperationImpl
@@ -168,6 +207,20 @@ public class NexusTaskHandlerImplTest {
     }
   }
 
+  @ServiceImpl(service = TestNexusServices.TestNexusService1.class)
+  public class TestNexusServiceImplCompletionStage {
+    private final CompletableFuture<String> result;
+
+    public TestNexusServiceImplCompletionStage(CompletableFuture<String> result) {
+      this.result = result;
+    }
+
+    @OperationImpl
+    public OperationHandler<String, String> operation() {
+      return CompletionStageOperation.fromCompletionStage((ctx, details, name) -> result);
+    }
+  }
+
   @ServiceImpl(service = TestNexusServices.TestNexusService2.class)
   public class TestNexusServiceImpl2 {
     @OperationImpl
@@ -0,0 +1,67 @@
+package io.temporal.internal.replay;
+
+import static org.junit.Assert.*;
+
+import com.google.protobuf.ByteString;
+import io.temporal.api.common.v1.Payloads;
+import io.temporal.api.common.v1.WorkflowExecution;
+import io.temporal.api.history.v1.History;
+import io.temporal.api.history.v1.HistoryEvent;
+import io.temporal.api.query.v1.WorkflowQuery;
+import io.temporal.api.workflowservice.v1.PollWorkflowTaskQueueResponse;
+import io.temporal.common.converter.DefaultDataConverter;
+import java.util.Collections;
+import java.util.Optional;
+import org.junit.Test;
+
+public class QueryResultCacheTest {
+
+  private final QueryResultCache cache =
+      new QueryResultCache(Collections.singletonList("status"), 10);
+
+  private static PollWorkflowTaskQueueResponse.Builder queryTask(
+      String queryType, String arg, long lastEventId) {
+    return PollWorkflowTaskQueueResponse.newBuilder()
+        .setWorkflowExecution(
+            WorkflowExecution.newBuilder().setWorkflowId("workflow").setRunId("run"))
+        .setQuery(
+            WorkflowQuery.newBuilder()
+                .setQueryType(queryType)
+                .setQueryArgs(DefaultDataConverter.STANDARD_INSTANCE.toPayloads(arg).get()))
+        .setHistory(
+            History.newBuilder().addEvents(HistoryEvent.newBuilder().setEventId(lastEventId)));
+  }
+
+  private static QueryResult result(String value) {
+    Optional<Payloads> payloads = DefaultDataConverter.STANDARD_INSTANCE.toPayloads(value);
+    return new QueryResult(payloads, false);
+  }
+
+  @Test
+  public void resultIsServedUntilNewEventsAreAdded() {
+    QueryResult result = result("running");
+    cache.put(queryTask("status", "a", 5), result);
+
+    assertSame(result, cache.get(queryTask("status", "a", 5)));
+    assertNull(cache.get(queryTask("status", "b", 5)));
+    assertNull(cache.get(queryTask("status", "a", 8)));
+
+    cache.put(queryTask("status", "a", 8), result("completed"));
+    assertNull(cache.get(queryTask("status", "a", 5)));
+  }
+
+  @Test
+  public void onlyOptedInQueryTypesAreCached() {
+    cache.put(queryTask("details", "a", 5), result("running"));
+    assertFalse(cache.isCachedQueryType(queryTask("details", "a", 5)));
+    assertNull(cache.get(queryTask("details", "a", 5)));
+  }
+
+  @Test
+  public void paginatedHistoryIsNotCached() {
+    PollWorkflowTaskQueueResponse.Builder task =
+        queryTask("status", "a", 5).setNextPageToken(ByteString.copyFromUtf8("next"));
+    cache.put(task, result("running"));
+    assertNull(cache.get(task));
+  }
+}
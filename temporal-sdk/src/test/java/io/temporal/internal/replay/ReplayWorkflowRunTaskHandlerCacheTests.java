@@ -28,6 +28,7 @@ import io.temporal.serviceclient.MetricsTag;
 import io.temporal.testUtils.HistoryUtils;
 import io.temporal.testing.internal.SDKTestWorkflowRule;
 import io.temporal.worker.MetricsType;
+import java.util.Collections;
 import java.util.Map;
 import java.util.Optional;
 import junit.framework.TestCase;
@@ -245,6 +246,34 @@ public class ReplayWorkflowRunTaskHandlerCacheTests {
     assertEquals(1, cache.size());
   }
 
+  @Test
+  public void closedRunsAreKeptUpToTheConfiguredNumber() throws Exception {
+    // Arrange
+    WorkflowExecutorCache cache =
+        new WorkflowExecutorCache(10, new WorkflowRunLockManager(), metricsScope, null, 1);
+    PollWorkflowTaskQueueResponse workflowTask1 =
+        HistoryUtils.generateWorkflowTaskWithInitialHistory();
+    PollWorkflowTaskQueueResponse workflowTask2 =
+        HistoryUtils.generateWorkflowTaskWithInitialHistory();
+    WorkflowRunTaskHandler closedRun1 = createFakeExecutor(workflowTask1);
+    WorkflowRunTaskHandler closedRun2 = createFakeExecutor(workflowTask2);
+
+    // Act
+    cache.addClosed(workflowTask1.getWorkflowExecution(), closedRun1);
+    assertSame(closedRun1, cache.getClosed(workflowTask1.getWorkflowExecution(), metricsScope));
+    cache.addClosed(workflowTask2.getWorkflowExecution(), closedRun2);
+
+    // Assert
+    assertNull(cache.getClosed(workflowTask1.getWorkflowExecution(), metricsScope));
+    assertSame(closedRun2, cache.getClosed(workflowTask2.getWorkflowExecution(), metricsScope));
+    assertEquals(0, cache.size());
+
+    // Wait for reporter
+    Thread.sleep(100);
+    reporter.assertCounter(MetricsType.CLOSED_WORKFLOW_CACHE_HIT, Collections.emptyMap(), 2);
+    reporter.assertCounter(MetricsType.CLOSED_WORKFLOW_CACHE_EVICTION, Collections.emptyMap(), 1);
+  }
+
   private void assertCacheIsEmpty(WorkflowExecutorCache cache, String runId) throws Exception {
     Throwable ex = null;
     try {
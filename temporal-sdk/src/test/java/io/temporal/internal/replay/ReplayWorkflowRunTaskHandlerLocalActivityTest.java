@@ -0,0 +1,130 @@
+package io.temporal.internal.replay;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.uber.m3.tally.NoopScope;
+import io.temporal.api.command.v1.Command;
+import io.temporal.api.common.v1.ActivityType;
+import io.temporal.api.enums.v1.CommandType;
+import io.temporal.api.workflowservice.v1.GetSystemInfoResponse;
+import io.temporal.api.workflowservice.v1.PollActivityTaskQueueResponse;
+import io.temporal.api.workflowservice.v1.PollWorkflowTaskQueueResponse;
+import io.temporal.api.workflowservice.v1.RespondActivityTaskCompletedRequest;
+import io.temporal.internal.statemachines.ExecuteLocalActivityParameters;
+import io.temporal.internal.statemachines.WorkflowStateMachines;
+import io.temporal.internal.worker.LocalActivityDispatcher;
+import io.temporal.internal.worker.LocalActivityResult;
+import io.temporal.internal.worker.SingleWorkerOptions;
+import io.temporal.testUtils.HistoryUtils;
+import io.temporal.worker.WorkflowImplementationOptions;
+import io.temporal.workflow.Functions;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+/** Tests the handling of the local activity completions collected during a workflow task. */
+public class ReplayWorkflowRunTaskHandlerLocalActivityTest {
+  private static final RuntimeException PROCESSING_ERROR = new RuntimeException("processing");
+
+  private WorkflowStateMachines stateMachines;
+  private final List<Functions.Proc1<LocalActivityResult>> resultCallbacks = new ArrayList<>();
+
+  @Test
+  public void completionsAfterProcessingErrorAreKept() throws Throwable {
+    PollWorkflowTaskQueueResponse workflowTask =
+        HistoryUtils.generateWorkflowTaskWithInitialHistory();
+    // all three completions are available at once, so they are drained in a single batch
+    LocalActivityDispatcher dispatcher = mock(LocalActivityDispatcher.class);
+    doAnswer(
+            invocation -> {
+              resultCallbacks.add(invocation.getArgument(1));
+              if (resultCallbacks.size() == 3) {
+                resultCallbacks.get(0).apply(completed("1"));
+                resultCallbacks.get(1).apply(processingFailed("2"));
+                resultCallbacks.get(2).apply(completed("3"));
+              }
+              return true;
+            })
+        .when(dispatcher)
+        .dispatch(any(), any(), any());
+    ReplayWorkflowRunTaskHandler handler =
+        new ReplayWorkflowRunTaskHandler(
+            "namespace",
+            createReplayWorkflow(),
+            workflowTask,
+            SingleWorkerOptions.newBuilder().build(),
+            new NoopScope(),
+            dispatcher,
+            GetSystemInfoResponse.Capabilities.newBuilder().build());
+    stateMachines = handler.getWorkflowStateMachines();
+
+    Throwable error =
+        assertThrows(
+            RuntimeException.class,
+            () ->
+                handler.handleWorkflowTask(
+                    workflowTask,
+                    new FullHistoryIterator(workflowTask.getHistory().getEventsList())));
+
+    assertSame(PROCESSING_ERROR, error);
+    // the completion before the failed one is applied, the one after it stays queued
+    List<Command> commands = stateMachines.takeCommands();
+    assertEquals(1, commands.size());
+    assertEquals(CommandType.COMMAND_TYPE_RECORD_MARKER, commands.get(0).getCommandType());
+    List<LocalActivityResult> pending = handler.getPendingLocalActivityCompletions();
+    assertEquals(1, pending.size());
+    assertEquals("3", pending.get(0).getActivityId());
+  }
+
+  private ReplayWorkflow createReplayWorkflow() {
+    ReplayWorkflow workflow = mock(ReplayWorkflow.class);
+    doAnswer(
+            invocation -> {
+              for (String activityId : new String[] {"1", "2", "3"}) {
+                stateMachines.scheduleLocalActivityTask(
+                    new ExecuteLocalActivityParameters(
+                        PollActivityTaskQueueResponse.newBuilder()
+                            .setActivityId(activityId)
+                            .setActivityType(ActivityType.newBuilder().setName("activity")),
+                        null,
+                        System.currentTimeMillis(),
+                        null,
+                        false,
+                        Duration.ofMinutes(1),
+                        null),
+                    (r, e) -> {});
+              }
+              return false;
+            })
+        .doReturn(false)
+        .when(workflow)
+        .eventLoop();
+    WorkflowContext context = mock(WorkflowContext.class);
+    when(context.getWorkflowImplementationOptions())
+        .thenReturn(WorkflowImplementationOptions.getDefaultInstance());
+    when(workflow.getWorkflowContext()).thenReturn(context);
+    return workflow;
+  }
+
+  private static LocalActivityResult completed(String activityId) {
+    return new LocalActivityResult(
+        activityId, 1, RespondActivityTaskCompletedRequest.getDefaultInstance(), null, null, null);
+  }
+
+  private static LocalActivityResult processingFailed(String activityId) {
+    return new LocalActivityResult(
+        activityId,
+        1,
+        null,
+        null,
+        null,
+        new LocalActivityResult.ProcessingErrorResult(PROCESSING_ERROR));
+  }
+}
@@ -7,11 +7,15 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assume.assumeFalse;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.google.protobuf.ByteString;
 import com.google.protobuf.util.Durations;
 import com.uber.m3.tally.NoopScope;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
 import io.temporal.api.enums.v1.EventType;
 import io.temporal.api.history.v1.History;
 import io.temporal.api.history.v1.HistoryEvent;
@@ -33,6 +37,7 @@ import java.util.List;
 import java.util.Optional;
 import org.junit.Rule;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 
 public class ReplayWorkflowRunTaskHandlerTaskHandlerTests {
 
@@ -121,6 +126,110 @@ public class ReplayWorkflowRunTaskHandlerTaskHandlerTests {
         result.getTaskFailed().getFailure().getMessage());
   }
 
+  @Test
+  public void replayHistoryPageSizeIsRequestedForAllPages() throws Throwable {
+    assumeFalse("skipping for docker tests", SDKTestWorkflowRule.useExternalService);
+
+    WorkflowServiceStubs client = mock(WorkflowServiceStubs.class);
+    when(client.getServerCapabilities())
+        .thenReturn(() -> GetSystemInfoResponse.Capabilities.newBuilder().build());
+    WorkflowServiceGrpc.WorkflowServiceBlockingStub blockingStub =
+        mock(WorkflowServiceGrpc.WorkflowServiceBlockingStub.class);
+    when(client.blockingStub()).thenReturn(blockingStub);
+    when(blockingStub.withOption(any(), any())).thenReturn(blockingStub);
+
+    List<HistoryEvent> history =
+        HistoryUtils.generateWorkflowTaskWithInitialHistory().getHistory().getEventsList();
+    assertEquals(3, history.size());
+    ByteString nextPageToken = ByteString.copyFromUtf8("next page");
+    when(blockingStub.getWorkflowExecutionHistory(any()))
+        .thenReturn(
+            GetWorkflowExecutionHistoryResponse.newBuilder()
+                .setHistory(History.newBuilder().addAllEvents(history.subList(0, 2)))
+                .setNextPageToken(nextPageToken)
+                .build(),
+            GetWorkflowExecutionHistoryResponse.newBuilder()
+                .setHistory(History.newBuilder().addAllEvents(history.subList(2, 3)))
+                .build());
+
+    WorkflowTaskHandler taskHandler =
+        new ReplayWorkflowTaskHandler(
+            "namespace",
+            setUpMockWorkflowFactory(),
+            new WorkflowExecutorCache(10, new WorkflowRunLockManager(), new NoopScope()),
+            SingleWorkerOptions.newBuilder().setReplayHistoryPageSize(2).build(),
+            null,
+            Duration.ofSeconds(5),
+            client,
+            null);
+
+    // A poll with a partial history, the full history is fetched in two pages
+    WorkflowTaskHandler.Result result =
+        taskHandler.handleWorkflowTask(
+            HistoryUtils.generateWorkflowTaskWithInitialHistory().toBuilder()
+                .setHistory(History.newBuilder().build())
+                .setNextPageToken(ByteString.EMPTY)
+                .build());
+
+    assertNotNull(result.getTaskCompleted());
+    ArgumentCaptor<GetWorkflowExecutionHistoryRequest> requests =
+        ArgumentCaptor.forClass(GetWorkflowExecutionHistoryRequest.class);
+    verify(blockingStub, times(2)).getWorkflowExecutionHistory(requests.capture());
+    assertEquals(ByteString.EMPTY, requests.getAllValues().get(0).getNextPageToken());
+    assertEquals(2, requests.getAllValues().get(0).getMaximumPageSize());
+    assertEquals(nextPageToken, requests.getAllValues().get(1).getNextPageToken());
+    assertEquals(2, requests.getAllValues().get(1).getMaximumPageSize());
+  }
+
+  @Test
+  public void stickyTaskQueueIsResetWhenHistoryFetchFails() throws Throwable {
+    assumeFalse("skipping for docker tests", SDKTestWorkflowRule.useExternalService);
+
+    WorkflowExecutorCache cache =
+        new WorkflowExecutorCache(10, new WorkflowRunLockManager(), new NoopScope());
+    WorkflowServiceStubs client = mock(WorkflowServiceStubs.class);
+    when(client.getServerCapabilities())
+        .thenReturn(() -> GetSystemInfoResponse.Capabilities.newBuilder().build());
+    WorkflowServiceGrpc.WorkflowServiceBlockingStub blockingStub =
+        mock(WorkflowServiceGrpc.WorkflowServiceBlockingStub.class);
+    when(client.blockingStub()).thenReturn(blockingStub);
+    when(blockingStub.withOption(any(), any())).thenReturn(blockingStub);
+    when(blockingStub.getWorkflowExecutionHistory(any()))
+        .thenThrow(new StatusRuntimeException(Status.UNAVAILABLE));
+    WorkflowServiceGrpc.WorkflowServiceFutureStub futureStub =
+        mock(WorkflowServiceGrpc.WorkflowServiceFutureStub.class);
+    when(client.futureStub()).thenReturn(futureStub);
+
+    WorkflowTaskHandler taskHandler =
+        new ReplayWorkflowTaskHandler(
+            "namespace",
+            setUpMockWorkflowFactory(),
+            cache,
+            SingleWorkerOptions.newBuilder().build(),
+            InternalUtils.createStickyTaskQueue("sticky", "taskQueue"),
+            Duration.ofSeconds(5),
+            client,
+            null);
+
+    // A sticky poll with a partial history and no cached execution, the full history can't be
+    // fetched
+    PollWorkflowTaskQueueResponse workflowTask =
+        HistoryUtils.generateWorkflowTaskWithInitialHistory().toBuilder()
+            .setHistory(History.newBuilder().build())
+            .setNextPageToken(ByteString.EMPTY)
+            .build();
+    WorkflowTaskHandler.Result result = taskHandler.handleWorkflowTask(workflowTask);
+
+    assertEquals(0, cache.size());
+    assertNotNull(result.getTaskFailed());
+    verify(futureStub)
+        .resetStickyTaskQueue(
+            ResetStickyTaskQueueRequest.newBuilder()
+                .setNamespace("namespace")
+                .setExecution(workflowTask.getWorkflowExecution())
+                .build());
+  }
+
   @Test
   public void localActivityMeteringHelper() {
     ReplayWorkflowRunTaskHandler.LocalActivityMeteringHelper laMeteringHelper =
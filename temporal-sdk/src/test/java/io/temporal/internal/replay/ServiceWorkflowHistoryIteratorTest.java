@@ -84,4 +84,30 @@ public class ServiceWorkflowHistoryIteratorTest {
     Assert.assertThrows(NoSuchElementException.class, iterator::next);
     Assert.assertEquals(4, timesCalledServer.get());
   }
+
+  @Test
+  public void restartReplacesPartialHistoryOfTheTask() throws Exception {
+    History fullHistory = HistoryUtils.generateWorkflowTaskWithInitialHistory().getHistory();
+    PollWorkflowTaskQueueResponse workflowTask =
+        PollWorkflowTaskQueueResponse.newBuilder()
+            .setHistory(
+                History.newBuilder()
+                    .addEvents(fullHistory.getEvents(fullHistory.getEventsCount() - 1)))
+            .setNextPageToken(NEXT_PAGE_TOKEN)
+            .build();
+
+    ServiceWorkflowHistoryIterator iterator =
+        new ServiceWorkflowHistoryIterator(null, "default", workflowTask, null) {
+          @Override
+          GetWorkflowExecutionHistoryResponse queryWorkflowExecutionHistory() {
+            throw new AssertionError("unexpected call to the server");
+          }
+        };
+    iterator.restart(fullHistory, ByteString.EMPTY);
+    for (int i = 0; i < fullHistory.getEventsCount(); i++) {
+      Assert.assertTrue(iterator.hasNext());
+      Assert.assertEquals(fullHistory.getEvents(i), iterator.next());
+    }
+    Assert.assertFalse(iterator.hasNext());
+  }
 }
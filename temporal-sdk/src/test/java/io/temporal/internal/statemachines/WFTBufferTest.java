@@ -0,0 +1,84 @@
+package io.temporal.internal.statemachines;
+
+import static org.junit.Assert.*;
+
+import io.temporal.api.enums.v1.EventType;
+import io.temporal.api.history.v1.HistoryEvent;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+public class WFTBufferTest {
+
+  @Test
+  public void bufferedSizeCoversOnlyTheNotFetchedEvents() {
+    List<HistoryEvent> events =
+        Arrays.asList(
+            event(1, EventType.EVENT_TYPE_WORKFLOW_EXECUTION_STARTED),
+            event(2, EventType.EVENT_TYPE_WORKFLOW_TASK_SCHEDULED),
+            event(3, EventType.EVENT_TYPE_WORKFLOW_TASK_STARTED),
+            event(4, EventType.EVENT_TYPE_WORKFLOW_TASK_COMPLETED),
+            event(5, EventType.EVENT_TYPE_TIMER_STARTED));
+    HistoryEvent timerFired = event(6, EventType.EVENT_TYPE_TIMER_FIRED);
+
+    WFTBuffer buffer = new WFTBuffer();
+    long expectedSize = 0;
+    for (HistoryEvent event : events) {
+      assertFalse(buffer.addEvent(event, true));
+      expectedSize += event.getSerializedSize();
+      assertEquals(expectedSize, buffer.getBufferedSize());
+    }
+
+    assertTrue(buffer.addEvent(timerFired, true));
+    assertEquals(expectedSize + timerFired.getSerializedSize(), buffer.getBufferedSize());
+
+    WFTBuffer.EventBatch batch = buffer.fetch();
+    assertEquals(events, batch.getEvents());
+    assertEquals(events.get(3), batch.getWorkflowTaskCompletedEvent().get());
+    assertEquals(timerFired.getSerializedSize(), buffer.getBufferedSize());
+
+    HistoryEvent lastEvent = event(7, EventType.EVENT_TYPE_WORKFLOW_TASK_SCHEDULED);
+    assertTrue(buffer.addEvent(lastEvent, false));
+    assertEquals(Arrays.asList(timerFired, lastEvent), buffer.fetch().getEvents());
+    assertEquals(0, buffer.getBufferedSize());
+  }
+
+  @Test
+  public void fetchedBatchIsHandedOverAndNotReused() {
+    List<HistoryEvent> events =
+        Arrays.asList(
+            event(1, EventType.EVENT_TYPE_WORKFLOW_EXECUTION_STARTED),
+            event(2, EventType.EVENT_TYPE_WORKFLOW_TASK_SCHEDULED),
+            event(3, EventType.EVENT_TYPE_WORKFLOW_TASK_STARTED),
+            event(4, EventType.EVENT_TYPE_WORKFLOW_TASK_COMPLETED),
+            event(5, EventType.EVENT_TYPE_TIMER_STARTED),
+            event(6, EventType.EVENT_TYPE_TIMER_FIRED),
+            event(7, EventType.EVENT_TYPE_WORKFLOW_TASK_SCHEDULED),
+            event(8, EventType.EVENT_TYPE_WORKFLOW_TASK_STARTED),
+            event(9, EventType.EVENT_TYPE_WORKFLOW_TASK_COMPLETED));
+
+    WFTBuffer buffer = new WFTBuffer();
+    for (int i = 0; i < 5; i++) {
+      assertFalse(buffer.addEvent(events.get(i), true));
+    }
+    assertTrue(buffer.addEvent(events.get(5), true));
+    List<HistoryEvent> first = buffer.fetch().getEvents();
+    assertEquals(events.subList(0, 5), first);
+
+    for (int i = 6; i < 8; i++) {
+      assertFalse(buffer.addEvent(events.get(i), true));
+    }
+    assertTrue(buffer.addEvent(events.get(8), false));
+    List<HistoryEvent> second = buffer.fetch().getEvents();
+
+    // the first batch is owned by the caller, the buffer accumulates the next one in another list
+    assertNotSame(first, second);
+    assertEquals(events.subList(0, 5), first);
+    assertEquals(events.subList(5, 9), second);
+    assertEquals(0, buffer.getBufferedSize());
+  }
+
+  private static HistoryEvent event(long eventId, EventType eventType) {
+    return HistoryEvent.newBuilder().setEventId(eventId).setEventType(eventType).build();
+  }
+}
@@ -11,9 +11,11 @@ import com.uber.m3.tally.StatsReporter;
 import com.uber.m3.util.ImmutableMap;
 import io.temporal.api.common.v1.WorkflowExecution;
 import io.temporal.api.common.v1.WorkflowType;
+import io.temporal.api.query.v1.WorkflowQuery;
 import io.temporal.api.workflowservice.v1.PollWorkflowTaskQueueResponse;
 import io.temporal.api.workflowservice.v1.PollWorkflowTaskQueueResponseOrBuilder;
 import io.temporal.common.RetryOptions;
+import io.temporal.common.interceptors.WorkflowInboundCallsInterceptorBase;
 import io.temporal.failure.CanceledFailure;
 import io.temporal.internal.Signal;
 import io.temporal.internal.replay.*;
@@ -30,6 +32,7 @@ import io.temporal.workflow.Promise;
 import io.temporal.workflow.Workflow;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -212,6 +215,177 @@ public class DeterministicRunnerTest {
     assertNotNull(failure);
   }
 
+  @Test
+  public void testBlockedThreadsAreNotResumed() {
+    Thread runnerThread = Thread.currentThread();
+    // evaluations of the await conditions by the workflow threads themselves
+    AtomicInteger resumes = new AtomicInteger();
+    DeterministicRunner d =
+        new DeterministicRunnerImpl(
+            threadPool::submit,
+            DummySyncWorkflowContext.newDummySyncWorkflowContext(),
+            () -> {
+              List<Promise<Void>> threads = new ArrayList<>();
+              for (int i = 0; i < 100; i++) {
+                threads.add(
+                    Async.procedure(
+                        () ->
+                            WorkflowThread.awaitNonBlocking(
+                                "reason1",
+                                () -> {
+                                  if (Thread.currentThread() != runnerThread) {
+                                    resumes.incrementAndGet();
+                                  }
+                                  return unblock1;
+                                })));
+              }
+              Promise.allOf(threads).get();
+              status = "done";
+            });
+    d.runUntilAllBlocked(DeterministicRunner.DEFAULT_DEADLOCK_DETECTION_TIMEOUT_MS);
+    assertFalse(d.isDone());
+    resumes.set(0);
+    for (int i = 0; i < 10; i++) {
+      d.runUntilAllBlocked(DeterministicRunner.DEFAULT_DEADLOCK_DETECTION_TIMEOUT_MS);
+    }
+    assertEquals(0, resumes.get());
+    unblock1 = true;
+    d.runUntilAllBlocked(DeterministicRunner.DEFAULT_DEADLOCK_DETECTION_TIMEOUT_MS);
+    assertEquals(100, resumes.get());
+    assertEquals("done", status);
+    assertTrue(d.isDone());
+  }
+
+  @Test
+  public void testSlowAwaitConditionIsDetectedAsDeadlock() {
+    Thread runnerThread = Thread.currentThread();
+    AtomicBoolean evaluatedByRunner = new AtomicBoolean();
+    AtomicBoolean slow = new AtomicBoolean();
+    DeterministicRunner d =
+        new DeterministicRunnerImpl(
+            threadPool::submit,
+            DummySyncWorkflowContext.newDummySyncWorkflowContext(),
+            () -> {
+              WorkflowThread.await(
+                  "reason1",
+                  () -> {
+                    if (Thread.currentThread() == runnerThread) {
+                      evaluatedByRunner.set(true);
+                    }
+                    if (slow.get()) {
+                      long end = System.currentTimeMillis() + 500;
+                      while (System.currentTimeMillis() < end) {
+                        // spins past the deadlock detection timeout
+                      }
+                    }
+                    return unblock1;
+                  });
+              status = "done";
+            });
+    d.runUntilAllBlocked(DeterministicRunner.DEFAULT_DEADLOCK_DETECTION_TIMEOUT_MS);
+    slow.set(true);
+    try {
+      d.runUntilAllBlocked(100);
+      fail("PotentialDeadlockException expected");
+    } catch (PotentialDeadlockException e) {
+      // the condition of a user await is evaluated only by the workflow thread
+    }
+    assertFalse(evaluatedByRunner.get());
+    d.close();
+  }
+
+  @Test
+  public void testCallbacksShareThreadUntilBlocked() {
+    List<String> trace = new ArrayList<>();
+    List<Thread> callbackThreads = new ArrayList<>();
+    DeterministicRunner d =
+        new DeterministicRunnerImpl(
+            threadPool::submit,
+            DummySyncWorkflowContext.newDummySyncWorkflowContext(),
+            () -> WorkflowThread.await("root", () -> unblock2));
+    d.runUntilAllBlocked(DeterministicRunner.DEFAULT_DEADLOCK_DETECTION_TIMEOUT_MS);
+    d.executeInWorkflowThread(
+        "callback1",
+        () -> {
+          callbackThreads.add(Thread.currentThread());
+          trace.add("callback1");
+        });
+    d.executeInWorkflowThread(
+        "callback2",
+        () -> {
+          callbackThreads.add(Thread.currentThread());
+          trace.add("callback2 started");
+          WorkflowThread.await("callback2", () -> unblock1);
+          trace.add("callback2 done");
+        });
+    d.executeInWorkflowThread(
+        "callback3",
+        () -> {
+          callbackThreads.add(Thread.currentThread());
+          trace.add("callback3");
+        });
+    d.runUntilAllBlocked(DeterministicRunner.DEFAULT_DEADLOCK_DETECTION_TIMEOUT_MS);
+    assertEquals(Arrays.asList("callback1", "callback2 started", "callback3"), trace);
+    assertSame(callbackThreads.get(0), callbackThreads.get(1));
+    assertNotSame(callbackThreads.get(1), callbackThreads.get(2));
+
+    unblock1 = true;
+    d.runUntilAllBlocked(DeterministicRunner.DEFAULT_DEADLOCK_DETECTION_TIMEOUT_MS);
+    assertEquals(
+        Arrays.asList("callback1", "callback2 started", "callback3", "callback2 done"), trace);
+    unblock2 = true;
+    d.runUntilAllBlocked(DeterministicRunner.DEFAULT_DEADLOCK_DETECTION_TIMEOUT_MS);
+    assertTrue(d.isDone());
+  }
+
+  @Test
+  public void testWrappedCallbacksGetThreadsOfTheirOwn() {
+    List<String> trace = new ArrayList<>();
+    List<Thread> callbackThreads = new ArrayList<>();
+    SyncWorkflowContext workflowContext = DummySyncWorkflowContext.newDummySyncWorkflowContext();
+    workflowContext.initHeadInboundCallsInterceptor(
+        new WorkflowInboundCallsInterceptorBase(workflowContext.getWorkflowInboundInterceptor()) {
+          @Override
+          public Object newCallbackThread(Runnable runnable, String name) {
+            return super.newCallbackThread(
+                () -> {
+                  trace.add("wrapped " + name);
+                  runnable.run();
+                },
+                name);
+          }
+        });
+    DeterministicRunner d =
+        new DeterministicRunnerImpl(
+            threadPool::submit,
+            workflowContext,
+            () -> WorkflowThread.await("root", () -> unblock1));
+    d.runUntilAllBlocked(DeterministicRunner.DEFAULT_DEADLOCK_DETECTION_TIMEOUT_MS);
+    for (int i = 1; i <= 3; i++) {
+      String name = "callback" + i;
+      d.executeInWorkflowThread(
+          name,
+          () -> {
+            callbackThreads.add(Thread.currentThread());
+            trace.add(name);
+          });
+    }
+    d.runUntilAllBlocked(DeterministicRunner.DEFAULT_DEADLOCK_DETECTION_TIMEOUT_MS);
+    assertEquals(
+        Arrays.asList(
+            "wrapped callback1",
+            "callback1",
+            "wrapped callback2",
+            "callback2",
+            "wrapped callback3",
+            "callback3"),
+        trace);
+    assertEquals(3, callbackThreads.size());
+    unblock1 = true;
+    d.runUntilAllBlocked(DeterministicRunner.DEFAULT_DEADLOCK_DETECTION_TIMEOUT_MS);
+    assertTrue(d.isDone());
+  }
+
   @Test
   public void testDispatcherExit() {
     DeterministicRunner d =
@@ -788,9 +962,19 @@ public class DeterministicRunnerTest {
       return new QueryResult(Optional.empty(), true);
     }
 
+    @Override
+    public QueryResult handleClosedRunQuery(WorkflowQuery query) {
+      return new QueryResult(Optional.empty(), true);
+    }
+
     @Override
     public void resetStartedEventId(Long event) {}
 
+    @Override
+    public WorkflowExecution getWorkflowExecution() {
+      return WorkflowExecution.getDefaultInstance();
+    }
+
     @Override
     public void close() {
       runner.close();
@@ -2,6 +2,7 @@ package io.temporal.internal.sync;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -10,6 +11,7 @@ import io.temporal.failure.CanceledFailure;
 import io.temporal.testing.TestWorkflowEnvironment;
 import io.temporal.worker.Worker;
 import io.temporal.workflow.CompletablePromise;
+import io.temporal.workflow.Functions;
 import io.temporal.workflow.Promise;
 import io.temporal.workflow.Workflow;
 import io.temporal.workflow.WorkflowInterface;
@@ -94,6 +96,68 @@ public class PromiseTest {
     trace.setExpected(expected);
   }
 
+  @Test
+  public void testHandleLazily() {
+    DeterministicRunner r =
+        DeterministicRunner.newRunner(
+            threadPool::submit,
+            DummySyncWorkflowContext.newDummySyncWorkflowContext(),
+            () -> {
+              CompletablePromise<String> source = Workflow.newPromise();
+              Promise<String> f =
+                  CompletablePromiseImpl.handleLazily(
+                      source,
+                      (v, e) -> {
+                        trace.add("convert " + v);
+                        return v.toUpperCase();
+                      });
+              trace.add("root begin");
+              source.complete("value");
+              trace.add("root isCompleted=" + f.isCompleted());
+              trace.add(f.get());
+              trace.add(f.get());
+              trace.add("root done");
+            });
+    r.runUntilAllBlocked(DeterministicRunner.DEFAULT_DEADLOCK_DETECTION_TIMEOUT_MS);
+    String[] expected =
+        new String[] {
+          "root begin", "root isCompleted=true", "convert value", "VALUE", "VALUE", "root done",
+        };
+    trace.setExpected(expected);
+  }
+
+  @Test
+  public void testHandleLazilyFailsLikeHandle() {
+    DeterministicRunner r =
+        DeterministicRunner.newRunner(
+            threadPool::submit,
+            DummySyncWorkflowContext.newDummySyncWorkflowContext(),
+            () -> {
+              CompletablePromise<String> source = Workflow.newPromise();
+              IllegalArgumentException conversionFailure = new IllegalArgumentException("foo");
+              Functions.Func2<String, RuntimeException, String> convert =
+                  (v, e) -> {
+                    throw conversionFailure;
+                  };
+              Promise<String> eager = source.handle(convert);
+              Promise<String> lazy = CompletablePromiseImpl.handleLazily(source, convert);
+              source.complete("value");
+              for (Promise<String> f : Arrays.asList(eager, lazy)) {
+                try {
+                  f.get();
+                  fail("failure expected");
+                } catch (IllegalArgumentException e) {
+                  assertSame(conversionFailure, e);
+                }
+                assertSame(conversionFailure, f.getFailure());
+                trace.add("chained " + (f.handle((v, e) -> e).get() == conversionFailure));
+              }
+            });
+    r.runUntilAllBlocked(DeterministicRunner.DEFAULT_DEADLOCK_DETECTION_TIMEOUT_MS);
+    String[] expected = new String[] {"chained true", "chained true"};
+    trace.setExpected(expected);
+  }
+
   @Test
   public void testCancellableGet() {
     DeterministicRunner r =
@@ -0,0 +1,69 @@
+package io.temporal.internal.worker;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import com.uber.m3.tally.NoopScope;
+import io.temporal.worker.tuning.FixedSizeSlotSupplier;
+import io.temporal.worker.tuning.LocalActivitySlotInfo;
+import io.temporal.worker.tuning.SlotPermit;
+import io.temporal.worker.tuning.SlotReleaseReason;
+import io.temporal.workflow.Functions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+public class LocalActivitySlotSupplierQueueTest {
+  private static final SlotReservationData RESERVATION_DATA =
+      new SlotReservationData("task-queue", "identity", "build-id");
+
+  private final FixedSizeSlotSupplier<LocalActivitySlotInfo> slotSupplier =
+      spy(new FixedSizeSlotSupplier<>(2));
+  private final TrackingSlotSupplier<LocalActivitySlotInfo> trackingSlotSupplier =
+      new TrackingSlotSupplier<>(slotSupplier, new NoopScope());
+
+  @SuppressWarnings("unchecked")
+  private final Functions.Proc1<LocalActivityAttemptTask> afterReserved =
+      mock(Functions.Proc1.class);
+
+  private final LocalActivitySlotSupplierQueue queue =
+      new LocalActivitySlotSupplierQueue(trackingSlotSupplier, afterReserved);
+
+  private final ShutdownManager shutdownManager = new ShutdownManager();
+
+  @After
+  public void tearDown() {
+    queue.shutdown(shutdownManager, true);
+    queue.awaitTermination(1, TimeUnit.SECONDS);
+    shutdownManager.close();
+  }
+
+  @Test
+  public void queuedRequestsTakeFreeSlotsWithoutWaiting() throws Exception {
+    List<LocalActivityAttemptTask> tasks = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      LocalActivityAttemptTask task = mock(LocalActivityAttemptTask.class);
+      when(task.getExecutionContext()).thenReturn(mock(LocalActivityExecutionContext.class));
+      tasks.add(task);
+      queue.submitAttempt(RESERVATION_DATA, false, task);
+    }
+    queue.start();
+
+    verify(afterReserved, timeout(1000)).apply(tasks.get(0));
+    verify(afterReserved, timeout(1000)).apply(tasks.get(1));
+    // the first request waits for its slot, the second one takes the last free slot without
+    // waiting, the third one doesn't get a slot and goes back to waiting for it
+    verify(slotSupplier, timeout(1000).times(2)).reserveSlot(any());
+    verify(slotSupplier, times(2)).tryReserveSlot(any());
+    verify(afterReserved, never()).apply(tasks.get(2));
+
+    ArgumentCaptor<SlotPermit> permit = ArgumentCaptor.forClass(SlotPermit.class);
+    verify(tasks.get(0).getExecutionContext()).setPermit(permit.capture());
+    trackingSlotSupplier.releaseSlot(SlotReleaseReason.taskComplete(), permit.getValue());
+
+    verify(afterReserved, timeout(1000)).apply(tasks.get(2));
+  }
+}
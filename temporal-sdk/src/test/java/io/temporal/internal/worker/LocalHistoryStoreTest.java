@@ -0,0 +1,117 @@
+package io.temporal.internal.worker;
+
+import static org.junit.Assert.*;
+
+import com.google.common.collect.ImmutableList;
+import io.temporal.api.enums.v1.EventType;
+import io.temporal.api.history.v1.HistoryEvent;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LocalHistoryStoreTest {
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void storedEventsPrecedingTheTaskAreRead() {
+    LocalHistoryStore store = new LocalHistoryStore(folder.getRoot().toPath(), 1024 * 1024);
+    append(store, "run1", 1, 5);
+    append(store, "run1", 6, 8);
+
+    assertEquals(events(1, 5), ImmutableList.copyOf(store.readBefore("run1", 6)));
+    assertEquals(events(1, 8), ImmutableList.copyOf(store.readBefore("run1", 9)));
+    // the store doesn't have the events preceding the task
+    assertNull(store.readBefore("run1", 10));
+    assertNull(store.readBefore("run2", 2));
+  }
+
+  @Test
+  public void overlappingEventsReplaceStoredOnes() {
+    LocalHistoryStore store = new LocalHistoryStore(folder.getRoot().toPath(), 1024 * 1024);
+    append(store, "run1", 1, 5);
+    long sizeOfFive = store.getTotalSize();
+    // a discarded speculative workflow task
+    append(store, "run1", 6, 7);
+    append(store, "run1", 6, 6);
+
+    assertEquals(events(1, 6), ImmutableList.copyOf(store.readBefore("run1", 7)));
+    assertTrue(store.getTotalSize() > sizeOfFive);
+    assertNull(store.readBefore("run1", 8));
+  }
+
+  @Test
+  public void gapDropsTheRun() {
+    LocalHistoryStore store = new LocalHistoryStore(folder.getRoot().toPath(), 1024 * 1024);
+    append(store, "run1", 1, 5);
+    append(store, "run1", 7, 8);
+
+    assertNull(store.readBefore("run1", 2));
+    assertEquals(0, store.getTotalSize());
+    // the history not starting from the first event is not stored
+    append(store, "run2", 3, 4);
+    assertNull(store.readBefore("run2", 2));
+  }
+
+  @Test
+  public void leastRecentlyUsedRunsAreDropped() {
+    long runSize = sizeOf(events(1, 10));
+    LocalHistoryStore store = new LocalHistoryStore(folder.getRoot().toPath(), runSize * 2);
+    append(store, "run1", 1, 10);
+    append(store, "run2", 1, 10);
+    assertNotNull(store.readBefore("run1", 11));
+    append(store, "run3", 1, 10);
+
+    assertNotNull(store.readBefore("run1", 11));
+    assertNull(store.readBefore("run2", 11));
+    assertNotNull(store.readBefore("run3", 11));
+    assertEquals(runSize * 2, store.getTotalSize());
+  }
+
+  @Test
+  public void storesSharingDirectoryKeepTheirOwnFiles() {
+    LocalHistoryStore store1 = new LocalHistoryStore(folder.getRoot().toPath(), 1024 * 1024);
+    append(store1, "run1", 1, 5);
+    LocalHistoryStore store2 = new LocalHistoryStore(folder.getRoot().toPath(), 1024 * 1024);
+    append(store2, "run1", 1, 3);
+    assertEquals(2, folder.getRoot().list().length);
+
+    assertEquals(events(1, 5), ImmutableList.copyOf(store1.readBefore("run1", 6)));
+    store2.close();
+    assertEquals(1, folder.getRoot().list().length);
+    assertEquals(events(1, 5), ImmutableList.copyOf(store1.readBefore("run1", 6)));
+    assertNull(store2.readBefore("run1", 4));
+
+    store1.close();
+    assertEquals(0, folder.getRoot().list().length);
+  }
+
+  private static void append(LocalHistoryStore store, String runId, long from, long to) {
+    LocalHistoryStore.Appender appender = store.newAppender(runId);
+    for (HistoryEvent event : events(from, to)) {
+      appender.append(event);
+    }
+    appender.flush();
+  }
+
+  private static long sizeOf(List<HistoryEvent> events) {
+    long result = 0;
+    for (HistoryEvent event : events) {
+      result += Integer.BYTES + event.getSerializedSize();
+    }
+    return result;
+  }
+
+  private static List<HistoryEvent> events(long from, long to) {
+    ImmutableList.Builder<HistoryEvent> result = ImmutableList.builder();
+    for (long eventId = from; eventId <= to; eventId++) {
+      result.add(
+          HistoryEvent.newBuilder()
+              .setEventId(eventId)
+              .setEventType(EventType.EVENT_TYPE_WORKFLOW_EXECUTION_SIGNALED)
+              .build());
+    }
+    return result.build();
+  }
+}
@@ -0,0 +1,91 @@
+package io.temporal.internal.worker;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Test;
+
+public class PollTaskExecutorTest {
+  private final ShutdownManager shutdownManager = new ShutdownManager();
+  private final CountDownLatch blocked = new CountDownLatch(1);
+  private final PollTaskExecutor<String> executor =
+      new PollTaskExecutor<>(
+          "namespace",
+          "queue",
+          "identity",
+          new PollTaskExecutor.TaskHandler<String>() {
+            @Override
+            public void handle(String task) throws Exception {
+              blocked.await();
+            }
+
+            @Override
+            public Throwable wrapFailure(String task, Throwable failure) {
+              return failure;
+            }
+          },
+          PollerOptions.newBuilder().setPollThreadNamePrefix("Test Poller").build(),
+          1,
+          false);
+
+  @After
+  public void tearDown() {
+    blocked.countDown();
+    shutdownManager.close();
+  }
+
+  @Test
+  public void handOffDoesntBlockWhileAllThreadsAreBusy() throws Exception {
+    executor.process("task");
+    CompletableFuture<String> continuation = new CompletableFuture<>();
+
+    // the only executor thread is busy, execute would block here
+    executor.handOff(
+        () -> continuation.complete(Thread.currentThread().getName()),
+        continuation::completeExceptionally);
+
+    assertFalse(continuation.isDone());
+    blocked.countDown();
+    assertTrue(continuation.get(10, TimeUnit.SECONDS).startsWith("Test Executor"));
+  }
+
+  @Test
+  public void handOffAfterShutdownIsRejected() throws Exception {
+    executor.shutdown(shutdownManager, false).get(10, TimeUnit.SECONDS);
+    CompletableFuture<Void> continuation = new CompletableFuture<>();
+
+    executor.handOff(() -> continuation.complete(null), continuation::completeExceptionally);
+
+    try {
+      continuation.get(10, TimeUnit.SECONDS);
+      fail();
+    } catch (Exception e) {
+      assertTrue(e.getCause() instanceof RejectedExecutionException);
+    }
+  }
+
+  @Test
+  public void pendingHandOffsAreRejectedByShutdownNow() throws Exception {
+    executor.process("task");
+    CompletableFuture<Void> first = new CompletableFuture<>();
+    CompletableFuture<Void> second = new CompletableFuture<>();
+    executor.handOff(() -> first.complete(null), first::completeExceptionally);
+    executor.handOff(() -> second.complete(null), second::completeExceptionally);
+
+    executor.shutdown(shutdownManager, true);
+
+    for (CompletableFuture<Void> continuation : Arrays.asList(first, second)) {
+      try {
+        continuation.get(10, TimeUnit.SECONDS);
+        fail();
+      } catch (Exception e) {
+        assertTrue(e.getCause() instanceof RejectedExecutionException);
+      }
+    }
+  }
+}
@@ -0,0 +1,107 @@
+package io.temporal.internal.worker;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import com.google.common.util.concurrent.Futures;
+import io.grpc.Status;
+import io.temporal.api.common.v1.WorkflowExecution;
+import io.temporal.api.workflowservice.v1.ResetStickyTaskQueueRequest;
+import io.temporal.api.workflowservice.v1.ResetStickyTaskQueueResponse;
+import io.temporal.api.workflowservice.v1.WorkflowServiceGrpc;
+import io.temporal.serviceclient.WorkflowServiceStubs;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ShutdownManagerTest {
+  private final ShutdownManager shutdownManager = new ShutdownManager();
+  private final WorkflowServiceStubs service = mock(WorkflowServiceStubs.class);
+  private final WorkflowServiceGrpc.WorkflowServiceFutureStub futureStub =
+      mock(WorkflowServiceGrpc.WorkflowServiceFutureStub.class);
+  private final List<Long> resetTimes = new CopyOnWriteArrayList<>();
+
+  @Before
+  public void setUp() {
+    when(service.futureStub()).thenReturn(futureStub);
+  }
+
+  @After
+  public void tearDown() {
+    shutdownManager.close();
+  }
+
+  @Test
+  public void stickyTaskQueuesAreResetInBatches() throws Exception {
+    when(futureStub.resetStickyTaskQueue(any(ResetStickyTaskQueueRequest.class)))
+        .thenAnswer(
+            invocation -> {
+              resetTimes.add(System.nanoTime());
+              return Futures.immediateFuture(ResetStickyTaskQueueResponse.getDefaultInstance());
+            });
+
+    shutdownManager
+        .resetStickyTaskQueues(service, "namespace", executions(5), 2)
+        .get(10, TimeUnit.SECONDS);
+
+    verify(futureStub, times(5)).resetStickyTaskQueue(any(ResetStickyTaskQueueRequest.class));
+    // 3 batches, one per second
+    assertTrue(resetTimes.get(2) - resetTimes.get(1) >= TimeUnit.MILLISECONDS.toNanos(900));
+    assertTrue(resetTimes.get(4) - resetTimes.get(3) >= TimeUnit.MILLISECONDS.toNanos(900));
+    assertTrue(resetTimes.get(1) - resetTimes.get(0) < TimeUnit.MILLISECONDS.toNanos(900));
+  }
+
+  @Test
+  public void failedResetsDontStopTheHandoff() throws Exception {
+    when(futureStub.resetStickyTaskQueue(any(ResetStickyTaskQueueRequest.class)))
+        .thenThrow(Status.UNAVAILABLE.asRuntimeException())
+        .thenReturn(Futures.immediateFailedFuture(Status.UNIMPLEMENTED.asRuntimeException()))
+        .thenReturn(Futures.immediateFuture(ResetStickyTaskQueueResponse.getDefaultInstance()));
+
+    shutdownManager
+        .resetStickyTaskQueues(service, "namespace", executions(3), 10)
+        .get(10, TimeUnit.SECONDS);
+
+    verify(futureStub, times(3)).resetStickyTaskQueue(any(ResetStickyTaskQueueRequest.class));
+  }
+
+  @Test
+  public void completingTheFutureStopsTheResets() throws Exception {
+    when(futureStub.resetStickyTaskQueue(any(ResetStickyTaskQueueRequest.class)))
+        .thenReturn(Futures.immediateFuture(ResetStickyTaskQueueResponse.getDefaultInstance()));
+
+    CompletableFuture<Void> resets =
+        shutdownManager.resetStickyTaskQueues(service, "namespace", executions(3), 1);
+    verify(futureStub, timeout(1000)).resetStickyTaskQueue(any(ResetStickyTaskQueueRequest.class));
+    resets.complete(null);
+    Thread.sleep(1500);
+
+    verify(futureStub, times(1)).resetStickyTaskQueue(any(ResetStickyTaskQueueRequest.class));
+  }
+
+  @Test
+  public void closedManagerCompletesTheHandoff() throws Exception {
+    shutdownManager.close();
+
+    shutdownManager
+        .resetStickyTaskQueues(service, "namespace", executions(3), 1)
+        .get(10, TimeUnit.SECONDS);
+
+    verify(futureStub, never()).resetStickyTaskQueue(any(ResetStickyTaskQueueRequest.class));
+  }
+
+  private static List<WorkflowExecution> executions(int count) {
+    List<WorkflowExecution> executions = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      executions.add(
+          WorkflowExecution.newBuilder().setWorkflowId("workflow-" + i).setRunId("run").build());
+    }
+    return executions;
+  }
+}
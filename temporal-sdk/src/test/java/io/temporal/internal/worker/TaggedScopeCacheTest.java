@@ -0,0 +1,38 @@
+package io.temporal.internal.worker;
+
+import static org.junit.Assert.*;
+
+import com.uber.m3.tally.RootScopeBuilder;
+import com.uber.m3.tally.Scope;
+import com.uber.m3.util.Duration;
+import com.uber.m3.util.ImmutableMap;
+import io.temporal.common.reporter.TestStatsReporter;
+import io.temporal.serviceclient.MetricsTag;
+import org.junit.Test;
+
+public class TaggedScopeCacheTest {
+
+  private final TestStatsReporter reporter = new TestStatsReporter();
+  private final Scope scope =
+      new RootScopeBuilder().reporter(reporter).reportEvery(Duration.ofSeconds(10));
+
+  @Test
+  public void scopesAreCachedUpToMaximumSize() throws Exception {
+    TaggedScopeCache cache = new TaggedScopeCache(scope, 2);
+    Scope workflowScope = cache.forWorkflowType("workflow1");
+    assertSame(workflowScope, cache.forWorkflowType("workflow1"));
+    Scope activityScope = cache.forActivityType("activity1", "workflow1");
+    assertSame(activityScope, cache.forActivityType("activity1", "workflow1"));
+    assertNotSame(activityScope, cache.forActivityType("activity1", "workflow2"));
+    assertEquals(2, cache.size());
+
+    // over the limit the scope is still tagged correctly
+    cache.forActivityType("activity1", "workflow2").counter("counter").inc(1);
+    scope.close(); // Flush metrics
+    reporter.assertCounter(
+        "counter",
+        ImmutableMap.of(
+            MetricsTag.ACTIVITY_TYPE, "activity1", MetricsTag.WORKFLOW_TYPE, "workflow2"),
+        1);
+  }
+}
@@ -0,0 +1,45 @@
+package io.temporal.internal.worker;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+
+public class WorkflowReplayBudgetTest {
+  private final WorkflowReplayBudget replayBudget = new WorkflowReplayBudget(100);
+
+  @Test
+  public void waitingReplaysGetBudgetInOrder() {
+    List<String> replayed = new ArrayList<>();
+    assertTrue(replayBudget.tryAcquireOrEnqueue(60, () -> replayed.add("unexpected")));
+    assertFalse(replayBudget.tryAcquireOrEnqueue(50, () -> replayed.add("run2")));
+    // doesn't overtake the waiting replay even though it fits
+    assertFalse(replayBudget.tryAcquireOrEnqueue(10, () -> replayed.add("run3")));
+    assertEquals(2, replayBudget.getBacklogSize());
+
+    replayBudget.release(60);
+    assertEquals(Arrays.asList("run2", "run3"), replayed);
+    assertEquals(0, replayBudget.getBacklogSize());
+
+    replayBudget.release(50);
+    replayBudget.release(10);
+    assertTrue(replayBudget.tryAcquireOrEnqueue(100, () -> replayed.add("unexpected")));
+  }
+
+  @Test
+  public void replayExceedingBudgetRunsAlone() {
+    List<String> replayed = new ArrayList<>();
+    assertTrue(replayBudget.tryAcquireOrEnqueue(10, () -> replayed.add("unexpected")));
+    assertFalse(replayBudget.tryAcquireOrEnqueue(500, () -> replayed.add("run2")));
+
+    replayBudget.release(10);
+    assertEquals(Collections.singletonList("run2"), replayed);
+    assertFalse(replayBudget.tryAcquireOrEnqueue(10, () -> replayed.add("run3")));
+
+    replayBudget.release(500);
+    assertEquals(Arrays.asList("run2", "run3"), replayed);
+  }
+}
@@ -2,6 +2,10 @@ package io.temporal.internal.worker;
 
 import static org.junit.Assert.*;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.*;
 import org.junit.Test;
 import org.slf4j.Logger;
@@ -34,6 +38,29 @@ public class WorkflowRunLockManagerTest {
     assertArrayEquals(expectedTasks, finishedTasks.toArray(processedTasks));
   }
 
+  @Test
+  public void mailboxPassesLockInOrder() {
+    List<String> processed = new ArrayList<>();
+    assertTrue(runLockManager.tryLockOrEnqueue("run1", () -> processed.add("unexpected")));
+    assertFalse(runLockManager.tryLockOrEnqueue("run1", () -> processed.add("run1.2")));
+    assertFalse(runLockManager.tryLockOrEnqueue("run1", () -> processed.add("run1.3")));
+    assertTrue(runLockManager.tryLockOrEnqueue("run2", () -> processed.add("unexpected")));
+    // the lock is held on behalf of the enqueued tasks
+    assertFalse(runLockManager.tryLock("run1"));
+
+    runLockManager.unlock("run1");
+    assertEquals(Collections.singletonList("run1.2"), processed);
+    runLockManager.unlock("run1");
+    assertEquals(Arrays.asList("run1.2", "run1.3"), processed);
+    assertEquals(2, runLockManager.totalLocks());
+
+    runLockManager.unlock("run1");
+    runLockManager.unlock("run2");
+    assertEquals(0, runLockManager.totalLocks());
+    assertTrue(runLockManager.tryLock("run1"));
+    runLockManager.unlock("run1");
+  }
+
   private String processTask(String runId, int taskId) {
     try {
       log.info("trying to get a lock runId " + runId + " taskId " + taskId);
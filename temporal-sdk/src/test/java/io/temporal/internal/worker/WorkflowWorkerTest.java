@@ -7,6 +7,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 import com.google.protobuf.ByteString;
 import com.uber.m3.tally.NoopScope;
 import com.uber.m3.tally.RootScopeBuilder;
@@ -95,6 +96,7 @@ public class WorkflowWorkerTest {
     when(client.blockingStub()).thenReturn(blockingStub);
     when(client.futureStub()).thenReturn(futureStub);
     when(blockingStub.withOption(any(), any())).thenReturn(blockingStub);
+    when(futureStub.withOption(any(), any())).thenReturn(futureStub);
 
     PollWorkflowTaskQueueResponse pollResponse =
         PollWorkflowTaskQueueResponse.newBuilder()
@@ -134,9 +136,9 @@ public class WorkflowWorkerTest {
         .thenAnswer(
             (Answer<WorkflowTaskHandler.Result>)
                 invocation -> {
-                  // Slightly larger than the lock timeout hard coded in WorkflowWorker
+                  // Keep the other tasks of the run waiting in the mailbox for a while
                   handleTaskLatch.countDown();
-                  Thread.sleep(6000);
+                  Thread.sleep(1000);
 
                   return new WorkflowTaskHandler.Result(
                       WORKFLOW_TYPE,
@@ -154,23 +156,25 @@ public class WorkflowWorkerTest {
 
     // Mock the server responding to a workflow task complete with another workflow task
     CountDownLatch respondTaskLatch = new CountDownLatch(1);
-    when(blockingStub.respondWorkflowTaskCompleted(any(RespondWorkflowTaskCompletedRequest.class)))
+    when(futureStub.respondWorkflowTaskCompleted(any(RespondWorkflowTaskCompletedRequest.class)))
         .thenAnswer(
-            (Answer<RespondWorkflowTaskCompletedResponse>)
+            (Answer<ListenableFuture<RespondWorkflowTaskCompletedResponse>>)
                 invocation -> {
                   // verify the lock is still being held
                   assertEquals(1, runLockManager.totalLocks());
-                  return RespondWorkflowTaskCompletedResponse.newBuilder()
-                      .setWorkflowTask(pollResponse)
-                      .build();
+                  return Futures.immediateFuture(
+                      RespondWorkflowTaskCompletedResponse.newBuilder()
+                          .setWorkflowTask(pollResponse)
+                          .build());
                 })
         .thenAnswer(
-            (Answer<RespondWorkflowTaskCompletedResponse>)
+            (Answer<ListenableFuture<RespondWorkflowTaskCompletedResponse>>)
                 invocation -> {
                   // verify the lock is still being held
                   assertEquals(1, runLockManager.totalLocks());
                   respondTaskLatch.countDown();
-                  return RespondWorkflowTaskCompletedResponse.newBuilder().build();
+                  return Futures.immediateFuture(
+                      RespondWorkflowTaskCompletedResponse.newBuilder().build());
                 });
 
     assertTrue(worker.start());
@@ -185,15 +189,18 @@ public class WorkflowWorkerTest {
         Duration.ofSeconds(10),
         () -> {
           // Since all polls have the same runID only one should get through, the other two should
-          // be
-          // blocked
+          // wait in the mailbox of the run
           assertEquals(1, runLockManager.totalLocks());
           reporter.assertGauge(
               MetricsType.WORKER_TASK_SLOTS_AVAILABLE,
               ImmutableMap.of("worker_type", "WorkflowWorker"),
               97.0);
+          reporter.assertGauge(
+              MetricsType.WORKFLOW_TASK_MAILBOX_DEPTH,
+              ImmutableMap.of("worker_type", "WorkflowWorker"),
+              2.0);
         });
-    // Wait for the worker to respond, by this time the other blocked tasks should have timed out
+    // Wait for the worker to respond, after that the waiting tasks are processed one by one
     respondTaskLatch.await();
     // All slots should be available
     Eventually.assertEventually(
@@ -208,8 +215,8 @@ public class WorkflowWorkerTest {
         });
     // Cleanup
     worker.shutdown(new ShutdownManager(), false).get();
-    // Verify we only handled two tasks
-    verify(taskHandler, times(2)).handleWorkflowTask(any());
+    // Verify we handled the chain of two tasks and then the two tasks from the mailbox
+    verify(taskHandler, times(4)).handleWorkflowTask(any());
   }
 
   @Test
@@ -264,6 +271,7 @@ public class WorkflowWorkerTest {
     when(client.blockingStub()).thenReturn(blockingStub);
     when(client.futureStub()).thenReturn(futureStub);
     when(blockingStub.withOption(any(), any())).thenReturn(blockingStub);
+    when(futureStub.withOption(any(), any())).thenReturn(futureStub);
 
     PollWorkflowTaskQueueResponse pollResponse =
         PollWorkflowTaskQueueResponse.newBuilder()
@@ -306,7 +314,7 @@ public class WorkflowWorkerTest {
                       null);
                 });
 
-    when(blockingStub.respondWorkflowTaskCompleted(any(RespondWorkflowTaskCompletedRequest.class)))
+    when(futureStub.respondWorkflowTaskCompleted(any(RespondWorkflowTaskCompletedRequest.class)))
         .thenThrow(new RuntimeException());
 
     assertTrue(worker.start());
@@ -400,6 +408,10 @@ public class WorkflowWorkerTest {
         mock(WorkflowServiceGrpc.WorkflowServiceBlockingStub.class);
     when(client.blockingStub()).thenReturn(blockingStub);
     when(blockingStub.withOption(any(), any())).thenReturn(blockingStub);
+    WorkflowServiceGrpc.WorkflowServiceFutureStub futureStub =
+        mock(WorkflowServiceGrpc.WorkflowServiceFutureStub.class);
+    when(client.futureStub()).thenReturn(futureStub);
+    when(futureStub.withOption(any(), any())).thenReturn(futureStub);
 
     PollWorkflowTaskQueueResponse pollResponse =
         PollWorkflowTaskQueueResponse.newBuilder()
@@ -414,8 +426,8 @@ public class WorkflowWorkerTest {
         .thenReturn(pollResponse);
     RespondWorkflowTaskCompletedResponse workflowTaskResponse =
         RespondWorkflowTaskCompletedResponse.newBuilder().setResetHistoryEventId(1).build();
-    when(blockingStub.respondWorkflowTaskCompleted(any(RespondWorkflowTaskCompletedRequest.class)))
-        .thenReturn(workflowTaskResponse);
+    when(futureStub.respondWorkflowTaskCompleted(any(RespondWorkflowTaskCompletedRequest.class)))
+        .thenReturn(Futures.immediateFuture(workflowTaskResponse));
 
     assertTrue(worker.start());
     // Assert that the reset event id is received by WorkflowTaskHandler
@@ -0,0 +1,108 @@
+package io.temporal.worker.shutdown;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.MethodDescriptor;
+import io.temporal.api.workflowservice.v1.WorkflowServiceGrpc;
+import io.temporal.client.WorkflowClient;
+import io.temporal.serviceclient.WorkflowServiceStubsOptions;
+import io.temporal.testing.internal.SDKTestWorkflowRule;
+import io.temporal.worker.WorkerFactory;
+import io.temporal.worker.WorkerFactoryOptions;
+import io.temporal.workflow.Workflow;
+import io.temporal.workflow.shared.TestWorkflows;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Rule;
+import org.junit.Test;
+
+/**
+ * Tests that the gradual handoff of the cached workflows started by {@link
+ * WorkerFactory#shutdown()} doesn't prevent the termination of the factory, and that the sticky
+ * task queue is shut down at once if the handoff is aborted.
+ */
+public class StickyCacheHandoffShutdownTest {
+  private static CountDownLatch started;
+  private final ShutdownWorkerCounter shutdownWorkerCalls = new ShutdownWorkerCounter();
+
+  @Rule
+  public SDKTestWorkflowRule testWorkflowRule =
+      SDKTestWorkflowRule.newBuilder()
+          .setWorkflowServiceStubsOptions(
+              WorkflowServiceStubsOptions.newBuilder()
+                  .setGrpcClientInterceptors(Collections.singletonList(shutdownWorkerCalls))
+                  .build())
+          .setWorkflowTypes(TestWorkflowImpl.class)
+          .setWorkerFactoryOptions(
+              WorkerFactoryOptions.newBuilder().setStickyCacheHandoffRate(1).build())
+          .build();
+
+  @Test
+  public void handoffCompletesTermination() throws InterruptedException {
+    startWorkflows(3);
+    WorkerFactory workerFactory = testWorkflowRule.getTestEnvironment().getWorkerFactory();
+    long startTime = System.currentTimeMillis();
+    workerFactory.shutdown();
+    workerFactory.awaitTermination(30, TimeUnit.SECONDS);
+    // the resets of the 3 cached workflows are spread over 3 batches, one per second, even if they
+    // fail
+    assertTrue(workerFactory.isTerminated());
+    assertTrue(System.currentTimeMillis() - startTime >= 1800);
+    // the handoff replaces the ShutdownWorker call
+    assertEquals(0, shutdownWorkerCalls.count.get());
+  }
+
+  @Test
+  public void shutdownNowAbortsHandoff() throws InterruptedException {
+    startWorkflows(10);
+    WorkerFactory workerFactory = testWorkflowRule.getTestEnvironment().getWorkerFactory();
+    workerFactory.shutdown();
+    workerFactory.shutdownNow();
+    // the handoff of the 10 cached workflows would take at least 9 seconds
+    workerFactory.awaitTermination(5, TimeUnit.SECONDS);
+    assertTrue(workerFactory.isTerminated());
+    // the runs the handoff didn't get to are redirected by the ShutdownWorker call
+    assertTrue(shutdownWorkerCalls.called.await(5, TimeUnit.SECONDS));
+    assertEquals(1, shutdownWorkerCalls.count.get());
+  }
+
+  private void startWorkflows(int count) throws InterruptedException {
+    started = new CountDownLatch(count);
+    for (int i = 0; i < count; i++) {
+      TestWorkflows.NoArgsWorkflow workflow =
+          testWorkflowRule.newWorkflowStub(TestWorkflows.NoArgsWorkflow.class);
+      WorkflowClient.start(workflow::execute);
+    }
+    started.await();
+  }
+
+  private static class ShutdownWorkerCounter implements ClientInterceptor {
+    private final AtomicInteger count = new AtomicInteger();
+    private final CountDownLatch called = new CountDownLatch(1);
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
+        MethodDescriptor<ReqT, RespT> method, CallOptions callOptions, Channel next) {
+      if (method == WorkflowServiceGrpc.getShutdownWorkerMethod()) {
+        count.incrementAndGet();
+        called.countDown();
+      }
+      return next.newCall(method, callOptions);
+    }
+  }
+
+  public static class TestWorkflowImpl implements TestWorkflows.NoArgsWorkflow {
+    @Override
+    public void execute() {
+      started.countDown();
+      Workflow.await(() -> false);
+    }
+  }
+}
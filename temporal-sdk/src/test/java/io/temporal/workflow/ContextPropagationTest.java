@@ -8,6 +8,7 @@ import io.temporal.api.common.v1.Payload;
 import io.temporal.client.WorkflowClient;
 import io.temporal.client.WorkflowClientOptions;
 import io.temporal.client.WorkflowOptions;
+import io.temporal.client.WorkflowStub;
 import io.temporal.common.context.ContextPropagator;
 import io.temporal.common.converter.DefaultDataConverter;
 import io.temporal.internal.testing.WorkflowTestingTest;
@@ -17,7 +18,9 @@ import io.temporal.worker.Worker;
 import io.temporal.workflow.shared.TestActivities;
 import io.temporal.workflow.shared.TestWorkflows;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import org.junit.After;
 import org.junit.Before;
@@ -208,6 +211,24 @@ public class ContextPropagationTest {
     assertEquals("testing123", result);
   }
 
+  @Test
+  public void testSignalHandlersOfOneWorkflowTaskContextPropagation() {
+    Worker worker = testEnvironment.newWorker(TASK_QUEUE);
+    worker.registerWorkflowImplementationTypes(ContextPropagationSignalWorkflowImpl.class);
+    MDC.put("test", "testing123");
+    WorkflowClient client = testEnvironment.getWorkflowClient();
+    WorkflowOptions options = WorkflowOptions.newBuilder().setTaskQueue(TASK_QUEUE).build();
+    TestWorkflows.TestSignaledWorkflow workflow =
+        client.newWorkflowStub(TestWorkflows.TestSignaledWorkflow.class, options);
+    WorkflowClient.start(workflow::execute);
+    // both signals are delivered in the first workflow task, as the worker is not polling yet
+    workflow.signal("signal1");
+    workflow.signal("signal2");
+    testEnvironment.start();
+    String result = WorkflowStub.fromTyped(workflow).getResult(String.class);
+    assertEquals("testing123,testing123,asynctesting123,asynctesting123", result);
+  }
+
   @WorkflowInterface
   public interface ParentWorkflow {
     @WorkflowMethod
@@ -312,6 +333,30 @@ public class ContextPropagationTest {
     public void signal(String value) {}
   }
 
+  public static class ContextPropagationSignalWorkflowImpl
+      implements TestWorkflows.TestSignaledWorkflow {
+    private final List<String> handlerContexts = new ArrayList<>();
+    private final List<Promise<String>> asyncContexts = new ArrayList<>();
+
+    @Override
+    public String execute() {
+      Workflow.await(() -> handlerContexts.size() == 2);
+      List<String> result = new ArrayList<>(handlerContexts);
+      for (Promise<String> asyncContext : asyncContexts) {
+        result.add(asyncContext.get());
+      }
+      return String.join(",", result);
+    }
+
+    @Override
+    public void signal(String arg) {
+      handlerContexts.add(MDC.get("test"));
+      asyncContexts.add(Async.function(() -> "async" + MDC.get("test")));
+      // the next handler has to get the context propagated again, not inherit it from this one
+      MDC.remove("test");
+    }
+  }
+
   public static class ContextPropagationChildWorkflowImpl implements TestWorkflows.TestWorkflow2 {
 
     @Override
@@ -0,0 +1,124 @@
+package io.temporal.workflow.queryTests;
+
+import static org.junit.Assert.*;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.MethodDescriptor;
+import io.temporal.api.workflowservice.v1.WorkflowServiceGrpc;
+import io.temporal.client.WorkflowOptions;
+import io.temporal.serviceclient.WorkflowServiceStubsOptions;
+import io.temporal.testing.internal.SDKTestOptions;
+import io.temporal.testing.internal.SDKTestWorkflowRule;
+import io.temporal.worker.WorkerFactoryOptions;
+import io.temporal.workflow.Async;
+import io.temporal.workflow.Workflow;
+import io.temporal.workflow.shared.TestWorkflows;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+/** Verifies that the final state of a closed workflow is kept to answer repeated queries. */
+public class ClosedWorkflowQueryTest {
+
+  private static final AtomicInteger workflowCodeExecutionCount = new AtomicInteger();
+  private static final GetHistoryCallCounter GET_HISTORY_CALL_COUNTER =
+      new GetHistoryCallCounter();
+
+  @Rule
+  public SDKTestWorkflowRule testWorkflowRule =
+      SDKTestWorkflowRule.newBuilder()
+          .setWorkflowServiceStubsOptions(
+              WorkflowServiceStubsOptions.newBuilder()
+                  .setGrpcClientInterceptors(Collections.singletonList(GET_HISTORY_CALL_COUNTER))
+                  .build())
+          .setWorkerFactoryOptions(
+              WorkerFactoryOptions.newBuilder().setClosedWorkflowCacheSize(10).build())
+          .setWorkflowTypes(TestWorkflowImpl.class)
+          .build();
+
+  @Before
+  public void setUp() {
+    workflowCodeExecutionCount.set(0);
+  }
+
+  @Test
+  public void repeatedQueryOfClosedWorkflowIsAnsweredWithoutReplay() throws InterruptedException {
+    String workflowId = UUID.randomUUID().toString();
+    WorkflowOptions options =
+        SDKTestOptions.newWorkflowOptionsWithTimeouts(testWorkflowRule.getTaskQueue()).toBuilder()
+            .setWorkflowId(workflowId)
+            .build();
+    TestWorkflows.TestWorkflowWithQuery workflow =
+        testWorkflowRule
+            .getWorkflowClient()
+            .newWorkflowStub(TestWorkflows.TestWorkflowWithQuery.class, options);
+    assertEquals("done", workflow.execute());
+    assertEquals(1, workflowCodeExecutionCount.get());
+
+    assertEquals("done", workflow.query());
+    assertEquals(
+        "There were two executions - one original and one full replay for the first query.",
+        2,
+        workflowCodeExecutionCount.get());
+    int getHistoryCalls = GET_HISTORY_CALL_COUNTER.count.get();
+
+    assertEquals("done", workflow.query());
+    assertEquals(
+        "The second query is answered from the kept state.", 2, workflowCodeExecutionCount.get());
+    assertEquals(getHistoryCalls, GET_HISTORY_CALL_COUNTER.count.get());
+    assertNoWorkflowThreads(workflowId);
+  }
+
+  private static void assertNoWorkflowThreads(String workflowId) throws InterruptedException {
+    // the threads of a closed workflow are destroyed asynchronously
+    long deadline = System.currentTimeMillis() + 5000;
+    while (hasWorkflowThreads(workflowId)) {
+      if (System.currentTimeMillis() > deadline) {
+        fail("Workflow threads of the closed workflow are still alive");
+      }
+      Thread.sleep(50);
+    }
+  }
+
+  private static boolean hasWorkflowThreads(String workflowId) {
+    return Thread.getAllStackTraces().keySet().stream()
+        .anyMatch(t -> t.getName().contains(workflowId));
+  }
+
+  public static class TestWorkflowImpl implements TestWorkflows.TestWorkflowWithQuery {
+    private String state = "running";
+
+    @Override
+    public String execute() {
+      workflowCodeExecutionCount.incrementAndGet();
+      // left blocked when the workflow completes
+      Async.procedure(() -> Workflow.await(() -> false));
+      state = "done";
+      return state;
+    }
+
+    @Override
+    public String query() {
+      return state;
+    }
+  }
+
+  private static class GetHistoryCallCounter implements ClientInterceptor {
+    private final AtomicInteger count = new AtomicInteger();
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
+        MethodDescriptor<ReqT, RespT> method, CallOptions callOptions, Channel next) {
+      if (method == WorkflowServiceGrpc.getGetWorkflowExecutionHistoryMethod()) {
+        count.incrementAndGet();
+      }
+      return next.newCall(method, callOptions);
+    }
+  }
+}
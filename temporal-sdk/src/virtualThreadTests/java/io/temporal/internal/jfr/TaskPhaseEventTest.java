@@ -0,0 +1,48 @@
+package io.temporal.internal.jfr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TaskPhaseEventTest {
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void taskPhaseEventIsCommitted() throws Exception {
+    Path file = folder.newFile("recording.jfr").toPath();
+    try (Recording recording = new Recording()) {
+      recording.enable("io.temporal.TaskPhase").withThreshold(Duration.ZERO);
+      recording.start();
+
+      TaskPhaseRecording phase = JfrDelegate.begin(TaskPhase.REPLAY);
+      assertNotSame(TaskPhaseRecording.NOOP, phase);
+      phase.end("workflowType", "runId");
+
+      recording.stop();
+      recording.dump(file);
+    }
+
+    List<RecordedEvent> events =
+        RecordingFile.readAllEvents(file).stream()
+            .filter(e -> e.getEventType().getName().equals("io.temporal.TaskPhase"))
+            .collect(Collectors.toList());
+    assertEquals(1, events.size());
+    RecordedEvent event = events.get(0);
+    assertEquals(TaskPhase.REPLAY.name(), event.getString("phase"));
+    assertEquals("workflowType", event.getString("workflowType"));
+    assertNull(event.getString("activityType"));
+    assertEquals("runId", event.getString("runId"));
+  }
+}
@@ -4,13 +4,20 @@ import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
+import org.springframework.stereotype.Indexed;
 
 /**
  * Enables the Workflow implementation class to be discovered by the Workers auto-discovery. This
  * annotation is not needed if only an explicit config is used.
+ *
+ * <p>The annotated classes are recorded in the build-time index of candidate components generated
+ * by {@code org.springframework:spring-context-indexer}. If the application is built with the
+ * indexer annotation processor, the Workers auto-discovery reads the index instead of scanning the
+ * classpath of the configured packages on startup.
  */
 @Retention(RetentionPolicy.RUNTIME)
 @Target({ElementType.TYPE})
+@Indexed
 public @interface WorkflowImpl {
   /**
    * @return names of Workers to register this workflow implementation with. Workers with these
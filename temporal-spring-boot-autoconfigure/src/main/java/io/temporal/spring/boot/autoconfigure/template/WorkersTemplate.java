@@ -316,11 +316,22 @@ public class WorkersTemplate implements BeanFactoryAware, EnvironmentAware {
   }
 
   private Collection<Class<?>> autoDiscoverWorkflowImplementations() {
+    return findWorkflowImplementations(
+        environment, namespaceProperties.getWorkersAutoDiscovery().getPackages());
+  }
+
+  /**
+   * Finds the classes annotated with {@link WorkflowImpl} in {@code packages}. If the classpath has
+   * a build-time component index (META-INF/spring.components), the classes are looked up in the
+   * index instead of scanning the packages.
+   */
+  static Collection<Class<?>> findWorkflowImplementations(
+      Environment environment, Collection<String> packages) {
     ClassPathScanningCandidateComponentProvider scanner =
         new ClassPathScanningCandidateComponentProvider(false, environment);
     scanner.addIncludeFilter(new AnnotationTypeFilter(WorkflowImpl.class));
     Set<Class<?>> implementations = new HashSet<>();
-    for (String pckg : namespaceProperties.getWorkersAutoDiscovery().getPackages()) {
+    for (String pckg : packages) {
       Set<BeanDefinition> candidateComponents = scanner.findCandidateComponents(pckg);
       for (BeanDefinition beanDefinition : candidateComponents) {
         try {
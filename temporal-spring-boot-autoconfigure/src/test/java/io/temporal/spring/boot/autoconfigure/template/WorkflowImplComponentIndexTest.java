@@ -0,0 +1,70 @@
+package io.temporal.spring.boot.autoconfigure.template;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import io.temporal.spring.boot.autoconfigure.template.componentindex.IndexedWorkflowImpl;
+import io.temporal.spring.boot.autoconfigure.template.componentindex.UnindexedWorkflowImpl;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.index.CandidateComponentsIndexLoader;
+import org.springframework.core.env.StandardEnvironment;
+
+/**
+ * Tests that the Workers auto-discovery looks up the {@code @WorkflowImpl} classes in the
+ * build-time component index when the classpath has one. The fixture index lists only one of the
+ * two annotated classes of the package, so a class missing from the result shows that the package
+ * wasn't scanned.
+ */
+public class WorkflowImplComponentIndexTest {
+  private static final String PACKAGE =
+      "io.temporal.spring.boot.autoconfigure.template.componentindex";
+  private static final String INDEX_FIXTURE = "component-index/META-INF/spring.components";
+
+  @Test
+  public void withoutIndexThePackageIsScanned() {
+    assertEquals(
+        new HashSet<>(Arrays.asList(IndexedWorkflowImpl.class, UnindexedWorkflowImpl.class)),
+        new HashSet<>(findWorkflowImplementations()));
+  }
+
+  @Test
+  public void withIndexTheIndexIsUsed() {
+    Thread thread = Thread.currentThread();
+    ClassLoader classLoader = thread.getContextClassLoader();
+    // the scanner loads the index through the context class loader
+    thread.setContextClassLoader(new IndexFixtureClassLoader(classLoader));
+    try {
+      assertEquals(
+          Collections.singleton(IndexedWorkflowImpl.class),
+          new HashSet<>(findWorkflowImplementations()));
+    } finally {
+      thread.setContextClassLoader(classLoader);
+    }
+  }
+
+  private static Collection<Class<?>> findWorkflowImplementations() {
+    return WorkersTemplate.findWorkflowImplementations(
+        new StandardEnvironment(), Collections.singletonList(PACKAGE));
+  }
+
+  /** Exposes the index fixture as the component index of the classpath. */
+  private static final class IndexFixtureClassLoader extends ClassLoader {
+    private IndexFixtureClassLoader(ClassLoader parent) {
+      super(parent);
+    }
+
+    @Override
+    public Enumeration<URL> getResources(String name) throws IOException {
+      if (CandidateComponentsIndexLoader.COMPONENTS_RESOURCE_LOCATION.equals(name)) {
+        return getParent().getResources(INDEX_FIXTURE);
+      }
+      return super.getResources(name);
+    }
+  }
+}
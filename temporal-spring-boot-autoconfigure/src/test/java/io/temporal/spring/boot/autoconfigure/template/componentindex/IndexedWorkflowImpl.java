@@ -0,0 +1,7 @@
+package io.temporal.spring.boot.autoconfigure.template.componentindex;
+
+import io.temporal.spring.boot.WorkflowImpl;
+
+/** Listed in the component index fixture. */
+@WorkflowImpl(taskQueues = "ComponentIndex")
+public class IndexedWorkflowImpl {}
@@ -0,0 +1,7 @@
+package io.temporal.spring.boot.autoconfigure.template.componentindex;
+
+import io.temporal.spring.boot.WorkflowImpl;
+
+/** Missing from the component index fixture, so it's found only by scanning the classpath. */
+@WorkflowImpl(taskQueues = "ComponentIndex")
+public class UnindexedWorkflowImpl {}
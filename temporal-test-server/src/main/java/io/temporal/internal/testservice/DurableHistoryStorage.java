@@ -0,0 +1,362 @@
+package io.temporal.internal.testservice;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import io.grpc.Status;
+import io.temporal.api.common.v1.WorkflowExecution;
+import io.temporal.api.history.v1.HistoryEvent;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append-only storage of history events in memory-mapped segment files.
+ *
+ * <p>Each record of a segment is {@code [int length][byte kind][body]}. An execution record
+ * assigns a segment-independent local id to an {@link ExecutionId}, an event record holds the
+ * local id of its execution followed by the serialized {@link HistoryEvent}. The length is written
+ * after the body, so a record that was not fully written before a crash reads as the end of the
+ * segment. Only the positions of the events are kept on heap, the events themselves are
+ * deserialized on demand.
+ */
+final class DurableHistoryStorage implements Closeable {
+  private static final Logger log = LoggerFactory.getLogger(DurableHistoryStorage.class);
+
+  static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+  private static final String SEGMENT_PREFIX = "history-";
+  private static final String SEGMENT_SUFFIX = ".segment";
+  private static final byte EXECUTION_RECORD = 1;
+  private static final byte EVENT_RECORD = 2;
+  private static final int LENGTH_SIZE = Integer.BYTES;
+
+  private static final class StoredExecution {
+    private final int localId;
+    // (segment index << 32) | offset of the event body
+    private long[] positions = new long[8];
+    private int[] lengths = new int[8];
+    private int size;
+
+    private StoredExecution(int localId) {
+      this.localId = localId;
+    }
+
+    private void add(long position, int length) {
+      if (size == positions.length) {
+        positions = Arrays.copyOf(positions, size * 2);
+        lengths = Arrays.copyOf(lengths, size * 2);
+      }
+      positions[size] = position;
+      lengths[size] = length;
+      size++;
+    }
+  }
+
+  private final Path directory;
+  private final int segmentSize;
+  private final Lock lock = new ReentrantLock();
+  private final List<MappedByteBuffer> segments = new ArrayList<>();
+  private final Map<ExecutionId, StoredExecution> executions = new LinkedHashMap<>();
+  private final List<StoredExecution> executionsByLocalId = new ArrayList<>();
+  private MappedByteBuffer current;
+  private boolean closed;
+
+  /**
+   * Opens the storage in the {@code directory} and recovers the index of the events already
+   * written to it.
+   */
+  DurableHistoryStorage(Path directory) {
+    this(directory, DEFAULT_SEGMENT_SIZE);
+  }
+
+  DurableHistoryStorage(Path directory, int segmentSize) {
+    this.directory = directory;
+    this.segmentSize = segmentSize;
+    try {
+      Files.createDirectories(directory);
+      List<Path> segmentFiles;
+      try (Stream<Path> files = Files.list(directory)) {
+        segmentFiles =
+            files
+                .filter(
+                    f -> {
+                      String name = f.getFileName().toString();
+                      return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                    })
+                .sorted()
+                .collect(Collectors.toList());
+      }
+      for (Path segmentFile : segmentFiles) {
+        recoverSegment(map(segmentFile, Files.size(segmentFile)));
+      }
+      if (current != null) {
+        clearTail(current);
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to open history storage in " + directory, e);
+    }
+    if (!executions.isEmpty()) {
+      log.info("Recovered {} workflow executions from {}", executions.size(), directory);
+    }
+  }
+
+  /**
+   * @return ids of the stored executions in the order they were first written
+   */
+  List<ExecutionId> getExecutionIds() {
+    lock.lock();
+    try {
+      return new ArrayList<>(executions.keySet());
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  int getEventCount(ExecutionId executionId) {
+    lock.lock();
+    try {
+      StoredExecution execution = executions.get(executionId);
+      return execution == null ? 0 : execution.size;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  void append(ExecutionId executionId, HistoryEvent event) {
+    lock.lock();
+    try {
+      if (closed) {
+        throw new IllegalStateException("History storage in " + directory + " is closed");
+      }
+      StoredExecution execution = executions.get(executionId);
+      if (execution == null) {
+        execution = new StoredExecution(executionsByLocalId.size());
+        writeExecutionRecord(execution.localId, executionId);
+        executions.put(executionId, execution);
+        executionsByLocalId.add(execution);
+      }
+      byte[] serialized = event.toByteArray();
+      ByteBuffer body = reserve(1 + Integer.BYTES + serialized.length);
+      int recordStart = body.position() - LENGTH_SIZE;
+      body.put(EVENT_RECORD).putInt(execution.localId);
+      int eventOffset = body.position();
+      body.put(serialized);
+      commit(recordStart, body.position());
+      execution.add(position(segments.size() - 1, eventOffset), serialized.length);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  HistoryEvent read(ExecutionId executionId, int index) {
+    lock.lock();
+    try {
+      StoredExecution execution = executions.get(executionId);
+      if (execution == null || index < 0 || index >= execution.size) {
+        throw new IndexOutOfBoundsException(executionId + ", event index: " + index);
+      }
+      return readEvent(execution, index);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * @return all the events of the execution
+   */
+  List<HistoryEvent> readAll(ExecutionId executionId) {
+    lock.lock();
+    try {
+      StoredExecution execution = executions.get(executionId);
+      if (execution == null) {
+        return Collections.emptyList();
+      }
+      List<HistoryEvent> result = new ArrayList<>(execution.size);
+      for (int i = 0; i < execution.size; i++) {
+        result.add(readEvent(execution, i));
+      }
+      return result;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Forces all the segments to the disk. The storage can't be appended to after it is closed. */
+  @Override
+  public void close() {
+    lock.lock();
+    try {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      for (MappedByteBuffer segment : segments) {
+        segment.force();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private HistoryEvent readEvent(StoredExecution execution, int index) {
+    long position = execution.positions[index];
+    ByteBuffer buffer = segments.get((int) (position >>> 32)).duplicate();
+    int offset = (int) position;
+    buffer.limit(offset + execution.lengths[index]).position(offset);
+    try {
+      return HistoryEvent.parseFrom(buffer);
+    } catch (InvalidProtocolBufferException e) {
+      throw Status.INTERNAL
+          .withDescription("Corrupted history storage in " + directory)
+          .withCause(e)
+          .asRuntimeException();
+    }
+  }
+
+  private void writeExecutionRecord(int localId, ExecutionId executionId) {
+    WorkflowExecution execution = executionId.getExecution();
+    byte[] namespace = executionId.getNamespace().getBytes(StandardCharsets.UTF_8);
+    byte[] workflowId = execution.getWorkflowId().getBytes(StandardCharsets.UTF_8);
+    byte[] runId = execution.getRunId().getBytes(StandardCharsets.UTF_8);
+    ByteBuffer body =
+        reserve(1 + Integer.BYTES * 4 + namespace.length + workflowId.length + runId.length);
+    int recordStart = body.position() - LENGTH_SIZE;
+    body.put(EXECUTION_RECORD).putInt(localId);
+    putBytes(body, namespace);
+    putBytes(body, workflowId);
+    putBytes(body, runId);
+    commit(recordStart, body.position());
+  }
+
+  /**
+   * @return the current segment positioned after the length of a new record, with at least {@code
+   *     bodyLength} bytes remaining
+   */
+  private ByteBuffer reserve(int bodyLength) {
+    int recordLength = LENGTH_SIZE + bodyLength;
+    // the zero length that terminates the segment data must always fit
+    if (current == null || current.remaining() < recordLength + LENGTH_SIZE) {
+      if (current != null) {
+        current.force();
+      }
+      int size = Math.max(segmentSize, recordLength + LENGTH_SIZE);
+      Path segmentFile =
+          directory.resolve(
+              String.format("%s%08d%s", SEGMENT_PREFIX, segments.size(), SEGMENT_SUFFIX));
+      try {
+        current = map(segmentFile, size);
+      } catch (IOException e) {
+        throw Status.INTERNAL
+            .withDescription("Unable to create history segment " + segmentFile)
+            .withCause(e)
+            .asRuntimeException();
+      }
+      segments.add(current);
+    }
+    current.position(current.position() + LENGTH_SIZE);
+    return current;
+  }
+
+  /** Publishes the record by writing its length after the body. */
+  private void commit(int recordStart, int recordEnd) {
+    current.putInt(recordStart, recordEnd - recordStart - LENGTH_SIZE);
+  }
+
+  private void recoverSegment(MappedByteBuffer segment) {
+    int segmentIndex = segments.size();
+    segments.add(segment);
+    current = segment;
+    while (segment.remaining() >= LENGTH_SIZE) {
+      int recordStart = segment.position();
+      int length = segment.getInt();
+      if (length <= 0 || length > segment.remaining()) {
+        segment.position(recordStart);
+        break;
+      }
+      int recordEnd = segment.position() + length;
+      byte kind = segment.get();
+      int localId = segment.getInt();
+      if (kind == EXECUTION_RECORD) {
+        String namespace = getString(segment);
+        String workflowId = getString(segment);
+        String runId = getString(segment);
+        StoredExecution execution = new StoredExecution(localId);
+        executions.put(new ExecutionId(namespace, workflowId, runId), execution);
+        executionsByLocalId.add(execution);
+      } else if (kind == EVENT_RECORD) {
+        executionsByLocalId
+            .get(localId)
+            .add(position(segmentIndex, segment.position()), recordEnd - segment.position());
+      } else {
+        throw new IllegalStateException(
+            "Unknown record kind " + kind + " at " + recordStart + " of segment " + segmentIndex);
+      }
+      segment.position(recordEnd);
+    }
+  }
+
+  /**
+   * Zeroes the segment after its last complete record. The next record is written over the record
+   * torn by a crash, the bytes of the torn record left after it would be read as the next record
+   * by the following recovery.
+   */
+  private static void clearTail(MappedByteBuffer segment) {
+    int start = segment.position();
+    boolean cleared = false;
+    int i = start;
+    for (; i + Long.BYTES <= segment.limit(); i += Long.BYTES) {
+      if (segment.getLong(i) != 0) {
+        segment.putLong(i, 0);
+        cleared = true;
+      }
+    }
+    for (; i < segment.limit(); i++) {
+      if (segment.get(i) != 0) {
+        segment.put(i, (byte) 0);
+        cleared = true;
+      }
+    }
+    if (cleared) {
+      segment.force();
+    }
+  }
+
+  private static MappedByteBuffer map(Path file, long size) throws IOException {
+    try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw");
+        FileChannel channel = raf.getChannel()) {
+      // the mapping stays valid after the channel is closed
+      return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+  }
+
+  private static long position(int segmentIndex, int offset) {
+    return ((long) segmentIndex << 32) | (offset & 0xFFFFFFFFL);
+  }
+
+  private static void putBytes(ByteBuffer buffer, byte[] bytes) {
+    buffer.putInt(bytes.length).put(bytes);
+  }
+
+  private static String getString(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.getInt()];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,82 @@
+package io.temporal.internal.testservice;
+
+import io.temporal.api.history.v1.HistoryEvent;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Append-only log of history events of a single workflow execution.
+ *
+ * <p>Events are stored in fixed size chunks that are never reallocated or modified after an event
+ * is written, so {@link #snapshot()} is O(1) and the returned list stays valid and unchanged while
+ * the log keeps growing. Appends must be externally synchronized. A snapshot taken under the same
+ * lock as the appends can be read without any locking afterwards.
+ */
+final class HistoryEventLog {
+  private static final int CHUNK_SIZE = 256;
+
+  private HistoryEvent[][] chunks = new HistoryEvent[0][];
+  private int size;
+
+  void add(HistoryEvent event) {
+    int chunkIndex = size / CHUNK_SIZE;
+    if (chunkIndex == chunks.length) {
+      // only the array of chunk references is copied, chunks themselves are shared with snapshots
+      chunks = Arrays.copyOf(chunks, chunks.length + 1);
+      chunks[chunkIndex] = new HistoryEvent[CHUNK_SIZE];
+    }
+    chunks[chunkIndex][size % CHUNK_SIZE] = event;
+    size++;
+  }
+
+  int size() {
+    return size;
+  }
+
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  HistoryEvent get(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+    }
+    return chunks[index / CHUNK_SIZE][index % CHUNK_SIZE];
+  }
+
+  HistoryEvent getLast() {
+    return get(size - 1);
+  }
+
+  /**
+   * @return immutable view of the events currently in the log
+   */
+  List<HistoryEvent> snapshot() {
+    return new Snapshot(chunks, size);
+  }
+
+  private static final class Snapshot extends AbstractList<HistoryEvent> implements RandomAccess {
+    private final HistoryEvent[][] chunks;
+    private final int size;
+
+    private Snapshot(HistoryEvent[][] chunks, int size) {
+      this.chunks = chunks;
+      this.size = size;
+    }
+
+    @Override
+    public HistoryEvent get(int index) {
+      if (index < 0 || index >= size) {
+        throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+      }
+      return chunks[index / CHUNK_SIZE][index % CHUNK_SIZE];
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+  }
+}
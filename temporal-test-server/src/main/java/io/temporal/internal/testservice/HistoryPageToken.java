@@ -0,0 +1,61 @@
+package io.temporal.internal.testservice;
+
+import com.google.protobuf.ByteString;
+import io.grpc.Status;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/** Next page token of {@code GetWorkflowExecutionHistory} responses. */
+final class HistoryPageToken {
+
+  private final long nextEventId;
+  private final long lastEventId;
+
+  /**
+   * @param nextEventId id of the first event of the next page
+   * @param lastEventId id of the last event to return in the pagination sequence, 0 if all the
+   *     events of the execution should be returned
+   */
+  HistoryPageToken(long nextEventId, long lastEventId) {
+    this.nextEventId = nextEventId;
+    this.lastEventId = lastEventId;
+  }
+
+  long getNextEventId() {
+    return nextEventId;
+  }
+
+  long getLastEventId() {
+    return lastEventId;
+  }
+
+  ByteString toBytes() {
+    ByteArrayOutputStream bout = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bout);
+    try {
+      out.writeLong(nextEventId);
+      out.writeLong(lastEventId);
+    } catch (IOException e) {
+      throw Status.INTERNAL.withCause(e).withDescription(e.getMessage()).asRuntimeException();
+    }
+    return ByteString.copyFrom(bout.toByteArray());
+  }
+
+  static HistoryPageToken fromBytes(ByteString serialized) {
+    ByteArrayInputStream bin = new ByteArrayInputStream(serialized.toByteArray());
+    DataInputStream in = new DataInputStream(bin);
+    try {
+      long nextEventId = in.readLong();
+      long lastEventId = in.readLong();
+      return new HistoryPageToken(nextEventId, lastEventId);
+    } catch (IOException e) {
+      throw Status.INVALID_ARGUMENT
+          .withDescription("Failure parsing history next page token")
+          .withCause(e)
+          .asRuntimeException();
+    }
+  }
+}
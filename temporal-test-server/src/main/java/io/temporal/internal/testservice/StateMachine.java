@@ -168,6 +168,14 @@ final class StateMachine<Data> {
     return data;
   }
 
+  /**
+   * Sets the state without a transition. Used only to recover the state of an execution from its
+   * history, the data has to be recovered by the caller.
+   */
+  void recover(State state) {
+    this.state = state;
+  }
+
   /**
    * Registers a transition between states.
    *
@@ -1552,42 +1552,59 @@ class StateMachines {
     }
     long scheduledEventId = ctx.addEvent(event.build());
 
+    ActivityTask activityTask =
+        newActivityTask(
+            ctx.getExecutionId(),
+            ctx.getWorkflowMutableState().getStartRequest(),
+            data.scheduledEvent,
+            ctx.currentTime());
+    ctx.addActivityTask(activityTask);
+    ctx.onCommit(
+        (historySize) -> {
+          data.scheduledEventId = scheduledEventId;
+          data.activityTask = activityTask;
+          data.retryState = retryState;
+        });
+  }
+
+  /**
+   * Creates the task that dispatches the first attempt of an activity to the workers.
+   *
+   * @param scheduledTime time the activity was scheduled
+   */
+  static ActivityTask newActivityTask(
+      ExecutionId executionId,
+      StartWorkflowExecutionRequest startRequest,
+      ActivityTaskScheduledEventAttributes scheduledEvent,
+      Timestamp scheduledTime) {
     PollActivityTaskQueueResponse.Builder taskResponse =
         PollActivityTaskQueueResponse.newBuilder()
-            .setWorkflowNamespace(ctx.getNamespace())
-            .setWorkflowType(data.startWorkflowExecutionRequest.getWorkflowType())
-            .setActivityType(d.getActivityType())
-            .setWorkflowExecution(ctx.getExecution())
-            .setActivityId(d.getActivityId())
-            .setInput(d.getInput())
-            .setHeartbeatTimeout(d.getHeartbeatTimeout())
-            .setScheduleToCloseTimeout(d.getScheduleToCloseTimeout())
-            .setStartToCloseTimeout(d.getStartToCloseTimeout())
-            .setScheduledTime(ctx.currentTime())
-            .setCurrentAttemptScheduledTime(ctx.currentTime())
-            .setHeader(d.getHeader())
+            .setWorkflowNamespace(executionId.getNamespace())
+            .setWorkflowType(startRequest.getWorkflowType())
+            .setActivityType(scheduledEvent.getActivityType())
+            .setWorkflowExecution(executionId.getExecution())
+            .setActivityId(scheduledEvent.getActivityId())
+            .setInput(scheduledEvent.getInput())
+            .setHeartbeatTimeout(scheduledEvent.getHeartbeatTimeout())
+            .setScheduleToCloseTimeout(scheduledEvent.getScheduleToCloseTimeout())
+            .setStartToCloseTimeout(scheduledEvent.getStartToCloseTimeout())
+            .setScheduledTime(scheduledTime)
+            .setCurrentAttemptScheduledTime(scheduledTime)
+            .setHeader(scheduledEvent.getHeader())
             .setAttempt(1);
 
     // If the activity has a priority, use it. Otherwise, use the priority of the workflow.
     Priority p =
         mergePriorities(
-            ctx.getWorkflowMutableState().getStartRequest().hasPriority()
-                ? ctx.getWorkflowMutableState().getStartRequest().getPriority()
-                : null,
-            d.hasPriority() ? d.getPriority() : null);
+            startRequest.hasPriority() ? startRequest.getPriority() : null,
+            scheduledEvent.hasPriority() ? scheduledEvent.getPriority() : null);
     if (p != null) {
       taskResponse.setPriority(p);
     }
 
-    TaskQueueId taskQueueId = new TaskQueueId(ctx.getNamespace(), d.getTaskQueue().getName());
-    ActivityTask activityTask = new ActivityTask(taskQueueId, taskResponse);
-    ctx.addActivityTask(activityTask);
-    ctx.onCommit(
-        (historySize) -> {
-          data.scheduledEventId = scheduledEventId;
-          data.activityTask = activityTask;
-          data.retryState = retryState;
-        });
+    TaskQueueId taskQueueId =
+        new TaskQueueId(executionId.getNamespace(), scheduledEvent.getTaskQueue().getName());
+    return new ActivityTask(taskQueueId, taskResponse);
   }
 
   private static void requestActivityCancellation(
@@ -1624,26 +1641,37 @@ class StateMachines {
             .setWorkflowTaskScheduledEventAttributes(a)
             .build();
     scheduledEventId = ctx.addEvent(event);
-    PollWorkflowTaskQueueResponse.Builder workflowTaskResponse =
-        PollWorkflowTaskQueueResponse.newBuilder();
-    workflowTaskResponse.setWorkflowExecution(ctx.getExecution());
-    workflowTaskResponse.setWorkflowType(request.getWorkflowType());
-    workflowTaskResponse.setAttempt(data.attempt);
-    workflowTaskResponse.setScheduledTime(ctx.currentTime());
-    workflowTaskResponse.setWorkflowExecutionTaskQueue(taskQueue);
-    TaskQueueId taskQueueId = new TaskQueueId(ctx.getNamespace(), taskQueue.getName());
-    WorkflowTask workflowTask = new WorkflowTask(taskQueueId, workflowTaskResponse);
+    WorkflowTask workflowTask =
+        newWorkflowTask(ctx.getExecutionId(), request, data.attempt, ctx.currentTime());
     ctx.setWorkflowTaskForMatching(workflowTask);
     ctx.onCommit(
         (historySize) -> {
           data.scheduledEventId = scheduledEventId;
-          data.workflowTask = workflowTaskResponse;
+          data.workflowTask = workflowTask.getTask();
           // Move buffered update request to new workflow task
           data.updateRequest.putAll(data.updateRequestBuffer);
           data.updateRequestBuffer.clear();
         });
   }
 
+  /** Creates the task that dispatches a scheduled workflow task to the workers. */
+  static WorkflowTask newWorkflowTask(
+      ExecutionId executionId,
+      StartWorkflowExecutionRequest startRequest,
+      int attempt,
+      Timestamp scheduledTime) {
+    TaskQueue taskQueue = startRequest.getTaskQueue();
+    PollWorkflowTaskQueueResponse.Builder workflowTaskResponse =
+        PollWorkflowTaskQueueResponse.newBuilder();
+    workflowTaskResponse.setWorkflowExecution(executionId.getExecution());
+    workflowTaskResponse.setWorkflowType(startRequest.getWorkflowType());
+    workflowTaskResponse.setAttempt(attempt);
+    workflowTaskResponse.setScheduledTime(scheduledTime);
+    workflowTaskResponse.setWorkflowExecutionTaskQueue(taskQueue);
+    TaskQueueId taskQueueId = new TaskQueueId(executionId.getNamespace(), taskQueue.getName());
+    return new WorkflowTask(taskQueueId, workflowTaskResponse);
+  }
+
   private static void convertQueryWorkflowTaskToReal(
       RequestContext ctx, WorkflowTaskData data, Object notUsedRequest, long notUsed) {
     StartWorkflowExecutionRequest request = data.startRequest;
@@ -1771,19 +1799,10 @@ class StateMachines {
           task.setStartedEventId(data.scheduledEventId + 1);
           WorkflowTaskToken taskToken = new WorkflowTaskToken(ctx.getExecutionId(), historySize);
           task.setTaskToken(taskToken.toBytes());
-          GetWorkflowExecutionHistoryRequest getRequest =
-              GetWorkflowExecutionHistoryRequest.newBuilder()
-                  .setNamespace(request.getNamespace())
-                  .setExecution(ctx.getExecution())
-                  .build();
-          List<HistoryEvent> events;
-          events =
-              data.store
-                  .getWorkflowExecutionHistory(ctx.getExecutionId(), getRequest, null)
-                  .getHistory()
-                  .getEventsList();
+          List<HistoryEvent> events = data.store.getHistoryEvents(ctx.getExecutionId());
           long lastEventId = events.get(events.size() - 1).getEventId();
-          if (ctx.getWorkflowMutableState().getStickyExecutionAttributes() != null) {
+          boolean sticky = ctx.getWorkflowMutableState().getStickyExecutionAttributes() != null;
+          if (sticky) {
             events = events.subList((int) data.lastSuccessfulStartedEventId, events.size());
           }
           if (queryOnly && !data.workflowCompleted) {
@@ -1817,7 +1836,12 @@ class StateMachines {
             task.setStartedEventId(lastEventId + 2);
           }
           // get it from previous started event id.
-          task.setHistory(History.newBuilder().addAllEvents(events));
+          if (sticky || queryOnly) {
+            task.setHistory(History.newBuilder().addAllEvents(events));
+          } else {
+            // full history is paginated the same way as the server does it
+            data.store.setFirstHistoryPage(task, events);
+          }
           // Transfer the queries
           Map<String, TestWorkflowMutableStateImpl.ConsistentQuery> queries =
               data.consistentQueryRequests;
@@ -47,7 +47,7 @@ final class TestServiceRetryState {
     this(validateAndOverrideRetryPolicy(retryPolicy), expirationTime, 1, Optional.empty());
   }
 
-  private TestServiceRetryState(
+  TestServiceRetryState(
       RetryPolicy retryPolicy,
       Timestamp expirationTime,
       int attempt,
@@ -2,15 +2,22 @@ package io.temporal.internal.testservice;
 
 import io.grpc.BindableService;
 import java.io.Closeable;
+import java.nio.file.Path;
 import java.time.Clock;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import javax.annotation.Nullable;
 
 public class TestServicesStarter implements Closeable {
+  /** Default maximum number of events in a single page of workflow history. */
+  public static final int DEFAULT_HISTORY_PAGE_SIZE =
+      TestWorkflowStoreImpl.DEFAULT_HISTORY_PAGE_SIZE;
+
   private final SelfAdvancingTimerImpl selfAdvancingTimer;
   private final TestVisibilityStore visibilityStore = new TestVisibilityStoreImpl();
   private final TestNexusEndpointStore nexusEndpointStore = new TestNexusEndpointStoreImpl();
+  private final @Nullable DurableHistoryStorage historyStorage;
   private final TestWorkflowStore workflowStore;
   private final TestOperatorService operatorService;
   private final TestWorkflowService workflowService;
@@ -24,9 +31,46 @@ public class TestServicesStarter implements Closeable {
    *     System#currentTimeMillis()} will be used if 0.
    */
   public TestServicesStarter(boolean lockTimeSkipping, long initialTimeMillis) {
+    this(lockTimeSkipping, initialTimeMillis, DEFAULT_HISTORY_PAGE_SIZE);
+  }
+
+  /**
+   * @param lockTimeSkipping true if the time skipping should be locked (disabled) by default after
+   *     creation of the server
+   * @param initialTimeMillis initial timestamp for the test server, {@link
+   *     System#currentTimeMillis()} will be used if 0.
+   * @param historyPageSize maximum number of events in a single page of workflow history returned
+   *     by {@code GetWorkflowExecutionHistory} and in workflow tasks
+   */
+  public TestServicesStarter(
+      boolean lockTimeSkipping, long initialTimeMillis, int historyPageSize) {
+    this(lockTimeSkipping, initialTimeMillis, historyPageSize, null);
+  }
+
+  /**
+   * @param lockTimeSkipping true if the time skipping should be locked (disabled) by default after
+   *     creation of the server
+   * @param initialTimeMillis initial timestamp for the test server, {@link
+   *     System#currentTimeMillis()} will be used if 0.
+   * @param historyPageSize maximum number of events in a single page of workflow history returned
+   *     by {@code GetWorkflowExecutionHistory} and in workflow tasks
+   * @param storageDirectory if not null, workflow histories are persisted to memory-mapped files in
+   *     this directory and the executions stored there by a previous instance are recovered.
+   *     Workflow executions that were open when the previous instance stopped are resumed from
+   *     their histories, see {@link TestWorkflowService#recoverOpenExecutions()}.
+   */
+  public TestServicesStarter(
+      boolean lockTimeSkipping,
+      long initialTimeMillis,
+      int historyPageSize,
+      @Nullable Path storageDirectory) {
     this.selfAdvancingTimer =
         new SelfAdvancingTimerImpl(initialTimeMillis, Clock.systemDefaultZone());
-    this.workflowStore = new TestWorkflowStoreImpl(this.selfAdvancingTimer);
+    this.historyStorage =
+        storageDirectory == null ? null : new DurableHistoryStorage(storageDirectory);
+    this.workflowStore =
+        new TestWorkflowStoreImpl(
+            this.selfAdvancingTimer, this.visibilityStore, historyPageSize, this.historyStorage);
     this.operatorService = new TestOperatorService(this.visibilityStore, this.nexusEndpointStore);
     this.testService =
         new TestService(this.workflowStore, this.selfAdvancingTimer, lockTimeSkipping);
@@ -36,6 +80,7 @@ public class TestServicesStarter implements Closeable {
             this.visibilityStore,
             this.nexusEndpointStore,
             this.selfAdvancingTimer);
+    this.workflowService.recoverOpenExecutions();
     this.services = Arrays.asList(this.operatorService, this.testService, this.workflowService);
   }
 
@@ -45,6 +90,9 @@ public class TestServicesStarter implements Closeable {
     operatorService.close();
     testService.close();
     visibilityStore.close();
+    if (historyStorage != null) {
+      historyStorage.close();
+    }
   }
 
   public TestOperatorService getOperatorService() {
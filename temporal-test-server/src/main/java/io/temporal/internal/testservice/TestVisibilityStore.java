@@ -1,7 +1,14 @@
 package io.temporal.internal.testservice;
 
+import com.google.protobuf.Timestamp;
 import io.temporal.api.common.v1.SearchAttributes;
 import io.temporal.api.enums.v1.IndexedValueType;
+import io.temporal.api.enums.v1.WorkflowExecutionStatus;
+import io.temporal.api.history.v1.WorkflowExecutionStartedEventAttributes;
+import io.temporal.api.workflowservice.v1.CountWorkflowExecutionsRequest;
+import io.temporal.api.workflowservice.v1.CountWorkflowExecutionsResponse;
+import io.temporal.api.workflowservice.v1.ListWorkflowExecutionsRequest;
+import io.temporal.api.workflowservice.v1.ListWorkflowExecutionsResponse;
 import java.io.Closeable;
 import java.util.Map;
 import javax.annotation.Nonnull;
@@ -20,6 +27,20 @@ public interface TestVisibilityStore extends Closeable {
 
   void validateSearchAttributes(SearchAttributes searchAttributes);
 
+  void recordWorkflowStarted(
+      ExecutionId executionId, WorkflowExecutionStartedEventAttributes attributes, Timestamp time);
+
+  void recordWorkflowClosed(
+      ExecutionId executionId, WorkflowExecutionStatus status, Timestamp time, long historyLength);
+
+  /**
+   * @throws io.grpc.StatusRuntimeException with {@code INVALID_ARGUMENT} if the query is not valid
+   *     or not supported
+   */
+  ListWorkflowExecutionsResponse listWorkflowExecutions(ListWorkflowExecutionsRequest request);
+
+  CountWorkflowExecutionsResponse countWorkflowExecutions(CountWorkflowExecutionsRequest request);
+
   @Override
   void close();
 }
@@ -2,15 +2,29 @@ package io.temporal.internal.testservice;
 
 import com.google.common.collect.ImmutableMap;
 import com.google.protobuf.ByteString;
+import com.google.protobuf.Timestamp;
+import com.google.protobuf.util.Timestamps;
 import io.grpc.Status;
 import io.temporal.api.common.v1.Payload;
 import io.temporal.api.common.v1.SearchAttributes;
 import io.temporal.api.enums.v1.IndexedValueType;
+import io.temporal.api.enums.v1.WorkflowExecutionStatus;
+import io.temporal.api.history.v1.WorkflowExecutionStartedEventAttributes;
+import io.temporal.api.workflow.v1.WorkflowExecutionInfo;
+import io.temporal.api.workflowservice.v1.CountWorkflowExecutionsRequest;
+import io.temporal.api.workflowservice.v1.CountWorkflowExecutionsResponse;
+import io.temporal.api.workflowservice.v1.ListWorkflowExecutionsRequest;
+import io.temporal.api.workflowservice.v1.ListWorkflowExecutionsResponse;
 import io.temporal.internal.common.ProtoEnumNameUtils;
 import io.temporal.internal.common.SearchAttributesUtil;
+import java.nio.ByteBuffer;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import javax.annotation.Nonnull;
 
 class TestVisibilityStoreImpl implements TestVisibilityStore {
@@ -24,6 +38,7 @@ class TestVisibilityStoreImpl implements TestVisibilityStore {
   private static final String DEFAULT_KEY_DOUBLE = "CustomDoubleField";
   private static final String DEFAULT_KEY_BOOL = "CustomBoolField";
   private static final String TEMPORAL_CHANGE_VERSION = "TemporalChangeVersion";
+  private static final int DEFAULT_LIST_PAGE_SIZE = 1000;
 
   private final Map<String, IndexedValueType> searchAttributes =
       new ConcurrentHashMap<>(
@@ -41,6 +56,9 @@ class TestVisibilityStoreImpl implements TestVisibilityStore {
   private final Map<ExecutionId, SearchAttributes> executionSearchAttributes =
       new ConcurrentHashMap<>();
 
+  private final Lock lock = new ReentrantLock();
+  private final VisibilityIndex index = new VisibilityIndex(searchAttributes);
+
   @Override
   public void addSearchAttribute(String name, IndexedValueType type) {
     if (type == IndexedValueType.INDEXED_VALUE_TYPE_UNSPECIFIED) {
@@ -103,14 +121,29 @@ class TestVisibilityStoreImpl implements TestVisibilityStore {
 
     SearchAttributes searchAttributesWithMetadata = searchAttributesWithType.build();
 
-    return executionSearchAttributes.compute(
-        executionId,
-        (key, value) ->
-            value == null
-                ? searchAttributesWithMetadata
-                : value.toBuilder()
-                    .putAllIndexedFields(searchAttributesWithMetadata.getIndexedFieldsMap())
-                    .build());
+    Map<String, List<?>> indexedValues = new HashMap<>();
+    for (String attributeName : searchAttributesWithMetadata.getIndexedFieldsMap().keySet()) {
+      indexedValues.put(
+          attributeName,
+          SearchAttributesUtil.decodeAsType(
+              searchAttributesWithMetadata,
+              attributeName,
+              registeredAttributes.get(attributeName)));
+    }
+    lock.lock();
+    try {
+      index.indexSearchAttributes(executionId, indexedValues);
+      return executionSearchAttributes.compute(
+          executionId,
+          (key, value) ->
+              value == null
+                  ? searchAttributesWithMetadata
+                  : value.toBuilder()
+                      .putAllIndexedFields(searchAttributesWithMetadata.getIndexedFieldsMap())
+                      .build());
+    } finally {
+      lock.unlock();
+    }
   }
 
   @Override
@@ -143,6 +176,93 @@ class TestVisibilityStoreImpl implements TestVisibilityStore {
     }
   }
 
+  @Override
+  public void recordWorkflowStarted(
+      ExecutionId executionId, WorkflowExecutionStartedEventAttributes attributes, Timestamp time) {
+    Timestamp executionTime =
+        attributes.hasFirstWorkflowTaskBackoff()
+            ? Timestamps.add(time, attributes.getFirstWorkflowTaskBackoff())
+            : time;
+    lock.lock();
+    try {
+      index.recordStarted(
+          executionId,
+          attributes.getWorkflowType().getName(),
+          attributes.getTaskQueue().getName(),
+          time,
+          executionTime);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void recordWorkflowClosed(
+      ExecutionId executionId, WorkflowExecutionStatus status, Timestamp time, long historyLength) {
+    lock.lock();
+    try {
+      index.recordClosed(executionId, status, time, historyLength);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public ListWorkflowExecutionsResponse listWorkflowExecutions(
+      ListWorkflowExecutionsRequest request) {
+    VisibilityQuery query = VisibilityQuery.parse(request.getQuery());
+    int pageSize = request.getPageSize() > 0 ? request.getPageSize() : DEFAULT_LIST_PAGE_SIZE;
+    int offset = parseListPageToken(request.getNextPageToken());
+    ListWorkflowExecutionsResponse.Builder response = ListWorkflowExecutionsResponse.newBuilder();
+    lock.lock();
+    try {
+      List<ExecutionId> matching = index.query(request.getNamespace(), query);
+      int end = (int) Math.min(matching.size(), (long) offset + pageSize);
+      for (int i = offset; i < end; i++) {
+        ExecutionId executionId = matching.get(i);
+        WorkflowExecutionInfo.Builder info = index.getRecord(executionId).toExecutionInfo();
+        SearchAttributes attributes = executionSearchAttributes.get(executionId);
+        if (attributes != null) {
+          info.setSearchAttributes(attributes);
+        }
+        response.addExecutions(info);
+      }
+      if (end < matching.size()) {
+        response.setNextPageToken(
+            ByteString.copyFrom(ByteBuffer.allocate(Integer.BYTES).putInt(end).array()));
+      }
+    } finally {
+      lock.unlock();
+    }
+    return response.build();
+  }
+
+  @Override
+  public CountWorkflowExecutionsResponse countWorkflowExecutions(
+      CountWorkflowExecutionsRequest request) {
+    VisibilityQuery query = VisibilityQuery.parse(request.getQuery());
+    lock.lock();
+    try {
+      return CountWorkflowExecutionsResponse.newBuilder()
+          .setCount(index.query(request.getNamespace(), query).size())
+          .build();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private static int parseListPageToken(ByteString nextPageToken) {
+    if (nextPageToken.isEmpty()) {
+      return 0;
+    }
+    if (nextPageToken.size() != Integer.BYTES) {
+      throw Status.INVALID_ARGUMENT
+          .withDescription("Invalid next page token for ListWorkflowExecutions")
+          .asRuntimeException();
+    }
+    return ByteBuffer.wrap(nextPageToken.toByteArray()).getInt();
+  }
+
   @Override
   public void close() {}
 }
@@ -911,6 +911,12 @@ class TestWorkflowMutableStateImpl implements TestWorkflowMutableState {
         StateMachines.newCancelExternalStateMachine();
     externalCancellations.put(attr.getWorkflowId(), cancelStateMachine);
     cancelStateMachine.action(StateMachines.Action.INITIATE, ctx, attr, workflowTaskCompletedId);
+    requestExternalCancellation(attr, cancelStateMachine);
+  }
+
+  private void requestExternalCancellation(
+      RequestCancelExternalWorkflowExecutionCommandAttributes attr,
+      StateMachine<CancelExternalData> cancelStateMachine) {
     ForkJoinPool.commonPool()
         .execute(
             () -> {
@@ -918,12 +924,14 @@ class TestWorkflowMutableStateImpl implements TestWorkflowMutableState {
                   RequestCancelWorkflowExecutionRequest.newBuilder()
                       .setWorkflowExecution(
                           WorkflowExecution.newBuilder().setWorkflowId(attr.getWorkflowId()))
-                      .setNamespace(ctx.getNamespace())
+                      .setNamespace(executionId.getNamespace())
                       .setReason(attr.getReason())
                       .build();
               CancelExternalWorkflowExecutionCallerInfo info =
                   new CancelExternalWorkflowExecutionCallerInfo(
-                      ctx.getNamespace(), cancelStateMachine.getData().initiatedEventId, this);
+                      executionId.getNamespace(),
+                      cancelStateMachine.getData().initiatedEventId,
+                      this);
               try {
                 service.requestCancelWorkflowExecution(request, Optional.of(info));
               } catch (Exception e) {
@@ -1214,6 +1222,12 @@ class TestWorkflowMutableStateImpl implements TestWorkflowMutableState {
         StateMachines.newSignalExternalStateMachine();
     externalSignals.put(signalId, signalStateMachine);
     signalStateMachine.action(StateMachines.Action.INITIATE, ctx, a, workflowTaskCompletedId);
+    signalExternalWorkflowExecution(signalId, a);
+    ctx.lockTimer("processSignalExternalWorkflowExecution");
+  }
+
+  private void signalExternalWorkflowExecution(
+      String signalId, SignalExternalWorkflowExecutionCommandAttributes a) {
     ForkJoinPool.commonPool()
         .execute(
             () -> {
@@ -1223,7 +1237,6 @@ class TestWorkflowMutableStateImpl implements TestWorkflowMutableState {
                 log.error("Failure signalling an external workflow execution", e);
               }
             });
-    ctx.lockTimer("processSignalExternalWorkflowExecution");
   }
 
   @Override
@@ -1930,18 +1943,7 @@ class TestWorkflowMutableStateImpl implements TestWorkflowMutableState {
               // no eager dispatch if backoff is set
               ctx.addTimer(
                   backoffStartInterval,
-                  () -> {
-                    try {
-                      update(this::scheduleWorkflowTask);
-                    } catch (StatusRuntimeException e) {
-                      // NOT_FOUND is expected as timers are not removed
-                      if (e.getStatus().getCode() != Status.Code.NOT_FOUND) {
-                        log.error("Failure trying to add task for an delayed workflow retry", e);
-                      }
-                    } catch (Throwable e) {
-                      log.error("Failure trying to add task for an delayed workflow retry", e);
-                    }
-                  },
+                  this::scheduleDelayedFirstWorkflowTask,
                   "delayedFirstWorkflowTask");
             } else {
               scheduleWorkflowTask(ctx);
@@ -2008,6 +2010,362 @@ class TestWorkflowMutableStateImpl implements TestWorkflowMutableState {
     return null;
   }
 
+  private void scheduleDelayedFirstWorkflowTask() {
+    try {
+      update(this::scheduleWorkflowTask);
+    } catch (StatusRuntimeException e) {
+      // NOT_FOUND is expected as timers are not removed
+      if (e.getStatus().getCode() != Status.Code.NOT_FOUND) {
+        log.error("Failure trying to add task for an delayed workflow retry", e);
+      }
+    } catch (Throwable e) {
+      log.error("Failure trying to add task for an delayed workflow retry", e);
+    }
+  }
+
+  /**
+   * Recovers the state of the execution from the history written by a previous instance of the
+   * service. Called instead of {@link #startWorkflow}.
+   *
+   * <p>The history doesn't hold all the state, so the work that was in flight is resumed the same
+   * way as a lost task: the workflow task, the timers and the timeouts are armed with their
+   * remaining time, the pending activities are dispatched again from their first attempt, and the
+   * signals and cancellation requests to external workflows are sent again. The activities that
+   * were requested to cancel are canceled and the Nexus operations in flight are timed out, as
+   * neither their workers nor their endpoints survive the restart.
+   */
+  void recover(List<HistoryEvent> history) {
+    PendingEvents pending = new PendingEvents(history.get(0));
+    history.forEach(pending::add);
+    lock.lock();
+    try {
+      nextEventId = history.size() + 1L;
+      workflow.recover(pending.cancelRequested ? State.CANCELLATION_REQUESTED : State.STARTED);
+      workflowTaskStateMachine.getData().lastSuccessfulStartedEventId =
+          pending.lastSuccessfulStartedEventId;
+      for (Memo memo : pending.memoUpserts) {
+        currentMemo = mergeMemo(currentMemo, memo.getFieldsMap());
+      }
+      for (SearchAttributes searchAttributes : pending.searchAttributeUpserts) {
+        visibilityStore.upsertSearchAttributesForExecution(executionId, searchAttributes);
+      }
+      update(true, ctx -> recoverPending(ctx, pending), "recover");
+      if (!pending.activityCancelRequests.isEmpty()) {
+        update(
+            ctx -> {
+              for (long scheduledEventId : pending.activityCancelRequests) {
+                StateMachine<ActivityTaskData> activity = activities.get(scheduledEventId);
+                if (activity != null) {
+                  activity.action(StateMachines.Action.CANCEL, ctx, null, 0);
+                  removeActivity(scheduledEventId);
+                }
+              }
+              scheduleWorkflowTask(ctx);
+            });
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * @return id of the initiated event of the pending child workflow with the {@code workflowId}.
+   *     The started event of a child doesn't hold it, so the recovered children look it up.
+   */
+  OptionalLong getChildWorkflowInitiatedEventId(String workflowId) {
+    lock.lock();
+    try {
+      for (StateMachine<ChildWorkflowData> child : childWorkflows.values()) {
+        if (child.getData().workflowId.equals(workflowId)) {
+          return OptionalLong.of(child.getData().initiatedEventId);
+        }
+      }
+      return OptionalLong.empty();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * @return true if the start of the child workflow initiated by the event was not recorded yet
+   */
+  boolean isChildWorkflowStartPending(long initiatedEventId) {
+    lock.lock();
+    try {
+      StateMachine<ChildWorkflowData> child = childWorkflows.get(initiatedEventId);
+      return child != null && child.getState() == State.INITIATED;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Times out the recovered child workflows which start was not recorded. Their start requests were
+   * lost with the previous instance of the service. Called after all the open executions are
+   * recovered and the started children reported their start.
+   */
+  void timeoutNotStartedChildWorkflows() {
+    lock.lock();
+    try {
+      if (childWorkflows.values().stream().noneMatch(c -> c.getState() == State.INITIATED)) {
+        return;
+      }
+      update(
+          ctx -> {
+            Iterator<StateMachine<ChildWorkflowData>> children = childWorkflows.values().iterator();
+            while (children.hasNext()) {
+              StateMachine<ChildWorkflowData> child = children.next();
+              if (child.getState() == State.INITIATED) {
+                child.action(StateMachines.Action.TIME_OUT, ctx, RetryState.RETRY_STATE_TIMEOUT, 0);
+                children.remove();
+                ctx.unlockTimer("timeoutNotStartedChildWorkflows");
+              }
+            }
+            scheduleWorkflowTask(ctx);
+          });
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void recoverPending(RequestContext ctx, PendingEvents pending) {
+    Timestamp startTime = pending.startedEvent.getEventTime();
+    WorkflowData data = workflow.getData();
+    data.runTimerCancellationHandle =
+        ctx.addTimer(
+            remaining(
+                startTime,
+                Durations.add(startRequest.getWorkflowRunTimeout(), data.backoffStartInterval)),
+            this::timeoutWorkflow,
+            "workflow execution timeout");
+    if (pending.workflowTaskScheduled != null) {
+      recoverWorkflowTask(ctx, pending.workflowTaskScheduled, pending.workflowTaskStarted);
+    } else if (!pending.workflowTaskScheduledBefore) {
+      ctx.addTimer(
+          remaining(startTime, data.backoffStartInterval),
+          this::scheduleDelayedFirstWorkflowTask,
+          "delayedFirstWorkflowTask");
+    }
+    for (HistoryEvent event : pending.activities.values()) {
+      recoverActivity(ctx, event, pending.activityCancelRequests.contains(event.getEventId()));
+    }
+    for (HistoryEvent event : pending.timers.values()) {
+      recoverTimer(ctx, event);
+    }
+    for (HistoryEvent event : pending.childWorkflows.values()) {
+      recoverChildWorkflow(ctx, event, pending.startedChildWorkflows.get(event.getEventId()));
+    }
+    for (HistoryEvent event : pending.externalSignals.values()) {
+      recoverExternalSignal(ctx, event);
+    }
+    for (HistoryEvent event : pending.externalCancellations.values()) {
+      recoverExternalCancellation(ctx, event);
+    }
+    for (HistoryEvent event : pending.nexusOperations.values()) {
+      recoverNexusOperation(ctx, event, pending.nexusOperationTokens.get(event.getEventId()));
+    }
+    for (HistoryEvent event : pending.updates.values()) {
+      recoverUpdate(event);
+    }
+  }
+
+  private void recoverWorkflowTask(
+      RequestContext ctx, HistoryEvent scheduled, @Nullable HistoryEvent started) {
+    WorkflowTaskData data = workflowTaskStateMachine.getData();
+    data.scheduledEventId = scheduled.getEventId();
+    data.attempt = scheduled.getWorkflowTaskScheduledEventAttributes().getAttempt();
+    TestWorkflowStore.WorkflowTask workflowTask =
+        newWorkflowTask(executionId, startRequest, data.attempt, scheduled.getEventTime());
+    data.workflowTask = workflowTask.getTask();
+    if (started == null) {
+      workflowTaskStateMachine.recover(State.INITIATED);
+      ctx.setWorkflowTaskForMatching(workflowTask);
+    } else {
+      // the worker that started the task may still complete it
+      workflowTaskStateMachine.recover(State.STARTED);
+      data.startedEventId = started.getEventId();
+      long scheduledEventId = data.scheduledEventId;
+      ctx.addTimer(
+          remaining(started.getEventTime(), startRequest.getWorkflowTaskTimeout()),
+          () -> timeoutWorkflowTask(scheduledEventId),
+          "WorkflowTask StartToCloseTimeout");
+    }
+    ctx.lockTimer("scheduleWorkflowTask");
+  }
+
+  private void recoverActivity(RequestContext ctx, HistoryEvent event, boolean cancelRequested) {
+    ActivityTaskScheduledEventAttributes scheduledEvent =
+        event.getActivityTaskScheduledEventAttributes();
+    long scheduledEventId = event.getEventId();
+    StateMachine<ActivityTaskData> activity =
+        newActivityStateMachine(
+            store, startRequest, event.hasUserMetadata() ? event.getUserMetadata() : null);
+    ActivityTaskData data = activity.getData();
+    data.scheduledEvent = scheduledEvent;
+    data.scheduledEventId = scheduledEventId;
+    data.retryState =
+        new TestServiceRetryState(
+            scheduledEvent.getRetryPolicy(),
+            Timestamps.add(event.getEventTime(), scheduledEvent.getScheduleToCloseTimeout()));
+    activities.put(scheduledEventId, activity);
+    activityById.put(scheduledEvent.getActivityId(), scheduledEventId);
+    if (cancelRequested) {
+      // canceled once the state is recovered
+      activity.recover(State.CANCELLATION_REQUESTED);
+      return;
+    }
+    activity.recover(State.INITIATED);
+    data.activityTask =
+        newActivityTask(executionId, startRequest, scheduledEvent, ctx.currentTime());
+    ctx.addActivityTask(data.activityTask);
+    int attempt = data.getAttempt();
+    ctx.addTimer(
+        remaining(event.getEventTime(), scheduledEvent.getScheduleToCloseTimeout()),
+        () ->
+            timeoutActivity(scheduledEventId, TimeoutType.TIMEOUT_TYPE_SCHEDULE_TO_CLOSE, attempt),
+        "Activity ScheduleToCloseTimeout");
+    ctx.addTimer(
+        ProtobufTimeUtils.toJavaDuration(scheduledEvent.getScheduleToStartTimeout()),
+        () ->
+            timeoutActivity(scheduledEventId, TimeoutType.TIMEOUT_TYPE_SCHEDULE_TO_START, attempt),
+        "Activity ScheduleToStartTimeout");
+    ctx.lockTimer("processScheduleActivityTask");
+  }
+
+  private void recoverTimer(RequestContext ctx, HistoryEvent event) {
+    TimerStartedEventAttributes startedEvent = event.getTimerStartedEventAttributes();
+    String timerId = startedEvent.getTimerId();
+    StateMachine<TimerData> timer =
+        StateMachines.newTimerStateMachine(
+            event.hasUserMetadata() ? event.getUserMetadata() : null);
+    timer.getData().startedEvent = startedEvent;
+    timer.getData().startedEventId = event.getEventId();
+    timer.recover(State.STARTED);
+    timers.put(timerId, timer);
+    ctx.addTimer(
+        remaining(event.getEventTime(), startedEvent.getStartToFireTimeout()),
+        () -> fireTimer(timerId),
+        "fire timer");
+  }
+
+  private void recoverChildWorkflow(
+      RequestContext ctx, HistoryEvent initiated, @Nullable HistoryEvent started) {
+    StartChildWorkflowExecutionInitiatedEventAttributes initiatedEvent =
+        initiated.getStartChildWorkflowExecutionInitiatedEventAttributes();
+    StateMachine<ChildWorkflowData> child =
+        StateMachines.newChildWorkflowStateMachine(
+            service,
+            initiatedEvent.getWorkflowId(),
+            initiatedEvent.getWorkflowType().getName(),
+            initiated.hasUserMetadata() ? initiated.getUserMetadata() : null);
+    ChildWorkflowData data = child.getData();
+    data.initiatedEventId = initiated.getEventId();
+    data.initiatedEvent = initiatedEvent;
+    if (started == null) {
+      // either started by the recovered child or timed out
+      data.execution =
+          WorkflowExecution.newBuilder().setWorkflowId(initiatedEvent.getWorkflowId()).build();
+      child.recover(State.INITIATED);
+      ctx.lockTimer("processStartChildWorkflow");
+    } else {
+      data.startedEventId = started.getEventId();
+      data.execution =
+          started.getChildWorkflowExecutionStartedEventAttributes().getWorkflowExecution();
+      child.recover(State.STARTED);
+    }
+    childWorkflows.put(initiated.getEventId(), child);
+  }
+
+  private void recoverExternalSignal(RequestContext ctx, HistoryEvent event) {
+    SignalExternalWorkflowExecutionInitiatedEventAttributes initiatedEvent =
+        event.getSignalExternalWorkflowExecutionInitiatedEventAttributes();
+    StateMachine<SignalExternalData> signal = StateMachines.newSignalExternalStateMachine();
+    signal.getData().initiatedEventId = event.getEventId();
+    signal.getData().initiatedEvent = initiatedEvent;
+    signal.recover(State.INITIATED);
+    String signalId = UUID.randomUUID().toString();
+    externalSignals.put(signalId, signal);
+    @SuppressWarnings("deprecation") // Control is still used by some SDKs
+    SignalExternalWorkflowExecutionCommandAttributes attributes =
+        SignalExternalWorkflowExecutionCommandAttributes.newBuilder()
+            .setNamespace(initiatedEvent.getNamespace())
+            .setExecution(initiatedEvent.getWorkflowExecution())
+            .setSignalName(initiatedEvent.getSignalName())
+            .setInput(initiatedEvent.getInput())
+            .setControl(initiatedEvent.getControl())
+            .setChildWorkflowOnly(initiatedEvent.getChildWorkflowOnly())
+            .build();
+    ctx.onCommit(historySize -> signalExternalWorkflowExecution(signalId, attributes));
+    ctx.lockTimer("processSignalExternalWorkflowExecution");
+  }
+
+  private void recoverExternalCancellation(RequestContext ctx, HistoryEvent event) {
+    RequestCancelExternalWorkflowExecutionInitiatedEventAttributes initiatedEvent =
+        event.getRequestCancelExternalWorkflowExecutionInitiatedEventAttributes();
+    StateMachine<CancelExternalData> cancellation = StateMachines.newCancelExternalStateMachine();
+    cancellation.getData().initiatedEventId = event.getEventId();
+    cancellation.getData().initiatedEvent = initiatedEvent;
+    cancellation.recover(State.INITIATED);
+    String workflowId = initiatedEvent.getWorkflowExecution().getWorkflowId();
+    externalCancellations.put(workflowId, cancellation);
+    RequestCancelExternalWorkflowExecutionCommandAttributes attributes =
+        RequestCancelExternalWorkflowExecutionCommandAttributes.newBuilder()
+            .setWorkflowId(workflowId)
+            .setReason(initiatedEvent.getReason())
+            .build();
+    ctx.onCommit(historySize -> requestExternalCancellation(attributes, cancellation));
+  }
+
+  private void recoverNexusOperation(
+      RequestContext ctx, HistoryEvent event, @Nullable String operationToken) {
+    long scheduledEventId = event.getEventId();
+    // the endpoint is not needed to time the operation out
+    StateMachine<NexusOperationData> operation =
+        newNexusOperation(null, event.hasUserMetadata() ? event.getUserMetadata() : null);
+    NexusOperationData data = operation.getData();
+    data.scheduledEvent = event.getNexusOperationScheduledEventAttributes();
+    data.scheduledEventId = scheduledEventId;
+    if (operationToken == null) {
+      operation.recover(State.INITIATED);
+    } else {
+      data.operationToken = operationToken;
+      operation.recover(State.STARTED);
+    }
+    nexusOperations.put(scheduledEventId, operation);
+    int attempt = data.getAttempt();
+    ctx.addTimer(
+        Duration.ZERO,
+        () ->
+            timeoutNexusOperation(
+                scheduledEventId, TimeoutType.TIMEOUT_TYPE_SCHEDULE_TO_CLOSE, attempt),
+        "NexusOperation ScheduleToCloseTimeout");
+    ctx.lockTimer("processScheduleNexusOperation");
+  }
+
+  private void recoverUpdate(HistoryEvent event) {
+    WorkflowExecutionUpdateAcceptedEventAttributes acceptedEvent =
+        event.getWorkflowExecutionUpdateAcceptedEventAttributes();
+    String protocolInstanceId = acceptedEvent.getProtocolInstanceId();
+    StateMachine<UpdateWorkflowExecutionData> update =
+        StateMachines.newUpdateWorkflowExecution(
+            protocolInstanceId,
+            acceptedEvent.getAcceptedRequest(),
+            CompletableFuture.completedFuture(true),
+            new CompletableFuture<>());
+    update.recover(State.STARTED);
+    updates.put(protocolInstanceId, update);
+  }
+
+  /**
+   * @return time left of the {@code timeout} started at {@code startTime}. Never more than the
+   *     timeout, the clock of a new instance of the service may be behind the recorded time.
+   */
+  private Duration remaining(Timestamp startTime, com.google.protobuf.Duration timeout) {
+    long timeoutMillis = Durations.toMillis(timeout);
+    long elapsedMillis = Math.max(0, clock.getAsLong() - Timestamps.toMillis(startTime));
+    return Duration.ofMillis(Math.max(0, timeoutMillis - elapsedMillis));
+  }
+
   private void scheduleWorkflowTask(RequestContext ctx) {
     State beforeState = workflowTaskStateMachine.getState();
     workflowTaskStateMachine.action(StateMachines.Action.INITIATE, ctx, startRequest, 0);
@@ -3019,6 +3377,199 @@ class TestWorkflowMutableStateImpl implements TestWorkflowMutableState {
     }
   }
 
+  /** Events of the work that was still in flight when a recovered history was written. */
+  private static final class PendingEvents {
+    private final HistoryEvent startedEvent;
+    private boolean cancelRequested;
+    private long lastSuccessfulStartedEventId;
+    private boolean workflowTaskScheduledBefore;
+    private @Nullable HistoryEvent workflowTaskScheduled;
+    private @Nullable HistoryEvent workflowTaskStarted;
+    private final List<Memo> memoUpserts = new ArrayList<>();
+    private final List<SearchAttributes> searchAttributeUpserts = new ArrayList<>();
+    private final Map<Long, HistoryEvent> activities = new LinkedHashMap<>();
+    private final Set<Long> activityCancelRequests = new LinkedHashSet<>();
+    private final Map<String, HistoryEvent> timers = new LinkedHashMap<>();
+    private final Map<Long, HistoryEvent> childWorkflows = new LinkedHashMap<>();
+    private final Map<Long, HistoryEvent> startedChildWorkflows = new HashMap<>();
+    private final Map<Long, HistoryEvent> externalSignals = new LinkedHashMap<>();
+    private final Map<Long, HistoryEvent> externalCancellations = new LinkedHashMap<>();
+    private final Map<Long, HistoryEvent> nexusOperations = new LinkedHashMap<>();
+    private final Map<Long, String> nexusOperationTokens = new HashMap<>();
+    private final Map<String, HistoryEvent> updates = new LinkedHashMap<>();
+
+    private PendingEvents(HistoryEvent startedEvent) {
+      this.startedEvent = startedEvent;
+    }
+
+    private void add(HistoryEvent event) {
+      switch (event.getEventType()) {
+        case EVENT_TYPE_WORKFLOW_EXECUTION_CANCEL_REQUESTED:
+          cancelRequested = true;
+          break;
+        case EVENT_TYPE_WORKFLOW_PROPERTIES_MODIFIED:
+          memoUpserts.add(event.getWorkflowPropertiesModifiedEventAttributes().getUpsertedMemo());
+          break;
+        case EVENT_TYPE_UPSERT_WORKFLOW_SEARCH_ATTRIBUTES:
+          searchAttributeUpserts.add(
+              event.getUpsertWorkflowSearchAttributesEventAttributes().getSearchAttributes());
+          break;
+        case EVENT_TYPE_WORKFLOW_TASK_SCHEDULED:
+          workflowTaskScheduledBefore = true;
+          workflowTaskScheduled = event;
+          workflowTaskStarted = null;
+          break;
+        case EVENT_TYPE_WORKFLOW_TASK_STARTED:
+          workflowTaskStarted = event;
+          break;
+        case EVENT_TYPE_WORKFLOW_TASK_COMPLETED:
+          lastSuccessfulStartedEventId =
+              event.getWorkflowTaskCompletedEventAttributes().getStartedEventId();
+          workflowTaskScheduled = null;
+          workflowTaskStarted = null;
+          break;
+        case EVENT_TYPE_WORKFLOW_TASK_FAILED:
+        case EVENT_TYPE_WORKFLOW_TASK_TIMED_OUT:
+          workflowTaskScheduled = null;
+          workflowTaskStarted = null;
+          break;
+        case EVENT_TYPE_ACTIVITY_TASK_SCHEDULED:
+          activities.put(event.getEventId(), event);
+          break;
+        case EVENT_TYPE_ACTIVITY_TASK_CANCEL_REQUESTED:
+          activityCancelRequests.add(
+              event.getActivityTaskCancelRequestedEventAttributes().getScheduledEventId());
+          break;
+        case EVENT_TYPE_ACTIVITY_TASK_COMPLETED:
+          removeActivity(event.getActivityTaskCompletedEventAttributes().getScheduledEventId());
+          break;
+        case EVENT_TYPE_ACTIVITY_TASK_FAILED:
+          removeActivity(event.getActivityTaskFailedEventAttributes().getScheduledEventId());
+          break;
+        case EVENT_TYPE_ACTIVITY_TASK_TIMED_OUT:
+          removeActivity(event.getActivityTaskTimedOutEventAttributes().getScheduledEventId());
+          break;
+        case EVENT_TYPE_ACTIVITY_TASK_CANCELED:
+          removeActivity(event.getActivityTaskCanceledEventAttributes().getScheduledEventId());
+          break;
+        case EVENT_TYPE_TIMER_STARTED:
+          timers.put(event.getTimerStartedEventAttributes().getTimerId(), event);
+          break;
+        case EVENT_TYPE_TIMER_FIRED:
+          timers.remove(event.getTimerFiredEventAttributes().getTimerId());
+          break;
+        case EVENT_TYPE_TIMER_CANCELED:
+          timers.remove(event.getTimerCanceledEventAttributes().getTimerId());
+          break;
+        case EVENT_TYPE_START_CHILD_WORKFLOW_EXECUTION_INITIATED:
+          childWorkflows.put(event.getEventId(), event);
+          break;
+        case EVENT_TYPE_CHILD_WORKFLOW_EXECUTION_STARTED:
+          startedChildWorkflows.put(
+              event.getChildWorkflowExecutionStartedEventAttributes().getInitiatedEventId(),
+              event);
+          break;
+        case EVENT_TYPE_START_CHILD_WORKFLOW_EXECUTION_FAILED:
+          removeChildWorkflow(
+              event.getStartChildWorkflowExecutionFailedEventAttributes().getInitiatedEventId());
+          break;
+        case EVENT_TYPE_CHILD_WORKFLOW_EXECUTION_COMPLETED:
+          removeChildWorkflow(
+              event.getChildWorkflowExecutionCompletedEventAttributes().getInitiatedEventId());
+          break;
+        case EVENT_TYPE_CHILD_WORKFLOW_EXECUTION_FAILED:
+          removeChildWorkflow(
+              event.getChildWorkflowExecutionFailedEventAttributes().getInitiatedEventId());
+          break;
+        case EVENT_TYPE_CHILD_WORKFLOW_EXECUTION_CANCELED:
+          removeChildWorkflow(
+              event.getChildWorkflowExecutionCanceledEventAttributes().getInitiatedEventId());
+          break;
+        case EVENT_TYPE_CHILD_WORKFLOW_EXECUTION_TIMED_OUT:
+          removeChildWorkflow(
+              event.getChildWorkflowExecutionTimedOutEventAttributes().getInitiatedEventId());
+          break;
+        case EVENT_TYPE_CHILD_WORKFLOW_EXECUTION_TERMINATED:
+          removeChildWorkflow(
+              event.getChildWorkflowExecutionTerminatedEventAttributes().getInitiatedEventId());
+          break;
+        case EVENT_TYPE_SIGNAL_EXTERNAL_WORKFLOW_EXECUTION_INITIATED:
+          externalSignals.put(event.getEventId(), event);
+          break;
+        case EVENT_TYPE_EXTERNAL_WORKFLOW_EXECUTION_SIGNALED:
+          externalSignals.remove(
+              event.getExternalWorkflowExecutionSignaledEventAttributes().getInitiatedEventId());
+          break;
+        case EVENT_TYPE_SIGNAL_EXTERNAL_WORKFLOW_EXECUTION_FAILED:
+          externalSignals.remove(
+              event
+                  .getSignalExternalWorkflowExecutionFailedEventAttributes()
+                  .getInitiatedEventId());
+          break;
+        case EVENT_TYPE_REQUEST_CANCEL_EXTERNAL_WORKFLOW_EXECUTION_INITIATED:
+          externalCancellations.put(event.getEventId(), event);
+          break;
+        case EVENT_TYPE_EXTERNAL_WORKFLOW_EXECUTION_CANCEL_REQUESTED:
+          externalCancellations.remove(
+              event
+                  .getExternalWorkflowExecutionCancelRequestedEventAttributes()
+                  .getInitiatedEventId());
+          break;
+        case EVENT_TYPE_REQUEST_CANCEL_EXTERNAL_WORKFLOW_EXECUTION_FAILED:
+          externalCancellations.remove(
+              event
+                  .getRequestCancelExternalWorkflowExecutionFailedEventAttributes()
+                  .getInitiatedEventId());
+          break;
+        case EVENT_TYPE_NEXUS_OPERATION_SCHEDULED:
+          nexusOperations.put(event.getEventId(), event);
+          break;
+        case EVENT_TYPE_NEXUS_OPERATION_STARTED:
+          NexusOperationStartedEventAttributes started =
+              event.getNexusOperationStartedEventAttributes();
+          nexusOperationTokens.put(started.getScheduledEventId(), started.getOperationToken());
+          break;
+        case EVENT_TYPE_NEXUS_OPERATION_COMPLETED:
+          nexusOperations.remove(
+              event.getNexusOperationCompletedEventAttributes().getScheduledEventId());
+          break;
+        case EVENT_TYPE_NEXUS_OPERATION_FAILED:
+          nexusOperations.remove(
+              event.getNexusOperationFailedEventAttributes().getScheduledEventId());
+          break;
+        case EVENT_TYPE_NEXUS_OPERATION_CANCELED:
+          nexusOperations.remove(
+              event.getNexusOperationCanceledEventAttributes().getScheduledEventId());
+          break;
+        case EVENT_TYPE_NEXUS_OPERATION_TIMED_OUT:
+          nexusOperations.remove(
+              event.getNexusOperationTimedOutEventAttributes().getScheduledEventId());
+          break;
+        case EVENT_TYPE_WORKFLOW_EXECUTION_UPDATE_ACCEPTED:
+          updates.put(
+              event.getWorkflowExecutionUpdateAcceptedEventAttributes().getProtocolInstanceId(),
+              event);
+          break;
+        case EVENT_TYPE_WORKFLOW_EXECUTION_UPDATE_COMPLETED:
+          updates.remove(
+              event.getWorkflowExecutionUpdateCompletedEventAttributes().getMeta().getUpdateId());
+          break;
+        default:
+          break;
+      }
+    }
+
+    private void removeActivity(long scheduledEventId) {
+      activities.remove(scheduledEventId);
+      activityCancelRequests.remove(scheduledEventId);
+    }
+
+    private void removeChildWorkflow(long initiatedEventId) {
+      childWorkflows.remove(initiatedEventId);
+      startedChildWorkflows.remove(initiatedEventId);
+    }
+  }
+
   static class UpdateHandle {
     private final String id;
     private final WorkflowExecution execution;
@@ -3183,16 +3734,7 @@ class TestWorkflowMutableStateImpl implements TestWorkflowMutableState {
             .setDefaultWorkflowTaskTimeout(this.startRequest.getWorkflowTaskTimeout())
             .setUserMetadata(this.startRequest.getUserMetadata());
 
-    GetWorkflowExecutionHistoryRequest getRequest =
-        GetWorkflowExecutionHistoryRequest.newBuilder()
-            .setNamespace(this.startRequest.getNamespace())
-            .setExecution(this.executionId.getExecution())
-            .build();
-    List<HistoryEvent> fullHistory =
-        store
-            .getWorkflowExecutionHistory(this.executionId, getRequest, null)
-            .getHistory()
-            .getEventsList();
+    List<HistoryEvent> fullHistory = store.getHistoryEvents(this.executionId);
 
     WorkflowExecutionInfo.Builder executionInfo = WorkflowExecutionInfo.newBuilder();
     executionInfo
@@ -25,8 +25,10 @@ import io.temporal.api.errordetails.v1.MultiOperationExecutionFailure;
 import io.temporal.api.errordetails.v1.WorkflowExecutionAlreadyStartedFailure;
 import io.temporal.api.failure.v1.*;
 import io.temporal.api.failure.v1.Failure;
+import io.temporal.api.history.v1.ChildWorkflowExecutionStartedEventAttributes;
 import io.temporal.api.history.v1.HistoryEvent;
 import io.temporal.api.history.v1.WorkflowExecutionContinuedAsNewEventAttributes;
+import io.temporal.api.history.v1.WorkflowExecutionStartedEventAttributes;
 import io.temporal.api.namespace.v1.NamespaceInfo;
 import io.temporal.api.nexus.v1.*;
 import io.temporal.api.testservice.v1.LockTimeSkippingRequest;
@@ -449,6 +451,153 @@ public final class TestWorkflowService extends WorkflowServiceGrpc.WorkflowServi
     }
   }
 
+  private void registerExecutionLocked(
+      TestWorkflowMutableState mutableState,
+      WorkflowId workflowId,
+      String firstExecutionRunId) {
+    ExecutionId executionId = mutableState.getExecutionId();
+    executionsByWorkflowId.put(workflowId, mutableState);
+    if (!firstExecutionRunId.isEmpty()) {
+      executionsByFirstExecutionRunId.put(
+          new WorkflowChainId(
+              executionId.getNamespace(), workflowId.getWorkflowId(), firstExecutionRunId),
+          mutableState);
+    }
+    executions.put(executionId, mutableState);
+  }
+
+  /**
+   * Resumes the executions that were open when the previous instance of the service stopped, see
+   * {@link TestWorkflowStore#getRecoveredOpenExecutions()}. The parents are recovered before their
+   * children, so a child whose start was not recorded by its parent yet reports it now. The
+   * children which start requests were lost are timed out.
+   */
+  void recoverOpenExecutions() {
+    // in the order of recovery
+    Map<ExecutionId, TestWorkflowMutableStateImpl> recovered = new LinkedHashMap<>();
+    lock.lock();
+    try {
+      for (ExecutionId executionId : store.getRecoveredOpenExecutions()) {
+        List<HistoryEvent> history = store.getHistoryEvents(executionId);
+        WorkflowExecutionStartedEventAttributes started =
+            history.get(0).getWorkflowExecutionStartedEventAttributes();
+        // null if the parent is closed
+        TestWorkflowMutableStateImpl parent = null;
+        OptionalLong parentInitiatedEventId = OptionalLong.empty();
+        if (started.hasParentWorkflowExecution()) {
+          parent =
+              recovered.get(
+                  new ExecutionId(
+                      started.getParentWorkflowNamespace(), started.getParentWorkflowExecution()));
+          if (parent != null) {
+            parentInitiatedEventId =
+                parent.getChildWorkflowInitiatedEventId(executionId.getExecution().getWorkflowId());
+            if (!parentInitiatedEventId.isPresent()) {
+              parent = null;
+            }
+          }
+        }
+        StartWorkflowExecutionRequest startRequest =
+            recoveredStartRequest(executionId, history.get(0));
+        Optional<TestServiceRetryState> retryState =
+            started.hasRetryPolicy()
+                ? Optional.of(
+                    new TestServiceRetryState(
+                        started.getRetryPolicy(),
+                        started.getWorkflowExecutionExpirationTime(),
+                        started.getAttempt(),
+                        started.hasContinuedFailure()
+                            ? Optional.of(started.getContinuedFailure())
+                            : Optional.empty()))
+                : Optional.empty();
+        TestWorkflowMutableStateImpl mutableState =
+            new TestWorkflowMutableStateImpl(
+                startRequest,
+                started.getFirstExecutionRunId(),
+                executionId.getExecution().getRunId(),
+                retryState,
+                ProtobufTimeUtils.toJavaDuration(started.getFirstWorkflowTaskBackoff()),
+                started.hasLastCompletionResult() ? started.getLastCompletionResult() : null,
+                started.hasContinuedFailure()
+                    ? Optional.of(started.getContinuedFailure())
+                    : Optional.empty(),
+                Optional.ofNullable(parent),
+                parentInitiatedEventId,
+                started.getContinuedExecutionRunId().isEmpty()
+                    ? Optional.empty()
+                    : Optional.of(started.getContinuedExecutionRunId()),
+                this,
+                store,
+                visibilityStore,
+                nexusEndpointStore,
+                selfAdvancingTimer);
+        registerExecutionLocked(
+            mutableState, executionId.getWorkflowId(), started.getFirstExecutionRunId());
+        mutableState.recover(history);
+        recovered.put(executionId, mutableState);
+        if (parent != null
+            && parent.isChildWorkflowStartPending(parentInitiatedEventId.getAsLong())) {
+          parent.childWorkflowStarted(
+              ChildWorkflowExecutionStartedEventAttributes.newBuilder()
+                  .setInitiatedEventId(parentInitiatedEventId.getAsLong())
+                  .setWorkflowExecution(executionId.getExecution())
+                  .setNamespace(executionId.getNamespace())
+                  .setWorkflowType(started.getWorkflowType())
+                  .build());
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
+    for (TestWorkflowMutableStateImpl mutableState : recovered.values()) {
+      mutableState.timeoutNotStartedChildWorkflows();
+    }
+    if (!recovered.isEmpty()) {
+      log.info("Resumed {} open workflow executions", recovered.size());
+    }
+  }
+
+  private static StartWorkflowExecutionRequest recoveredStartRequest(
+      ExecutionId executionId, HistoryEvent startedEvent) {
+    WorkflowExecutionStartedEventAttributes started =
+        startedEvent.getWorkflowExecutionStartedEventAttributes();
+    StartWorkflowExecutionRequest.Builder request =
+        StartWorkflowExecutionRequest.newBuilder()
+            .setRequestId(UUID.randomUUID().toString())
+            .setNamespace(executionId.getNamespace())
+            .setWorkflowId(executionId.getWorkflowId().getWorkflowId())
+            .setWorkflowType(started.getWorkflowType())
+            .setTaskQueue(started.getTaskQueue())
+            .setWorkflowExecutionTimeout(started.getWorkflowExecutionTimeout())
+            .setWorkflowRunTimeout(started.getWorkflowRunTimeout())
+            .setWorkflowTaskTimeout(started.getWorkflowTaskTimeout())
+            .setIdentity(started.getIdentity())
+            .setCronSchedule(started.getCronSchedule())
+            .addAllCompletionCallbacks(started.getCompletionCallbacksList());
+    if (startedEvent.hasUserMetadata()) {
+      request.setUserMetadata(startedEvent.getUserMetadata());
+    }
+    if (started.hasInput()) {
+      request.setInput(started.getInput());
+    }
+    if (started.hasRetryPolicy()) {
+      request.setRetryPolicy(started.getRetryPolicy());
+    }
+    if (started.hasMemo()) {
+      request.setMemo(started.getMemo());
+    }
+    if (started.hasSearchAttributes()) {
+      request.setSearchAttributes(started.getSearchAttributes());
+    }
+    if (started.hasHeader()) {
+      request.setHeader(started.getHeader());
+    }
+    if (started.hasPriority()) {
+      request.setPriority(started.getPriority());
+    }
+    return request.build();
+  }
+
   private Optional<TestServiceRetryState> newRetryStateLocked(
       RetryPolicy retryPolicy, Duration expirationInterval) {
     Timestamp expirationTime =
@@ -532,14 +681,7 @@ public final class TestWorkflowService extends WorkflowServiceGrpc.WorkflowServi
             nexusEndpointStore,
             selfAdvancingTimer);
     WorkflowExecution execution = mutableState.getExecutionId().getExecution();
-    ExecutionId executionId = new ExecutionId(namespace, execution);
-    executionsByWorkflowId.put(workflowId, mutableState);
-    if (!firstExecutionRunId.isEmpty()) {
-      executionsByFirstExecutionRunId.put(
-          new WorkflowChainId(namespace, workflowId.getWorkflowId(), firstExecutionRunId),
-          mutableState);
-    }
-    executions.put(executionId, mutableState);
+    registerExecutionLocked(mutableState, workflowId, firstExecutionRunId);
 
     PollWorkflowTaskQueueRequest eagerWorkflowTaskPollRequest =
         startRequest.getRequestEagerExecution()
@@ -580,10 +722,20 @@ public final class TestWorkflowService extends WorkflowServiceGrpc.WorkflowServi
             .wrap(
                 () -> {
                   try {
-                    TestWorkflowMutableState mutableState = getMutableState(executionId);
+                    ExecutionId historyExecutionId;
+                    try {
+                      historyExecutionId = getMutableState(executionId).getExecutionId();
+                    } catch (StatusRuntimeException e) {
+                      // executions recovered from a durable storage have only the history
+                      if (e.getStatus().getCode() != Status.Code.NOT_FOUND
+                          || executionId.getExecution().getRunId().isEmpty()) {
+                        throw e;
+                      }
+                      historyExecutionId = executionId;
+                    }
                     responseObserver.onNext(
                         store.getWorkflowExecutionHistory(
-                            mutableState.getExecutionId(),
+                            historyExecutionId,
                             getRequest,
                             // We explicitly don't try to respond inside the context deadline.
                             // If we try to fit into the context deadline, the deadline may be not
@@ -1734,6 +1886,30 @@ public final class TestWorkflowService extends WorkflowServiceGrpc.WorkflowServi
     }
   }
 
+  @Override
+  public void listWorkflowExecutions(
+      ListWorkflowExecutionsRequest listRequest,
+      StreamObserver<ListWorkflowExecutionsResponse> responseObserver) {
+    try {
+      responseObserver.onNext(visibilityStore.listWorkflowExecutions(listRequest));
+      responseObserver.onCompleted();
+    } catch (StatusRuntimeException e) {
+      handleStatusRuntimeException(e, responseObserver);
+    }
+  }
+
+  @Override
+  public void countWorkflowExecutions(
+      CountWorkflowExecutionsRequest countRequest,
+      StreamObserver<CountWorkflowExecutionsResponse> responseObserver) {
+    try {
+      responseObserver.onNext(visibilityStore.countWorkflowExecutions(countRequest));
+      responseObserver.onCompleted();
+    } catch (StatusRuntimeException e) {
+      handleStatusRuntimeException(e, responseObserver);
+    }
+  }
+
   @Override
   public void respondQueryTaskCompleted(
       RespondQueryTaskCompletedRequest completeRequest,
@@ -2138,8 +2314,8 @@ public final class TestWorkflowService extends WorkflowServiceGrpc.WorkflowServi
   private TestWorkflowService(long initialTimeMillis, boolean startInProcessServer) {
     this.selfAdvancingTimer =
         new SelfAdvancingTimerImpl(initialTimeMillis, Clock.systemDefaultZone());
-    store = new TestWorkflowStoreImpl(this.selfAdvancingTimer);
     visibilityStore = new TestVisibilityStoreImpl();
+    store = new TestWorkflowStoreImpl(this.selfAdvancingTimer, visibilityStore);
     nexusEndpointStore = new TestNexusEndpointStoreImpl();
     outOfProcessServer = null;
     if (startInProcessServer) {
@@ -2176,8 +2352,8 @@ public final class TestWorkflowService extends WorkflowServiceGrpc.WorkflowServi
     inProcessServer = null;
     workflowServiceStubs = null;
     this.selfAdvancingTimer = new SelfAdvancingTimerImpl(0, Clock.systemDefaultZone());
-    store = new TestWorkflowStoreImpl(selfAdvancingTimer);
     visibilityStore = new TestVisibilityStoreImpl();
+    store = new TestWorkflowStoreImpl(selfAdvancingTimer, visibilityStore);
     nexusEndpointStore = new TestNexusEndpointStoreImpl();
     try {
       ServerBuilder<?> serverBuilder =
@@ -3,6 +3,7 @@ package io.temporal.internal.testservice;
 import com.google.protobuf.Timestamp;
 import io.grpc.Deadline;
 import io.temporal.api.common.v1.Priority;
+import io.temporal.api.history.v1.HistoryEvent;
 import io.temporal.api.workflow.v1.WorkflowExecutionInfo;
 import io.temporal.api.workflowservice.v1.*;
 import java.time.Duration;
@@ -171,6 +172,24 @@ interface TestWorkflowStore {
       PollWorkflowTaskQueueResponse.Builder task,
       Priority priority);
 
+  /**
+   * @return immutable snapshot of all the events of the execution. Doesn't copy the events.
+   */
+  List<HistoryEvent> getHistoryEvents(ExecutionId executionId);
+
+  /**
+   * @return ids of the executions recovered from a durable storage that were still open, parents
+   *     before their children. Their mutable state has to be recovered by the service.
+   */
+  List<ExecutionId> getRecoveredOpenExecutions();
+
+  /**
+   * Sets the first history page of {@code events} to the {@code task} and a next page token if
+   * {@code events} don't fit into a single page. Pages fetched by this token through {@link
+   * #getWorkflowExecutionHistory} never go past the last of {@code events}.
+   */
+  void setFirstHistoryPage(PollWorkflowTaskQueueResponse.Builder task, List<HistoryEvent> events);
+
   GetWorkflowExecutionHistoryResponse getWorkflowExecutionHistory(
       ExecutionId executionId,
       GetWorkflowExecutionHistoryRequest getRequest,
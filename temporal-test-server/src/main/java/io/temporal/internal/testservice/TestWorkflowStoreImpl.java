@@ -23,7 +23,9 @@ import io.temporal.internal.testservice.RequestContext.Timer;
 import io.temporal.workflow.Functions;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -33,7 +35,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
-import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -41,6 +43,18 @@ class TestWorkflowStoreImpl implements TestWorkflowStore {
 
   private static final Logger log = LoggerFactory.getLogger(TestWorkflowStoreImpl.class);
 
+  /**
+   * Default maximum number of events in a single history page. Matches the default of the real
+   * Temporal frontend.
+   */
+  static final int DEFAULT_HISTORY_PAGE_SIZE = 256;
+
+  /**
+   * Number of completed executions which histories are kept deserialized on heap when a {@link
+   * DurableHistoryStorage} is used.
+   */
+  private static final int HOT_COMPLETED_HISTORIES = 1000;
+
   private final Lock lock = new ReentrantLock();
   private final Map<ExecutionId, HistoryStore> histories = new HashMap<>();
   private final Map<TaskQueueId, TaskQueue<PollActivityTaskQueueResponse.Builder>>
@@ -49,19 +63,59 @@ class TestWorkflowStoreImpl implements TestWorkflowStore {
       workflowTaskQueues = new HashMap<>();
   private final Map<TaskQueueId, TaskQueue<NexusTask>> nexusTaskQueues = new HashMap<>();
   private final SelfAdvancingTimer selfAdvancingTimer;
+  private final TestVisibilityStore visibilityStore;
+  private final int historyPageSize;
+  private final @Nullable DurableHistoryStorage durableStorage;
+  // in the order of the storage, so the parents are recovered before their children
+  private final List<ExecutionId> recoveredOpenExecutions = new ArrayList<>();
+
+  // Access ordered, the least recently used histories are evicted to the durable storage
+  private final Map<ExecutionId, HistoryStore> hotCompletedHistories =
+      new LinkedHashMap<ExecutionId, HistoryStore>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ExecutionId, HistoryStore> eldest) {
+          if (size() <= HOT_COMPLETED_HISTORIES) {
+            return false;
+          }
+          eldest.getValue().history = null;
+          return true;
+        }
+      };
 
-  private static class HistoryStore {
+  private class HistoryStore {
 
     private final ExecutionId id;
     private final Lock lock;
     private final Condition newEventsCondition;
-    private final List<HistoryEvent> history = new ArrayList<>();
+    // null if the events were evicted and have to be loaded from the durable storage
+    private @Nullable HistoryEventLog history;
     private boolean completed;
+    // kept to list the executions without loading their histories from the durable storage
+    private HistoryEvent firstEvent;
+    private HistoryEvent lastEvent;
+    private int eventCount;
 
     private HistoryStore(ExecutionId id, Lock lock) {
       this.id = id;
       this.lock = lock;
       this.newEventsCondition = lock.newCondition();
+      this.history = new HistoryEventLog();
+    }
+
+    /** Creates a store of an execution recovered from the durable storage. */
+    private HistoryStore(
+        ExecutionId id,
+        Lock lock,
+        HistoryEvent firstEvent,
+        HistoryEvent lastEvent,
+        int eventCount) {
+      this.id = id;
+      this.lock = lock;
+      this.newEventsCondition = lock.newCondition();
+      this.completed = WorkflowExecutionUtils.isWorkflowExecutionClosedEvent(lastEvent);
+      this.firstEvent = firstEvent;
+      this.lastEvent = lastEvent;
+      this.eventCount = eventCount;
     }
 
     public boolean isCompleted() {
@@ -69,17 +123,36 @@ class TestWorkflowStoreImpl implements TestWorkflowStore {
     }
 
     public List<HistoryEvent> getHistory() {
+      return log().snapshot();
+    }
+
+    private HistoryEventLog log() {
+      if (durableStorage == null) {
+        return history;
+      }
+      if (history == null) {
+        HistoryEventLog loaded = new HistoryEventLog();
+        for (HistoryEvent event : durableStorage.readAll(id)) {
+          loaded.add(event);
+        }
+        history = loaded;
+      }
+      if (completed) {
+        hotCompletedHistories.put(id, this);
+      }
       return history;
     }
 
     private void checkNextEventId(long nextEventId) {
-      if (nextEventId != history.size() + 1L && (nextEventId != 0 && history.size() != 0)) {
+      int size = log().size();
+      if (nextEventId != size + 1L && (nextEventId != 0 && size != 0)) {
         throw new IllegalStateException(
-            "NextEventId=" + nextEventId + ", historySize=" + history.size() + " for " + id);
+            "NextEventId=" + nextEventId + ", historySize=" + size + " for " + id);
       }
     }
 
     List<HistoryEvent> addAllLocked(List<HistoryEvent> events, Timestamp eventTime) {
+      HistoryEventLog history = log();
       int currentSize = history.size();
       for (HistoryEvent event : events) {
         HistoryEvent.Builder eBuilder = event.toBuilder();
@@ -91,19 +164,34 @@ class TestWorkflowStoreImpl implements TestWorkflowStore {
         if (Timestamps.toMillis(eBuilder.getEventTime()) == 0) {
           eBuilder.setEventTime(eventTime);
         }
-        history.add(eBuilder.build());
+        HistoryEvent storedEvent = eBuilder.build();
+        history.add(storedEvent);
+        if (firstEvent == null) {
+          firstEvent = storedEvent;
+        }
+        lastEvent = storedEvent;
+        eventCount++;
+        if (durableStorage != null) {
+          durableStorage.append(id, storedEvent);
+        }
         completed = completed || WorkflowExecutionUtils.isWorkflowExecutionClosedEvent(eBuilder);
       }
+      if (completed && durableStorage != null) {
+        hotCompletedHistories.put(id, this);
+      }
       newEventsCondition.signalAll();
-      return history.subList(currentSize, history.size());
+      return history.snapshot().subList(currentSize, history.size());
     }
 
     long getNextEventIdLocked() {
-      return history.size() + 1L;
+      return log().size() + 1L;
     }
 
+    /**
+     * @return immutable snapshot of the events, can be used after the lock is released
+     */
     List<HistoryEvent> getEventsLocked() {
-      return history;
+      return log().snapshot();
     }
 
     List<HistoryEvent> waitForNewEvents(
@@ -114,19 +202,15 @@ class TestWorkflowStoreImpl implements TestWorkflowStore {
           if (completed || getNextEventIdLocked() > expectedNextEventId) {
             if (filterType == HistoryEventFilterType.HISTORY_EVENT_FILTER_TYPE_CLOSE_EVENT) {
               if (completed) {
-                List<HistoryEvent> result = new ArrayList<>(1);
-                result.add(history.get(history.size() - 1));
-                return result;
+                return Collections.singletonList(log().getLast());
               }
               expectedNextEventId = getNextEventIdLocked();
               continue;
             }
-            List<HistoryEvent> result =
-                new ArrayList<>(((int) (getNextEventIdLocked() - expectedNextEventId)));
-            for (int i = (int) expectedNextEventId; i < getNextEventIdLocked(); i++) {
-              result.add(history.get(i));
-            }
-            return result;
+            // events with ids [expectedNextEventId, nextEventId)
+            return log()
+                .snapshot()
+                .subList((int) expectedNextEventId - 1, (int) getNextEventIdLocked() - 1);
           }
           try {
             long toWait;
@@ -150,8 +234,76 @@ class TestWorkflowStoreImpl implements TestWorkflowStore {
     }
   }
 
-  public TestWorkflowStoreImpl(SelfAdvancingTimer selfAdvancingTimer) {
+  public TestWorkflowStoreImpl(
+      SelfAdvancingTimer selfAdvancingTimer, TestVisibilityStore visibilityStore) {
+    this(selfAdvancingTimer, visibilityStore, DEFAULT_HISTORY_PAGE_SIZE);
+  }
+
+  /**
+   * @param visibilityStore receives the started and closed executions to serve visibility queries
+   * @param historyPageSize maximum number of events returned in a single history page if the
+   *     request doesn't specify a smaller {@code maximumPageSize}
+   */
+  public TestWorkflowStoreImpl(
+      SelfAdvancingTimer selfAdvancingTimer,
+      TestVisibilityStore visibilityStore,
+      int historyPageSize) {
+    this(selfAdvancingTimer, visibilityStore, historyPageSize, null);
+  }
+
+  /**
+   * @param durableStorage if not null, all the events are appended to it and only the histories of
+   *     the open and the recently used completed executions are kept on heap. Executions already
+   *     present in the storage are recovered with their histories and visibility records, the
+   *     mutable state of the open ones is recovered by the service from {@link
+   *     #getRecoveredOpenExecutions()}. The storage is not closed by this store.
+   */
+  public TestWorkflowStoreImpl(
+      SelfAdvancingTimer selfAdvancingTimer,
+      TestVisibilityStore visibilityStore,
+      int historyPageSize,
+      @Nullable DurableHistoryStorage durableStorage) {
+    if (historyPageSize <= 0) {
+      throw new IllegalArgumentException("historyPageSize should be positive: " + historyPageSize);
+    }
     this.selfAdvancingTimer = selfAdvancingTimer;
+    this.visibilityStore = visibilityStore;
+    this.historyPageSize = historyPageSize;
+    this.durableStorage = durableStorage;
+    if (durableStorage != null) {
+      recover(durableStorage);
+    }
+  }
+
+  private void recover(DurableHistoryStorage durableStorage) {
+    for (ExecutionId executionId : durableStorage.getExecutionIds()) {
+      int eventCount = durableStorage.getEventCount(executionId);
+      if (eventCount == 0) {
+        continue;
+      }
+      HistoryEvent firstEvent = durableStorage.read(executionId, 0);
+      HistoryEvent lastEvent = durableStorage.read(executionId, eventCount - 1);
+      HistoryStore history = new HistoryStore(executionId, lock, firstEvent, lastEvent, eventCount);
+      histories.put(executionId, history);
+      visibilityStore.recordWorkflowStarted(
+          executionId,
+          firstEvent.getWorkflowExecutionStartedEventAttributes(),
+          firstEvent.getEventTime());
+      if (history.isCompleted()) {
+        visibilityStore.recordWorkflowClosed(
+            executionId,
+            WorkflowExecutionUtils.getCloseStatus(lastEvent),
+            lastEvent.getEventTime(),
+            eventCount);
+      } else {
+        recoveredOpenExecutions.add(executionId);
+      }
+    }
+  }
+
+  @Override
+  public List<ExecutionId> getRecoveredOpenExecutions() {
+    return Collections.unmodifiableList(recoveredOpenExecutions);
   }
 
   @Override
@@ -183,6 +335,18 @@ class TestWorkflowStoreImpl implements TestWorkflowStore {
 
       TestWorkflowMutableState mutableState = ctx.getWorkflowMutableState();
       for (HistoryEvent event : newEvents) {
+        if (event.getEventType() == EventType.EVENT_TYPE_WORKFLOW_EXECUTION_STARTED) {
+          visibilityStore.recordWorkflowStarted(
+              executionId,
+              event.getWorkflowExecutionStartedEventAttributes(),
+              event.getEventTime());
+        } else if (WorkflowExecutionUtils.isWorkflowExecutionClosedEvent(event)) {
+          visibilityStore.recordWorkflowClosed(
+              executionId,
+              WorkflowExecutionUtils.getCloseStatus(event),
+              event.getEventTime(),
+              history.getEventsLocked().size());
+        }
         if (event.getEventType() == EventType.EVENT_TYPE_WORKFLOW_EXECUTION_OPTIONS_UPDATED) {
           final String requestId =
               event.getWorkflowExecutionOptionsUpdatedEventAttributes().getAttachedRequestId();
@@ -347,8 +511,7 @@ class TestWorkflowStoreImpl implements TestWorkflowStore {
     lock.lock();
     try {
       HistoryStore historyStore = getHistoryStore(executionId);
-      List<HistoryEvent> events = new ArrayList<>(historyStore.getEventsLocked());
-      History.Builder history = History.newBuilder();
+      List<HistoryEvent> events = historyStore.getEventsLocked();
       PeekingIterator<HistoryEvent> iterator = Iterators.peekingIterator(events.iterator());
       long previousStaredEventId = 0;
       while (iterator.hasNext()) {
@@ -371,11 +534,10 @@ class TestWorkflowStoreImpl implements TestWorkflowStore {
       // task
       task.setStartedEventId(0);
       if (taskQueue.getTaskQueueName().equals(task.getWorkflowExecutionTaskQueue().getName())) {
-        history.addAllEvents(events);
+        setFirstHistoryPage(task, events);
       } else {
-        history.addAllEvents(new ArrayList<>());
+        task.setHistory(History.getDefaultInstance());
       }
-      task.setHistory(history);
     } finally {
       lock.unlock();
     }
@@ -384,6 +546,29 @@ class TestWorkflowStoreImpl implements TestWorkflowStore {
     workflowTaskQueue.add(task, priority);
   }
 
+  @Override
+  public void setFirstHistoryPage(
+      PollWorkflowTaskQueueResponse.Builder task, List<HistoryEvent> events) {
+    if (events.size() <= historyPageSize) {
+      task.setHistory(History.newBuilder().addAllEvents(events));
+      return;
+    }
+    long lastEventId = events.get(events.size() - 1).getEventId();
+    task.setHistory(History.newBuilder().addAllEvents(events.subList(0, historyPageSize)));
+    task.setNextPageToken(
+        new HistoryPageToken(events.get(historyPageSize).getEventId(), lastEventId).toBytes());
+  }
+
+  @Override
+  public List<HistoryEvent> getHistoryEvents(ExecutionId executionId) {
+    lock.lock();
+    try {
+      return getHistoryStore(executionId).getEventsLocked();
+    } finally {
+      lock.unlock();
+    }
+  }
+
   @Override
   public GetWorkflowExecutionHistoryResponse getWorkflowExecutionHistory(
       ExecutionId executionId,
@@ -392,34 +577,33 @@ class TestWorkflowStoreImpl implements TestWorkflowStore {
     HistoryStore history;
     // Used to eliminate the race condition on waitForNewEvents
     long expectedNextEventId;
+    List<HistoryEvent> snapshot;
     lock.lock();
     try {
       history = getHistoryStore(executionId);
       if (!getRequest.getWaitNewEvent()) {
-        List<HistoryEvent> events = history.getEventsLocked();
-        // Copy the list as it is mutable. Individual events assumed immutable.
-        List<HistoryEvent> eventsCopy =
-            events.stream()
-                .filter(
-                    e -> {
-                      if (getRequest.getHistoryEventFilterType()
-                          != HistoryEventFilterType.HISTORY_EVENT_FILTER_TYPE_CLOSE_EVENT) {
-                        return true;
-                      }
-
-                      // They asked for only the close event. There are a variety of ways a workflow
-                      // can close.
-                      return WorkflowExecutionUtils.isWorkflowExecutionClosedEvent(e);
-                    })
-                .collect(Collectors.toList());
-        return GetWorkflowExecutionHistoryResponse.newBuilder()
-            .setHistory(History.newBuilder().addAllEvents(eventsCopy))
-            .build();
+        if (getRequest.getHistoryEventFilterType()
+            == HistoryEventFilterType.HISTORY_EVENT_FILTER_TYPE_CLOSE_EVENT) {
+          // They asked for only the close event. There are a variety of ways a workflow
+          // can close, but it is always the last event of the history.
+          History.Builder closeEvent = History.newBuilder();
+          if (history.isCompleted()) {
+            closeEvent.addEvents(history.log().getLast());
+          }
+          return GetWorkflowExecutionHistoryResponse.newBuilder().setHistory(closeEvent).build();
+        }
+        snapshot = history.getEventsLocked();
+      } else {
+        snapshot = null;
       }
       expectedNextEventId = history.getNextEventIdLocked();
     } finally {
       lock.unlock();
     }
+    if (snapshot != null) {
+      // the snapshot is immutable, so the page is built outside the lock
+      return getHistoryPage(snapshot, getRequest);
+    }
     List<HistoryEvent> events =
         history.waitForNewEvents(
             expectedNextEventId,
@@ -433,6 +617,38 @@ class TestWorkflowStoreImpl implements TestWorkflowStore {
     return result.build();
   }
 
+  private GetWorkflowExecutionHistoryResponse getHistoryPage(
+      List<HistoryEvent> events, GetWorkflowExecutionHistoryRequest getRequest) {
+    int pageSize = historyPageSize;
+    if (getRequest.getMaximumPageSize() > 0) {
+      pageSize = Math.min(getRequest.getMaximumPageSize(), historyPageSize);
+    }
+    // event ids start from 1 and are equal to the index in the history + 1
+    int from = 0;
+    int to = events.size();
+    if (!getRequest.getNextPageToken().isEmpty()) {
+      HistoryPageToken token = HistoryPageToken.fromBytes(getRequest.getNextPageToken());
+      from = (int) token.getNextEventId() - 1;
+      if (token.getLastEventId() > 0) {
+        to = (int) Math.min(to, token.getLastEventId());
+      }
+      if (from < 0 || from > to) {
+        throw Status.INVALID_ARGUMENT
+            .withDescription("Invalid history next page token: " + token.getNextEventId())
+            .asRuntimeException();
+      }
+    }
+    GetWorkflowExecutionHistoryResponse.Builder result =
+        GetWorkflowExecutionHistoryResponse.newBuilder();
+    int pageEnd = (int) Math.min(to, (long) from + pageSize);
+    result.setHistory(History.newBuilder().addAllEvents(events.subList(from, pageEnd)));
+    if (pageEnd < to) {
+      result.setNextPageToken(
+          new HistoryPageToken(pageEnd + 1, events.get(to - 1).getEventId()).toBytes());
+    }
+    return result.build();
+  }
+
   private HistoryStore getHistoryStore(ExecutionId executionId) {
     HistoryStore result = histories.get(executionId);
     if (result == null) {
@@ -474,29 +690,33 @@ class TestWorkflowStoreImpl implements TestWorkflowStore {
   public List<WorkflowExecutionInfo> listWorkflows(
       WorkflowState state, Optional<String> filterWorkflowId) {
     List<WorkflowExecutionInfo> result = new ArrayList<>();
-    for (Entry<ExecutionId, HistoryStore> entry : this.histories.entrySet()) {
-      ExecutionId executionId = entry.getKey();
-      String workflowId = executionId.getWorkflowId().getWorkflowId();
-      if (filterWorkflowId.isPresent() && !workflowId.equals(filterWorkflowId.get())) {
-        continue;
-      }
-
-      if (state == WorkflowState.OPEN) {
-        if (entry.getValue().isCompleted()) {
+    lock.lock();
+    try {
+      for (Entry<ExecutionId, HistoryStore> entry : this.histories.entrySet()) {
+        ExecutionId executionId = entry.getKey();
+        String workflowId = executionId.getWorkflowId().getWorkflowId();
+        if (filterWorkflowId.isPresent() && !workflowId.equals(filterWorkflowId.get())) {
           continue;
         }
-        result.add(
-            constructWorkflowExecutionInfo(
-                entry, executionId, WorkflowExecutionStatus.WORKFLOW_EXECUTION_STATUS_RUNNING));
-      } else {
-        if (!entry.getValue().isCompleted()) {
-          continue;
+
+        if (state == WorkflowState.OPEN) {
+          if (entry.getValue().isCompleted()) {
+            continue;
+          }
+          result.add(
+              constructWorkflowExecutionInfo(
+                  entry, executionId, WorkflowExecutionStatus.WORKFLOW_EXECUTION_STATUS_RUNNING));
+        } else {
+          if (!entry.getValue().isCompleted()) {
+            continue;
+          }
+          WorkflowExecutionStatus status =
+              WorkflowExecutionUtils.getCloseStatus(entry.getValue().lastEvent);
+          result.add(constructWorkflowExecutionInfo(entry, executionId, status));
         }
-        List<HistoryEvent> history = entry.getValue().getHistory();
-        WorkflowExecutionStatus status =
-            WorkflowExecutionUtils.getCloseStatus(history.get(history.size() - 1));
-        result.add(constructWorkflowExecutionInfo(entry, executionId, status));
       }
+    } finally {
+      lock.unlock();
     }
     return result;
   }
@@ -505,13 +725,14 @@ class TestWorkflowStoreImpl implements TestWorkflowStore {
       Entry<ExecutionId, HistoryStore> entry,
       ExecutionId executionId,
       WorkflowExecutionStatus status) {
-    List<HistoryEvent> history = entry.getValue().getHistory();
+    HistoryStore history = entry.getValue();
+    HistoryEvent firstEvent = history.firstEvent;
     WorkflowExecutionInfo.Builder info =
         WorkflowExecutionInfo.newBuilder()
             .setExecution(executionId.getExecution())
-            .setHistoryLength(history.size())
-            .setStartTime(history.get(0).getEventTime())
-            .setType(history.get(0).getWorkflowExecutionStartedEventAttributes().getWorkflowType());
+            .setHistoryLength(history.eventCount)
+            .setStartTime(firstEvent.getEventTime())
+            .setType(firstEvent.getWorkflowExecutionStartedEventAttributes().getWorkflowType());
     if (status != null) {
       info.setStatus(status);
     }
@@ -0,0 +1,421 @@
+package io.temporal.internal.testservice;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.protobuf.Timestamp;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.temporal.api.common.v1.WorkflowType;
+import io.temporal.api.enums.v1.IndexedValueType;
+import io.temporal.api.enums.v1.WorkflowExecutionStatus;
+import io.temporal.api.workflow.v1.WorkflowExecutionInfo;
+import io.temporal.internal.common.ProtoEnumNameUtils;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import javax.annotation.Nullable;
+
+/**
+ * Visibility records of workflow executions with a sorted index per attribute.
+ *
+ * <p>Every system attribute ({@code WorkflowId}, {@code ExecutionStatus}, {@code StartTime}, ...)
+ * and every custom search attribute is indexed by a {@link TreeMap} from the attribute value to the
+ * executions having this value. Equality and {@code IN} predicates are served by point lookups,
+ * ranges by sub maps of the index, so queries don't scan all the executions.
+ *
+ * <p>This class is not thread safe and should be guarded by the owner.
+ */
+final class VisibilityIndex {
+  static final String WORKFLOW_ID = "WorkflowId";
+  static final String RUN_ID = "RunId";
+  static final String WORKFLOW_TYPE = "WorkflowType";
+  static final String TASK_QUEUE = "TaskQueue";
+  static final String EXECUTION_STATUS = "ExecutionStatus";
+  static final String START_TIME = "StartTime";
+  static final String EXECUTION_TIME = "ExecutionTime";
+  static final String CLOSE_TIME = "CloseTime";
+
+  private static final String EXECUTION_STATUS_PREFIX = "WORKFLOW_EXECUTION_STATUS_";
+
+  private static final Map<String, IndexedValueType> SYSTEM_ATTRIBUTES =
+      ImmutableMap.<String, IndexedValueType>builder()
+          .put(WORKFLOW_ID, IndexedValueType.INDEXED_VALUE_TYPE_KEYWORD)
+          .put(RUN_ID, IndexedValueType.INDEXED_VALUE_TYPE_KEYWORD)
+          .put(WORKFLOW_TYPE, IndexedValueType.INDEXED_VALUE_TYPE_KEYWORD)
+          .put(TASK_QUEUE, IndexedValueType.INDEXED_VALUE_TYPE_KEYWORD)
+          .put(EXECUTION_STATUS, IndexedValueType.INDEXED_VALUE_TYPE_KEYWORD)
+          .put(START_TIME, IndexedValueType.INDEXED_VALUE_TYPE_DATETIME)
+          .put(EXECUTION_TIME, IndexedValueType.INDEXED_VALUE_TYPE_DATETIME)
+          .put(CLOSE_TIME, IndexedValueType.INDEXED_VALUE_TYPE_DATETIME)
+          .build();
+
+  static final class Record {
+    private final ExecutionId executionId;
+    private final String workflowType;
+    private final String taskQueue;
+    private final Timestamp startTime;
+    private final Timestamp executionTime;
+    private WorkflowExecutionStatus status =
+        WorkflowExecutionStatus.WORKFLOW_EXECUTION_STATUS_RUNNING;
+    private @Nullable Timestamp closeTime;
+    private long historyLength;
+
+    private Record(
+        ExecutionId executionId,
+        String workflowType,
+        String taskQueue,
+        Timestamp startTime,
+        Timestamp executionTime) {
+      this.executionId = executionId;
+      this.workflowType = workflowType;
+      this.taskQueue = taskQueue;
+      this.startTime = startTime;
+      this.executionTime = executionTime;
+    }
+
+    WorkflowExecutionInfo.Builder toExecutionInfo() {
+      WorkflowExecutionInfo.Builder info =
+          WorkflowExecutionInfo.newBuilder()
+              .setExecution(executionId.getExecution())
+              .setType(WorkflowType.newBuilder().setName(workflowType))
+              .setTaskQueue(taskQueue)
+              .setStartTime(startTime)
+              .setExecutionTime(executionTime)
+              .setStatus(status)
+              .setHistoryLength(historyLength);
+      if (closeTime != null) {
+        info.setCloseTime(closeTime);
+      }
+      return info;
+    }
+  }
+
+  private final Map<String, IndexedValueType> customAttributes;
+  private final Map<ExecutionId, Record> records = new HashMap<>();
+  private final Map<String, Set<ExecutionId>> namespaces = new HashMap<>();
+  private final Map<String, NavigableMap<Object, Set<ExecutionId>>> indexes = new HashMap<>();
+  // indexed values of each execution, used to remove the stale values from the indexes
+  private final Map<ExecutionId, Map<String, List<Object>>> indexedValues = new HashMap<>();
+
+  /**
+   * @param customAttributes registered custom search attributes, may be modified by the owner
+   */
+  VisibilityIndex(Map<String, IndexedValueType> customAttributes) {
+    this.customAttributes = customAttributes;
+  }
+
+  void recordStarted(
+      ExecutionId executionId,
+      String workflowType,
+      String taskQueue,
+      Timestamp startTime,
+      Timestamp executionTime) {
+    Record record = new Record(executionId, workflowType, taskQueue, startTime, executionTime);
+    records.put(executionId, record);
+    namespaces
+        .computeIfAbsent(executionId.getNamespace(), k -> new LinkedHashSet<>())
+        .add(executionId);
+    put(executionId, WORKFLOW_ID, executionId.getWorkflowId().getWorkflowId());
+    put(executionId, RUN_ID, executionId.getExecution().getRunId());
+    put(executionId, WORKFLOW_TYPE, workflowType);
+    put(executionId, TASK_QUEUE, taskQueue);
+    put(executionId, EXECUTION_STATUS, statusName(record.status));
+    put(executionId, START_TIME, toInstant(startTime));
+    put(executionId, EXECUTION_TIME, toInstant(executionTime));
+  }
+
+  void recordClosed(
+      ExecutionId executionId,
+      WorkflowExecutionStatus status,
+      Timestamp closeTime,
+      long historyLength) {
+    Record record = records.get(executionId);
+    if (record == null) {
+      return;
+    }
+    record.status = status;
+    record.closeTime = closeTime;
+    record.historyLength = historyLength;
+    put(executionId, EXECUTION_STATUS, statusName(status));
+    put(executionId, CLOSE_TIME, toInstant(closeTime));
+  }
+
+  /**
+   * Replaces the indexed values of the custom search attributes present in {@code values}. Null or
+   * empty value removes the attribute.
+   */
+  void indexSearchAttributes(ExecutionId executionId, Map<String, List<?>> values) {
+    for (Map.Entry<String, List<?>> entry : values.entrySet()) {
+      String attribute = entry.getKey();
+      IndexedValueType type = customAttributes.get(attribute);
+      if (type == null) {
+        continue;
+      }
+      List<Object> keys = new ArrayList<>();
+      if (entry.getValue() != null) {
+        for (Object value : entry.getValue()) {
+          keys.add(toKey(attribute, type, value));
+        }
+      }
+      replace(executionId, attribute, keys);
+    }
+  }
+
+  @Nullable
+  Record getRecord(ExecutionId executionId) {
+    return records.get(executionId);
+  }
+
+  /**
+   * @return executions of the {@code namespace} matching the {@code query} in the order requested
+   *     by the query
+   */
+  List<ExecutionId> query(String namespace, VisibilityQuery query) {
+    Set<ExecutionId> inNamespace = namespaces.getOrDefault(namespace, Collections.emptySet());
+    Set<ExecutionId> matching;
+    if (query.getFilter() == null) {
+      matching = inNamespace;
+    } else {
+      matching = query.getFilter().evaluate(this);
+      matching.retainAll(inNamespace);
+    }
+    return order(matching, query.getOrderBy(), query.isDescending());
+  }
+
+  Set<ExecutionId> and(List<VisibilityQuery.Expression> operands) {
+    List<Set<ExecutionId>> sets = new ArrayList<>(operands.size());
+    for (VisibilityQuery.Expression operand : operands) {
+      sets.add(operand.evaluate(this));
+    }
+    sets.sort(Comparator.comparingInt(Set::size));
+    Set<ExecutionId> result = sets.get(0);
+    for (int i = 1; i < sets.size() && !result.isEmpty(); i++) {
+      result.retainAll(sets.get(i));
+    }
+    return result;
+  }
+
+  Set<ExecutionId> or(List<VisibilityQuery.Expression> operands) {
+    Set<ExecutionId> result = new HashSet<>();
+    for (VisibilityQuery.Expression operand : operands) {
+      result.addAll(operand.evaluate(this));
+    }
+    return result;
+  }
+
+  Set<ExecutionId> compare(String attribute, VisibilityQuery.Operator operator, Object value) {
+    NavigableMap<Object, Set<ExecutionId>> index = getIndex(attribute);
+    Object key = toKey(attribute, getType(attribute), value);
+    switch (operator) {
+      case EQ:
+        return new HashSet<>(index.getOrDefault(key, Collections.emptySet()));
+      case NE:
+        Set<ExecutionId> result = new HashSet<>(records.keySet());
+        result.removeAll(index.getOrDefault(key, Collections.emptySet()));
+        return result;
+      case LT:
+        return union(index.headMap(key, false));
+      case LE:
+        return union(index.headMap(key, true));
+      case GT:
+        return union(index.tailMap(key, false));
+      case GE:
+        return union(index.tailMap(key, true));
+      default:
+        throw new IllegalArgumentException("Unknown operator: " + operator);
+    }
+  }
+
+  Set<ExecutionId> in(String attribute, List<Object> values, boolean negated) {
+    NavigableMap<Object, Set<ExecutionId>> index = getIndex(attribute);
+    IndexedValueType type = getType(attribute);
+    Set<ExecutionId> matching = new HashSet<>();
+    for (Object value : values) {
+      matching.addAll(index.getOrDefault(toKey(attribute, type, value), Collections.emptySet()));
+    }
+    if (!negated) {
+      return matching;
+    }
+    Set<ExecutionId> result = new HashSet<>(records.keySet());
+    result.removeAll(matching);
+    return result;
+  }
+
+  Set<ExecutionId> between(String attribute, Object from, Object to) {
+    NavigableMap<Object, Set<ExecutionId>> index = getIndex(attribute);
+    IndexedValueType type = getType(attribute);
+    Object fromKey = toKey(attribute, type, from);
+    Object toKey = toKey(attribute, type, to);
+    if (compareKeys(fromKey, toKey) > 0) {
+      return new HashSet<>();
+    }
+    return union(index.subMap(fromKey, true, toKey, true));
+  }
+
+  private List<ExecutionId> order(Set<ExecutionId> matching, String orderBy, boolean descending) {
+    NavigableMap<Object, Set<ExecutionId>> index = getIndex(orderBy);
+    List<ExecutionId> result = new ArrayList<>(matching.size());
+    if (matching.size() * 4L > records.size()) {
+      // most of the executions match, it's cheaper to walk the sorted index
+      Set<ExecutionId> added = new HashSet<>();
+      for (Set<ExecutionId> executions : (descending ? index.descendingMap() : index).values()) {
+        for (ExecutionId executionId : executions) {
+          if (matching.contains(executionId) && added.add(executionId)) {
+            result.add(executionId);
+          }
+        }
+      }
+      // executions without a value go last
+      for (ExecutionId executionId : matching) {
+        if (!added.contains(executionId)) {
+          result.add(executionId);
+        }
+      }
+      return result;
+    }
+    result.addAll(matching);
+    Comparator<Object> valueOrder = VisibilityIndex::compareKeys;
+    if (descending) {
+      valueOrder = valueOrder.reversed();
+    }
+    result.sort(
+        Comparator.comparing(
+            executionId -> firstValue(executionId, orderBy), Comparator.nullsLast(valueOrder)));
+    return result;
+  }
+
+  @Nullable
+  private Object firstValue(ExecutionId executionId, String attribute) {
+    List<Object> values =
+        indexedValues.getOrDefault(executionId, Collections.emptyMap()).get(attribute);
+    return values == null || values.isEmpty() ? null : values.get(0);
+  }
+
+  private void put(ExecutionId executionId, String attribute, Object key) {
+    replace(executionId, attribute, Collections.singletonList(key));
+  }
+
+  private void replace(ExecutionId executionId, String attribute, List<Object> keys) {
+    Map<String, List<Object>> values =
+        indexedValues.computeIfAbsent(executionId, k -> new HashMap<>());
+    List<Object> oldKeys = values.remove(attribute);
+    NavigableMap<Object, Set<ExecutionId>> index =
+        indexes.computeIfAbsent(attribute, k -> new TreeMap<>());
+    if (oldKeys != null) {
+      for (Object oldKey : oldKeys) {
+        Set<ExecutionId> executions = index.get(oldKey);
+        if (executions != null) {
+          executions.remove(executionId);
+          if (executions.isEmpty()) {
+            index.remove(oldKey);
+          }
+        }
+      }
+    }
+    if (keys.isEmpty()) {
+      return;
+    }
+    values.put(attribute, keys);
+    for (Object key : keys) {
+      index.computeIfAbsent(key, k -> new LinkedHashSet<>()).add(executionId);
+    }
+  }
+
+  private NavigableMap<Object, Set<ExecutionId>> getIndex(String attribute) {
+    // validates the attribute
+    getType(attribute);
+    return indexes.getOrDefault(attribute, Collections.emptyNavigableMap());
+  }
+
+  private IndexedValueType getType(String attribute) {
+    IndexedValueType type = SYSTEM_ATTRIBUTES.get(attribute);
+    if (type == null) {
+      type = customAttributes.get(attribute);
+    }
+    if (type == null) {
+      throw Status.INVALID_ARGUMENT
+          .withDescription("invalid query: unknown or unsupported search attribute " + attribute)
+          .asRuntimeException();
+    }
+    return type;
+  }
+
+  private static Object toKey(String attribute, IndexedValueType type, Object value) {
+    switch (type) {
+      case INDEXED_VALUE_TYPE_TEXT:
+      case INDEXED_VALUE_TYPE_KEYWORD:
+      case INDEXED_VALUE_TYPE_KEYWORD_LIST:
+        if (value instanceof String) {
+          return value;
+        }
+        break;
+      case INDEXED_VALUE_TYPE_INT:
+        if (value instanceof Number) {
+          return ((Number) value).longValue();
+        }
+        break;
+      case INDEXED_VALUE_TYPE_DOUBLE:
+        if (value instanceof Number) {
+          return ((Number) value).doubleValue();
+        }
+        break;
+      case INDEXED_VALUE_TYPE_BOOL:
+        if (value instanceof Boolean) {
+          return value;
+        }
+        break;
+      case INDEXED_VALUE_TYPE_DATETIME:
+        if (value instanceof Instant) {
+          return value;
+        }
+        if (value instanceof OffsetDateTime) {
+          return ((OffsetDateTime) value).toInstant();
+        }
+        if (value instanceof String) {
+          try {
+            return OffsetDateTime.parse((String) value).toInstant();
+          } catch (DateTimeParseException e) {
+            throw invalidValue(attribute, type, value);
+          }
+        }
+        break;
+      default:
+        break;
+    }
+    throw invalidValue(attribute, type, value);
+  }
+
+  private static StatusRuntimeException invalidValue(
+      String attribute, IndexedValueType type, Object value) {
+    return Status.INVALID_ARGUMENT
+        .withDescription(
+            "invalid query: invalid value "
+                + value
+                + " for search attribute "
+                + attribute
+                + " of type "
+                + ProtoEnumNameUtils.uniqueToSimplifiedName(type))
+        .asRuntimeException();
+  }
+
+  @SuppressWarnings("unchecked")
+  private static int compareKeys(Object a, Object b) {
+    return ((Comparable<Object>) a).compareTo(b);
+  }
+
+  private static Set<ExecutionId> union(Map<Object, Set<ExecutionId>> range) {
+    Set<ExecutionId> result = new HashSet<>();
+    for (Set<ExecutionId> executions : range.values()) {
+      result.addAll(executions);
+    }
+    return result;
+  }
+
+  private static String statusName(WorkflowExecutionStatus status) {
+    return ProtoEnumNameUtils.uniqueToSimplifiedName(status.name(), EXECUTION_STATUS_PREFIX);
+  }
+
+  private static Instant toInstant(Timestamp timestamp) {
+    return Instant.ofEpochSecond(timestamp.getSeconds(), timestamp.getNanos());
+  }
+}
@@ -0,0 +1,415 @@
+package io.temporal.internal.testservice;
+
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import javax.annotation.Nullable;
+
+/**
+ * Parsed visibility list query.
+ *
+ * <p>Supports the subset of the Temporal visibility query language that is needed for most of the
+ * tooling built on top of {@code ListWorkflowExecutions}:
+ *
+ * <ul>
+ *   <li>comparisons {@code =, !=, <>, <, <=, >, >=}
+ *   <li>{@code [NOT] IN (...)} and {@code BETWEEN ... AND ...}
+ *   <li>{@code AND}, {@code OR} and parentheses
+ *   <li>{@code ORDER BY <attribute> [ASC|DESC]}
+ * </ul>
+ *
+ * String and datetime values are single or double quoted, numbers and {@code true/false} are not.
+ */
+final class VisibilityQuery {
+
+  enum Operator {
+    EQ,
+    NE,
+    LT,
+    LE,
+    GT,
+    GE
+  }
+
+  /** A node of the parsed filter, evaluated into a set of matching executions. */
+  interface Expression {
+    Set<ExecutionId> evaluate(VisibilityIndex index);
+  }
+
+  static final class And implements Expression {
+    final List<Expression> operands;
+
+    And(List<Expression> operands) {
+      this.operands = operands;
+    }
+
+    @Override
+    public Set<ExecutionId> evaluate(VisibilityIndex index) {
+      return index.and(operands);
+    }
+  }
+
+  static final class Or implements Expression {
+    final List<Expression> operands;
+
+    Or(List<Expression> operands) {
+      this.operands = operands;
+    }
+
+    @Override
+    public Set<ExecutionId> evaluate(VisibilityIndex index) {
+      return index.or(operands);
+    }
+  }
+
+  static final class Comparison implements Expression {
+    final String attribute;
+    final Operator operator;
+    final Object value;
+
+    Comparison(String attribute, Operator operator, Object value) {
+      this.attribute = attribute;
+      this.operator = operator;
+      this.value = value;
+    }
+
+    @Override
+    public Set<ExecutionId> evaluate(VisibilityIndex index) {
+      return index.compare(attribute, operator, value);
+    }
+  }
+
+  static final class In implements Expression {
+    final String attribute;
+    final List<Object> values;
+    final boolean negated;
+
+    In(String attribute, List<Object> values, boolean negated) {
+      this.attribute = attribute;
+      this.values = values;
+      this.negated = negated;
+    }
+
+    @Override
+    public Set<ExecutionId> evaluate(VisibilityIndex index) {
+      return index.in(attribute, values, negated);
+    }
+  }
+
+  static final class Between implements Expression {
+    final String attribute;
+    final Object from;
+    final Object to;
+
+    Between(String attribute, Object from, Object to) {
+      this.attribute = attribute;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    public Set<ExecutionId> evaluate(VisibilityIndex index) {
+      return index.between(attribute, from, to);
+    }
+  }
+
+  private final @Nullable Expression filter;
+  private final String orderBy;
+  private final boolean descending;
+
+  private VisibilityQuery(@Nullable Expression filter, String orderBy, boolean descending) {
+    this.filter = filter;
+    this.orderBy = orderBy;
+    this.descending = descending;
+  }
+
+  /**
+   * @return null if the query has no filter and matches all the executions
+   */
+  @Nullable
+  Expression getFilter() {
+    return filter;
+  }
+
+  String getOrderBy() {
+    return orderBy;
+  }
+
+  boolean isDescending() {
+    return descending;
+  }
+
+  static VisibilityQuery parse(String query) {
+    return new Parser(query).parse();
+  }
+
+  private static StatusRuntimeException invalidQuery(String query, String message) {
+    return Status.INVALID_ARGUMENT
+        .withDescription("invalid query: " + message + ", query: \"" + query + "\"")
+        .asRuntimeException();
+  }
+
+  private enum TokenType {
+    IDENTIFIER,
+    STRING,
+    NUMBER,
+    OPERATOR,
+    LEFT_PAREN,
+    RIGHT_PAREN,
+    COMMA,
+    END
+  }
+
+  private static final class Token {
+    final TokenType type;
+    final String text;
+
+    Token(TokenType type, String text) {
+      this.type = type;
+      this.text = text;
+    }
+
+    boolean isKeyword(String keyword) {
+      return type == TokenType.IDENTIFIER && text.equalsIgnoreCase(keyword);
+    }
+  }
+
+  private static final class Parser {
+    private final String query;
+    private final List<Token> tokens;
+    private int position;
+
+    Parser(String query) {
+      this.query = query;
+      this.tokens = tokenize(query);
+    }
+
+    VisibilityQuery parse() {
+      Expression filter = null;
+      if (peek().type != TokenType.END && !peek().isKeyword("ORDER")) {
+        filter = parseOr();
+      }
+      String orderBy = VisibilityIndex.START_TIME;
+      boolean descending = true;
+      if (peek().isKeyword("ORDER")) {
+        next();
+        expectKeyword("BY");
+        orderBy = expect(TokenType.IDENTIFIER).text;
+        if (peek().isKeyword("ASC")) {
+          next();
+          descending = false;
+        } else if (peek().isKeyword("DESC")) {
+          next();
+        }
+      }
+      if (peek().type != TokenType.END) {
+        throw invalidQuery(query, "unexpected \"" + peek().text + "\"");
+      }
+      return new VisibilityQuery(filter, orderBy, descending);
+    }
+
+    private Expression parseOr() {
+      List<Expression> operands = new ArrayList<>();
+      operands.add(parseAnd());
+      while (peek().isKeyword("OR")) {
+        next();
+        operands.add(parseAnd());
+      }
+      return operands.size() == 1 ? operands.get(0) : new Or(operands);
+    }
+
+    private Expression parseAnd() {
+      List<Expression> operands = new ArrayList<>();
+      operands.add(parsePrimary());
+      while (peek().isKeyword("AND")) {
+        next();
+        operands.add(parsePrimary());
+      }
+      return operands.size() == 1 ? operands.get(0) : new And(operands);
+    }
+
+    private Expression parsePrimary() {
+      if (peek().type == TokenType.LEFT_PAREN) {
+        next();
+        Expression result = parseOr();
+        expect(TokenType.RIGHT_PAREN);
+        return result;
+      }
+      String attribute = expect(TokenType.IDENTIFIER).text;
+      Token token = next();
+      if (token.isKeyword("NOT")) {
+        expectKeyword("IN");
+        return new In(attribute, parseValueList(), true);
+      }
+      if (token.isKeyword("IN")) {
+        return new In(attribute, parseValueList(), false);
+      }
+      if (token.isKeyword("BETWEEN")) {
+        Object from = parseValue();
+        expectKeyword("AND");
+        Object to = parseValue();
+        return new Between(attribute, from, to);
+      }
+      if (token.type != TokenType.OPERATOR) {
+        throw invalidQuery(query, "expected an operator after " + attribute);
+      }
+      return new Comparison(attribute, toOperator(token.text), parseValue());
+    }
+
+    private List<Object> parseValueList() {
+      expect(TokenType.LEFT_PAREN);
+      List<Object> values = new ArrayList<>();
+      values.add(parseValue());
+      while (peek().type == TokenType.COMMA) {
+        next();
+        values.add(parseValue());
+      }
+      expect(TokenType.RIGHT_PAREN);
+      return Collections.unmodifiableList(values);
+    }
+
+    private Object parseValue() {
+      Token token = next();
+      switch (token.type) {
+        case STRING:
+          return token.text;
+        case NUMBER:
+          try {
+            if (token.text.contains(".")) {
+              return Double.parseDouble(token.text);
+            }
+            return Long.parseLong(token.text);
+          } catch (NumberFormatException e) {
+            throw invalidQuery(query, "invalid number " + token.text);
+          }
+        case IDENTIFIER:
+          if (token.isKeyword("true") || token.isKeyword("false")) {
+            return Boolean.parseBoolean(token.text.toLowerCase(Locale.ROOT));
+          }
+          // fallthrough
+        default:
+          throw invalidQuery(query, "expected a value, got \"" + token.text + "\"");
+      }
+    }
+
+    private Operator toOperator(String text) {
+      switch (text) {
+        case "=":
+          return Operator.EQ;
+        case "!=":
+        case "<>":
+          return Operator.NE;
+        case "<":
+          return Operator.LT;
+        case "<=":
+          return Operator.LE;
+        case ">":
+          return Operator.GT;
+        case ">=":
+          return Operator.GE;
+        default:
+          throw invalidQuery(query, "unsupported operator " + text);
+      }
+    }
+
+    private Token peek() {
+      return tokens.get(position);
+    }
+
+    private Token next() {
+      Token token = tokens.get(position);
+      if (token.type != TokenType.END) {
+        position++;
+      }
+      return token;
+    }
+
+    private Token expect(TokenType type) {
+      Token token = next();
+      if (token.type != type) {
+        throw invalidQuery(query, "expected " + type + ", got \"" + token.text + "\"");
+      }
+      return token;
+    }
+
+    private void expectKeyword(String keyword) {
+      Token token = next();
+      if (!token.isKeyword(keyword)) {
+        throw invalidQuery(query, "expected " + keyword + ", got \"" + token.text + "\"");
+      }
+    }
+
+    private static List<Token> tokenize(String query) {
+      List<Token> result = new ArrayList<>();
+      int i = 0;
+      while (i < query.length()) {
+        char c = query.charAt(i);
+        if (Character.isWhitespace(c)) {
+          i++;
+        } else if (c == '(') {
+          result.add(new Token(TokenType.LEFT_PAREN, "("));
+          i++;
+        } else if (c == ')') {
+          result.add(new Token(TokenType.RIGHT_PAREN, ")"));
+          i++;
+        } else if (c == ',') {
+          result.add(new Token(TokenType.COMMA, ","));
+          i++;
+        } else if (c == '\'' || c == '"' || c == '`') {
+          StringBuilder value = new StringBuilder();
+          int j = i + 1;
+          while (j < query.length() && query.charAt(j) != c) {
+            if (query.charAt(j) == '\\' && j + 1 < query.length()) {
+              j++;
+            }
+            value.append(query.charAt(j));
+            j++;
+          }
+          if (j >= query.length()) {
+            throw invalidQuery(query, "unterminated quote at " + i);
+          }
+          // backticks quote attribute names
+          result.add(
+              new Token(c == '`' ? TokenType.IDENTIFIER : TokenType.STRING, value.toString()));
+          i = j + 1;
+        } else if (c == '=' || c == '!' || c == '<' || c == '>') {
+          int j = i + 1;
+          if (j < query.length()
+              && (query.charAt(j) == '=' || (c == '<' && query.charAt(j) == '>'))) {
+            j++;
+          }
+          String operator = query.substring(i, j);
+          if (operator.equals("!")) {
+            throw invalidQuery(query, "unexpected ! at " + i);
+          }
+          result.add(new Token(TokenType.OPERATOR, operator));
+          i = j;
+        } else if (Character.isDigit(c) || c == '-') {
+          int j = i + 1;
+          while (j < query.length()
+              && (Character.isDigit(query.charAt(j)) || query.charAt(j) == '.')) {
+            j++;
+          }
+          result.add(new Token(TokenType.NUMBER, query.substring(i, j)));
+          i = j;
+        } else if (Character.isLetter(c) || c == '_') {
+          int j = i + 1;
+          while (j < query.length()
+              && (Character.isLetterOrDigit(query.charAt(j)) || query.charAt(j) == '_')) {
+            j++;
+          }
+          result.add(new Token(TokenType.IDENTIFIER, query.substring(i, j)));
+          i = j;
+        } else {
+          throw invalidQuery(query, "unexpected character '" + c + "' at " + i);
+        }
+      }
+      result.add(new Token(TokenType.END, "<end of query>"));
+      return result;
+    }
+  }
+}
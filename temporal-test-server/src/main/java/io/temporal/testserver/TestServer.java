@@ -5,6 +5,8 @@ import io.grpc.*;
 import io.temporal.internal.testservice.*;
 import java.io.Closeable;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Objects;
 import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -56,7 +58,33 @@ public class TestServer {
    * @param port the port to listen on
    */
   public static PortBoundTestServer createPortBoundServer(int port, boolean lockTimeSkipping) {
-    TestServicesStarter testServicesStarter = new TestServicesStarter(lockTimeSkipping, 0);
+    return createPortBoundServer(port, new TestServicesStarter(lockTimeSkipping, 0));
+  }
+
+  /**
+   * Creates an out-of-process server that persists workflow histories to the {@code
+   * storageDirectory}. Histories and visibility records written to the directory by a previous
+   * server are recovered on start, which allows long-running soak tests to outlive server restarts
+   * and to keep only the recently used histories on heap.
+   *
+   * @param port the port to listen on
+   * @param lockTimeSkipping true if the time skipping should be locked (disabled) by default after
+   *     creation of the server
+   * @param storageDirectory directory of the history segment files, created if it doesn't exist
+   */
+  public static PortBoundTestServer createPortBoundServer(
+      int port, boolean lockTimeSkipping, Path storageDirectory) {
+    return createPortBoundServer(
+        port,
+        new TestServicesStarter(
+            lockTimeSkipping,
+            0,
+            TestServicesStarter.DEFAULT_HISTORY_PAGE_SIZE,
+            Objects.requireNonNull(storageDirectory)));
+  }
+
+  private static PortBoundTestServer createPortBoundServer(
+      int port, TestServicesStarter testServicesStarter) {
     try {
       ServerBuilder<?> serverBuilder =
           Grpc.newServerBuilderForPort(port, InsecureServerCredentials.create());
@@ -94,8 +122,25 @@ public class TestServer {
    * @return created in-memory service
    */
   public static InProcessTestServer createServer(boolean lockTimeSkipping, long initialTimeMillis) {
-    TestServicesStarter testServicesStarter =
-        new TestServicesStarter(lockTimeSkipping, initialTimeMillis);
+    return createServer(new TestServicesStarter(lockTimeSkipping, initialTimeMillis));
+  }
+
+  /**
+   * @param lockTimeSkipping true if the time skipping should be locked (disabled) by default after
+   *     creation of the server
+   * @param initialTimeMillis initial timestamp for the test server, {@link
+   *     System#currentTimeMillis()} will be used if 0.
+   * @param historyPageSize maximum number of events in a single page of workflow history. Small
+   *     values can be used to exercise history pagination of the workers and clients.
+   * @return created in-memory service
+   */
+  public static InProcessTestServer createServer(
+      boolean lockTimeSkipping, long initialTimeMillis, int historyPageSize) {
+    return createServer(
+        new TestServicesStarter(lockTimeSkipping, initialTimeMillis, historyPageSize));
+  }
+
+  private static InProcessTestServer createServer(TestServicesStarter testServicesStarter) {
     InProcessGRPCServer inProcessServer =
         new InProcessGRPCServer(testServicesStarter.getServices());
     return new InProcessTestServer(testServicesStarter, inProcessServer);
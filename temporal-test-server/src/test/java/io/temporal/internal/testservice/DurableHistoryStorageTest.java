@@ -0,0 +1,151 @@
+package io.temporal.internal.testservice;
+
+import static org.junit.Assert.*;
+
+import io.temporal.api.enums.v1.EventType;
+import io.temporal.api.history.v1.HistoryEvent;
+import io.temporal.api.history.v1.WorkflowExecutionSignaledEventAttributes;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DurableHistoryStorageTest {
+
+  private static final ExecutionId EXECUTION_1 = new ExecutionId("namespace", "workflow1", "run1");
+  private static final ExecutionId EXECUTION_2 = new ExecutionId("namespace", "workflow2", "run2");
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testEventsAreRecoveredAfterReopening() throws Exception {
+    Path directory = folder.getRoot().toPath();
+    // small segments to exercise the segment rolling
+    DurableHistoryStorage storage = new DurableHistoryStorage(directory, 1024);
+    for (int i = 1; i <= 100; i++) {
+      storage.append(EXECUTION_1, event(i));
+      if (i % 2 == 0) {
+        storage.append(EXECUTION_2, event(i / 2));
+      }
+    }
+    assertEquals(100, storage.getEventCount(EXECUTION_1));
+    assertEquals(37, storage.read(EXECUTION_1, 36).getEventId());
+    storage.close();
+    assertTrue(folder.getRoot().list().length > 1);
+
+    DurableHistoryStorage recovered = new DurableHistoryStorage(directory, 1024);
+    assertEquals(Arrays.asList(EXECUTION_1, EXECUTION_2), recovered.getExecutionIds());
+    assertEquals(100, recovered.getEventCount(EXECUTION_1));
+    assertEquals(50, recovered.getEventCount(EXECUTION_2));
+    List<HistoryEvent> events = recovered.readAll(EXECUTION_2);
+    for (int i = 0; i < events.size(); i++) {
+      assertEquals(event(i + 1), events.get(i));
+    }
+
+    // appends continue after the recovered events
+    recovered.append(EXECUTION_2, event(51));
+    recovered.close();
+    assertEquals(event(51), new DurableHistoryStorage(directory, 1024).read(EXECUTION_2, 50));
+  }
+
+  @Test
+  public void testPartiallyWrittenRecordIsIgnored() throws Exception {
+    Path directory = folder.getRoot().toPath();
+    DurableHistoryStorage storage = new DurableHistoryStorage(directory, 4096);
+    storage.append(EXECUTION_1, event(1));
+    storage.append(EXECUTION_1, event(2));
+    storage.close();
+
+    tearLastRecord(folder.getRoot().listFiles()[0]);
+
+    DurableHistoryStorage recovered = new DurableHistoryStorage(directory, 4096);
+    assertEquals(1, recovered.getEventCount(EXECUTION_1));
+    recovered.append(EXECUTION_1, event(2));
+    assertEquals(Arrays.asList(event(1), event(2)), recovered.readAll(EXECUTION_1));
+  }
+
+  @Test
+  public void testTornRecordIsClearedOnRecovery() throws Exception {
+    Path directory = folder.getRoot().toPath();
+    DurableHistoryStorage storage = new DurableHistoryStorage(directory, 4096);
+    storage.append(EXECUTION_1, event(1));
+    storage.append(EXECUTION_1, event(2, 1000));
+    storage.close();
+
+    File segment = folder.getRoot().listFiles()[0];
+    int tornRecord = tearLastRecord(segment);
+
+    DurableHistoryStorage recovered = new DurableHistoryStorage(directory, 4096);
+    assertEquals(1, recovered.getEventCount(EXECUTION_1));
+    // the body of the torn record is not left after the shorter record that replaces it
+    try (RandomAccessFile file = new RandomAccessFile(segment, "r")) {
+      file.seek(tornRecord);
+      while (file.getFilePointer() < file.length()) {
+        assertEquals(0, file.readByte());
+      }
+    }
+    recovered.append(EXECUTION_1, event(2));
+    recovered.append(EXECUTION_1, event(3));
+    recovered.close();
+
+    assertEquals(
+        Arrays.asList(event(1), event(2), event(3)),
+        new DurableHistoryStorage(directory, 4096).readAll(EXECUTION_1));
+  }
+
+  @Test
+  public void testCloseIsIdempotent() {
+    DurableHistoryStorage storage = new DurableHistoryStorage(folder.getRoot().toPath(), 4096);
+    storage.append(EXECUTION_1, event(1));
+    storage.close();
+    storage.close();
+    assertThrows(IllegalStateException.class, () -> storage.append(EXECUTION_1, event(2)));
+  }
+
+  /**
+   * Emulates a crash between writing the body of the last record and publishing its length.
+   *
+   * @return position of the torn record
+   */
+  private static int tearLastRecord(File segment) throws IOException {
+    try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+      int position = 0;
+      int lastRecord = 0;
+      while (true) {
+        file.seek(position);
+        int length = file.readInt();
+        if (length == 0) {
+          break;
+        }
+        lastRecord = position;
+        position += Integer.BYTES + length;
+      }
+      file.seek(lastRecord);
+      file.writeInt(0);
+      return lastRecord;
+    }
+  }
+
+  private static HistoryEvent event(long eventId) {
+    return event(eventId, 0);
+  }
+
+  private static HistoryEvent event(long eventId, int padding) {
+    StringBuilder signalName = new StringBuilder("signal").append(eventId);
+    for (int i = 0; i < padding; i++) {
+      signalName.append('.');
+    }
+    return HistoryEvent.newBuilder()
+        .setEventId(eventId)
+        .setEventType(EventType.EVENT_TYPE_WORKFLOW_EXECUTION_SIGNALED)
+        .setWorkflowExecutionSignaledEventAttributes(
+            WorkflowExecutionSignaledEventAttributes.newBuilder()
+                .setSignalName(signalName.toString()))
+        .build();
+  }
+}
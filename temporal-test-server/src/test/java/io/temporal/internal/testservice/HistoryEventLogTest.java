@@ -0,0 +1,32 @@
+package io.temporal.internal.testservice;
+
+import static org.junit.Assert.*;
+
+import io.temporal.api.history.v1.HistoryEvent;
+import java.util.List;
+import org.junit.Test;
+
+public class HistoryEventLogTest {
+
+  @Test
+  public void testSnapshotIsNotAffectedByAppends() {
+    HistoryEventLog log = new HistoryEventLog();
+    for (int i = 1; i <= 300; i++) {
+      log.add(HistoryEvent.newBuilder().setEventId(i).build());
+    }
+    List<HistoryEvent> snapshot = log.snapshot();
+    for (int i = 301; i <= 1000; i++) {
+      log.add(HistoryEvent.newBuilder().setEventId(i).build());
+    }
+
+    assertEquals(300, snapshot.size());
+    assertEquals(1000, log.size());
+    for (int i = 0; i < snapshot.size(); i++) {
+      assertEquals(i + 1, snapshot.get(i).getEventId());
+    }
+    assertEquals(1000, log.getLast().getEventId());
+    assertEquals(300, snapshot.get(snapshot.size() - 1).getEventId());
+    assertThrows(IndexOutOfBoundsException.class, () -> snapshot.get(300));
+    assertThrows(UnsupportedOperationException.class, () -> snapshot.add(log.getLast()));
+  }
+}
@@ -2,16 +2,33 @@ package io.temporal.internal.testservice;
 
 import static org.junit.Assert.*;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.protobuf.ByteString;
+import com.google.protobuf.util.Timestamps;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
 import io.temporal.api.common.v1.Payload;
 import io.temporal.api.common.v1.SearchAttributes;
+import io.temporal.api.common.v1.WorkflowType;
 import io.temporal.api.enums.v1.IndexedValueType;
+import io.temporal.api.enums.v1.WorkflowExecutionStatus;
+import io.temporal.api.history.v1.WorkflowExecutionStartedEventAttributes;
+import io.temporal.api.taskqueue.v1.TaskQueue;
+import io.temporal.api.workflow.v1.WorkflowExecutionInfo;
+import io.temporal.api.workflowservice.v1.CountWorkflowExecutionsRequest;
+import io.temporal.api.workflowservice.v1.ListWorkflowExecutionsRequest;
+import io.temporal.api.workflowservice.v1.ListWorkflowExecutionsResponse;
 import io.temporal.internal.common.ProtoEnumNameUtils;
+import io.temporal.internal.common.SearchAttributesUtil;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import org.junit.Test;
 
 public class TestVisibilityStoreImplTest {
   private static final String METADATA_TYPE_KEY = "type";
   private static final String DEFAULT_KEY_INTEGER = "CustomIntField";
+  private static final String NAMESPACE = "test-namespace";
 
   @Test
   public void testTypeMetadataIsAddedToPayloads() {
@@ -89,4 +106,159 @@ public class TestVisibilityStoreImplTest {
       assertTrue("Should be a validation error", e.getMessage().contains("invalid value"));
     }
   }
+
+  @Test
+  public void testListWorkflowExecutionsQuery() {
+    TestVisibilityStoreImpl visibilityStore = new TestVisibilityStoreImpl();
+    for (int i = 0; i < 10; i++) {
+      ExecutionId executionId = new ExecutionId(NAMESPACE, "workflow-" + i, "run-" + i);
+      visibilityStore.recordWorkflowStarted(
+          executionId,
+          WorkflowExecutionStartedEventAttributes.newBuilder()
+              .setWorkflowType(WorkflowType.newBuilder().setName(i % 2 == 0 ? "even" : "odd"))
+              .setTaskQueue(TaskQueue.newBuilder().setName("taskQueue"))
+              .build(),
+          Timestamps.fromSeconds(1000 + i));
+      visibilityStore.upsertSearchAttributesForExecution(
+          executionId, SearchAttributesUtil.encode(ImmutableMap.of(DEFAULT_KEY_INTEGER, i)));
+      if (i < 3) {
+        visibilityStore.recordWorkflowClosed(
+            executionId,
+            WorkflowExecutionStatus.WORKFLOW_EXECUTION_STATUS_COMPLETED,
+            Timestamps.fromSeconds(2000 + i),
+            10);
+      }
+    }
+    visibilityStore.recordWorkflowStarted(
+        new ExecutionId("other-namespace", "workflow-0", "run-other"),
+        WorkflowExecutionStartedEventAttributes.newBuilder()
+            .setWorkflowType(WorkflowType.newBuilder().setName("even"))
+            .build(),
+        Timestamps.fromSeconds(1000));
+
+    assertEquals(
+        Arrays.asList("workflow-9", "workflow-8", "workflow-7"), list(visibilityStore, "", 3));
+    assertEquals(
+        Arrays.asList("workflow-4", "workflow-6", "workflow-8"),
+        list(
+            visibilityStore,
+            "WorkflowType = 'even' AND ExecutionStatus = 'Running' ORDER BY StartTime ASC",
+            0));
+    assertEquals(
+        Arrays.asList("workflow-9", "workflow-8", "workflow-7", "workflow-4", "workflow-1"),
+        list(
+            visibilityStore,
+            "(CustomIntField >= 7 OR CustomIntField IN (1, 4)) ORDER BY CustomIntField DESC",
+            0));
+    assertEquals(
+        Arrays.asList("workflow-2", "workflow-3"),
+        list(
+            visibilityStore,
+            "CustomIntField BETWEEN 2 AND 5 AND WorkflowId NOT IN ('workflow-4', 'workflow-5')"
+                + " ORDER BY WorkflowId ASC",
+            0));
+    assertEquals(
+        Arrays.asList("workflow-1", "workflow-2"),
+        list(
+            visibilityStore,
+            "CloseTime > '1970-01-01T00:33:20.5Z' AND ExecutionStatus != 'Running'"
+                + " ORDER BY CloseTime ASC",
+            0));
+
+    ListWorkflowExecutionsResponse response =
+        visibilityStore.listWorkflowExecutions(
+            ListWorkflowExecutionsRequest.newBuilder()
+                .setNamespace(NAMESPACE)
+                .setQuery("WorkflowId = 'workflow-0'")
+                .build());
+    WorkflowExecutionInfo info = response.getExecutions(0);
+    assertEquals("run-0", info.getExecution().getRunId());
+    assertEquals(WorkflowExecutionStatus.WORKFLOW_EXECUTION_STATUS_COMPLETED, info.getStatus());
+    assertEquals(10, info.getHistoryLength());
+    assertTrue(info.getSearchAttributes().containsIndexedFields(DEFAULT_KEY_INTEGER));
+
+    assertEquals(
+        7,
+        visibilityStore
+            .countWorkflowExecutions(
+                CountWorkflowExecutionsRequest.newBuilder()
+                    .setNamespace(NAMESPACE)
+                    .setQuery("ExecutionStatus = 'Running'")
+                    .build())
+            .getCount());
+
+    // updates of the search attributes replace the indexed values
+    visibilityStore.upsertSearchAttributesForExecution(
+        new ExecutionId(NAMESPACE, "workflow-9", "run-9"),
+        SearchAttributesUtil.encode(ImmutableMap.of(DEFAULT_KEY_INTEGER, 100)));
+    assertEquals(
+        Arrays.asList("workflow-9"), list(visibilityStore, "CustomIntField > 8", 0));
+
+    StatusRuntimeException e =
+        assertThrows(
+            StatusRuntimeException.class, () -> list(visibilityStore, "UnknownField = 1", 0));
+    assertEquals(Status.Code.INVALID_ARGUMENT, e.getStatus().getCode());
+    e =
+        assertThrows(
+            StatusRuntimeException.class, () -> list(visibilityStore, "WorkflowId = ", 0));
+    assertEquals(Status.Code.INVALID_ARGUMENT, e.getStatus().getCode());
+    e =
+        assertThrows(
+            StatusRuntimeException.class,
+            () -> list(visibilityStore, "CustomIntField = 'abc'", 0));
+    assertEquals(Status.Code.INVALID_ARGUMENT, e.getStatus().getCode());
+  }
+
+  @Test
+  public void testListWorkflowExecutionsPagination() {
+    TestVisibilityStoreImpl visibilityStore = new TestVisibilityStoreImpl();
+    for (int i = 0; i < 7; i++) {
+      visibilityStore.recordWorkflowStarted(
+          new ExecutionId(NAMESPACE, "workflow-" + i, "run-" + i),
+          WorkflowExecutionStartedEventAttributes.getDefaultInstance(),
+          Timestamps.fromSeconds(1000 + i));
+    }
+    List<String> workflowIds = new ArrayList<>();
+    ByteString nextPageToken = ByteString.EMPTY;
+    int pages = 0;
+    do {
+      ListWorkflowExecutionsResponse response =
+          visibilityStore.listWorkflowExecutions(
+              ListWorkflowExecutionsRequest.newBuilder()
+                  .setNamespace(NAMESPACE)
+                  .setPageSize(3)
+                  .setNextPageToken(nextPageToken)
+                  .build());
+      response
+          .getExecutionsList()
+          .forEach(e -> workflowIds.add(e.getExecution().getWorkflowId()));
+      nextPageToken = response.getNextPageToken();
+      pages++;
+    } while (!nextPageToken.isEmpty());
+    assertEquals(3, pages);
+    assertEquals(
+        Arrays.asList(
+            "workflow-6",
+            "workflow-5",
+            "workflow-4",
+            "workflow-3",
+            "workflow-2",
+            "workflow-1",
+            "workflow-0"),
+        workflowIds);
+  }
+
+  private List<String> list(TestVisibilityStoreImpl visibilityStore, String query, int pageSize) {
+    List<String> result = new ArrayList<>();
+    visibilityStore
+        .listWorkflowExecutions(
+            ListWorkflowExecutionsRequest.newBuilder()
+                .setNamespace(NAMESPACE)
+                .setQuery(query)
+                .setPageSize(pageSize)
+                .build())
+        .getExecutionsList()
+        .forEach(e -> result.add(e.getExecution().getWorkflowId()));
+    return result;
+  }
 }
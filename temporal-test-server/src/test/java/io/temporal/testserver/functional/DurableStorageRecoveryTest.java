@@ -0,0 +1,130 @@
+package io.temporal.testserver.functional;
+
+import static io.temporal.internal.common.InternalUtils.createNormalTaskQueue;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import io.temporal.api.command.v1.Command;
+import io.temporal.api.command.v1.CompleteWorkflowExecutionCommandAttributes;
+import io.temporal.api.common.v1.WorkflowExecution;
+import io.temporal.api.enums.v1.CommandType;
+import io.temporal.api.enums.v1.WorkflowExecutionStatus;
+import io.temporal.api.workflow.v1.WorkflowExecutionInfo;
+import io.temporal.api.workflowservice.v1.ListClosedWorkflowExecutionsRequest;
+import io.temporal.api.workflowservice.v1.ListOpenWorkflowExecutionsRequest;
+import io.temporal.api.workflowservice.v1.PollWorkflowTaskQueueResponse;
+import io.temporal.api.workflowservice.v1.RespondWorkflowTaskCompletedRequest;
+import io.temporal.internal.testservice.InProcessGRPCServer;
+import io.temporal.internal.testservice.TestServicesStarter;
+import io.temporal.serviceclient.WorkflowServiceStubs;
+import io.temporal.serviceclient.WorkflowServiceStubsOptions;
+import io.temporal.testing.internal.TestServiceUtils;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DurableStorageRecoveryTest {
+
+  private static final String NAMESPACE = "namespace";
+  private static final String TASK_QUEUE = "taskQueue";
+  private static final String WORKFLOW_TYPE = "wfType";
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private TestServicesStarter testServicesStarter;
+  private InProcessGRPCServer inProcessServer;
+  private WorkflowServiceStubs workflowServiceStubs;
+
+  @After
+  public void tearDown() {
+    stopServer();
+  }
+
+  @Test
+  public void openExecutionIsResumedAfterRestart() throws Exception {
+    startServer();
+    TestServiceUtils.startWorkflowExecution(
+        NAMESPACE, TASK_QUEUE, WORKFLOW_TYPE, workflowServiceStubs);
+    PollWorkflowTaskQueueResponse task = pollWorkflowTask();
+    workflowServiceStubs
+        .blockingStub()
+        .respondWorkflowTaskCompleted(
+            RespondWorkflowTaskCompletedRequest.newBuilder()
+                .setTaskToken(task.getTaskToken())
+                .build());
+    WorkflowExecution execution = task.getWorkflowExecution();
+    // schedules a workflow task that is not dispatched before the restart
+    TestServiceUtils.signalWorkflow(execution, NAMESPACE, workflowServiceStubs);
+    stopServer();
+
+    startServer();
+    assertEquals(1, listOpenWorkflows().size());
+    task = pollWorkflowTask();
+    assertEquals(execution, task.getWorkflowExecution());
+    workflowServiceStubs
+        .blockingStub()
+        .respondWorkflowTaskCompleted(
+            RespondWorkflowTaskCompletedRequest.newBuilder()
+                .setTaskToken(task.getTaskToken())
+                .addCommands(
+                    Command.newBuilder()
+                        .setCommandType(CommandType.COMMAND_TYPE_COMPLETE_WORKFLOW_EXECUTION)
+                        .setCompleteWorkflowExecutionCommandAttributes(
+                            CompleteWorkflowExecutionCommandAttributes.getDefaultInstance()))
+                .build());
+    stopServer();
+
+    startServer();
+    assertTrue(listOpenWorkflows().isEmpty());
+    List<WorkflowExecutionInfo> closed =
+        workflowServiceStubs
+            .blockingStub()
+            .listClosedWorkflowExecutions(
+                ListClosedWorkflowExecutionsRequest.newBuilder().setNamespace(NAMESPACE).build())
+            .getExecutionsList();
+    assertEquals(1, closed.size());
+    assertEquals(execution, closed.get(0).getExecution());
+    assertEquals(
+        WorkflowExecutionStatus.WORKFLOW_EXECUTION_STATUS_COMPLETED, closed.get(0).getStatus());
+  }
+
+  private void startServer() {
+    testServicesStarter =
+        new TestServicesStarter(
+            true, 0, TestServicesStarter.DEFAULT_HISTORY_PAGE_SIZE, folder.getRoot().toPath());
+    inProcessServer = new InProcessGRPCServer(testServicesStarter.getServices());
+    workflowServiceStubs =
+        WorkflowServiceStubs.newServiceStubs(
+            WorkflowServiceStubsOptions.newBuilder()
+                .setChannel(inProcessServer.getChannel())
+                .validateAndBuildWithDefaults());
+  }
+
+  private void stopServer() {
+    if (testServicesStarter == null) {
+      return;
+    }
+    workflowServiceStubs.shutdownNow();
+    workflowServiceStubs.awaitTermination(1, TimeUnit.SECONDS);
+    inProcessServer.shutdown();
+    inProcessServer.awaitTermination(1, TimeUnit.SECONDS);
+    testServicesStarter.close();
+    testServicesStarter = null;
+  }
+
+  private PollWorkflowTaskQueueResponse pollWorkflowTask() throws Exception {
+    return TestServiceUtils.pollWorkflowTaskQueue(
+        NAMESPACE, createNormalTaskQueue(TASK_QUEUE), workflowServiceStubs);
+  }
+
+  private List<WorkflowExecutionInfo> listOpenWorkflows() {
+    return workflowServiceStubs
+        .blockingStub()
+        .listOpenWorkflowExecutions(
+            ListOpenWorkflowExecutionsRequest.newBuilder().setNamespace(NAMESPACE).build())
+        .getExecutionsList();
+  }
+}
@@ -0,0 +1,145 @@
+package io.temporal.testserver.functional;
+
+import static io.temporal.internal.common.InternalUtils.createNormalTaskQueue;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.google.protobuf.ByteString;
+import io.temporal.api.common.v1.WorkflowExecution;
+import io.temporal.api.enums.v1.EventType;
+import io.temporal.api.history.v1.HistoryEvent;
+import io.temporal.api.workflowservice.v1.GetWorkflowExecutionHistoryRequest;
+import io.temporal.api.workflowservice.v1.GetWorkflowExecutionHistoryResponse;
+import io.temporal.api.workflowservice.v1.PollWorkflowTaskQueueResponse;
+import io.temporal.api.workflowservice.v1.RespondWorkflowTaskCompletedRequest;
+import io.temporal.serviceclient.WorkflowServiceStubs;
+import io.temporal.serviceclient.WorkflowServiceStubsOptions;
+import io.temporal.testing.internal.TestServiceUtils;
+import io.temporal.testserver.TestServer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class HistoryPaginationTest {
+
+  private static final String NAMESPACE = "namespace";
+  private static final String TASK_QUEUE = "taskQueue";
+  private static final String WORKFLOW_TYPE = "wfType";
+  private static final int PAGE_SIZE = 5;
+  private static final int SIGNALS = 10;
+
+  private TestServer.InProcessTestServer testServer;
+  private WorkflowServiceStubs workflowServiceStubs;
+
+  @Before
+  public void setUp() {
+    this.testServer = TestServer.createServer(true, 0, PAGE_SIZE);
+    this.workflowServiceStubs =
+        WorkflowServiceStubs.newServiceStubs(
+            WorkflowServiceStubsOptions.newBuilder()
+                .setChannel(testServer.getChannel())
+                .validateAndBuildWithDefaults());
+  }
+
+  @After
+  public void tearDown() {
+    this.workflowServiceStubs.shutdownNow();
+    this.workflowServiceStubs.awaitTermination(1, TimeUnit.SECONDS);
+    this.testServer.close();
+  }
+
+  @Test
+  public void workflowTaskHistoryIsPaginated() throws Exception {
+    WorkflowExecution execution = startWorkflowWithSignals();
+    PollWorkflowTaskQueueResponse task =
+        TestServiceUtils.pollWorkflowTaskQueue(
+            NAMESPACE, createNormalTaskQueue(TASK_QUEUE), workflowServiceStubs);
+
+    assertEquals(PAGE_SIZE, task.getHistory().getEventsCount());
+    assertFalse(task.getNextPageToken().isEmpty());
+
+    List<HistoryEvent> events = new ArrayList<>(task.getHistory().getEventsList());
+    events.addAll(fetchAllPages(execution, task.getNextPageToken(), 0));
+
+    // started, scheduled, started, completed, signals, scheduled, started
+    assertEquals(4 + SIGNALS + 2, events.size());
+    assertEventIdsAreSequential(events);
+    assertEquals(
+        EventType.EVENT_TYPE_WORKFLOW_TASK_STARTED, events.get(events.size() - 1).getEventType());
+    assertEquals(task.getStartedEventId(), events.get(events.size() - 1).getEventId());
+  }
+
+  @Test
+  public void maximumPageSizeIsRespected() throws Exception {
+    WorkflowExecution execution = startWorkflowWithSignals();
+    GetWorkflowExecutionHistoryResponse firstPage =
+        workflowServiceStubs
+            .blockingStub()
+            .getWorkflowExecutionHistory(
+                GetWorkflowExecutionHistoryRequest.newBuilder()
+                    .setNamespace(NAMESPACE)
+                    .setExecution(execution)
+                    .setMaximumPageSize(3)
+                    .build());
+    assertEquals(3, firstPage.getHistory().getEventsCount());
+    assertFalse(firstPage.getNextPageToken().isEmpty());
+
+    List<HistoryEvent> events = new ArrayList<>(firstPage.getHistory().getEventsList());
+    events.addAll(fetchAllPages(execution, firstPage.getNextPageToken(), 3));
+    // started, scheduled, started, completed, signals, scheduled
+    assertEquals(4 + SIGNALS + 1, events.size());
+    assertEventIdsAreSequential(events);
+  }
+
+  private WorkflowExecution startWorkflowWithSignals() throws Exception {
+    TestServiceUtils.startWorkflowExecution(
+        NAMESPACE, TASK_QUEUE, WORKFLOW_TYPE, workflowServiceStubs);
+    PollWorkflowTaskQueueResponse task =
+        TestServiceUtils.pollWorkflowTaskQueue(
+            NAMESPACE, createNormalTaskQueue(TASK_QUEUE), workflowServiceStubs);
+    assertTrue(task.getNextPageToken().isEmpty());
+    workflowServiceStubs
+        .blockingStub()
+        .respondWorkflowTaskCompleted(
+            RespondWorkflowTaskCompletedRequest.newBuilder()
+                .setTaskToken(task.getTaskToken())
+                .build());
+    WorkflowExecution execution = task.getWorkflowExecution();
+    for (int i = 0; i < SIGNALS; i++) {
+      TestServiceUtils.signalWorkflow(execution, NAMESPACE, workflowServiceStubs);
+    }
+    return execution;
+  }
+
+  private List<HistoryEvent> fetchAllPages(
+      WorkflowExecution execution, ByteString nextPageToken, int maximumPageSize) {
+    List<HistoryEvent> result = new ArrayList<>();
+    while (!nextPageToken.isEmpty()) {
+      GetWorkflowExecutionHistoryResponse page =
+          workflowServiceStubs
+              .blockingStub()
+              .getWorkflowExecutionHistory(
+                  GetWorkflowExecutionHistoryRequest.newBuilder()
+                      .setNamespace(NAMESPACE)
+                      .setExecution(execution)
+                      .setMaximumPageSize(maximumPageSize)
+                      .setNextPageToken(nextPageToken)
+                      .build());
+      int expectedPageSize = maximumPageSize > 0 ? maximumPageSize : PAGE_SIZE;
+      assertTrue(page.getHistory().getEventsCount() <= expectedPageSize);
+      result.addAll(page.getHistory().getEventsList());
+      nextPageToken = page.getNextPageToken();
+    }
+    return result;
+  }
+
+  private static void assertEventIdsAreSequential(List<HistoryEvent> events) {
+    for (int i = 0; i < events.size(); i++) {
+      assertEquals(i + 1, events.get(i).getEventId());
+    }
+  }
+}